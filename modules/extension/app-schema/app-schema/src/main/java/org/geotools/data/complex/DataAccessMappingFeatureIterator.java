@@ -24,6 +24,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -35,6 +36,7 @@ import org.geotools.data.DataAccess;
 import org.geotools.data.DataSourceException;
 import org.geotools.data.FeatureSource;
 import org.geotools.data.Query;
+import org.geotools.data.complex.config.AppSchemaDataAccessConfigurator;
 import org.geotools.data.complex.config.NonFeatureTypeProxy;
 import org.geotools.data.complex.filter.XPath;
 import org.geotools.data.complex.filter.XPathUtil.Step;
@@ -130,6 +132,22 @@ public class DataAccessMappingFeatureIterator extends AbstractMappingFeatureIter
      */
     private Filter listFilter;
 
+    /**
+     * Number of upcoming source features whose nested features are fetched together, 0 if nested
+     * features are fetched one parent at a time.
+     */
+    private int nestedBatchSize;
+
+    /**
+     * The source features iterator, when nested features are fetched in batches
+     */
+    private LookAheadFeatureIterator lookAhead;
+
+    /**
+     * The nested features of the current batch, per nested attribute mapping
+     */
+    private Map<NestedAttributeMapping, NestedFeatureBatch> nestedBatches;
+
     public DataAccessMappingFeatureIterator(AppSchemaDataAccess store, FeatureTypeMapping mapping,
             Query query, boolean isFiltered) throws IOException {
         this(store, mapping, query, null);
@@ -378,6 +396,14 @@ public class DataAccessMappingFeatureIterator extends AbstractMappingFeatureIter
         }
         if (!(this instanceof XmlMappingFeatureIterator)) {
             this.sourceFeatureIterator = sourceFeatures.features();
+            if (!(query instanceof JoiningQuery)) {
+                nestedBatchSize = AppSchemaDataAccessConfigurator.getNestedBatchSize();
+                if (nestedBatchSize > 0) {
+                    lookAhead = new LookAheadFeatureIterator(sourceFeatureIterator);
+                    nestedBatches = new HashMap<NestedAttributeMapping, NestedFeatureBatch>();
+                    this.sourceFeatureIterator = lookAhead;
+                }
+            }
         }
 
         // NC - joining nested atts
@@ -528,8 +554,8 @@ public class DataAccessMappingFeatureIterator extends AbstractMappingFeatureIter
                         nestedFeatures.addAll(((NestedAttributeMapping) attMapping)
                                 .getInputFeatures(this, val, getIdValues(source), source, reprojection, selectedProperties, includeMandatory));
                     } else {
-                        nestedFeatures.addAll(((NestedAttributeMapping) attMapping).getFeatures(
-                                this, val, getIdValues(source), reprojection, source, selectedProperties, includeMandatory));
+                        nestedFeatures.addAll(getNestedFeatures(
+                                (NestedAttributeMapping) attMapping, val, source, selectedProperties));
                     }
                 }
                 values = nestedFeatures;
@@ -540,8 +566,8 @@ public class DataAccessMappingFeatureIterator extends AbstractMappingFeatureIter
                 // and gsml:MappedFeature/gsml:specification/gsml:GeologicUnit
                 values = ((NestedAttributeMapping) attMapping).getInputFeatures(this, values, getIdValues(source), source, reprojection, selectedProperties, includeMandatory);
             } else {
-                values = ((NestedAttributeMapping) attMapping).getFeatures(this, values, getIdValues(source), reprojection,
-                        source, selectedProperties, includeMandatory);
+                values = getNestedFeatures((NestedAttributeMapping) attMapping, values, source,
+                        selectedProperties);
             }
             if (isHRefLink) {
                 // only need to set the href link value, not the nested feature properties
@@ -603,6 +629,61 @@ public class DataAccessMappingFeatureIterator extends AbstractMappingFeatureIter
         return instance;
     }
 
+    /**
+     * Gets the nested features linked to the specified foreign key value. When batching is
+     * enabled, the nested features of the upcoming source features are fetched at the same time
+     * with a single query, so that the following calls are served from memory.
+     */
+    private List<Feature> getNestedFeatures(NestedAttributeMapping nestedMapping,
+            Object foreignKeyValue, Object source, List<PropertyName> selectedProperties)
+            throws IOException {
+        NestedFeatureBatch batch = null;
+        if (lookAhead != null && foreignKeyValue != null
+                && !(nestedMapping instanceof JoiningNestedAttributeMapping)) {
+            if (nestedBatches.containsKey(nestedMapping)) {
+                batch = nestedBatches.get(nestedMapping);
+            } else {
+                // null if the mapping can't be batched, e.g. polymorphic
+                batch = nestedMapping.createBatch(reprojection, source, selectedProperties,
+                        includeMandatory);
+                nestedBatches.put(nestedMapping, batch);
+            }
+        }
+        if (batch == null) {
+            return nestedMapping.getFeatures(this, foreignKeyValue, getIdValues(source),
+                    reprojection, source, selectedProperties, includeMandatory);
+        }
+        if (!batch.isLoaded(foreignKeyValue)) {
+            List<Object> keys = new ArrayList<Object>();
+            keys.add(foreignKeyValue);
+            for (Feature next : lookAhead.peek(nestedBatchSize)) {
+                collectForeignKeys(getValues(nestedMapping.isMultiValued(),
+                        nestedMapping.getSourceExpression(), next), keys);
+            }
+            batch.load(keys);
+        }
+        return batch.get(foreignKeyValue);
+    }
+
+    private void collectForeignKeys(Object values, List<Object> keys) {
+        if (values instanceof Collection) {
+            for (Object val : (Collection) values) {
+                if (val instanceof Attribute) {
+                    val = ((Attribute) val).getValue();
+                    if (val instanceof Collection) {
+                        val = ((Collection) val).isEmpty() ? null : ((Collection) val)
+                                .iterator().next();
+                    }
+                }
+                if (val != null) {
+                    keys.add(val);
+                }
+            }
+        } else if (values != null) {
+            keys.add(values);
+        }
+    }
+
     /**
      * Special handling for polymorphic mapping where the value of the attribute determines that
      * this attribute should be a placeholder for an xlink:href.
@@ -1092,6 +1173,8 @@ public class DataAccessMappingFeatureIterator extends AbstractMappingFeatureIter
             sourceFeatures = null;
             filteredFeatures = null;
             listFilter = null;
+            lookAhead = null;
+            nestedBatches = null;
 
             //NC - joining nested atts
             for (AttributeMapping attMapping : selectedMapping) {
@@ -1236,4 +1319,44 @@ public class DataAccessMappingFeatureIterator extends AbstractMappingFeatureIter
         }
         return (Boolean) o;
     }
+
+    /**
+     * Wraps the source features iterator to allow peeking at the upcoming source features.
+     */
+    private static class LookAheadFeatureIterator implements FeatureIterator<Feature> {
+
+        private final FeatureIterator<? extends Feature> delegate;
+
+        private final LinkedList<Feature> buffer = new LinkedList<Feature>();
+
+        LookAheadFeatureIterator(FeatureIterator<? extends Feature> delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * Returns at most the specified number of upcoming features, without consuming them.
+         */
+        List<Feature> peek(int count) {
+            while (buffer.size() < count && delegate.hasNext()) {
+                buffer.add(delegate.next());
+            }
+            return buffer.size() <= count ? buffer : buffer.subList(0, count);
+        }
+
+        public boolean hasNext() {
+            return !buffer.isEmpty() || delegate.hasNext();
+        }
+
+        public Feature next() {
+            if (!buffer.isEmpty()) {
+                return buffer.removeFirst();
+            }
+            return delegate.next();
+        }
+
+        public void close() {
+            buffer.clear();
+            delegate.close();
+        }
+    }
 }
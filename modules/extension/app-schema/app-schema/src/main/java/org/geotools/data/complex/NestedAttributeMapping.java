@@ -407,6 +407,44 @@ public class NestedAttributeMapping extends AttributeMapping {
         return matchingFeatures;
     }
 
+    /**
+     * Creates a batch resolving the nested features of several link values with a single query,
+     * see {@link NestedFeatureBatch}. The query is the one of
+     * {@link #getFeatures(Object, Object, List, CoordinateReferenceSystem, Object, List, boolean)}
+     * , with an {@code OR} of the link value filters.
+     *
+     * @return the batch, or null if the nested features cannot be fetched in batches (polymorphic
+     *         or same source mappings)
+     * @throws IOException
+     */
+    public NestedFeatureBatch createBatch(CoordinateReferenceSystem reprojection, Object feature,
+            List<PropertyName> selectedProperties, boolean includeMandatory) throws IOException {
+        if (isSameSource() || isConditional) {
+            return null;
+        }
+        FeatureSource<FeatureType, Feature> fSource = getMappingSource(feature);
+        if (!(fSource instanceof MappingFeatureSource)) {
+            return null;
+        }
+
+        Query query = new Query();
+        query.setCoordinateSystemReproject(reprojection);
+
+        PropertyName propertyName = filterFac.property(this.nestedTargetXPath.toString());
+        if (selectedProperties != null) {
+            selectedProperties = new ArrayList<PropertyName>(selectedProperties);
+            selectedProperties.add(propertyName);
+        }
+
+        final Hints hints = new Hints();
+        hints.put(Query.INCLUDE_MANDATORY_PROPS, includeMandatory);
+        query.setHints(hints);
+
+        query.setProperties(selectedProperties);
+
+        return new NestedFeatureBatch(fSource, propertyName, filterFac, query);
+    }
+
     protected FeatureSource<FeatureType, Feature> getMappingSource(Object feature)
             throws IOException {
 
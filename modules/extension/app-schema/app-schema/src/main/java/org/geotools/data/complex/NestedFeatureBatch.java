@@ -0,0 +1,203 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.complex;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.geotools.data.FeatureSource;
+import org.geotools.data.Query;
+import org.geotools.feature.FeatureCollection;
+import org.geotools.feature.FeatureIterator;
+import org.opengis.feature.Attribute;
+import org.opengis.feature.Feature;
+import org.opengis.feature.type.FeatureType;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory;
+import org.opengis.filter.expression.PropertyName;
+
+/**
+ * Resolves the nested features of a page of parent features with a single query, instead of
+ * running one query per parent feature and foreign key value.
+ * <p>
+ * The foreign key values of the page are collected by the caller and {@linkplain #load loaded}
+ * at once: the nested features matching any of them are fetched with an {@code OR} of equality
+ * filters on the link property, which the JDBC stores encode as an {@code OR} of equalities
+ * in the {@code WHERE} clause, then grouped back by the value of their link property. The nested features of each foreign key are
+ * then {@linkplain #get returned} from memory, until a key not part of the page is requested.
+ *
+ * @source $URL$
+ * @since 9.0
+ */
+public class NestedFeatureBatch {
+
+    /**
+     * The maximum number of foreign key values in a single query
+     */
+    static final int MAX_KEYS_PER_QUERY = 500;
+
+    private final FeatureSource<? extends FeatureType, ? extends Feature> source;
+
+    private final PropertyName link;
+
+    private final FilterFactory ff;
+
+    private final Query template;
+
+    /**
+     * The keys requested by the last {@link #load}, found or not.
+     */
+    private Set<Object> loadedKeys = Collections.emptySet();
+
+    /**
+     * The nested features of the current page, by normalized key
+     */
+    private Map<Object, List<Feature>> features = Collections.emptyMap();
+
+    private int queryCount;
+
+    /**
+     * @param source
+     *            the (mapped) source of the nested features
+     * @param link
+     *            the property of the nested features holding the foreign key
+     * @param ff
+     *            the filter factory used to build the query filters
+     * @param template
+     *            the query providing reprojection, properties and hints, its filter is ignored
+     */
+    public NestedFeatureBatch(FeatureSource<? extends FeatureType, ? extends Feature> source,
+            PropertyName link, FilterFactory ff, Query template) {
+        this.source = source;
+        this.link = link;
+        this.ff = ff;
+        this.template = template;
+    }
+
+    /**
+     * @return true if the nested features for this foreign key value have been loaded
+     */
+    public boolean isLoaded(Object foreignKeyValue) {
+        return loadedKeys.contains(normalize(foreignKeyValue));
+    }
+
+    /**
+     * Returns the loaded nested features for the specified foreign key value, or an empty list
+     * if there is none or if the key was not part of the last {@link #load}.
+     */
+    public List<Feature> get(Object foreignKeyValue) {
+        List<Feature> result = features.get(normalize(foreignKeyValue));
+        if (result == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<Feature>(result);
+    }
+
+    /**
+     * Replaces the current page with the nested features matching the specified foreign key
+     * values. The keys are split in chunks of {@value #MAX_KEYS_PER_QUERY} values, running one
+     * query per chunk.
+     */
+    public void load(Collection<?> foreignKeyValues) throws IOException {
+        Set<Object> keys = new LinkedHashSet<Object>();
+        for (Object value : foreignKeyValues) {
+            if (value != null) {
+                keys.add(normalize(value));
+            }
+        }
+        Map<Object, List<Feature>> result = new HashMap<Object, List<Feature>>();
+        List<Filter> filters = new ArrayList<Filter>();
+        for (Iterator<Object> it = keys.iterator(); it.hasNext();) {
+            filters.add(ff.equals(link, ff.literal(it.next())));
+            if (filters.size() == MAX_KEYS_PER_QUERY || !it.hasNext()) {
+                fetch(filters.size() == 1 ? filters.get(0) : ff.or(filters), keys, result);
+                filters = new ArrayList<Filter>();
+            }
+        }
+        this.loadedKeys = keys;
+        this.features = result;
+    }
+
+    private void fetch(Filter filter, Set<Object> keys, Map<Object, List<Feature>> result)
+            throws IOException {
+        Query query = new Query(template);
+        query.setFilter(filter);
+        queryCount++;
+        FeatureCollection<? extends FeatureType, ? extends Feature> collection = source
+                .getFeatures(query);
+        FeatureIterator<? extends Feature> it = collection.features();
+        try {
+            while (it.hasNext()) {
+                Feature feature = it.next();
+                // a nested feature may be linked to several parents
+                Set<Object> featureKeys = new HashSet<Object>();
+                collectKeys(link.evaluate(feature), featureKeys);
+                for (Object key : featureKeys) {
+                    if (keys.contains(key)) {
+                        List<Feature> list = result.get(key);
+                        if (list == null) {
+                            list = new ArrayList<Feature>();
+                            result.put(key, list);
+                        }
+                        list.add(feature);
+                    }
+                }
+            }
+        } finally {
+            it.close();
+        }
+    }
+
+    private static void collectKeys(Object value, Set<Object> keys) {
+        if (value instanceof Collection) {
+            for (Object item : (Collection<?>) value) {
+                collectKeys(item, keys);
+            }
+        } else if (value instanceof Attribute) {
+            collectKeys(((Attribute) value).getValue(), keys);
+        } else if (value != null) {
+            keys.add(normalize(value));
+        }
+    }
+
+    /**
+     * Foreign keys are compared by their string representation, the parent and the nested
+     * sources may use different types for the same column (e.g. integer and string)
+     */
+    static Object normalize(Object value) {
+        while (value instanceof Attribute) {
+            value = ((Attribute) value).getValue();
+        }
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * @return the number of queries run so far
+     */
+    public int getQueryCount() {
+        return queryCount;
+    }
+}
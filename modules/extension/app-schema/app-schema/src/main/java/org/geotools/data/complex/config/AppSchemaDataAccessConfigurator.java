@@ -101,6 +101,12 @@ public class AppSchemaDataAccessConfigurator {
     
     public static String PROPERTY_JOINING = "app-schema.joining"; 
 
+    /**
+     * Number of parent features whose nested features are fetched with a single query, 0 (the
+     * default) to run one query per parent feature.
+     */
+    public static String PROPERTY_NESTED_BATCH_SIZE = "app-schema.nestedBatchSize";
+
     /** DOCUMENT ME! */
     private AppSchemaDataAccessDTO config;
 
@@ -125,6 +131,24 @@ public class AppSchemaDataAccessConfigurator {
         return s!=null && s.equalsIgnoreCase("true");
     }
 
+    /**
+     * Convenience method for "nestedBatchSize" property.
+     * @return the number of parent features batched together, 0 if batching is disabled
+     */
+    public static int getNestedBatchSize() {
+        String s = AppSchemaDataAccessRegistry.getAppSchemaProperties().getProperty(
+                PROPERTY_NESTED_BATCH_SIZE);
+        if (s == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(s.trim()));
+        } catch (NumberFormatException e) {
+            LOGGER.warning("Invalid value for " + PROPERTY_NESTED_BATCH_SIZE + ": " + s);
+            return 0;
+        }
+    }
+
     /**
      * Creates a new ComplexDataStoreConfigurator object.
      * 
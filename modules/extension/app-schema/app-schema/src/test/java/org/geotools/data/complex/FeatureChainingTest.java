@@ -20,16 +20,26 @@ package org.geotools.data.complex;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.geotools.data.DataAccess;
 import org.geotools.data.DataAccessFinder;
 import org.geotools.data.FeatureSource;
+import org.geotools.data.complex.config.AppSchemaDataAccessConfigurator;
 import org.geotools.feature.FeatureCollection;
 import org.geotools.feature.FeatureImpl;
 import org.geotools.feature.FeatureIterator;
@@ -724,6 +734,98 @@ public class FeatureChainingTest extends AppSchemaTestSupport {
         guIterator.close();
     }
 
+    /**
+     * Runs the feature chaining with the nested features fetched in batches: the features must
+     * be the same as the ones built fetching the nested features of each feature separately, with
+     * fewer queries on the sources of the nested features.
+     */
+    @Test
+    public void testNestedBatching() throws Exception {
+        AppSchemaDataAccess guDataAccess = (AppSchemaDataAccess) DataAccessRegistry
+                .getDataAccess(GEOLOGIC_UNIT);
+        AtomicInteger queries = new AtomicInteger();
+        Map<FeatureTypeMapping, FeatureSource> sources = countQueries(guDataAccess, queries);
+        try {
+            AppSchemaDataAccessRegistry.getAppSchemaProperties().setProperty(
+                    AppSchemaDataAccessConfigurator.PROPERTY_NESTED_BATCH_SIZE, "0");
+            List<Feature> expected = readAll(mfFeatures);
+            int unbatchedQueries = queries.getAndSet(0);
+
+            AppSchemaDataAccessRegistry.getAppSchemaProperties().setProperty(
+                    AppSchemaDataAccessConfigurator.PROPERTY_NESTED_BATCH_SIZE, "10");
+            List<Feature> actual = readAll(mfFeatures);
+            int batchedQueries = queries.get();
+
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getIdentifier(), actual.get(i).getIdentifier());
+                assertEquals(expected.get(i).getProperties(), actual.get(i).getProperties());
+            }
+            assertTrue("Expected fewer than " + unbatchedQueries + " queries, got "
+                    + batchedQueries, batchedQueries < unbatchedQueries);
+        } finally {
+            AppSchemaDataAccessRegistry.getAppSchemaProperties().setProperty(
+                    AppSchemaDataAccessConfigurator.PROPERTY_NESTED_BATCH_SIZE, "0");
+            Field field = FeatureTypeMapping.class.getDeclaredField("source");
+            for (Map.Entry<FeatureTypeMapping, FeatureSource> entry : sources.entrySet()) {
+                field.set(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private static List<Feature> readAll(FeatureCollection<FeatureType, Feature> features) {
+        List<Feature> result = new ArrayList<Feature>();
+        FeatureIterator<Feature> iterator = features.features();
+        try {
+            while (iterator.hasNext()) {
+                result.add(iterator.next());
+            }
+        } finally {
+            iterator.close();
+        }
+        return result;
+    }
+
+    /**
+     * Wraps the sources of the mappings of the specified data access to count the calls to
+     * getFeatures, returns the original sources
+     */
+    private static Map<FeatureTypeMapping, FeatureSource> countQueries(
+            AppSchemaDataAccess dataAccess, final AtomicInteger queries) throws Exception {
+        Field field = FeatureTypeMapping.class.getDeclaredField("source");
+        field.setAccessible(true);
+        Map<FeatureTypeMapping, FeatureSource> sources =
+                new HashMap<FeatureTypeMapping, FeatureSource>();
+        for (Name name : dataAccess.getNames()) {
+            FeatureTypeMapping mapping = dataAccess.getMappingByName(name);
+            final FeatureSource source = mapping.getSource();
+            if (source == null || sources.containsKey(mapping)) {
+                continue;
+            }
+            Set<Class<?>> interfaces = new LinkedHashSet<Class<?>>();
+            for (Class<?> c = source.getClass(); c != null; c = c.getSuperclass()) {
+                interfaces.addAll(Arrays.asList(c.getInterfaces()));
+            }
+            Object counting = Proxy.newProxyInstance(FeatureChainingTest.class.getClassLoader(),
+                    interfaces.toArray(new Class[interfaces.size()]), new InvocationHandler() {
+                        public Object invoke(Object proxy, Method method, Object[] args)
+                                throws Throwable {
+                            if (method.getName().equals("getFeatures")) {
+                                queries.incrementAndGet();
+                            }
+                            try {
+                                return method.invoke(source, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        }
+                    });
+            sources.put(mapping, source);
+            field.set(mapping, counting);
+        }
+        return sources;
+    }
+
     /**
      * Load all the data accesses.
      *
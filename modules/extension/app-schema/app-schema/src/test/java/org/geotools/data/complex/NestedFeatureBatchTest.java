@@ -0,0 +1,178 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.complex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.geotools.data.DataUtilities;
+import org.geotools.data.Query;
+import org.geotools.data.simple.SimpleFeatureSource;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.feature.FeatureIterator;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.test.AppSchemaTestSupport;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.feature.Feature;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.FilterFactory;
+import org.opengis.filter.expression.PropertyName;
+
+/**
+ * Tests {@link NestedFeatureBatch}, comparing the number of queries needed to resolve the nested
+ * features of 1000 parent features with the one query per parent approach.
+ *
+ * @source $URL$
+ */
+public class NestedFeatureBatchTest extends AppSchemaTestSupport {
+
+    private static final int PARENTS = 1000;
+
+    private static final int PAGE = 100;
+
+    private FilterFactory ff = CommonFactoryFinder.getFilterFactory(null);
+
+    private PropertyName link = ff.property("PARENT_ID");
+
+    private SimpleFeatureSource children;
+
+    private int[] queries = new int[1];
+
+    @Before
+    public void setUp() throws Exception {
+        SimpleFeatureType type = DataUtilities.createType("child", "ID:String,PARENT_ID:Integer");
+        SimpleFeatureBuilder builder = new SimpleFeatureBuilder(type);
+        List<SimpleFeature> features = new ArrayList<SimpleFeature>();
+        // two children per parent, none for the multiples of 10
+        for (int i = 0; i < PARENTS; i++) {
+            if (i % 10 != 0) {
+                for (int j = 0; j < 2; j++) {
+                    builder.add("child." + i + "." + j);
+                    builder.add(i);
+                    features.add(builder.buildFeature(null));
+                }
+            }
+        }
+        children = countQueries(DataUtilities.source(features
+                .toArray(new SimpleFeature[features.size()])));
+    }
+
+    /**
+     * Wraps the source to count the calls to getFeatures
+     */
+    private SimpleFeatureSource countQueries(final SimpleFeatureSource source) {
+        return (SimpleFeatureSource) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[] { SimpleFeatureSource.class }, new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args)
+                            throws Throwable {
+                        if (method.getName().equals("getFeatures")) {
+                            queries[0]++;
+                        }
+                        try {
+                            return method.invoke(source, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+    }
+
+    @Test
+    public void testQueryCount() throws Exception {
+        // one query per parent feature
+        int perParent = 0;
+        for (int i = 0; i < PARENTS; i++) {
+            FeatureIterator<SimpleFeature> it = children.getFeatures(
+                    ff.equals(link, ff.literal(String.valueOf(i)))).features();
+            try {
+                while (it.hasNext()) {
+                    it.next();
+                    perParent++;
+                }
+            } finally {
+                it.close();
+            }
+        }
+        assertEquals(PARENTS, queries[0]);
+
+        // one query per page of parent features
+        queries[0] = 0;
+        NestedFeatureBatch batch = new NestedFeatureBatch(children, link, ff, new Query());
+        int batched = 0;
+        for (int i = 0; i < PARENTS; i++) {
+            // the parent keys are strings, the child ones integers
+            String key = String.valueOf(i);
+            if (!batch.isLoaded(key)) {
+                List<Object> page = new ArrayList<Object>();
+                for (int j = i; j < Math.min(PARENTS, i + PAGE); j++) {
+                    page.add(String.valueOf(j));
+                }
+                batch.load(page);
+            }
+            List<Feature> features = batch.get(key);
+            assertEquals(i % 10 == 0 ? 0 : 2, features.size());
+            for (Feature feature : features) {
+                assertEquals(key, String.valueOf(link.evaluate(feature)));
+            }
+            batched += features.size();
+        }
+        assertEquals(PARENTS / PAGE, queries[0]);
+        assertEquals(PARENTS / PAGE, batch.getQueryCount());
+        assertEquals(perParent, batched);
+    }
+
+    @Test
+    public void testLoad() throws Exception {
+        NestedFeatureBatch batch = new NestedFeatureBatch(children, link, ff, new Query());
+        assertFalse(batch.isLoaded(1));
+
+        List<Object> keys = new ArrayList<Object>();
+        keys.add(1);
+        keys.add(10);
+        keys.add(null);
+        batch.load(keys);
+        assertEquals(1, queries[0]);
+        assertTrue(batch.isLoaded(1));
+        assertTrue(batch.isLoaded("10"));
+        assertFalse(batch.isLoaded(2));
+        assertEquals(2, batch.get(1).size());
+        assertEquals(0, batch.get(10).size());
+        // not part of the page
+        assertEquals(0, batch.get(2).size());
+
+        // the keys are split in several queries
+        keys.clear();
+        for (int i = 1; i <= NestedFeatureBatch.MAX_KEYS_PER_QUERY + 1; i++) {
+            keys.add(i);
+        }
+        batch.load(keys);
+        assertEquals(3, queries[0]);
+        assertFalse(batch.isLoaded(10000));
+        // found by the second query
+        assertEquals(2, batch.get(NestedFeatureBatch.MAX_KEYS_PER_QUERY + 1).size());
+    }
+}
@@ -19,6 +19,7 @@ package org.geotools.gml2;
 import javax.xml.namespace.QName;
 
 import org.geotools.feature.DefaultFeatureCollections;
+import org.geotools.gml.producer.CoordinateFormatter;
 import org.geotools.gml2.bindings.GMLAbstractFeatureCollectionBaseTypeBinding;
 import org.geotools.gml2.bindings.GMLAbstractFeatureCollectionTypeBinding;
 import org.geotools.gml2.bindings.GMLAbstractFeatureTypeBinding;
@@ -88,6 +89,11 @@ public class GMLConfiguration extends Configuration {
      */
     protected SrsSyntax srsSyntax = SrsSyntax.OGC_HTTP_URL;
 
+    /**
+     * Number of decimals used to encode coordinates, negative for full precision
+     */
+    protected int numDecimals = -1;
+
     /**
      * Creates the new gml configuration, with a depenendency
      * on {@link XLINKConfiguration}
@@ -121,6 +127,22 @@ public class GMLConfiguration extends Configuration {
         return srsSyntax;
     }
 
+    /**
+     * Sets the maximum number of decimals used to encode coordinates, the coordinates being
+     * rounded half up. A negative value, the default, encodes them with full precision.
+     */
+    public void setNumDecimals(int numDecimals) {
+        this.numDecimals = numDecimals;
+    }
+
+    /**
+     * Returns the maximum number of decimals used to encode coordinates, negative for full
+     * precision.
+     */
+    public int getNumDecimals() {
+        return numDecimals;
+    }
+
     public void registerBindings(MutablePicoContainer container) {
         //geometry 
         container.registerComponentImplementation(GML.AbstractGeometryCollectionBaseType,
@@ -206,5 +228,6 @@ public class GMLConfiguration extends Configuration {
         container.registerComponentImplementation(DefaultFeatureCollections.class);
 
         container.registerComponentInstance(srsSyntax);
+        container.registerComponentInstance(new CoordinateFormatter(numDecimals));
     }
 }
@@ -20,6 +20,7 @@ import java.util.StringTokenizer;
 
 import javax.xml.namespace.QName;
 
+import org.geotools.gml.producer.CoordinateFormatter;
 import org.geotools.gml2.GML;
 import org.geotools.xml.AbstractComplexBinding;
 import org.geotools.xml.ElementInstance;
@@ -70,8 +71,16 @@ import com.vividsolutions.jts.geom.CoordinateSequenceFactory;
 public class GMLCoordinatesTypeBinding extends AbstractComplexBinding {
     CoordinateSequenceFactory csFactory;
 
+    CoordinateFormatter formatter;
+
     public GMLCoordinatesTypeBinding(CoordinateSequenceFactory csFactory) {
+        this(csFactory, new CoordinateFormatter(-1));
+    }
+
+    public GMLCoordinatesTypeBinding(CoordinateSequenceFactory csFactory,
+            CoordinateFormatter formatter) {
         this.csFactory = csFactory;
+        this.formatter = formatter;
     }
 
     /**
@@ -182,22 +191,24 @@ public class GMLCoordinatesTypeBinding extends AbstractComplexBinding {
     public Element encode(Object object, Document document, Element value)
         throws Exception {
         CoordinateSequence coordinates = (CoordinateSequence) object;
-        StringBuffer buf = new StringBuffer();
+        StringBuilder buf = new StringBuilder();
 
         for (int i = 0; i < coordinates.size(); i++) {
             Coordinate c = coordinates.getCoordinate(i);
-            buf.append(c.x);
+            formatter.format(c.x, buf);
 
-            boolean y = (coordinates.getDimension() > 1) && !new Double(c.y).isNaN();
+            boolean y = (coordinates.getDimension() > 1) && !Double.isNaN(c.y);
 
             if (y) {
-                buf.append("," + c.y);
+                buf.append(',');
+                formatter.format(c.y, buf);
             }
 
-            boolean z = y && (coordinates.getDimension() > 2) && !new Double(c.z).isNaN();
+            boolean z = y && (coordinates.getDimension() > 2) && !Double.isNaN(c.z);
 
             if (z) {
-                buf.append("," + c.z);
+                buf.append(',');
+                formatter.format(c.z, buf);
             }
 
             if (i < (coordinates.size() - 1)) {
@@ -18,6 +18,7 @@ package org.geotools.gml3;
 
 import javax.xml.namespace.QName;
 
+import org.geotools.gml.producer.CoordinateFormatter;
 import org.geotools.gml2.FeatureTypeCache;
 import org.geotools.gml2.SrsSyntax;
 import org.geotools.gml2.bindings.GMLCoordTypeBinding;
@@ -133,6 +134,11 @@ public class GMLConfiguration extends Configuration {
      */
     protected SrsSyntax srsSyntax = SrsSyntax.OGC_URN_EXPERIMENTAL;
 
+    /**
+     * Number of decimals used to encode coordinates, negative for full precision
+     */
+    protected int numDecimals = -1;
+
     public GMLConfiguration() {
         this(false);
     }
@@ -171,6 +177,22 @@ public class GMLConfiguration extends Configuration {
         return srsSyntax;
     }
 
+    /**
+     * Sets the maximum number of decimals used to encode coordinates, the coordinates being
+     * rounded half up. A negative value, the default, encodes them with full precision.
+     */
+    public void setNumDecimals(int numDecimals) {
+        this.numDecimals = numDecimals;
+    }
+
+    /**
+     * Returns the maximum number of decimals used to encode coordinates, negative for full
+     * precision.
+     */
+    public int getNumDecimals() {
+        return numDecimals;
+    }
+
     /**
      * Flag that when set triggers extended support for arcs and surfaces.
      */
@@ -342,5 +364,6 @@ public class GMLConfiguration extends Configuration {
         }
 
         container.registerComponentInstance(srsSyntax);
+        container.registerComponentInstance(new CoordinateFormatter(numDecimals));
     }
 }
@@ -23,6 +23,7 @@ import javax.xml.namespace.QName;
 import org.geotools.geometry.DirectPosition1D;
 import org.geotools.geometry.DirectPosition2D;
 import org.geotools.geometry.jts.coordinatesequence.CoordinateSequences;
+import org.geotools.gml.producer.CoordinateFormatter;
 import org.geotools.gml3.GML;
 import org.geotools.xml.AbstractComplexBinding;
 import org.geotools.xml.ElementInstance;
@@ -72,6 +73,16 @@ import com.vividsolutions.jts.geom.CoordinateSequence;
  */
 public class DirectPositionListTypeBinding extends AbstractComplexBinding {
 
+    CoordinateFormatter formatter;
+
+    public DirectPositionListTypeBinding() {
+        this(new CoordinateFormatter(-1));
+    }
+
+    public DirectPositionListTypeBinding(CoordinateFormatter formatter) {
+        this.formatter = formatter;
+    }
+
     /**
      * @generated
      */
@@ -156,7 +167,7 @@ public class DirectPositionListTypeBinding extends AbstractComplexBinding {
     public Element encode(Object object, Document document, Element value) throws Exception {
         // TODO: remove this when the parser can do lists
         CoordinateSequence cs = (CoordinateSequence) object;
-        StringBuffer sb = new StringBuffer();
+        StringBuilder sb = new StringBuilder();
 
         int dim = CoordinateSequences.coordinateDimension(cs);
         int size = cs.size();
@@ -164,10 +175,10 @@ public class DirectPositionListTypeBinding extends AbstractComplexBinding {
         int count = 0;
         for (int i = 0; i < size; i++) {
         	for (int d = 0; d < dim; d++) {
-	            sb.append(cs.getOrdinate(i, d));
+	            formatter.format(cs.getOrdinate(i, d), sb);
 	
 	            if (count < nOrdWithSpace) {
-	                sb.append(" ");
+	                sb.append(' ');
 	            }
 	            count++;
 
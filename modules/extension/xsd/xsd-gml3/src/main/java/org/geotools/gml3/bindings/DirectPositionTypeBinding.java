@@ -21,6 +21,7 @@ import javax.xml.namespace.QName;
 import org.geotools.geometry.DirectPosition1D;
 import org.geotools.geometry.DirectPosition2D;
 import org.geotools.geometry.DirectPosition3D;
+import org.geotools.gml.producer.CoordinateFormatter;
 import org.geotools.gml3.GML;
 import org.geotools.xml.AbstractComplexBinding;
 import org.geotools.xml.ElementInstance;
@@ -67,8 +68,15 @@ import com.vividsolutions.jts.geom.GeometryFactory;
 public class DirectPositionTypeBinding extends AbstractComplexBinding {
     GeometryFactory factory;
 
+    CoordinateFormatter formatter;
+
     public DirectPositionTypeBinding(GeometryFactory factory) {
+        this(factory, new CoordinateFormatter(-1));
+    }
+
+    public DirectPositionTypeBinding(GeometryFactory factory, CoordinateFormatter formatter) {
         this.factory = factory;
+        this.formatter = formatter;
     }
 
     /**
@@ -127,7 +135,7 @@ public class DirectPositionTypeBinding extends AbstractComplexBinding {
         throws Exception {
         CoordinateSequence cs = (CoordinateSequence) object;
 
-        StringBuffer sb = new StringBuffer();
+        StringBuilder sb = new StringBuilder();
 
         // assume either zero or one coordinate
         if (cs.size() >= 1) {
@@ -139,7 +147,8 @@ public class DirectPositionTypeBinding extends AbstractComplexBinding {
                 }
 
                 // separator char is a blank
-                sb.append(String.valueOf(v)).append(" ");
+                formatter.format(v, sb);
+                sb.append(' ');
             }
             if (dim > 0) {
                 sb.setLength(sb.length()-1);
@@ -145,6 +145,21 @@ public class GMLConfiguration extends Configuration {
         return delegate.getSrsSyntax();
     }
 
+    /**
+     * Sets the maximum number of decimals used to encode coordinates, negative for full
+     * precision (the default).
+     */
+    public void setNumDecimals(int numDecimals) {
+        delegate.setNumDecimals(numDecimals);
+    }
+
+    /**
+     * Returns the maximum number of decimals used to encode coordinates.
+     */
+    public int getNumDecimals() {
+        return delegate.getNumDecimals();
+    }
+
     /**
      * Registers the bindings for the configuration.
      *
@@ -20,10 +20,14 @@ import org.geotools.geometry.DirectPosition1D;
 import org.geotools.geometry.DirectPosition2D;
 import org.geotools.gml3.GML;
 import org.geotools.gml3.GML3TestSupport;
+import org.geotools.gml3.GMLConfiguration;
+import org.geotools.xml.Encoder;
 import org.opengis.geometry.DirectPosition;
 import org.w3c.dom.Document;
 
+import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.GeometryFactory;
 import com.vividsolutions.jts.geom.LineString;
 
 
@@ -98,4 +102,21 @@ public class DirectPositionListTypeBindingTest extends GML3TestSupport {
         Document doc = encode(seq, GML.posList);
         checkPosListOrdinates(doc, 3 * line.getNumPoints());
     }
+
+    public void testEncodeNumDecimals() throws Exception {
+        LineString line = new GeometryFactory().createLineString(new Coordinate[] {
+                new Coordinate(1.23456, 2), new Coordinate(-0.001, 10.5) });
+        
+        GMLConfiguration configuration = new GMLConfiguration();
+        assertEquals("1.23456 2.0 -0.001 10.5", encodePosList(configuration, line));
+        
+        configuration.setNumDecimals(2);
+        assertEquals("1.23 2 0 10.5", encodePosList(configuration, line));
+    }
+    
+    String encodePosList(GMLConfiguration configuration, LineString line) throws Exception {
+        Document doc = new Encoder(configuration).encodeAsDOM(line.getCoordinateSequence(),
+                GML.posList);
+        return doc.getDocumentElement().getFirstChild().getNodeValue();
+    }
 }
@@ -16,13 +16,24 @@
  */
 package org.geotools.util;
 
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
 import org.geotools.factory.FactoryCreator;
 import org.geotools.factory.FactoryRegistry;
 import org.geotools.factory.GeoTools;
@@ -47,7 +58,52 @@ public final class Converters {
     /**
      * Cached list of converter factories
      */
-    static ConverterFactory[] factories;
+    static volatile ConverterFactory[] factories;
+
+    /**
+     * Marker for a source and target class pair no factory can convert
+     */
+    private static final Converter[] NO_CONVERTERS = new Converter[0];
+
+    /**
+     * Maximum number of entries in the {@link #HINTED_CONVERTERS} cache, hints are
+     * provided by the callers and may be of unbounded variety
+     */
+    static final int MAX_HINTED_CONVERTERS = 1000;
+
+    /**
+     * The converters found for a given source and target class, when no hints are provided,
+     * in the factories order. A two level map is used so that lookups don't need to allocate
+     * a key. Only the classes and converters loaded by the class loader of this class, or one
+     * of its parents, are kept here, see {@link #isShared(Class)}.
+     */
+    static final ConcurrentMap<Class<?>, ConcurrentMap<Class<?>, Converter[]>> CONVERTERS = 
+        new ConcurrentHashMap<Class<?>, ConcurrentMap<Class<?>, Converter[]>>();
+
+    /**
+     * The converters found when the source class, the target class or one of the converters
+     * comes from another class loader, typically the one of a web application. The classes
+     * are weakly referenced and the converters softly, so that the cache does not prevent the
+     * class loader from being garbage collected once the application is undeployed. Access
+     * is synchronized on the map itself.
+     */
+    static final Map<Class<?>, Map<Class<?>, SoftReference<Converter[]>>> FOREIGN_CONVERTERS =
+        new WeakHashMap<Class<?>, Map<Class<?>, SoftReference<Converter[]>>>();
+
+    /**
+     * The converters found for a given source class, target class and hints, the least
+     * recently used entry is evicted once {@link #MAX_HINTED_CONVERTERS} is exceeded. Access
+     * is synchronized on the map itself.
+     */
+    static final Map<ConverterKey, Converter[]> HINTED_CONVERTERS = 
+        new LinkedHashMap<ConverterKey, Converter[]>(16, 0.75f, true) {
+            private static final long serialVersionUID = -1478366128436011512L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ConverterKey, Converter[]> eldest) {
+                return size() > MAX_HINTED_CONVERTERS;
+            }
+        };
 
     /**
      * The service registry for this manager.
@@ -55,6 +111,37 @@ public final class Converters {
      */
     private static FactoryRegistry registry;
 
+    /**
+     * Registers a listener automatically invoked when the system-wide configuration changed,
+     * for example when {@link GeoTools#addClassLoader} makes new converters available. The
+     * registry is dropped and rebuilt on the next lookup, and the cached converters, including
+     * the negative lookups, are discarded.
+     */
+    static {
+        GeoTools.addChangeListener(new ChangeListener() {
+            public void stateChanged(ChangeEvent e) {
+                synchronized (Converters.class) {
+                    registry = null;
+                    factories = null;
+                    clearCaches();
+                }
+            }
+        });
+    }
+
+    /**
+     * Discards the cached converters, including the negative lookups.
+     */
+    private static void clearCaches() {
+        CONVERTERS.clear();
+        synchronized (FOREIGN_CONVERTERS) {
+            FOREIGN_CONVERTERS.clear();
+        }
+        synchronized (HINTED_CONVERTERS) {
+            HINTED_CONVERTERS.clear();
+        }
+    }
+
     /**
      * Returns the service registry. The registry will be created the first
      * time this method is invoked.
@@ -67,6 +154,21 @@ public final class Converters {
         }
         return registry;
     }
+    /**
+     * Scans for factory plug-ins on the application class path. This method is needed because the
+     * application class path can theoretically change, or additional plug-ins may become
+     * available. The cached factories and converters are discarded.
+     * 
+     * @since 9.0
+     */
+    public static synchronized void scanForPlugins() {
+        if (registry != null) {
+            registry.scanForPlugins();
+        }
+        factories = null;
+        clearCaches();
+    }
+
 //    /**
 //     * Used to combine provided hints with global GeoTools defaults.
 //     * 
@@ -161,20 +263,17 @@ public final class Converters {
             return target.cast( source );
         }
 
-        for (ConverterFactory factory : factories()) {
-            Converter converter = factory.createConverter(sourceClass, target, hints);
-            if (converter != null) {
-                try {
-                    T converted = converter.convert(source, target);
-                    if (converted != null) {
-                        return converted;
-                    }
-                } catch (Exception e) {
-                    if (LOGGER.isLoggable(Level.FINER))
-                        LOGGER.log(Level.FINER,
-                                "Error applying the converter " + converter.getClass() + " on ("
-                                        + source + "," + target + ")", e);
+        for (Converter converter : converters(sourceClass, target, hints)) {
+            try {
+                T converted = converter.convert(source, target);
+                if (converted != null) {
+                    return converted;
                 }
+            } catch (Exception e) {
+                if (LOGGER.isLoggable(Level.FINER))
+                    LOGGER.log(Level.FINER,
+                            "Error applying the converter " + converter.getClass() + " on ("
+                                    + source + "," + target + ")", e);
             }
         }
 
@@ -185,6 +284,119 @@ public final class Converters {
         return null;
     }
 
+    /**
+     * Returns the converters the factories provide for the source and target classes, in the
+     * factories order. The lookups, including the ones that found no converter, are cached.
+     * 
+     * @param source The class of the object to convert.
+     * @param target The type of the converted value.
+     * @param hints Any hints for the converter factory, may be null.
+     * @return The converters, or an empty array if none is available.
+     */
+    static Converter[] converters(Class<?> source, Class<?> target, Hints hints) {
+        if (hints == null) {
+            ConcurrentMap<Class<?>, Converter[]> targets = CONVERTERS.get(source);
+            Converter[] converters = (targets != null) ? targets.get(target) : null;
+            if (converters != null) {
+                return converters;
+            }
+            synchronized (FOREIGN_CONVERTERS) {
+                Map<Class<?>, SoftReference<Converter[]>> foreign = FOREIGN_CONVERTERS.get(source);
+                if (foreign != null) {
+                    SoftReference<Converter[]> reference = foreign.get(target);
+                    converters = (reference != null) ? reference.get() : null;
+                    if (converters != null) {
+                        return converters;
+                    }
+                }
+            }
+            converters = lookupConverters(source, target, null);
+            if (isShared(source) && isShared(target) && isShared(converters)) {
+                if (targets == null) {
+                    targets = new ConcurrentHashMap<Class<?>, Converter[]>();
+                    ConcurrentMap<Class<?>, Converter[]> existing = CONVERTERS.putIfAbsent(
+                            source, targets);
+                    if (existing != null) {
+                        targets = existing;
+                    }
+                }
+                targets.put(target, converters);
+            } else {
+                synchronized (FOREIGN_CONVERTERS) {
+                    Map<Class<?>, SoftReference<Converter[]>> foreign = FOREIGN_CONVERTERS
+                            .get(source);
+                    if (foreign == null) {
+                        foreign = new WeakHashMap<Class<?>, SoftReference<Converter[]>>();
+                        FOREIGN_CONVERTERS.put(source, foreign);
+                    }
+                    foreign.put(target, new SoftReference<Converter[]>(converters));
+                }
+            }
+            return converters;
+        } else {
+            final ConverterKey key = new ConverterKey(source, target, hints);
+            Converter[] converters;
+            synchronized (HINTED_CONVERTERS) {
+                converters = HINTED_CONVERTERS.get(key);
+            }
+            if (converters == null) {
+                converters = lookupConverters(source, target, hints);
+                synchronized (HINTED_CONVERTERS) {
+                    // copy the hints, the caller might modify them later
+                    HINTED_CONVERTERS.put(new ConverterKey(source, target, new Hints(hints)),
+                            converters);
+                }
+            }
+            return converters;
+        }
+    }
+
+    /**
+     * Returns {@code true} if the class has been loaded by the class loader of this class or
+     * one of its parents. Such classes can be strongly referenced by the cache, they cannot
+     * keep alive a class loader that would otherwise be garbage collected.
+     */
+    static boolean isShared(Class<?> type) {
+        final ClassLoader loader = type.getClassLoader();
+        if (loader == null) {
+            return true;
+        }
+        ClassLoader parent = Converters.class.getClassLoader();
+        while (parent != null) {
+            if (parent == loader) {
+                return true;
+            }
+            parent = parent.getParent();
+        }
+        return false;
+    }
+
+    private static boolean isShared(Converter[] converters) {
+        for (Converter converter : converters) {
+            if (!isShared(converter.getClass())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Converter[] lookupConverters(Class<?> source, Class<?> target, Hints hints) {
+        List<Converter> converters = null;
+        for (ConverterFactory factory : factories()) {
+            Converter converter = factory.createConverter(source, target, hints);
+            if (converter != null) {
+                if (converters == null) {
+                    converters = new ArrayList<Converter>(2);
+                }
+                converters.add(converter);
+            }
+        }
+        if (converters == null) {
+            return NO_CONVERTERS;
+        }
+        return converters.toArray(new Converter[converters.size()]);
+    }
+
     /**
      * Processed the {@link ConverterFactory} extension point.
      * 
@@ -192,12 +404,46 @@ public final class Converters {
      * @since 2.4
      */
     static ConverterFactory[] factories() {
-        if (factories == null) {
+        ConverterFactory[] result = factories;
+        if (result == null) {
             Collection<ConverterFactory> factoryCollection = getConverterFactories(GeoTools
                     .getDefaultHints());
-            factories = (ConverterFactory[]) factoryCollection
+            result = (ConverterFactory[]) factoryCollection
                     .toArray(new ConverterFactory[factoryCollection.size()]);
+            factories = result;
+        }
+        return result;
+    }
+
+    /**
+     * Key for the converters cache when hints are provided
+     */
+    static final class ConverterKey {
+        final Class<?> source;
+
+        final Class<?> target;
+
+        final Hints hints;
+
+        ConverterKey(Class<?> source, Class<?> target, Hints hints) {
+            this.source = source;
+            this.target = target;
+            this.hints = hints;
+        }
+
+        @Override
+        public int hashCode() {
+            return (source.hashCode() * 31 + target.hashCode()) * 31 + hints.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ConverterKey)) {
+                return false;
+            }
+            ConverterKey other = (ConverterKey) obj;
+            return source == other.source && target == other.target
+                    && hints.equals(other.hints);
         }
-        return factories;
     }
 }
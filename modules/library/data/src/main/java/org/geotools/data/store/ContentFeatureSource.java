@@ -559,6 +559,16 @@ public abstract class ContentFeatureSource implements SimpleFeatureSource {
             throw new IOException("Feature source does not support joins");
         }
 
+        // in memory sorting keeps the features around, so they cannot be recycled
+        if (query.getSortBy() != null && query.getSortBy().length != 0 && !canSort()
+                && Boolean.TRUE.equals(query.getHints().get(Hints.FEATURE_REUSE))) {
+            Hints queryHints = new Hints(query.getHints());
+            queryHints.remove(Hints.FEATURE_REUSE);
+            Query dq = new Query(query);
+            dq.setHints(queryHints);
+            query = dq;
+        }
+
         FeatureReader<SimpleFeatureType, SimpleFeature> reader = getReaderInternal( query );
         
         //
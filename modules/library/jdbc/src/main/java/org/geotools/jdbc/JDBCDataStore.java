@@ -22,6 +22,7 @@ import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.net.URLDecoder;
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
@@ -249,6 +250,23 @@ public final class JDBCDataStore extends ContentDataStore
      */
     protected int fetchSize;
     
+    /**
+     * The number of inserts sent to the dbms in a single batch, defaulting to 1. Values
+     * less or equal than 1 disable batching and run one statement per inserted feature.
+     */
+    protected int batchInsertSize = 1;
+    
+    /**
+     * Whether natural order pages are read after the last primary key value of the previous
+     * page, instead of using an offset, defaulting to false.
+     */
+    protected boolean keysetPaging;
+    
+    /**
+     * The last primary key values read by the natural order pages
+     */
+    final KeysetPaging keysetBookmarks = new KeysetPaging();
+    
     /**
      * flag controlling whether primary key columns of a table are exposed via the 
      * feature type.
@@ -367,6 +385,45 @@ public final class JDBCDataStore extends ContentDataStore
         this.fetchSize = fetchSize;
     }
 
+    /**
+     * The current batch insert size. When greater than one, and the primary key values
+     * can be determined before the insert, new features are sent to the dbms in batches
+     * of the specified size instead of running one statement per feature.
+     * @return
+     */
+    public int getBatchInsertSize() {
+        return batchInsertSize;
+    }
+
+    /**
+     * Changes the batch insert size. Set to a value less or equal than one to disable
+     * batch inserts.
+     * @param batchInsertSize
+     */
+    public void setBatchInsertSize(int batchInsertSize) {
+        this.batchInsertSize = batchInsertSize;
+    }
+
+    /**
+     * Whether keyset paging is enabled. When enabled, a query sorted on the natural order whose
+     * start index matches the end of a page previously read is run with a
+     * {@code WHERE pk > lastValue} condition instead of an offset, so that the dbms can seek
+     * in the primary key index instead of scanning and discarding all the previous rows.
+     * Only tables with a single column primary key are paged this way.
+     * @return
+     */
+    public boolean isKeysetPaging() {
+        return keysetPaging;
+    }
+
+    /**
+     * Enables or disables keyset paging.
+     * @param keysetPaging
+     */
+    public void setKeysetPaging(boolean keysetPaging) {
+        this.keysetPaging = keysetPaging;
+    }
+
     /**
      * Determines if the datastore creates feature types which include those columns / attributes
      * which compose the primary key.
@@ -1399,73 +1456,263 @@ public final class JDBCDataStore extends ContentDataStore
     /**
      * Inserts a collection of new features into the database for a particular
      * feature type / table.
+     * <p>
+     * When the primary key values can be determined before the insert and are guaranteed
+     * to be unique (sequences, random string keys, or feature ids provided for all the
+     * features) the key lookups are performed without holding any lock on the store, and
+     * the inserts are sent to the database in batches of {@link #getBatchInsertSize()}
+     * features, whose new key values are fetched with a single query per sequence. Otherwise each feature is inserted with its own statement while keeping the
+     * store locked, since the key has to be computed by looking at the table contents, 
+     * peeked from an auto generated column, or looked up after the insert.
+     * </p>
      */
     protected void insert(Collection features, SimpleFeatureType featureType, Connection cx)
         throws IOException {
+        // the page boundaries move, drop the keyset paging bookmarks
+        keysetBookmarks.clear(featureType.getTypeName());
         PrimaryKey key = getPrimaryKey(featureType);
 
-        // we do this in a synchronized block because we need to do two queries,
-        // first to figure out what the id will be, then the insert statement
-        synchronized (this) {
-            Statement st = null;
-
-            try {
-                if ( !(dialect instanceof PreparedStatementSQLDialect) ) {
-                    st = cx.createStatement();    
-                }
-                
+        try {
+            if (!isBatchInsertSupported(key) && !isProvidedFid(features)) {
                 // figure out if we should determine what the fid is pre or post insert
                 boolean postInsert = dialect.lookupGeneratedValuesPostInsert() && isGenerated(key);
                 
+                // we do this in a synchronized block because we need to do two queries,
+                // first to figure out what the id will be, then the insert statement
+                synchronized (this) {
+                    for (Iterator f = features.iterator(); f.hasNext();) {
+                        SimpleFeature feature = (SimpleFeature) f.next();
+                        List<Object> keyValues = getInsertKeyValues(feature, key, postInsert, cx);
+                        
+                        insertBatch(Collections.singletonList(feature), 
+                                Collections.singletonList(keyValues), featureType, cx);
+                        
+                        if ( keyValues == null ) {
+                            //grab the key values post insert
+                            keyValues = getLastValues(key,cx);
+                        }
+                        
+                        //report the feature id as user data since we cant set the fid
+                        feature.getUserData().put("fid", encodeInsertFID(featureType, keyValues));
+                    }
+                }
+            } else {
+                int batchSize = Math.max(1, batchInsertSize);
+                List<SimpleFeature> batch = new ArrayList<SimpleFeature>(
+                        Math.min(batchSize, features.size()));
+                List<List<Object>> batchKeys = new ArrayList<List<Object>>(
+                        Math.min(batchSize, features.size()));
                 for (Iterator f = features.iterator(); f.hasNext();) {
-                    SimpleFeature feature = (SimpleFeature) f.next();
-                    
-                    List<Object> keyValues = null;
-                    boolean useExisting = Boolean.TRUE.equals(feature.getUserData().get(Hints.USE_PROVIDED_FID));
-                    if(useExisting) {
-                        keyValues = decodeFID(key, feature.getID(), true);
-                    } else if (!postInsert) {
-                        keyValues = getNextValues( key, cx );
+                    batch.add((SimpleFeature) f.next());
+                    if (batch.size() >= batchSize || !f.hasNext()) {
+                        batchKeys.addAll(getInsertKeyValues(batch, key, cx));
+                        for (int i = 0; i < batch.size(); i++) {
+                            //report the feature id as user data since we cant set the fid
+                            batch.get(i).getUserData().put("fid", 
+                                    encodeInsertFID(featureType, batchKeys.get(i)));
+                        }
+                        insertBatch(batch, batchKeys, featureType, cx);
+                        batch.clear();
+                        batchKeys.clear();
                     }
-                    
-
-                    if ( dialect instanceof PreparedStatementSQLDialect ) {
-                        PreparedStatement ps = insertSQLPS( featureType, feature, keyValues, cx );
-                        try {
-                            ((PreparedStatementSQLDialect)dialect).onInsert(ps, cx, featureType);
-                            ps.execute();
-                        } finally {
+                }
+            }
+        } catch (SQLException e) {
+            String msg = "Error inserting features";
+            throw (IOException) new IOException(msg).initCause(e);
+        }
+    }
+    
+    /**
+     * Returns true if the values of the specified primary key can be computed before 
+     * inserting the features without looking at the table contents, meaning that the
+     * inserts do not need to be serialized and can be sent to the database in batches.
+     * <p>
+     * This is the case for sequences and random string keys only: the next value of an
+     * auto generated column is just peeked by most dialects (e.g. current value + 1), so it
+     * would be the same for all the features of a batch, and keys computed as max + 1 have
+     * the same problem.
+     * </p>
+     */
+    protected boolean isBatchInsertSupported(PrimaryKey key) {
+        for (PrimaryKeyColumn col : key.getColumns()) {
+            if (col instanceof SequencedPrimaryKeyColumn) {
+                continue;
+            }
+            if (col instanceof AutoGeneratedPrimaryKeyColumn
+                    || !CharSequence.class.isAssignableFrom(col.getType())) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Returns true if all the features carry the feature id to be used as the primary key
+     * value, see {@link Hints#USE_PROVIDED_FID}
+     */
+    boolean isProvidedFid(Collection features) {
+        for (Iterator f = features.iterator(); f.hasNext();) {
+            SimpleFeature feature = (SimpleFeature) f.next();
+            if (!Boolean.TRUE.equals(feature.getUserData().get(Hints.USE_PROVIDED_FID))) {
+                return false;
+            }
+        }
+        return !features.isEmpty();
+    }
+    
+    /**
+     * Computes the primary key values of a feature that is about to be inserted, either
+     * decoding the provided feature id, or generating new values from the database.
+     * Returns <code>null</code> if the values can only be looked up after the insert.
+     */
+    protected List<Object> getInsertKeyValues(SimpleFeature feature, PrimaryKey key, 
+            boolean postInsert, Connection cx) throws SQLException, IOException {
+        boolean useExisting = Boolean.TRUE.equals(feature.getUserData().get(Hints.USE_PROVIDED_FID));
+        if(useExisting) {
+            return decodeFID(key, feature.getID(), true);
+        } else if (!postInsert) {
+            return getNextValues( key, cx );
+        } else {
+            return null;
+        }
+    }
+    
+    /**
+     * Computes the primary key values of a batch of features that are about to be inserted,
+     * decoding the provided feature ids, and generating the values of the other features 
+     * with {@link #getNextValues(PrimaryKey, Connection, int)}.
+     */
+    protected List<List<Object>> getInsertKeyValues(List<SimpleFeature> features, 
+            PrimaryKey key, Connection cx) throws SQLException, IOException {
+        int generated = 0;
+        for (SimpleFeature feature : features) {
+            if (!Boolean.TRUE.equals(feature.getUserData().get(Hints.USE_PROVIDED_FID))) {
+                generated++;
+            }
+        }
+        Iterator<List<Object>> next = generated > 0 ? 
+                getNextValues(key, cx, generated).iterator() : null;
+        List<List<Object>> keyValues = new ArrayList<List<Object>>(features.size());
+        for (SimpleFeature feature : features) {
+            if (Boolean.TRUE.equals(feature.getUserData().get(Hints.USE_PROVIDED_FID))) {
+                keyValues.add(decodeFID(key, feature.getID(), true));
+            } else {
+                keyValues.add(next.next());
+            }
+        }
+        return keyValues;
+    }
+    
+    /**
+     * Builds the feature id of a newly inserted feature out of its primary key values
+     */
+    String encodeInsertFID(SimpleFeatureType featureType, List<Object> keyValues) {
+        return featureType.getTypeName() + "." + encodeFID(keyValues);
+    }
+    
+    /**
+     * Inserts the specified features, whose primary key values have already been computed, 
+     * running them as a single JDBC batch when more than one feature is provided.
+     * The key values list is expected to be parallel to the features one, and to contain 
+     * <code>null</code> for features whose key is generated by the database.
+     */
+    protected void insertBatch(List<SimpleFeature> features, List<List<Object>> keyValues,
+            SimpleFeatureType featureType, Connection cx) throws IOException, SQLException {
+        boolean batch = features.size() > 1;
+        if ( dialect instanceof PreparedStatementSQLDialect ) {
+            PreparedStatementSQLDialect psDialect = (PreparedStatementSQLDialect) dialect;
+            PreparedStatement ps = null;
+            String lastSql = null;
+            int start = 0;
+            try {
+                for (int i = 0; i < features.size(); i++) {
+                    SimpleFeature feature = features.get(i);
+                    // the statement depends on the geometries and the fid handling, can 
+                    // only be shared among features generating the same sql 
+                    String sql = insertPreparedSQL(featureType, feature);
+                    if (ps == null || !sql.equals(lastSql)) {
+                        if (ps != null) {
+                            executeBatch(ps, features, start);
                             closeSafe( ps );
                         }
+                        LOGGER.log(Level.FINE, "Inserting new feature with ps: {0}", sql);
+                        ps = cx.prepareStatement(sql);
+                        lastSql = sql;
+                        start = i;
+                    }
+                    setInsertValues(ps, featureType, feature, keyValues.get(i), cx);
+                    psDialect.onInsert(ps, cx, featureType);
+                    if (batch) {
+                        ps.addBatch();
                     } else {
-                        String sql = insertSQL(featureType, feature, keyValues, cx);
-                        
-                        //TODO: execute in batch to improve performance?
-                        ((BasicSQLDialect)dialect).onInsert(st, cx, featureType);
-                        
-                        LOGGER.log(Level.FINE, "Inserting new feature: {0}", sql);
-                        st.execute(sql);
+                        ps.execute();
                     }
+                }
+                if (batch && ps != null) {
+                    executeBatch(ps, features, start);
+                }
+            } finally {
+                closeSafe( ps );
+            }
+        } else {
+            BasicSQLDialect basicDialect = (BasicSQLDialect) dialect;
+            Statement st = cx.createStatement();
+            try {
+                for (int i = 0; i < features.size(); i++) {
+                    String sql = insertSQL(featureType, features.get(i), keyValues.get(i), cx);
+                    basicDialect.onInsert(st, cx, featureType);
                     
-                    if ( keyValues == null ) {
-                        //grab the key values post insert
-                        keyValues = getLastValues(key,cx);
+                    LOGGER.log(Level.FINE, "Inserting new feature: {0}", sql);
+                    if (batch) {
+                        st.addBatch(sql);
+                    } else {
+                        st.execute(sql);
                     }
-                    
-                    //report the feature id as user data since we cant set the fid
-                    String fid = featureType.getTypeName() + "." + encodeFID(keyValues);
-                    feature.getUserData().put("fid", fid);
                 }
-
-                //st.executeBatch();
-            } catch (SQLException e) {
-                String msg = "Error inserting features";
-                throw (IOException) new IOException(msg).initCause(e);
+                if (batch) {
+                    executeBatch(st, features, 0);
+                }
             } finally {
                 closeSafe(st);
             }
         }
     }
+    
+    /**
+     * Executes a batch of inserts, reporting the id of the feature that made the batch fail
+     * in the exception message when the driver allows to find it out.
+     * 
+     * @param features The features being inserted
+     * @param start The position in <code>features</code> of the first statement of the batch
+     */
+    void executeBatch(Statement st, List<SimpleFeature> features, int start) 
+        throws SQLException {
+        try {
+            st.executeBatch();
+        } catch (BatchUpdateException e) {
+            // drivers either stop at the first failure, or keep on going and mark the
+            // failed statements with EXECUTE_FAILED
+            int[] counts = e.getUpdateCounts();
+            int failed = counts == null ? -1 : counts.length;
+            for (int i = 0; counts != null && i < counts.length; i++) {
+                if (counts[i] == Statement.EXECUTE_FAILED) {
+                    failed = i;
+                    break;
+                }
+            }
+            failed += start;
+            if (failed < start || failed >= features.size()) {
+                throw e;
+            }
+            SimpleFeature feature = features.get(failed);
+            Object fid = feature.getUserData().get("fid");
+            String msg = "Error inserting feature " + (fid != null ? fid : feature.getID());
+            SQLException se = new SQLException(msg, e.getSQLState(), e.getErrorCode());
+            se.initCause(e);
+            throw se;
+        }
+    }
 
     /**
      * Updates an existing feature(s) in the database for a particular feature type / table.
@@ -1487,6 +1734,7 @@ public final class JDBCDataStore extends ContentDataStore
 
             return;
         }
+        keysetBookmarks.clear(featureType.getTypeName());
 
         if ( dialect instanceof PreparedStatementSQLDialect ) {
             try {
@@ -1540,6 +1788,7 @@ public final class JDBCDataStore extends ContentDataStore
     protected void delete(SimpleFeatureType featureType, Filter filter, Connection cx)
         throws IOException {
         
+        keysetBookmarks.clear(featureType.getTypeName());
         Statement st = null;
         try {
             try {
@@ -1803,6 +2052,30 @@ public final class JDBCDataStore extends ContentDataStore
         return next;
     }
     
+    /**
+     * Gets the next <tt>count</tt> values of a primary key, grabbing the values of the 
+     * sequences with a single query each.
+     */
+    protected List<List<Object>> getNextValues( PrimaryKey pkey, Connection cx, int count ) 
+        throws SQLException, IOException {
+        List<List<Object>> next = new ArrayList<List<Object>>(count);
+        for (int i = 0; i < count; i++) {
+            next.add(new ArrayList<Object>(pkey.getColumns().size()));
+        }
+        for( PrimaryKeyColumn col : pkey.getColumns() ) {
+            List<Object> values = null;
+            if ( col instanceof SequencedPrimaryKeyColumn ) {
+                String sequenceName = ((SequencedPrimaryKeyColumn)col).getSequenceName();
+                values = dialect.getNextSequenceValues(databaseSchema, sequenceName, count, cx);
+            }
+            for (int i = 0; i < count; i++) {
+                next.get(i).add(values != null && values.size() == count ? values.get(i) 
+                        : getNextValue(col, pkey, cx));
+            }
+        }
+        return next;
+    }
+    
     /**
      * Gets the next value for the column of a primary key.
      */
@@ -2873,11 +3146,27 @@ public final class JDBCDataStore extends ContentDataStore
 
         //filtering
         Filter filter = query.getFilter();
-        if (filter != null && !Filter.INCLUDE.equals(filter)) {
+        Object afterKey = query.getHints().get(KeysetPaging.AFTER_KEY);
+        boolean filtered = filter != null && !Filter.INCLUDE.equals(filter);
+        if (filtered || afterKey != null) {
             sql.append(" WHERE ");
             
             //encode filter
-            filter(featureType, filter, sql);
+            if (filtered && afterKey != null) {
+                sql.append("(");
+                filter(featureType, filter, sql);
+                sql.append(") AND ");
+            } else if (filtered) {
+                filter(featureType, filter, sql);
+            }
+            
+            //keyset paging, start after the last key of the previous page
+            if (afterKey != null) {
+                PrimaryKeyColumn col = getPrimaryKey(featureType).getColumns().get(0);
+                dialect.encodeColumnName(null, col.getName(), sql);
+                sql.append(" > ");
+                ((BasicSQLDialect) dialect).encodeValue(afterKey, col.getType(), sql);
+            }
         }
 
         //sorting
@@ -3072,11 +3361,27 @@ public final class JDBCDataStore extends ContentDataStore
         //filtering
         PreparedFilterToSQL toSQL = null;
         Filter filter = query.getFilter();
-        if (filter != null && !Filter.INCLUDE.equals(filter)) {
+        Object afterKey = query.getHints().get(KeysetPaging.AFTER_KEY);
+        PrimaryKeyColumn afterKeyColumn = null;
+        boolean filtered = filter != null && !Filter.INCLUDE.equals(filter);
+        if (filtered || afterKey != null) {
             sql.append(" WHERE ");
             
             //encode filter
-            toSQL = (PreparedFilterToSQL) filter(featureType, filter, sql);
+            if (filtered && afterKey != null) {
+                sql.append("(");
+                toSQL = (PreparedFilterToSQL) filter(featureType, filter, sql);
+                sql.append(") AND ");
+            } else if (filtered) {
+                toSQL = (PreparedFilterToSQL) filter(featureType, filter, sql);
+            }
+            
+            //keyset paging, start after the last key of the previous page
+            if (afterKey != null) {
+                afterKeyColumn = getPrimaryKey(featureType).getColumns().get(0);
+                dialect.encodeColumnName(null, afterKeyColumn.getName(), sql);
+                sql.append(" > ?");
+            }
         }
 
         //sorting
@@ -3089,9 +3394,15 @@ public final class JDBCDataStore extends ContentDataStore
         PreparedStatement ps = cx.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
         ps.setFetchSize(fetchSize);
         
+        int parameters = 0;
         if ( toSQL != null ) {
             setPreparedFilterValues( ps, toSQL, 0, cx );
+            parameters = toSQL.getLiteralValues().size();
         } 
+        if ( afterKeyColumn != null ) {
+            ((PreparedStatementSQLDialect) dialect).setValue(afterKey, afterKeyColumn.getType(),
+                    ps, parameters + 1, cx);
+        }
         
         return ps;
     }
@@ -3627,6 +3938,22 @@ public final class JDBCDataStore extends ContentDataStore
      * Generates a 'INSERT INFO' prepared statement.
      */
     protected PreparedStatement insertSQLPS(SimpleFeatureType featureType, SimpleFeature feature, List keyValues, Connection cx) 
+        throws IOException, SQLException {
+        String sql = insertPreparedSQL(featureType, feature);
+        LOGGER.log(Level.FINE, "Inserting new feature with ps: {0}", sql);
+        
+        //create the prepared statement
+        PreparedStatement ps = cx.prepareStatement(sql);
+        setInsertValues(ps, featureType, feature, keyValues, cx);
+        
+        return ps;
+    }
+    
+    /**
+     * Generates the sql of a 'INSERT INTO' prepared statement, the values are left as
+     * parameters to be set with {@link #setInsertValues}
+     */
+    protected String insertPreparedSQL(SimpleFeatureType featureType, SimpleFeature feature) 
         throws IOException, SQLException {
         PreparedStatementSQLDialect dialect = (PreparedStatementSQLDialect) getSQLDialect();
         
@@ -3696,10 +4023,20 @@ public final class JDBCDataStore extends ContentDataStore
         
         sql.setLength(sql.length()-1);
         sql.append(")");
-        LOGGER.log(Level.FINE, "Inserting new feature with ps: {0}", sql);
         
-        //create the prepared statement
-        PreparedStatement ps = cx.prepareStatement(sql.toString());
+        return sql.toString();
+    }
+    
+    /**
+     * Sets the attribute and primary key values of a feature into a prepared statement
+     * generated by {@link #insertPreparedSQL(SimpleFeatureType, SimpleFeature)}
+     */
+    protected void setInsertValues(PreparedStatement ps, SimpleFeatureType featureType,
+            SimpleFeature feature, List keyValues, Connection cx) throws IOException, SQLException {
+        PreparedStatementSQLDialect dialect = (PreparedStatementSQLDialect) getSQLDialect();
+        PrimaryKey key = getPrimaryKey(featureType);
+        Set<String> pkColumnNames = getColumnNames(key);
+        boolean useExisting = Boolean.TRUE.equals(feature.getUserData().get(Hints.USE_PROVIDED_FID));
         
         //set the attribute values
         int i = 1;
@@ -3749,8 +4086,6 @@ public final class JDBCDataStore extends ContentDataStore
                 }
             }
         }
-        
-        return ps;
     }
     
     /**
@@ -97,6 +97,16 @@ public abstract class JDBCDataStoreFactory extends AbstractDataStoreFactory {
     public static final Param FETCHSIZE = new Param("fetch size", Integer.class,
             "number of records read with each iteraction with the dbms", false, 1000);
     
+    /** number of features inserted in a single batch **/
+    public static final Param BATCH_INSERT_SIZE = new Param("Batch insert size", Integer.class,
+            "number of records inserted in the same batch (default, 1). Batching is " +
+            "used only when the primary key values can be computed before the insert", false, 1);
+    
+    /** page natural order queries on the primary key instead of using offsets **/
+    public static final Param KEYSET_PAGING = new Param("Keyset paging", Boolean.class,
+            "Read the pages of natural order queries after the last primary key value of the " +
+            "previous page, instead of skipping the previous rows with an offset", false, false);
+    
     /** Maximum amount of time the pool will wait when trying to grab a new connection **/
     public static final Param MAXWAIT = new Param("Connection timeout", Integer.class,
             "number of seconds the connection pool will wait before timing out attempting to get a new connection (default, 20 seconds)", false, 20);
@@ -180,6 +190,14 @@ public abstract class JDBCDataStoreFactory extends AbstractDataStoreFactory {
         Integer fetchSize = (Integer) FETCHSIZE.lookUp(params);
         if(fetchSize != null && fetchSize > 0)
             dataStore.setFetchSize(fetchSize);
+        
+        Integer batchInsertSize = (Integer) BATCH_INSERT_SIZE.lookUp(params);
+        if(batchInsertSize != null && batchInsertSize > 0)
+            dataStore.setBatchInsertSize(batchInsertSize);
+        
+        Boolean keysetPaging = (Boolean) KEYSET_PAGING.lookUp(params);
+        if(keysetPaging != null)
+            dataStore.setKeysetPaging(keysetPaging);
 
         // namespace
         String namespace = (String) NAMESPACE.lookUp(params);
@@ -308,6 +326,8 @@ public abstract class JDBCDataStoreFactory extends AbstractDataStoreFactory {
         parameters.put(MAXCONN.key, MAXCONN);
         parameters.put(MINCONN.key, MINCONN);
         parameters.put(FETCHSIZE.key, FETCHSIZE);
+        parameters.put(BATCH_INSERT_SIZE.key, BATCH_INSERT_SIZE);
+        parameters.put(KEYSET_PAGING.key, KEYSET_PAGING);
         parameters.put(MAXWAIT.key, MAXWAIT);
         if(getValidationQuery() != null)
             parameters.put(VALIDATECONN.key, VALIDATECONN);
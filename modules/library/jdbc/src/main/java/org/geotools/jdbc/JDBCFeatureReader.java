@@ -23,6 +23,7 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -37,7 +38,9 @@ import org.geotools.data.FeatureReader;
 import org.geotools.data.Transaction;
 import org.geotools.factory.Hints;
 import org.geotools.feature.IllegalAttributeException;
+import org.geotools.feature.simple.CompactSimpleFeature;
 import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.feature.simple.SimpleFeatureLayout;
 import org.geotools.filter.identity.FeatureIdImpl;
 import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.geotools.util.Converters;
@@ -122,11 +125,37 @@ public class JDBCFeatureReader implements  FeatureReader<SimpleFeatureType, Simp
     protected Exception tracer;
     protected String[] columnNames;
     
+    /**
+     * The feature returned at each call to next(), when the caller allows features to be reused
+     * (see {@link Hints#FEATURE_REUSE})
+     */
+    protected CompactSimpleFeature reusedFeature;
+    
+    /**
+     * position of each attribute in the result set, and whether it can be read as a primitive
+     * value (lazily computed)
+     */
+    int[] attributeRsIndex;
+    boolean[] primitiveColumns;
+    
     /**
      * offset/column index to start reading from result set
      */
     protected int offset = 0;
     
+    /**
+     * The page tracked for keyset paging, if any
+     */
+    KeysetPaging.Page keysetPage;
+    
+    /**
+     * Read statistics: the time the query was started, the time the first row was
+     * available, and the number of rows read
+     */
+    long startTime;
+    long firstRowTime;
+    int rowCount;
+    
     public JDBCFeatureReader( String sql, Connection cx, JDBCFeatureSource featureSource, SimpleFeatureType featureType, Hints hints ) 
         throws SQLException {
         init( featureSource, featureType, hints );
@@ -175,6 +204,7 @@ public class JDBCFeatureReader implements  FeatureReader<SimpleFeatureType, Simp
         this.featureType = featureType;
         this.tx = featureSource.getTransaction();
         this.hints = hints;
+        this.startTime = System.nanoTime();
         
         //grab a geometry factory... check for a special hint
         geometryFactory = (GeometryFactory) hints.get(Hints.JTS_GEOMETRY_FACTORY);
@@ -200,6 +230,13 @@ public class JDBCFeatureReader implements  FeatureReader<SimpleFeatureType, Simp
             ff = featureSource.getDataStore().getFeatureFactory();
         builder = new SimpleFeatureBuilder(featureType, ff);
         
+        // recycle the same feature if the caller allows it, unless a specific feature
+        // factory has been requested
+        if (Boolean.TRUE.equals(hints.get(Hints.FEATURE_REUSE))
+                && hints.get(Hints.FEATURE_FACTORY) == null) {
+            reusedFeature = new CompactSimpleFeature(featureType, null);
+        }
+        
         // find the primary key
         try {
             pkey = dataStore.getPrimaryKey(featureType);
@@ -239,6 +276,9 @@ public class JDBCFeatureReader implements  FeatureReader<SimpleFeatureType, Simp
         if (next == null) {
             try {
                 next = Boolean.valueOf(rs.next());
+                if (firstRowTime == 0 && next) {
+                    firstRowTime = System.nanoTime();
+                }
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
@@ -288,17 +328,41 @@ public class JDBCFeatureReader implements  FeatureReader<SimpleFeatureType, Simp
                 }
                 // wrap the fid in the type name
                 fid = featureType.getTypeName() + "." + fid;
+                rowCount++;
+                // the primary key columns come first in the result set
+                if (keysetPage != null) {
+                    keysetPage.read(rs.getObject(offset + 1));
+                }
             } catch (Exception e) {
                 throw new RuntimeException("Could not determine fid from primary key", e);
             }
     
             // round up attributes
             final int attributeCount = featureType.getAttributeCount();
-            int[] attributeRsIndex = buildAttributeRsIndex();
+            if (attributeRsIndex == null) {
+                attributeRsIndex = buildAttributeRsIndex();
+            }
+            final CompactSimpleFeature feature = reusedFeature;
+            if (feature != null) {
+                if (primitiveColumns == null) {
+                    try {
+                        primitiveColumns = buildPrimitiveColumns(feature.getLayout());
+                    } catch (SQLException e) {
+                        throw (IOException) new IOException().initCause(e);
+                    }
+                }
+                feature.reset(SimpleFeatureBuilder.createDefaultFeatureIdentifier(fid));
+            }
             for(int i = 0; i < attributeCount; i++) {
                 AttributeDescriptor type = featureType.getDescriptor(i);
                 
                 try {
+                    // numbers and booleans are read without boxing in the recycled feature
+                    if (feature != null && primitiveColumns[i]) {
+                        readPrimitive(feature, i, offset + attributeRsIndex[i]);
+                        continue;
+                    }
+                    
                     Object value = null;
     
                     // is this a geometry?
@@ -344,11 +408,19 @@ public class JDBCFeatureReader implements  FeatureReader<SimpleFeatureType, Simp
                         }
                     }
     
-                    builder.add(value);
+                    if (feature != null) {
+                        feature.setAttribute(i, value);
+                    } else {
+                        builder.add(value);
+                    }
                 } catch (SQLException e) {
                     throw new RuntimeException(e);
                 }
             }
+            
+            if (feature != null) {
+                return feature;
+            }
     
             // create the feature
             try {
@@ -364,6 +436,56 @@ public class JDBCFeatureReader implements  FeatureReader<SimpleFeatureType, Simp
         }
     }
 
+    /**
+     * Reads a number or boolean column straight into the recycled feature, leaving the
+     * attribute null if the column value is NULL
+     */
+    void readPrimitive(CompactSimpleFeature feature, int index, int column) throws SQLException {
+        SimpleFeatureLayout layout = feature.getLayout();
+        if (layout.isIntegral(index)) {
+            long value = rs.getLong(column);
+            if (!rs.wasNull()) {
+                feature.setLong(index, value);
+            }
+        } else if (layout.isFloatingPoint(index)) {
+            double value = rs.getDouble(column);
+            if (!rs.wasNull()) {
+                feature.setDouble(index, value);
+            }
+        } else {
+            boolean value = rs.getBoolean(column);
+            if (!rs.wasNull()) {
+                feature.setBoolean(index, value);
+            }
+        }
+    }
+
+    /**
+     * Flags the attributes that can be read with the primitive result set getters, that is, the
+     * ones whose binding and column type are both of the same numeric or boolean family. The
+     * others go through {@link ResultSet#getObject(int)} and the converters as usual.
+     */
+    private boolean[] buildPrimitiveColumns(SimpleFeatureLayout layout) throws SQLException {
+        ResultSetMetaData md = rs.getMetaData();
+        boolean[] result = new boolean[featureType.getAttributeCount()];
+        for (int i = 0; i < result.length; i++) {
+            if (!layout.isPrimitive(i)) {
+                continue;
+            }
+            int sqlType = md.getColumnType(offset + attributeRsIndex[i]);
+            if (layout.isIntegral(i)) {
+                result[i] = sqlType == Types.INTEGER || sqlType == Types.SMALLINT
+                        || sqlType == Types.TINYINT || sqlType == Types.BIGINT;
+            } else if (layout.isFloatingPoint(i)) {
+                result[i] = sqlType == Types.DOUBLE || sqlType == Types.FLOAT
+                        || sqlType == Types.REAL;
+            } else {
+                result[i] = sqlType == Types.BOOLEAN || sqlType == Types.BIT;
+            }
+        }
+        return result;
+    }
+
     /**
      * Builds an array containing the position in the result set for each attribute.
      * It takes into account that rs positions start by one, about the exposed primary keys,
@@ -387,8 +509,40 @@ public class JDBCFeatureReader implements  FeatureReader<SimpleFeatureType, Simp
         return indexes;
     }
 
+    /**
+     * The number of features read so far
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * The time elapsed between the query execution and the availability of the first row, in
+     * milliseconds, or -1 if no row has been read
+     */
+    public double getFirstRowLatency() {
+        return firstRowTime == 0 ? -1 : (firstRowTime - startTime) / 1e6;
+    }
+
+    /**
+     * The number of features read per second since the query was executed
+     */
+    public double getRowsPerSecond() {
+        long elapsed = System.nanoTime() - startTime;
+        return elapsed > 0 ? rowCount / (elapsed / 1e9) : 0;
+    }
+
     public void close() throws IOException {
         if ( dataStore != null ) {
+            if (keysetPage != null) {
+                keysetPage.close();
+                keysetPage = null;
+            }
+            if (LOGGER.isLoggable(Level.FINE) && startTime > 0) {
+                LOGGER.fine("Read " + rowCount + " features from " + featureType.getTypeName()
+                        + ", first row after " + getFirstRowLatency() + "ms, "
+                        + Math.round(getRowsPerSecond()) + " features/s");
+            }
             //clean up
             dataStore.closeSafe( rs );
             dataStore.closeSafe( st );
@@ -418,6 +572,7 @@ public class JDBCFeatureReader implements  FeatureReader<SimpleFeatureType, Simp
         hints = null;
         next = null;
         builder = null;
+        reusedFeature = null;
         tracer = null;
     }
     
@@ -107,6 +107,8 @@ public class JDBCFeatureSource extends ContentFeatureSource {
         // mark the features as detached, that is, the user can directly alter them
         // without altering the state of the datastore
         hints.add(Hints.FEATURE_DETACHED);
+        // features can be recycled on demand
+        hints.add(Hints.FEATURE_REUSE);
         getDataStore().getSQLDialect().addSupportedHints(hints);
     }
 
@@ -546,6 +548,24 @@ public class JDBCFeatureSource extends ContentFeatureSource {
         DefaultQuery preQuery = new DefaultQuery(query);
         preQuery.setFilter(preFilter);
 
+        // page on the primary key if the previous page of the same query has been read already
+        KeysetPaging.Page page = null;
+        if (getDataStore().isKeysetPaging() && query.getJoins().isEmpty()
+                && (postFilter == null || postFilter == Filter.INCLUDE)
+                && getState().getTransaction() == Transaction.AUTO_COMMIT && canOffset()
+                && KeysetPaging.isPageable(preQuery, getPrimaryKey())) {
+            KeysetPaging bookmarks = getDataStore().keysetBookmarks;
+            String typeName = getEntry().getTypeName();
+            page = bookmarks.page(typeName, preQuery);
+            Object afterKey = bookmarks.getAfterKey(typeName, preQuery);
+            if (afterKey != null) {
+                Hints hints = new Hints(preQuery.getHints());
+                hints.put(KeysetPaging.AFTER_KEY, afterKey);
+                preQuery.setHints(hints);
+                preQuery.setStartIndex(null);
+            }
+        }
+
         // Build the feature type returned by this query. Also build an eventual extra feature type
         // containing the attributes we might need in order to evaluate the post filter
         SimpleFeatureType[] types = 
@@ -579,19 +599,27 @@ public class JDBCFeatureSource extends ContentFeatureSource {
         
                     reader = new JDBCFeatureReader( sql, cx, this, querySchema, query.getHints() );
                 }
+                ((JDBCFeatureReader) reader).keysetPage = page;
             }
             else {
                 JoinInfo join = JoinInfo.create(preQuery, this);
+                
+                // the joined features are stored inside the returned ones, they cannot be recycled
+                Hints joinHints = query.getHints();
+                if (joinHints.containsKey(Hints.FEATURE_REUSE)) {
+                    joinHints = new Hints(joinHints);
+                    joinHints.remove(Hints.FEATURE_REUSE);
+                }
 
                 if ( dialect instanceof PreparedStatementSQLDialect ) {
                     PreparedStatement ps =getDataStore().selectJoinSQLPS(querySchema, join, preQuery, cx);
-                    reader = new JDBCJoiningFeatureReader(ps, cx, this, querySchema, join, query.getHints());
+                    reader = new JDBCJoiningFeatureReader(ps, cx, this, querySchema, join, joinHints);
                 } else {
                     //build up a statement for the content
                     String sql = getDataStore().selectJoinSQL(querySchema, join, preQuery);
                     getDataStore().getLogger().fine(sql);
         
-                    reader = new JDBCJoiningFeatureReader(sql, cx, this, querySchema, join, query.getHints());
+                    reader = new JDBCJoiningFeatureReader(sql, cx, this, querySchema, join, joinHints);
                 }
                 
                 //check for post filters
@@ -20,11 +20,15 @@ import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
 
 import org.geotools.data.FeatureWriter;
 import org.geotools.data.store.ContentEntry;
 import org.geotools.data.store.ContentState;
 import org.geotools.factory.Hints;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
 import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
 
@@ -38,21 +42,62 @@ public class JDBCInsertFeatureWriter extends JDBCFeatureReader implements Featur
     
     ResultSetFeature last;
     
+    /**
+     * Features waiting to be inserted, <code>null</code> if batch inserts are disabled
+     */
+    List<SimpleFeature> batch;
+    
+    /**
+     * The primary key values of the features in {@link #batch}
+     */
+    List<List<Object>> batchKeys;
+    
+    /**
+     * Primary key values fetched from the database for the next features, a batch at a time
+     */
+    LinkedList<List<Object>> nextKeys;
+    
     public JDBCInsertFeatureWriter(String sql, Connection cx,
             JDBCFeatureSource featureSource, Hints hints) throws SQLException, IOException {
         super(sql, cx, featureSource, featureSource.getSchema(), hints);
         last = new ResultSetFeature( rs, cx );
+        initBatch();
     }
 
     public JDBCInsertFeatureWriter(PreparedStatement ps, Connection cx, JDBCFeatureSource featureSource, Hints hints)
         throws SQLException, IOException {
         super( ps, cx, featureSource, featureSource.getSchema(), hints );
         last = new ResultSetFeature( rs, ps.getConnection() );
+        initBatch();
     }
     
     public JDBCInsertFeatureWriter(JDBCUpdateFeatureWriter other) {
         super(other);
         last = other.last;
+        initBatch();
+    }
+    
+    /**
+     * Enables batch inserts if the store is configured for them. Features are batched when
+     * their primary key values can be computed before the insert, that is, when they carry
+     * their own feature id or when the key values are not peeked from the table
+     */
+    void initBatch() {
+        if (dataStore.getBatchInsertSize() <= 1) {
+            return;
+        }
+        if (pkey == null) {
+            try {
+                pkey = dataStore.getPrimaryKey(featureType);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        batch = new ArrayList<SimpleFeature>(dataStore.getBatchInsertSize());
+        batchKeys = new ArrayList<List<Object>>(dataStore.getBatchInsertSize());
+        if (dataStore.isBatchInsertSupported(pkey)) {
+            nextKeys = new LinkedList<List<Object>>();
+        }
     }
 
     public boolean hasNext() throws IOException {
@@ -72,23 +117,82 @@ public class JDBCInsertFeatureWriter extends JDBCFeatureReader implements Featur
 
     public void write() throws IOException {
         try {
-            //do the insert
-            dataStore.insert(last, featureType, st.getConnection());
-            
-            //the datastore sets as userData, grab it and update the fid
-            String fid = (String) last.getUserData().get( "fid" );
-            last.setID( fid );
-            
-            ContentEntry entry = featureSource.getEntry();
-            ContentState state = entry.getState( this.tx );            
-            state.fireFeatureAdded( featureSource, last );
+            boolean useExisting = Boolean.TRUE.equals(last.getUserData().get(
+                    Hints.USE_PROVIDED_FID));
+            if (batch != null && (useExisting || nextKeys != null)) {
+                // compute the key right away so that the fid can be reported, the feature
+                // is copied since the writer recycles the same instance for all inserts
+                List<Object> keyValues;
+                if (useExisting) {
+                    keyValues = dataStore.getInsertKeyValues(last, pkey, false,
+                            st.getConnection());
+                } else {
+                    if (nextKeys.isEmpty()) {
+                        nextKeys.addAll(dataStore.getNextValues(pkey, st.getConnection(),
+                                dataStore.getBatchInsertSize()));
+                    }
+                    keyValues = nextKeys.removeFirst();
+                }
+                String fid = dataStore.encodeInsertFID(featureType, keyValues);
+                last.getUserData().put("fid", fid);
+                last.setID(fid);
+                SimpleFeature copy = SimpleFeatureBuilder.copy(last);
+                copy.getUserData().putAll(last.getUserData());
+                batch.add(copy);
+                batchKeys.add(keyValues);
+                if (batch.size() >= dataStore.getBatchInsertSize()) {
+                    flush();
+                }
+            } else {
+                // keep the insert order
+                flush();
+                
+                //do the insert
+                dataStore.insert(last, featureType, st.getConnection());
+                
+                //the datastore sets as userData, grab it and update the fid
+                String fid = (String) last.getUserData().get( "fid" );
+                last.setID( fid );
+                
+                fireFeatureAdded(last);
+            }
         } catch (SQLException e) {
-            throw (IOException) new IOException().initCause(e);
+            throw (IOException) new IOException(e.getMessage()).initCause(e);
         }
     }
 
+    /**
+     * Sends the pending batch of features to the database, and notifies the listeners once
+     * the features have actually been inserted
+     */
+    void flush() throws IOException, SQLException {
+        if (batch != null && !batch.isEmpty()) {
+            try {
+                dataStore.insertBatch(batch, batchKeys, featureType, st.getConnection());
+                for (SimpleFeature feature : batch) {
+                    fireFeatureAdded(feature);
+                }
+            } finally {
+                batch.clear();
+                batchKeys.clear();
+            }
+        }
+    }
+    
+    void fireFeatureAdded(SimpleFeature feature) {
+        ContentEntry entry = featureSource.getEntry();
+        ContentState state = entry.getState( this.tx );            
+        state.fireFeatureAdded( featureSource, feature );
+    }
+
     public void close() throws IOException {
-        super.close();
+        try {
+            flush();
+        } catch (SQLException e) {
+            throw (IOException) new IOException(e.getMessage()).initCause(e);
+        } finally {
+            super.close();
+        }
         
         if ( last != null ) {
             last.close();
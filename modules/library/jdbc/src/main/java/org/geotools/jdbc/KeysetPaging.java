@@ -0,0 +1,193 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.jdbc;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.geotools.data.Query;
+import org.geotools.factory.Hints;
+import org.geotools.util.Utilities;
+import org.opengis.filter.Filter;
+import org.opengis.filter.sort.SortBy;
+
+/**
+ * Keeps track of the last primary key value read by the pages of natural order queries, so
+ * that the following page can be read with a {@code WHERE pk > lastValue} condition instead of
+ * having the database scan and discard {@code OFFSET} rows.
+ * <p>
+ * A bookmark is recorded when a reader fully reads a page, and it is keyed by the feature type,
+ * the filter, the virtual table parameters and the start index of the next page. The
+ * bookmarks of a feature type are dropped as soon as the datastore writes on it.
+ *
+ * @since 9.0
+ *
+ * @source $URL$
+ */
+class KeysetPaging {
+
+    /**
+     * Hint carrying the primary key value after which the query results should start, used by
+     * {@link JDBCDataStore} when encoding the select statements
+     */
+    static final Hints.Key AFTER_KEY = new Hints.Key(Object.class);
+
+    /**
+     * The maximum number of bookmarks retained, the least recently used are evicted first
+     */
+    static final int MAX_BOOKMARKS = 256;
+
+    private final Map<Bookmark, Object> bookmarks = new LinkedHashMap<Bookmark, Object>(16,
+            0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Bookmark, Object> eldest) {
+            return size() > MAX_BOOKMARKS;
+        }
+    };
+
+    /**
+     * Returns true if the query results can be paged on the primary key: the query must be
+     * limited, sorted on the natural order only, and the key must be made of a single column
+     */
+    static boolean isPageable(Query query, PrimaryKey key) {
+        SortBy[] sort = query.getSortBy();
+        return query.getMaxFeatures() != Integer.MAX_VALUE && sort != null && sort.length == 1
+                && SortBy.NATURAL_ORDER.equals(sort[0]) && !(key instanceof NullPrimaryKey)
+                && key.getColumns().size() == 1;
+    }
+
+    /**
+     * Returns the last primary key value read before the specified start index, or null if
+     * there is no such bookmark
+     */
+    synchronized Object getAfterKey(String typeName, Query query) {
+        int startIndex = query.getStartIndex() != null ? query.getStartIndex() : 0;
+        if (startIndex <= 0) {
+            return null;
+        }
+        return bookmarks.get(new Bookmark(typeName, query, startIndex));
+    }
+
+    /**
+     * Starts tracking a page of the specified query, the returned page has to be fed with the
+     * primary key values read
+     */
+    Page page(String typeName, Query query) {
+        int startIndex = query.getStartIndex() != null ? query.getStartIndex() : 0;
+        return new Page(typeName, query, startIndex, query.getMaxFeatures());
+    }
+
+    /**
+     * Drops the bookmarks of the specified feature type
+     */
+    synchronized void clear(String typeName) {
+        for (Iterator<Bookmark> it = bookmarks.keySet().iterator(); it.hasNext();) {
+            if (it.next().typeName.equals(typeName)) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * The number of bookmarks currently retained
+     */
+    synchronized int size() {
+        return bookmarks.size();
+    }
+
+    synchronized void put(Bookmark bookmark, Object lastKey) {
+        bookmarks.put(bookmark, lastKey);
+    }
+
+    /**
+     * A page being read
+     */
+    class Page {
+        final Bookmark bookmark;
+
+        final int limit;
+
+        Object lastKey;
+
+        int rows;
+
+        Page(String typeName, Query query, int startIndex, int limit) {
+            this.bookmark = new Bookmark(typeName, query, startIndex);
+            this.limit = limit;
+        }
+
+        /**
+         * Records the primary key value of a row read
+         */
+        void read(Object key) {
+            lastKey = key;
+            rows++;
+        }
+
+        /**
+         * Bookmarks the next page, provided this one has been fully read
+         */
+        void close() {
+            if (rows == limit && lastKey != null) {
+                put(new Bookmark(bookmark, bookmark.startIndex + rows), lastKey);
+            }
+        }
+    }
+
+    static class Bookmark {
+        final String typeName;
+
+        final Filter filter;
+
+        final Object parameters;
+
+        final int startIndex;
+
+        Bookmark(String typeName, Query query, int startIndex) {
+            this.typeName = typeName;
+            this.filter = query.getFilter();
+            this.parameters = query.getHints().get(Hints.VIRTUAL_TABLE_PARAMETERS);
+            this.startIndex = startIndex;
+        }
+
+        Bookmark(Bookmark other, int startIndex) {
+            this.typeName = other.typeName;
+            this.filter = other.filter;
+            this.parameters = other.parameters;
+            this.startIndex = startIndex;
+        }
+
+        @Override
+        public int hashCode() {
+            return Utilities.hash(startIndex, Utilities.hash(filter, typeName.hashCode()));
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Bookmark)) {
+                return false;
+            }
+            Bookmark other = (Bookmark) obj;
+            return startIndex == other.startIndex && typeName.equals(other.typeName)
+                    && Utilities.equals(filter, other.filter)
+                    && Utilities.equals(parameters, other.parameters);
+        }
+    }
+}
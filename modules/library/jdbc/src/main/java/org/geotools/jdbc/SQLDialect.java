@@ -26,6 +26,7 @@ import java.sql.SQLException;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.sql.Types;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -1106,6 +1107,35 @@ public abstract class SQLDialect {
         return null;
     }
     
+    /**
+     * Obtains the next <tt>count</tt> values of a sequence, incrementing the sequence 
+     * to the next state in the process.
+     * <p>
+     * Used to compute the keys of a whole batch of inserts at once. The default 
+     * implementation calls {@link #getNextSequenceValue(String, String, Connection)} 
+     * once per value, subclasses should override to grab all the values with a single 
+     * query when the database allows it.
+     * </p>
+     * @param schemaName The schema name, this might be <code>null</code>.
+     * @param sequenceName The name of the sequence.
+     * @param count The number of values to be returned.
+     * @param cx The database connection.
+     *
+     * @return The next values of the sequence, or <code>null</code> if they cannot be computed.
+     */
+    public List<Object> getNextSequenceValues(String schemaName, String sequenceName, 
+            int count, Connection cx) throws SQLException {
+        List<Object> values = new ArrayList<Object>(count);
+        for (int i = 0; i < count; i++) {
+            Object value = getNextSequenceValue(schemaName, sequenceName, cx);
+            if (value == null) {
+                return null;
+            }
+            values.add(value);
+        }
+        return values;
+    }
+    
     /**
      * Returns true if this dialect can encode both {@linkplain Query#getStartIndex()}
      * and {@linkplain Query#getMaxFeatures()} into native SQL. 
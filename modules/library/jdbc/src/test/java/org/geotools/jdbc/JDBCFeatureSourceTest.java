@@ -17,6 +17,8 @@
 package org.geotools.jdbc;
 
 import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 import org.geotools.data.Query;
@@ -362,6 +364,60 @@ public abstract class JDBCFeatureSourceTest extends JDBCTestSupport {
         }
     }
     
+    public void testGetFeaturesKeysetPaging() throws Exception {
+        List<String> expected = readPages(false, null);
+        assertEquals(3, expected.size());
+        assertEquals(expected, readPages(true, null));
+        // each full page bookmarked the following one, and those are read again by key
+        assertEquals(3, dataStore.keysetBookmarks.size());
+        assertEquals(expected, readPages(true, null));
+        
+        // a filtered query gets its own bookmarks
+        FilterFactory ff = dataStore.getFilterFactory();
+        Filter filter = ff.greater(ff.property(aname("intProperty")), ff.literal(0));
+        List<String> filtered = readPages(true, filter);
+        assertEquals(expected.subList(1, 3), filtered);
+        assertEquals(5, dataStore.keysetBookmarks.size());
+        assertEquals(filtered, readPages(true, filter));
+        
+        // writes drop the bookmarks
+        ((JDBCFeatureStore) featureSource).removeFeatures(ff.equals(
+                ff.property(aname("intProperty")), ff.literal(2)));
+        assertEquals(0, dataStore.keysetBookmarks.size());
+        assertEquals(expected.subList(0, 2), readPages(true, null));
+    }
+    
+    /**
+     * Reads ft1 one feature at a time in natural order, returning the feature ids
+     */
+    List<String> readPages(boolean keysetPaging, Filter filter) throws Exception {
+        dataStore.setKeysetPaging(keysetPaging);
+        List<String> ids = new ArrayList<String>();
+        try {
+            for (int page = 0; ; page++) {
+                Query q = new Query(featureSource.getSchema().getTypeName());
+                if (filter != null) {
+                    q.setFilter(filter);
+                }
+                q.setSortBy(new SortBy[] {SortBy.NATURAL_ORDER});
+                q.setStartIndex(page);
+                q.setMaxFeatures(1);
+                SimpleFeatureIterator it = featureSource.getFeatures(q).features();
+                try {
+                    if (!it.hasNext()) {
+                        return ids;
+                    }
+                    ids.add(it.next().getID());
+                    assertFalse(it.hasNext());
+                } finally {
+                    it.close();
+                }
+            }
+        } finally {
+            dataStore.setKeysetPaging(false);
+        }
+    }
+    
     /**
      * Makes sure the datastore works when the renderer uses the typical rendering hints
      * @throws Exception
@@ -502,6 +558,41 @@ public abstract class JDBCFeatureSourceTest extends JDBCTestSupport {
 
     }
 
+    public void testGetFeaturesReusingFeatures() throws Exception {
+        assertTrue(featureSource.getSupportedHints().contains(Hints.FEATURE_REUSE));
+        FilterFactory ff = dataStore.getFilterFactory();
+        Query query = new Query();
+        query.setSortBy(new SortBy[] { ff.sort(aname("intProperty"), SortOrder.ASCENDING) });
+        List<List<Object>> expected = new ArrayList<List<Object>>();
+        SimpleFeatureIterator it = featureSource.getFeatures(query).features();
+        try {
+            while (it.hasNext()) {
+                expected.add(it.next().getAttributes());
+            }
+        } finally {
+            it.close();
+        }
+
+        query.setHints(new Hints(Hints.FEATURE_REUSE, Boolean.TRUE));
+        it = featureSource.getFeatures(query).features();
+        try {
+            SimpleFeature first = null;
+            int count = 0;
+            while (it.hasNext()) {
+                SimpleFeature f = it.next();
+                if (first == null) {
+                    first = f;
+                } else {
+                    assertSame(first, f);
+                }
+                assertEquals(expected.get(count++), f.getAttributes());
+            }
+            assertEquals(expected.size(), count);
+        } finally {
+            it.close();
+        }
+    }
+
     public void testGetFeaturesWithArithmeticOpFilter() throws Exception {
         FilterFactory ff = dataStore.getFilterFactory();
 
@@ -112,6 +112,42 @@ public abstract class JDBCFeatureStoreTest extends JDBCTestSupport {
         }
     }
     
+    public void testAddFeaturesBatch() throws IOException {
+        dataStore.setBatchInsertSize(2);
+        
+        SimpleFeatureBuilder b = new SimpleFeatureBuilder(featureStore.getSchema());
+        DefaultFeatureCollection collection = new DefaultFeatureCollection(null,
+                featureStore.getSchema());
+        
+        for (int i = 3; i < 8; i++) {
+            b.set(aname("intProperty"), new Integer(i));
+            b.set(aname("geometry"), new GeometryFactory().createPoint(new Coordinate(i, i)));
+            collection.add(b.buildFeature(null));
+        }
+        List<FeatureId> fids = featureStore.addFeatures((SimpleFeatureCollection)collection);
+        assertEquals(5, fids.size());
+        assertEquals(5, new HashSet<FeatureId>(fids).size());
+
+        SimpleFeatureCollection features = featureStore.getFeatures();
+        assertEquals(8, features.size());
+
+        FilterFactory ff = dataStore.getFilterFactory();
+        for (FeatureId identifier : fids) {
+            Id filter = ff.id(Collections.singleton(identifier));
+            features = featureStore.getFeatures(filter);
+            assertEquals(1, features.size());
+
+            SimpleFeatureIterator iterator = features.features();
+            try {
+                assertTrue(iterator.hasNext());
+                assertEquals(identifier.getID(), iterator.next().getID());
+            }
+            finally {
+                iterator.close();
+            }
+        }
+    }
+    
     public void testAddFeaturesUseProvidedFid() throws IOException {
         // check we advertise the ability to reuse feature ids
         assertTrue(featureStore.getQueryCapabilities().isUseProvidedFIDSupported());
@@ -148,7 +184,64 @@ public abstract class JDBCFeatureStoreTest extends JDBCTestSupport {
             assertEquals(1, features.size());
         }
     }
-    
+
+    public void testAddFeaturesBatchUseProvidedFid() throws IOException {
+        dataStore.setBatchInsertSize(2);
+
+        SimpleFeatureBuilder b = new SimpleFeatureBuilder(featureStore.getSchema());
+        DefaultFeatureCollection collection = new DefaultFeatureCollection(null,
+                featureStore.getSchema());
+
+        String typeName = b.getFeatureType().getTypeName();
+        for (int i = 3; i < 8; i++) {
+            b.set(aname("intProperty"), new Integer(i));
+            b.set(aname("geometry"), new GeometryFactory().createPoint(new Coordinate(i, i)));
+            b.featureUserData(Hints.USE_PROVIDED_FID, Boolean.TRUE);
+            collection.add(b.buildFeature(typeName + "." + (i * 10)));
+        }
+        StatementCounter counter = StatementCounter.install(dataStore);
+        List<FeatureId> fids;
+        try {
+            fids = featureStore.addFeatures((SimpleFeatureCollection)collection);
+        } finally {
+            counter.uninstall();
+        }
+
+        assertEquals(5, fids.size());
+        for (int i = 3; i < 8; i++) {
+            assertEquals(typeName + "." + (i * 10), fids.get(i - 3).getID());
+        }
+        assertEquals(8, featureStore.getFeatures().size());
+        // two batches of two features, the last one inserted on its own
+        assertEquals(2, counter.batches.get());
+        assertEquals(4, counter.batched.get());
+    }
+
+    public void testAddFeaturesBatchFailureReportsFid() throws Exception {
+        dataStore.setBatchInsertSize(3);
+
+        SimpleFeatureBuilder b = new SimpleFeatureBuilder(featureStore.getSchema());
+        String typeName = b.getFeatureType().getTypeName();
+        List<SimpleFeature> features = new ArrayList<SimpleFeature>();
+        // the second feature reuses the key of an existing row
+        for (int id : new int[] { 30, 1, 40 }) {
+            b.set(aname("intProperty"), new Integer(id));
+            b.set(aname("geometry"), new GeometryFactory().createPoint(new Coordinate(id, id)));
+            b.featureUserData(Hints.USE_PROVIDED_FID, Boolean.TRUE);
+            features.add(b.buildFeature(typeName + "." + id));
+        }
+
+        Connection cx = dataStore.getConnection(Transaction.AUTO_COMMIT);
+        try {
+            dataStore.insert(features, featureStore.getSchema(), cx);
+            fail("The insert of a duplicate key should have failed");
+        } catch (IOException e) {
+            assertTrue(e.getCause().getMessage().contains(typeName + ".1"));
+        } finally {
+            dataStore.closeSafe(cx);
+        }
+    }
+
     public void testAddInTransaction() throws IOException {
         SimpleFeatureBuilder b = new SimpleFeatureBuilder(featureStore.getSchema());
         DefaultFeatureCollection collection = new DefaultFeatureCollection(null,
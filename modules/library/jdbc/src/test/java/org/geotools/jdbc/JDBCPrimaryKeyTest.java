@@ -16,7 +16,9 @@
  */
 package org.geotools.jdbc;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 import org.geotools.data.DataUtilities;
 import org.geotools.data.FeatureStore;
@@ -28,6 +30,7 @@ import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.filter.FilterFactory;
 import org.opengis.filter.Id;
+import org.opengis.filter.identity.FeatureId;
 
 import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.GeometryFactory;
@@ -73,6 +76,37 @@ public abstract class JDBCPrimaryKeyTest extends JDBCTestSupport {
         assertPrimaryKeyValues(features,4);
     }
 
+    public void testSequencedPrimaryKeyBatch() throws Exception {
+        JDBCFeatureStore fs = (JDBCFeatureStore) dataStore.getFeatureSource(tname("seq"));
+        dataStore.setBatchInsertSize(3);
+        
+        SimpleFeatureBuilder b = new SimpleFeatureBuilder( fs.getSchema() );
+        List<SimpleFeature> features = new ArrayList<SimpleFeature>();
+        for (int i = 4; i < 9; i++) {
+            b.add("feature" + i);
+            b.add( new GeometryFactory().createPoint( new Coordinate(i,i) ) );
+            features.add(b.buildFeature(null));
+        }
+        
+        StatementCounter counter = StatementCounter.install(dataStore);
+        List<FeatureId> fids;
+        try {
+            fids = fs.addFeatures(DataUtilities.collection(features));
+        } finally {
+            counter.uninstall();
+        }
+        
+        // keys are taken from the sequence in order, a batch at a time
+        assertEquals(5, fids.size());
+        for (int i = 4; i < 9; i++) {
+            assertEquals(tname("seq") + "." + i, fids.get(i - 4).getID());
+        }
+        assertPrimaryKeyValues(fs.getFeatures(), 8);
+        // a batch of three, and a batch of two sent on close
+        assertEquals(2, counter.batches.get());
+        assertEquals(5, counter.batched.get());
+    }
+
     public void testNonIncrementingPrimaryKey() throws Exception {
         JDBCFeatureStore fs = (JDBCFeatureStore) dataStore.getFeatureSource(tname("noninc"));
         
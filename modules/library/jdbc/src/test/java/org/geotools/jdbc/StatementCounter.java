@@ -0,0 +1,103 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the data source of a store and counts the statements run through the connections it
+ * hands out, so that tests can check how the inserts actually reached the database.
+ *
+ *
+ *
+ * @source $URL$
+ */
+public class StatementCounter {
+
+    /** Number of {@link Statement#executeBatch()} calls */
+    public final AtomicInteger batches = new AtomicInteger();
+
+    /** Number of {@link Statement#addBatch(String)} and {@link PreparedStatement#addBatch()} calls */
+    public final AtomicInteger batched = new AtomicInteger();
+
+    /** Number of statements executed one at a time */
+    public final AtomicInteger executed = new AtomicInteger();
+
+    JDBCDataStore dataStore;
+
+    DataSource dataSource;
+
+    /**
+     * Starts counting the statements run by the specified store, until {@link #uninstall()}
+     * is called
+     */
+    public static StatementCounter install(JDBCDataStore dataStore) {
+        StatementCounter counter = new StatementCounter();
+        counter.dataStore = dataStore;
+        counter.dataSource = dataStore.getDataSource();
+        dataStore.setDataSource((DataSource) counter.wrap(counter.dataSource, DataSource.class));
+        return counter;
+    }
+
+    /**
+     * Gives the store its original data source back
+     */
+    public void uninstall() {
+        dataStore.setDataSource(dataSource);
+    }
+
+    Object wrap(final Object target, final Class<?> type) {
+        return Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] { type },
+                new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args)
+                            throws Throwable {
+                        String name = method.getName();
+                        if ("executeBatch".equals(name)) {
+                            batches.incrementAndGet();
+                        } else if ("addBatch".equals(name)) {
+                            batched.incrementAndGet();
+                        } else if (name.startsWith("execute")) {
+                            executed.incrementAndGet();
+                        }
+
+                        Object result;
+                        try {
+                            result = method.invoke(target, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+
+                        Class<?> returned = method.getReturnType();
+                        if (result != null
+                                && (returned == Connection.class || returned == Statement.class
+                                || returned == PreparedStatement.class)) {
+                            return wrap(result, returned);
+                        }
+                        return result;
+                    }
+                });
+    }
+}
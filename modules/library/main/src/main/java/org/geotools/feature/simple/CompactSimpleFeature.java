@@ -0,0 +1,320 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.feature.simple;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.identity.FeatureId;
+
+/**
+ * A {@link org.opengis.feature.simple.SimpleFeature} implementation geared towards streaming
+ * reads, that stores the numeric and boolean attributes unboxed, according to a shared
+ * {@link SimpleFeatureLayout}.
+ * <p>
+ * The primitive values can be set and read with the typed accessors ({@link #setLong(int, long)},
+ * {@link #getDouble(int)} and so on) without allocating any wrapper object, the wrapper is built
+ * only when the value is accessed through the generic {@link #getAttribute(int)} methods.
+ * </p>
+ * <p>
+ * The feature can also be recycled by calling {@link #reset(FeatureId)}, which allows a reader to
+ * return the same instance over and over, filling it with the contents of each record. This is
+ * only safe when the caller is not keeping references to the features it reads, see
+ * {@link org.geotools.factory.Hints#FEATURE_REUSE}.
+ * </p>
+ *
+ * @source $URL$
+ */
+public class CompactSimpleFeature extends SimpleFeatureImpl {
+
+    final SimpleFeatureLayout layout;
+
+    /**
+     * The primitive attribute values, stored as raw long bits (doubles are stored with
+     * {@link Double#doubleToRawLongBits(double)})
+     */
+    final long[] primitives;
+
+    /**
+     * Whether each primitive slot holds a value, or the attribute is null
+     */
+    final boolean[] present;
+
+    /**
+     * Builds a new empty feature, with all the attributes set to null
+     *
+     * @param featureType
+     * @param id
+     */
+    public CompactSimpleFeature(SimpleFeatureType featureType, FeatureId id) {
+        this(SimpleFeatureLayout.get(featureType), id);
+    }
+
+    /**
+     * Builds a new empty feature, with all the attributes set to null
+     *
+     * @param layout
+     * @param id
+     */
+    public CompactSimpleFeature(SimpleFeatureLayout layout, FeatureId id) {
+        super(new Object[layout.getAttributeCount()], layout.featureType, id, false,
+                layout.index);
+        this.layout = layout;
+        this.primitives = new long[layout.primitiveCount];
+        this.present = new boolean[layout.primitiveCount];
+    }
+
+    /**
+     * The layout shared by all the features of this type
+     */
+    public SimpleFeatureLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Clears all the attribute values and user data, and assigns the feature a new identifier,
+     * so that the same instance can be used to represent another record
+     *
+     * @param id
+     */
+    public void reset(FeatureId id) {
+        this.id = id;
+        Arrays.fill(values, null);
+        Arrays.fill(present, false);
+        userData = null;
+        attributeUserData = null;
+    }
+
+    @Override
+    public Object getAttribute(int index) throws IndexOutOfBoundsException {
+        Object value = values[index];
+        if (value != null) {
+            return value;
+        }
+        int slot = layout.slots[index];
+        if (slot < 0 || !present[slot]) {
+            return null;
+        }
+        long bits = primitives[slot];
+        switch (layout.kinds[index]) {
+        case SimpleFeatureLayout.BOOLEAN:
+            return Boolean.valueOf(bits != 0);
+        case SimpleFeatureLayout.BYTE:
+            return Byte.valueOf((byte) bits);
+        case SimpleFeatureLayout.SHORT:
+            return Short.valueOf((short) bits);
+        case SimpleFeatureLayout.INTEGER:
+            return Integer.valueOf((int) bits);
+        case SimpleFeatureLayout.LONG:
+            return Long.valueOf(bits);
+        case SimpleFeatureLayout.FLOAT:
+            return Float.valueOf((float) Double.longBitsToDouble(bits));
+        default:
+            return Double.valueOf(Double.longBitsToDouble(bits));
+        }
+    }
+
+    @Override
+    protected void storeValue(int index, Object value) {
+        int slot = layout.slots[index];
+        if (slot >= 0) {
+            // store unboxed only if the value is exactly of the expected type, anything else
+            // (which can only get here bypassing the converters) is kept as is
+            if (value != null && value.getClass() == layout.featureType.getDescriptor(index)
+                    .getType().getBinding()) {
+                if (value instanceof Boolean) {
+                    primitives[slot] = ((Boolean) value).booleanValue() ? 1 : 0;
+                } else if (layout.isFloatingPoint(index)) {
+                    primitives[slot] = Double.doubleToRawLongBits(((Number) value)
+                            .doubleValue());
+                } else {
+                    primitives[slot] = ((Number) value).longValue();
+                }
+                present[slot] = true;
+                values[index] = null;
+                return;
+            }
+            present[slot] = false;
+        }
+        values[index] = value;
+    }
+
+    @Override
+    public List<Object> getAttributes() {
+        List<Object> result = new ArrayList<Object>(values.length);
+        for (int i = 0; i < values.length; i++) {
+            result.add(getAttribute(i));
+        }
+        return result;
+    }
+
+    /**
+     * Returns true if the attribute at the specified position is null
+     *
+     * @param index
+     */
+    public boolean isNull(int index) {
+        if (values[index] != null) {
+            return false;
+        }
+        int slot = layout.slots[index];
+        return slot < 0 || !present[slot];
+    }
+
+    /**
+     * Sets an integral attribute value without boxing it. If the attribute is not bound to an
+     * integral number the value is converted and set as in {@link #setAttribute(int, Object)}
+     *
+     * @param index
+     * @param value
+     */
+    public void setLong(int index, long value) {
+        if (layout.isIntegral(index)) {
+            setPrimitive(index, value);
+        } else {
+            setAttribute(index, Long.valueOf(value));
+        }
+    }
+
+    /**
+     * Sets a floating point attribute value without boxing it. If the attribute is not bound to
+     * a floating point number the value is converted and set as in
+     * {@link #setAttribute(int, Object)}
+     *
+     * @param index
+     * @param value
+     */
+    public void setDouble(int index, double value) {
+        if (layout.isFloatingPoint(index)) {
+            if (layout.kinds[index] == SimpleFeatureLayout.FLOAT) {
+                value = (float) value;
+            }
+            setPrimitive(index, Double.doubleToRawLongBits(value));
+        } else {
+            setAttribute(index, Double.valueOf(value));
+        }
+    }
+
+    /**
+     * Sets a boolean attribute value without boxing it. If the attribute is not bound to a
+     * boolean the value is converted and set as in {@link #setAttribute(int, Object)}
+     *
+     * @param index
+     * @param value
+     */
+    public void setBoolean(int index, boolean value) {
+        if (layout.kinds[index] == SimpleFeatureLayout.BOOLEAN) {
+            setPrimitive(index, value ? 1 : 0);
+        } else {
+            setAttribute(index, Boolean.valueOf(value));
+        }
+    }
+
+    void setPrimitive(int index, long bits) {
+        // narrow to the actual binding, so that the value read back matches setAttribute
+        switch (layout.kinds[index]) {
+        case SimpleFeatureLayout.BYTE:
+            bits = (byte) bits;
+            break;
+        case SimpleFeatureLayout.SHORT:
+            bits = (short) bits;
+            break;
+        case SimpleFeatureLayout.INTEGER:
+            bits = (int) bits;
+            break;
+        }
+        int slot = layout.slots[index];
+        primitives[slot] = bits;
+        present[slot] = true;
+        values[index] = null;
+    }
+
+    /**
+     * Returns the attribute value as a long, 0 if the attribute is null
+     *
+     * @param index
+     * @throws IllegalArgumentException if the attribute is not a number
+     */
+    public long getLong(int index) {
+        if (layout.isIntegral(index) && values[index] == null) {
+            int slot = layout.slots[index];
+            return present[slot] ? primitives[slot] : 0;
+        }
+        Number number = toNumber(index);
+        return number != null ? number.longValue() : 0;
+    }
+
+    /**
+     * Returns the attribute value as an int, 0 if the attribute is null
+     *
+     * @param index
+     * @throws IllegalArgumentException if the attribute is not a number
+     */
+    public int getInt(int index) {
+        return (int) getLong(index);
+    }
+
+    /**
+     * Returns the attribute value as a double, {@link Double#NaN} if the attribute is null
+     *
+     * @param index
+     * @throws IllegalArgumentException if the attribute is not a number
+     */
+    public double getDouble(int index) {
+        if (layout.isPrimitive(index) && values[index] == null) {
+            int slot = layout.slots[index];
+            if (!present[slot]) {
+                return Double.NaN;
+            } else if (layout.isFloatingPoint(index)) {
+                return Double.longBitsToDouble(primitives[slot]);
+            } else if (layout.isIntegral(index)) {
+                return primitives[slot];
+            }
+        }
+        Number number = toNumber(index);
+        return number != null ? number.doubleValue() : Double.NaN;
+    }
+
+    /**
+     * Returns the attribute value as a boolean, false if the attribute is null
+     *
+     * @param index
+     * @throws IllegalArgumentException if the attribute is not a boolean
+     */
+    public boolean getBoolean(int index) {
+        Object value = getAttribute(index);
+        if (value == null) {
+            return false;
+        } else if (value instanceof Boolean) {
+            return ((Boolean) value).booleanValue();
+        }
+        throw new IllegalArgumentException("Attribute "
+                + featureType.getDescriptor(index).getLocalName() + " is not a boolean");
+    }
+
+    Number toNumber(int index) {
+        Object value = getAttribute(index);
+        if (value == null || value instanceof Number) {
+            return (Number) value;
+        }
+        throw new IllegalArgumentException("Attribute "
+                + featureType.getDescriptor(index).getLocalName() + " is not a number");
+    }
+
+}
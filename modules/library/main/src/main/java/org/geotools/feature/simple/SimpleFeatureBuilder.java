@@ -199,7 +199,14 @@ public class SimpleFeatureBuilder {
         // optimize the case in which we just build
         if(feature instanceof SimpleFeatureImpl) {
             SimpleFeatureImpl impl = (SimpleFeatureImpl) feature;
-            System.arraycopy(impl.values, 0, values, 0, impl.values.length);
+            if (impl instanceof CompactSimpleFeature) {
+                // the primitive values are not stored in the value array
+                for (int i = 0; i < impl.values.length; i++) {
+                    values[i] = impl.getAttribute(i);
+                }
+            } else {
+                System.arraycopy(impl.values, 0, values, 0, impl.values.length);
+            }
 
             if (impl.userData != null) {
                 featureUserData = new HashMap(impl.userData);
@@ -241,7 +241,19 @@ public class SimpleFeatureImpl implements SimpleFeature {
         if(validating)
             Types.validate(featureType.getDescriptor(index), converted);
         // finally set the value into the feature
-        values[index] = converted;
+        storeValue(index, converted);
+    }
+
+    /**
+     * Stores the value at the specified position, without any conversion or validation.
+     * Subclasses using a different storage for the attribute values can override this method,
+     * along with {@link #getAttribute(int)}
+     *
+     * @param index
+     * @param value
+     */
+    protected void storeValue(int index, Object value) {
+        values[index] = value;
     }
     
     public void setAttribute(String name, Object value) {
@@ -257,7 +269,7 @@ public class SimpleFeatureImpl implements SimpleFeature {
 
     public void setAttributes(List<Object> values) {
         for (int i = 0; i < this.values.length; i++) {
-            this.values[i] = values.get(i);
+            storeValue(i, values.get(i));
         }
     }
 
@@ -342,7 +354,7 @@ public class SimpleFeatureImpl implements SimpleFeature {
             int index = idx.intValue();
             AttributeDescriptor descriptor = featureType.getDescriptor(index);
             if(descriptor instanceof GeometryDescriptor){
-                return new GeometryAttributeImpl(values[index], (GeometryDescriptor) descriptor, null); 
+                return new GeometryAttributeImpl(getAttribute(index), (GeometryDescriptor) descriptor, null); 
             }else{
                 return new Attribute( index );
             }
@@ -356,7 +368,7 @@ public class SimpleFeatureImpl implements SimpleFeature {
     public void setValue(Collection<Property> values) {
         int i = 0;
         for ( Property p : values ) {
-            this.values[i] = p.getValue();
+            storeValue(i, p.getValue());
         }
     }
 
@@ -440,13 +452,14 @@ public class SimpleFeatureImpl implements SimpleFeature {
 
         for (int i = 0, ii = values.length; i < ii; i++) {
             Object otherAtt = feat.getAttribute(i);
+            Object att = getAttribute(i);
 
-            if (values[i] == null) {
+            if (att == null) {
                 if (otherAtt != null) {
                     return false;
                 }
             } else {
-                if (!values[i].equals(otherAtt)) {
+                if (!att.equals(otherAtt)) {
                     return false;
                 }
             }
@@ -458,7 +471,7 @@ public class SimpleFeatureImpl implements SimpleFeature {
     public void validate() {
         for (int i = 0; i < values.length; i++) {
             AttributeDescriptor descriptor = getType().getDescriptor(i);
-            Types.validate(descriptor, values[i]);
+            Types.validate(descriptor, getAttribute(i));
         }
     }
 
@@ -476,7 +489,7 @@ public class SimpleFeatureImpl implements SimpleFeature {
         }
         
         public Attribute set(int index, Property element) {
-            values[index] =  element.getValue();
+            storeValue(index, element.getValue());
             return null;
         }
         
@@ -531,7 +544,7 @@ public class SimpleFeatureImpl implements SimpleFeature {
         }
 
         public Object getValue() {
-            return values[index];
+            return getAttribute(index);
         }
 
         public boolean isNillable() {
@@ -539,7 +552,7 @@ public class SimpleFeatureImpl implements SimpleFeature {
         }
 
         public void setValue(Object newValue) {
-            values[index] = newValue;
+            storeValue(index, newValue);
         }
         /**
          * Override of hashCode; uses descriptor name to agree with AttributeImpl
@@ -578,7 +591,7 @@ public class SimpleFeatureImpl implements SimpleFeature {
         }
         
         public void validate() {
-            Types.validate(getDescriptor(), values[index]);
+            Types.validate(getDescriptor(), getAttribute(index));
         }
 
         public String toString() {
@@ -596,7 +609,7 @@ public class SimpleFeatureImpl implements SimpleFeature {
                 sb.append(">");
             }
             sb.append("=");
-            sb.append( values[index] );
+            sb.append( getAttribute(index) );
             return sb.toString();
         }
     }
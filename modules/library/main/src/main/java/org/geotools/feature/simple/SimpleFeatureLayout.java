@@ -0,0 +1,199 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.feature.simple;
+
+import java.util.Map;
+
+import org.opengis.feature.simple.SimpleFeatureType;
+
+/**
+ * The storage layout of a {@link CompactSimpleFeature}, computed once per
+ * {@link SimpleFeatureType} and shared by all the features of that type.
+ * <p>
+ * The layout resolves attribute names to positions, and assigns each attribute bound to a
+ * primitive wrapper (numbers and booleans) a slot in the feature primitive value array, so that
+ * such values can be stored without boxing.
+ * </p>
+ * Instances are immutable and thread safe, use {@link #get(SimpleFeatureType)} to grab the one
+ * associated to a feature type.
+ *
+ * @source $URL$
+ */
+public final class SimpleFeatureLayout {
+
+    static final byte OBJECT = 0;
+
+    static final byte BOOLEAN = 1;
+
+    static final byte BYTE = 2;
+
+    static final byte SHORT = 3;
+
+    static final byte INTEGER = 4;
+
+    static final byte LONG = 5;
+
+    static final byte FLOAT = 6;
+
+    static final byte DOUBLE = 7;
+
+    static final String USER_DATA_KEY = "simpleFeatureLayout";
+
+    final SimpleFeatureType featureType;
+
+    /**
+     * The attribute name -> position index, shared with {@link SimpleFeatureImpl}
+     */
+    final Map<String, Integer> index;
+
+    /**
+     * The storage kind of each attribute
+     */
+    final byte[] kinds;
+
+    /**
+     * The position of each attribute in the primitive value array, -1 for the object ones
+     */
+    final int[] slots;
+
+    final int primitiveCount;
+
+    SimpleFeatureLayout(SimpleFeatureType featureType, Map<String, Integer> index) {
+        this.featureType = featureType;
+        this.index = index;
+        int count = featureType.getAttributeCount();
+        kinds = new byte[count];
+        slots = new int[count];
+        int primitives = 0;
+        for (int i = 0; i < count; i++) {
+            kinds[i] = kind(featureType.getDescriptor(i).getType().getBinding());
+            slots[i] = kinds[i] == OBJECT ? -1 : primitives++;
+        }
+        primitiveCount = primitives;
+    }
+
+    /**
+     * Returns the layout for the specified feature type, building it on the first call
+     *
+     * @param featureType
+     */
+    public static SimpleFeatureLayout get(SimpleFeatureType featureType) {
+        // in the most common case the layout is cached in the feature type itself
+        if (featureType instanceof SimpleFeatureTypeImpl) {
+            SimpleFeatureTypeImpl impl = (SimpleFeatureTypeImpl) featureType;
+            SimpleFeatureLayout layout = impl.layout;
+            if (layout == null) {
+                // a race here just builds an equivalent layout twice
+                layout = new SimpleFeatureLayout(featureType, impl.index);
+                impl.layout = layout;
+            }
+            return layout;
+        } else {
+            synchronized (featureType) {
+                Object cache = featureType.getUserData().get(USER_DATA_KEY);
+                if (cache instanceof SimpleFeatureLayout) {
+                    return (SimpleFeatureLayout) cache;
+                }
+                SimpleFeatureLayout layout = new SimpleFeatureLayout(featureType,
+                        SimpleFeatureTypeImpl.buildIndex(featureType));
+                featureType.getUserData().put(USER_DATA_KEY, layout);
+                return layout;
+            }
+        }
+    }
+
+    static byte kind(Class<?> binding) {
+        if (binding == Integer.class) {
+            return INTEGER;
+        } else if (binding == Double.class) {
+            return DOUBLE;
+        } else if (binding == Long.class) {
+            return LONG;
+        } else if (binding == Float.class) {
+            return FLOAT;
+        } else if (binding == Short.class) {
+            return SHORT;
+        } else if (binding == Byte.class) {
+            return BYTE;
+        } else if (binding == Boolean.class) {
+            return BOOLEAN;
+        } else {
+            return OBJECT;
+        }
+    }
+
+    /**
+     * The feature type this layout has been built for
+     */
+    public SimpleFeatureType getFeatureType() {
+        return featureType;
+    }
+
+    /**
+     * The number of attributes in the feature type
+     */
+    public int getAttributeCount() {
+        return kinds.length;
+    }
+
+    /**
+     * Returns the position of the specified attribute, or -1 if not found
+     *
+     * @param name
+     */
+    public int indexOf(String name) {
+        Integer idx = index.get(name);
+        return idx != null ? idx.intValue() : -1;
+    }
+
+    /**
+     * Returns true if the attribute values are stored unboxed
+     *
+     * @param index
+     */
+    public boolean isPrimitive(int index) {
+        return kinds[index] != OBJECT;
+    }
+
+    /**
+     * Returns true if the attribute is bound to an integral number (byte, short, integer or
+     * long)
+     *
+     * @param index
+     */
+    public boolean isIntegral(int index) {
+        byte kind = kinds[index];
+        return kind >= BYTE && kind <= LONG;
+    }
+
+    /**
+     * Returns true if the attribute is bound to a floating point number (float or double)
+     *
+     * @param index
+     */
+    public boolean isFloatingPoint(int index) {
+        byte kind = kinds[index];
+        return kind == FLOAT || kind == DOUBLE;
+    }
+
+    /**
+     * The number of attributes whose values are stored unboxed
+     */
+    public int getPrimitiveCount() {
+        return primitiveCount;
+    }
+}
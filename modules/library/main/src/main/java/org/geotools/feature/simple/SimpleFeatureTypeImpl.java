@@ -49,6 +49,9 @@ public class SimpleFeatureTypeImpl extends FeatureTypeImpl implements
 
     Map<String, Integer> index;
 
+    // lazily built by SimpleFeatureLayout.get(...)
+    volatile SimpleFeatureLayout layout;
+
     @SuppressWarnings("unchecked")
     public SimpleFeatureTypeImpl(Name name, List<AttributeDescriptor> schema,
             GeometryDescriptor defaultGeometry, boolean isAbstract,
@@ -16,9 +16,7 @@
  */
 package org.geotools.filter;
 
-import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -234,76 +232,124 @@ public class AttributeExpressionImpl extends DefaultExpression
    
    /**
     * Gets the value of this attribute from the passed object.
+    * <p>
+    * Once a simple feature attribute has been resolved the expression remembers its
+    * position in the feature type, subsequent evaluations against features of the same
+    * type are then a direct indexed lookup, without any property accessor lookup.
     *
     * @param obj Object from which to extract attribute value.
     * @param target Target Class 
     */
     public Object evaluate(Object obj, Class target) {
-        // NC- new method
-
-        PropertyAccessor accessor = getLastPropertyAccessor();
-        AtomicReference<Object> value = new AtomicReference<Object>();
-        AtomicReference<Exception> e = new AtomicReference<Exception>();
-
-        if (accessor == null || !accessor.canHandle(obj, attPath, target)
-                || !tryAccessor(accessor, obj, target, value, e)) {
-            boolean success = false;
-            if( namespaceSupport != null && hints == null ){
-                hints = new Hints(PropertyAccessorFactory.NAMESPACE_CONTEXT, namespaceSupport);
+        // fast path, direct attribute access by index
+        if (obj instanceof SimpleFeature) {
+            final SimpleFeature feature = (SimpleFeature) obj;
+            final AttributeBinding binding = attributeBinding;
+            if (binding != null && binding.featureType == feature.getFeatureType()) {
+                return convert(feature.getAttribute(binding.index), target);
             }
-            List<PropertyAccessor> accessors = PropertyAccessors.findPropertyAccessors(obj,
-                    attPath, target, hints );
-
-            if (accessors != null) {
-                Iterator<PropertyAccessor> it = accessors.iterator();
-                while (!success && it.hasNext()) {
-                    accessor = it.next();
-                    success = tryAccessor(accessor, obj, target, value, e);
-                }
+        }
 
+        // NC- new method
+        PropertyAccessor accessor = lastAccessor;
+        if (accessor != null && accessor.canHandle(obj, attPath, target)) {
+            try {
+                Object value = accessor.get(obj, attPath, target);
+                bindAttribute(obj, value);
+                return convert(value, target);
+            } catch (Exception e) {
+                // the cached accessor did not work, fall back on a full lookup
             }
+        }
 
-            if (!success) {
-                if (lenient) return null;
-                else throw new IllegalArgumentException(
-                        "Could not find working property accessor for attribute (" + attPath
-                                + ") in object (" + obj + ")", e.get());
-            } else {
-                setLastPropertyAccessor(accessor);
+        if (namespaceSupport != null && hints == null) {
+            hints = new Hints(PropertyAccessorFactory.NAMESPACE_CONTEXT, namespaceSupport);
+        }
+        List<PropertyAccessor> accessors = PropertyAccessors.findPropertyAccessors(obj,
+                attPath, target, hints);
+        Exception failure = null;
+        if (accessors != null) {
+            for (PropertyAccessor candidate : accessors) {
+                Object value;
+                try {
+                    value = candidate.get(obj, attPath, target);
+                } catch (Exception e) {
+                    failure = e;
+                    continue;
+                }
+                lastAccessor = candidate;
+                bindAttribute(obj, value);
+                return convert(value, target);
             }
-
         }
 
+        if (lenient) return null;
+        else throw new IllegalArgumentException(
+                "Could not find working property accessor for attribute (" + attPath
+                        + ") in object (" + obj + ")", failure);
+    }
+
+    private Object convert(Object value, Class target) {
         if (target == null) {
-            return value.get();
+            return value;
         }
-
-        return Converters.convert(value.get(), target);
-
+        return Converters.convert(value, target);
     }
 
-    // NC - helper method for evaluation - attempt to use property accessor
-    private boolean tryAccessor(PropertyAccessor accessor, Object obj, Class target,
-            AtomicReference<Object> value, AtomicReference<Exception> ex) {
-        try {
-            value.set(accessor.get(obj, attPath, target));
-            return true;
-        } catch (Exception e) {
-            ex.set(e);
-            return false;
+    /**
+     * Remembers the attribute position if the value was extracted from a simple feature
+     * and is the attribute the expression names, so that the next evaluations can skip the
+     * accessor. Null values are not bound, they could come from any accessor.
+     */
+    private void bindAttribute(Object obj, Object value) {
+        if (value == null || attPath == null || !(obj instanceof SimpleFeature)) {
+            return;
         }
+        final SimpleFeature feature = (SimpleFeature) obj;
+        final SimpleFeatureType featureType = feature.getFeatureType();
+        final int index = featureType.indexOf(stripPrefixIndex(attPath));
+        if (index >= 0 && feature.getAttribute(index) == value) {
+            attributeBinding = new AttributeBinding(featureType, index);
+        }
+    }
 
+    /**
+     * Strips the namespace prefix and the trailing [1] index from the attribute path, the
+     * same way the simple feature attribute accessor does
+     */
+    private static String stripPrefixIndex(String xpath) {
+        if (xpath.startsWith("@")) {
+            return xpath;
+        }
+        int split = xpath.indexOf(":");
+        if (split != -1) {
+            xpath = xpath.substring(split + 1);
+        }
+        if (xpath.endsWith("[1]")) {
+            xpath = xpath.substring(0, xpath.length() - 3);
+        }
+        return xpath;
     }
 
     // accessor caching, scanning the registry every time is really very expensive
-    private PropertyAccessor lastAccessor;
+    private volatile PropertyAccessor lastAccessor;
 
-    private synchronized PropertyAccessor getLastPropertyAccessor() {
-        return lastAccessor;
-    }
+    // position of the attribute in the last simple feature type evaluated
+    private volatile AttributeBinding attributeBinding;
 
-    private synchronized void setLastPropertyAccessor(PropertyAccessor accessor) {
-        lastAccessor = accessor;
+    /**
+     * The position of the attribute in a given feature type. Immutable, so that it
+     * can be swapped atomically among threads evaluating the same expression.
+     */
+    private static final class AttributeBinding {
+        final SimpleFeatureType featureType;
+
+        final int index;
+
+        AttributeBinding(SimpleFeatureType featureType, int index) {
+            this.featureType = featureType;
+            this.index = index;
+        }
     }
    
      /**
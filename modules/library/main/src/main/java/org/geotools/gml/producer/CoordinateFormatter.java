@@ -0,0 +1,244 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.gml.producer;
+
+/**
+ * Formats coordinate ordinates as decimal text, writing the characters straight into a
+ * {@code char[]} without going through {@link java.text.NumberFormat} or intermediate strings.
+ * <p>
+ * When a number of decimals is specified, values are rounded half up to that many decimals and
+ * written in plain decimal notation with the trailing zeros removed, integral values being
+ * written without decimal point (e.g. {@code 10}, {@code 0.25}, {@code -3.1416}). Values
+ * too large to be rounded exactly (above 2<sup>53</sup> once scaled) are written with the
+ * digits of {@link Double#toString(double)}, which are exact at that magnitude.
+ * <p>
+ * With a negative number of decimals the values are not rounded and the digits are the ones of
+ * {@link Double#toString(double)}, that is the shortest text that parses back to the same
+ * double.
+ * <p>
+ * Values are always written in plain notation, never in the scientific one, NaN and infinite
+ * values being written as {@code NaN}, {@code Infinity} and {@code -Infinity}.
+ * <p>
+ * Instances are immutable and can be shared among threads.
+ *
+ * @since 9.0
+ *
+ * @source $URL$
+ */
+public final class CoordinateFormatter {
+
+    /**
+     * The largest scaled value that can be represented exactly by a double
+     */
+    private static final double MAX_EXACT = 9007199254740992d; // 2^53
+
+    /**
+     * The maximum number of decimals, above it the scaled values would rarely be exact
+     */
+    private static final int MAX_DECIMALS = 15;
+
+    /**
+     * The maximum number of characters of a double in plain notation, reached by
+     * {@code -Double.MIN_VALUE} ({@code -0.} followed by 323 zeros and {@code 49})
+     */
+    private static final int MAX_PLAIN_CHARS = 328;
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final int numDecimals;
+
+    private final double scale;
+
+    private final long power;
+
+    /**
+     * Creates a formatter rounding to the specified number of decimals.
+     *
+     * @param numDecimals The maximum number of decimals written, or a negative value to write
+     *        the values with full precision
+     */
+    public CoordinateFormatter(int numDecimals) {
+        if (numDecimals > MAX_DECIMALS) {
+            numDecimals = MAX_DECIMALS;
+        }
+        this.numDecimals = numDecimals;
+        this.power = numDecimals < 0 ? 1 : POWERS_OF_TEN[numDecimals];
+        this.scale = power;
+    }
+
+    /**
+     * The maximum number of decimals written, negative if the values are written with full
+     * precision
+     */
+    public int getNumDecimals() {
+        return numDecimals;
+    }
+
+    /**
+     * The maximum number of characters written by {@link #format(double, char[], int)}
+     */
+    public int getMaxLength() {
+        return MAX_PLAIN_CHARS;
+    }
+
+    /**
+     * Writes the specified value in the buffer.
+     *
+     * @param value The value to be formatted
+     * @param buffer The destination buffer, it must have room for at least
+     *        {@link #getMaxLength()} characters after the offset
+     * @param offset The position of the first character written
+     * @return The position after the last character written
+     */
+    public int format(double value, char[] buffer, int offset) {
+        if (numDecimals >= 0) {
+            double scaled = Math.floor(value * scale + 0.5);
+            if (scaled < MAX_EXACT && scaled > -MAX_EXACT) {
+                return formatScaled((long) scaled, buffer, offset);
+            }
+        }
+        // full precision, or NaN, infinite and huge values
+        String s = Double.toString(value);
+        int exponent = s.indexOf('E');
+        if (exponent < 0) {
+            s.getChars(0, s.length(), buffer, offset);
+            return offset + s.length();
+        }
+        return formatPlain(s, exponent, buffer, offset);
+    }
+
+    /**
+     * Appends the specified value to the builder.
+     */
+    public void format(double value, StringBuilder sb) {
+        char[] buffer = new char[MAX_PLAIN_CHARS];
+        sb.append(buffer, 0, format(value, buffer, 0));
+    }
+
+    /**
+     * Returns the text of the specified value.
+     */
+    public String format(double value) {
+        char[] buffer = new char[MAX_PLAIN_CHARS];
+        return new String(buffer, 0, format(value, buffer, 0));
+    }
+
+    private int formatScaled(long scaled, char[] buffer, int offset) {
+        if (scaled == 0) {
+            // no negative zero
+            buffer[offset] = '0';
+            return offset + 1;
+        }
+        if (scaled < 0) {
+            buffer[offset++] = '-';
+            scaled = -scaled;
+        }
+        long integer = scaled / power;
+        long fraction = scaled - integer * power;
+
+        // integer part, written backwards
+        int end = offset + digits(integer);
+        for (int i = end - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + (integer % 10));
+            integer /= 10;
+        }
+        if (fraction == 0) {
+            return end;
+        }
+
+        // fraction part without the trailing zeros, then padded with leading zeros
+        int decimals = numDecimals;
+        while (fraction % 10 == 0) {
+            fraction /= 10;
+            decimals--;
+        }
+        buffer[end++] = '.';
+        for (int i = end + decimals - 1; i >= end; i--) {
+            buffer[i] = (char) ('0' + (fraction % 10));
+            fraction /= 10;
+        }
+        return end + decimals;
+    }
+
+    /**
+     * Writes the scientific notation of {@link Double#toString(double)}, that is
+     * {@code [-]d.dddE[-]n}, in plain notation without trailing zeros
+     */
+    private static int formatPlain(String s, int exponent, char[] buffer, int offset) {
+        int start = 0;
+        if (s.charAt(0) == '-') {
+            buffer[offset++] = '-';
+            start = 1;
+        }
+        // the mantissa digits without the point and the trailing zeros
+        int last = exponent - 1;
+        while (s.charAt(last) == '0' || s.charAt(last) == '.') {
+            last--;
+        }
+        int digits = 0;
+        char[] mantissa = new char[last - start + 1];
+        for (int i = start; i <= last; i++) {
+            char c = s.charAt(i);
+            if (c != '.') {
+                mantissa[digits++] = c;
+            }
+        }
+        // the position of the decimal point relative to the first digit, there is always
+        // a single digit before the point in the scientific notation of Double.toString
+        int point = 1 + Integer.parseInt(s.substring(exponent + 1));
+
+        if (point <= 0) {
+            buffer[offset++] = '0';
+            buffer[offset++] = '.';
+            for (int i = point; i < 0; i++) {
+                buffer[offset++] = '0';
+            }
+            System.arraycopy(mantissa, 0, buffer, offset, digits);
+            return offset + digits;
+        } else if (point >= digits) {
+            System.arraycopy(mantissa, 0, buffer, offset, digits);
+            offset += digits;
+            for (int i = digits; i < point; i++) {
+                buffer[offset++] = '0';
+            }
+            return offset;
+        } else {
+            System.arraycopy(mantissa, 0, buffer, offset, point);
+            offset += point;
+            buffer[offset++] = '.';
+            System.arraycopy(mantissa, point, buffer, offset, digits - point);
+            return offset + digits - point;
+        }
+    }
+
+    /**
+     * Number of decimal digits of a positive value, 1 for zero
+     */
+    private static int digits(long value) {
+        int digits = 1;
+        while (digits < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[digits]) {
+            digits++;
+        }
+        return digits;
+    }
+}
@@ -16,12 +16,6 @@
  */
 package org.geotools.gml.producer;
 
-import java.math.BigDecimal;
-import java.math.MathContext;
-import java.text.FieldPosition;
-import java.text.NumberFormat;
-import java.util.Locale;
-
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.AttributesImpl;
@@ -52,16 +46,13 @@ public class CoordinateWriter {
     /** Internal representation of tuple delimiter (' ' for GML is  default) */
     private final String tupleDelimiter;
     
-    /** To be used for formatting numbers, uses US locale. */
-    private final NumberFormat coordFormatter = NumberFormat.getInstance(Locale.US);
+    /** Formats the ordinates straight into the character buffer */
+    private final CoordinateFormatter coordFormatter;
     
     private final AttributesImpl atts = new org.xml.sax.helpers.AttributesImpl();
     
-    private final StringBuffer coordBuff = new StringBuffer();
-    
-    private final FieldPosition zero = new FieldPosition(0);
-    
-    private char[] buff = new char[200];
+    /** The coordinates are accumulated here, and sent out once it's full */
+    private char[] buff = new char[4096];
     
     /**
      * True of dummyZ should be used.
@@ -84,23 +75,6 @@ public class CoordinateWriter {
     private String prefix = "gml";
     private String namespaceUri = GMLUtils.GML_URL;
     
-    /**
-     * The power of ten used for fast rounding
-     */
-    private final double scale;
-    
-    /**
-     * The min value at which the decimal notation is used 
-     * (below it, the computerized scientific one is used instead)
-     */
-    private static final double DECIMAL_MIN = Math.pow(10, -3);
-    
-    /**
-     * The max value at which the decimal notation is used 
-     * (above it, the computerized scientific one is used instead)
-     */
-    private static final double DECIMAL_MAX = Math.pow(10, 7);
-    
     public CoordinateWriter() {
         this(4);
     }
@@ -158,10 +132,7 @@ public class CoordinateWriter {
         tupleDelimiter = tupleDelim;
         coordinateDelimiter = coordDelim;
         
-        coordFormatter.setMaximumFractionDigits(numDecimals);
-        coordFormatter.setGroupingUsed(false);
-        
-        scale = Math.pow(10, numDecimals);
+        coordFormatter = new CoordinateFormatter(numDecimals);
         
         String uri = namespaceUri;
         if ( !namespaceAware ) {
@@ -178,7 +149,7 @@ public class CoordinateWriter {
     }
 
 	public int getNumDecimals(){
-        return coordFormatter.getMaximumFractionDigits();
+        return coordFormatter.getNumDecimals();
     }
     
     public boolean isDummyZEnabled(){
@@ -252,56 +223,61 @@ public class CoordinateWriter {
         final int coordCount = c.size();
         //used to check whether the coordseq handles a third dimension or not
         final int coordSeqDimension = c.getDimension();
+        final boolean writeZ = D == 3 || useDummyZ;
+        // room needed for a coordinate and its delimiters
+        final int maxLength = 3 * coordFormatter.getMaxLength()
+                + 2 * (coordinateDelimiter == null ? 0 : coordinateDelimiter.length())
+                + tupleDelimiter.length();
+        if (buff.length < maxLength) {
+            buff = new char[maxLength];
+        }
+        int length = 0;
         double x, y, z;
         //write down a coordinate at a time
         for (int i = 0, n = coordCount; i < n; i++) {
+            // flush the buffer if the coordinate might not fit in
+            if (length + maxLength > buff.length) {
+                output.characters(buff, 0, length);
+                length = 0;
+            }
+            
             x = c.getOrdinate(i, 0);
             y = c.getOrdinate(i, 1);
             
-            // clear the buffer
-            coordBuff.setLength(0);
-            
             // format x into buffer and append delimiter
-            formatDecimal(x, coordBuff);
-            coordBuff.append(coordinateDelimiter);
+            length = coordFormatter.format(x, buff, length);
+            length = append(coordinateDelimiter, length);
             // format y into buffer
-            formatDecimal(y, coordBuff);
+            length = coordFormatter.format(y, buff, length);
             
-            if (D == 3 || useDummyZ) {
+            if (writeZ) {
                 z = (D == 3 && coordSeqDimension > 2)? c.getOrdinate(i, 2) : dummyZ;
-                coordBuff.append(coordinateDelimiter);
-                formatDecimal(z, coordBuff);
+                length = append(coordinateDelimiter, length);
+                length = coordFormatter.format(z, buff, length);
             }
             
             // if there is another coordinate, tack on a tuple delimiter
             if (i + 1 < coordCount){
-                coordBuff.append(tupleDelimiter);
+                length = append(tupleDelimiter, length);
             }
-            
-            // make sure our character buffer is big enough
-            if (coordBuff.length() > buff.length) {
-                buff = new char[coordBuff.length()];
-            }
-            // copy the characters
-            coordBuff.getChars(0, coordBuff.length(), buff, 0);
-            
-            // finally, output
-            output.characters(buff, 0, coordBuff.length());
         }        
+        if (length > 0) {
+            output.characters(buff, 0, length);
+        }
         output.endElement(namespaceUri,"coordinates", prefix + "coordinates");
     }
 
-    private void formatDecimal(double x, StringBuffer sb) {
-        if(Math.abs(x) >= DECIMAL_MIN && x < DECIMAL_MAX) {
-            x = Math.floor(x * scale + 0.5) / scale;
-            long lx = (long) x;
-            if(lx == x)
-                sb.append(lx);
-            else
-                sb.append(x);
+    private int append(String delimiter, int offset) {
+        if (delimiter == null) {
+            return offset;
+        }
+        int length = delimiter.length();
+        if (length == 1) {
+            buff[offset] = delimiter.charAt(0);
         } else {
-            coordFormatter.format(x, coordBuff, zero);
+            delimiter.getChars(0, length, buff, offset);
         }
+        return offset + length;
     }
 
 }
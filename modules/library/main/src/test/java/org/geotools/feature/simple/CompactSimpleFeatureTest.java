@@ -0,0 +1,160 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.feature.simple;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.geotools.data.DataUtilities;
+import org.geotools.filter.identity.FeatureIdImpl;
+import org.opengis.feature.Property;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.Point;
+
+/**
+ *
+ *
+ * @source $URL$
+ */
+public class CompactSimpleFeatureTest extends TestCase {
+
+    SimpleFeatureType schema;
+
+    Point point;
+
+    @Override
+    protected void setUp() throws Exception {
+        schema = DataUtilities.createType("compact",
+                "the_geom:Point,name:String,count:Integer,total:java.lang.Long,ratio:Double,"
+                        + "small:java.lang.Short,flag:Boolean,single:Float");
+        point = new GeometryFactory().createPoint(new Coordinate(1, 2));
+    }
+
+    public void testLayout() {
+        SimpleFeatureLayout layout = SimpleFeatureLayout.get(schema);
+        assertSame(layout, SimpleFeatureLayout.get(schema));
+        assertEquals(8, layout.getAttributeCount());
+        assertEquals(6, layout.getPrimitiveCount());
+        assertFalse(layout.isPrimitive(0));
+        assertFalse(layout.isPrimitive(1));
+        assertTrue(layout.isIntegral(2));
+        assertTrue(layout.isIntegral(3));
+        assertTrue(layout.isFloatingPoint(4));
+        assertTrue(layout.isIntegral(5));
+        assertTrue(layout.isPrimitive(6));
+        assertFalse(layout.isIntegral(6));
+        assertTrue(layout.isFloatingPoint(7));
+        assertEquals(4, layout.indexOf("ratio"));
+        assertEquals(-1, layout.indexOf("notThere"));
+    }
+
+    public void testSameAsSimpleFeatureImpl() {
+        Object[] values = new Object[] { point, "abc", 10, 20l, 1.5, (short) 3, true, 2.5f };
+        SimpleFeature expected = SimpleFeatureBuilder.build(schema, values, "compact.1");
+
+        CompactSimpleFeature feature = new CompactSimpleFeature(schema, new FeatureIdImpl(
+                "compact.1"));
+        feature.setAttributes(Arrays.asList(values));
+        assertEquals(expected.getAttributes(), feature.getAttributes());
+        List<Property> properties = new ArrayList<Property>(feature.getProperties());
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], feature.getAttribute(i));
+            assertEquals(values[i], properties.get(i).getValue());
+        }
+        assertEquals(1.5, feature.getAttribute("ratio"));
+        assertSame(point, feature.getDefaultGeometry());
+        assertEquals(expected, feature);
+        assertEquals(feature, expected);
+        assertEquals(expected.getBounds(), feature.getBounds());
+
+        // and copies back into a regular feature
+        SimpleFeature copy = SimpleFeatureBuilder.copy(feature);
+        assertEquals(expected, copy);
+    }
+
+    public void testPrimitiveAccessors() {
+        CompactSimpleFeature feature = new CompactSimpleFeature(schema, new FeatureIdImpl(
+                "compact.1"));
+        for (int i = 0; i < schema.getAttributeCount(); i++) {
+            assertTrue(feature.isNull(i));
+            assertNull(feature.getAttribute(i));
+        }
+        assertEquals(0, feature.getInt(2));
+        assertTrue(Double.isNaN(feature.getDouble(4)));
+
+        feature.setLong(2, 42);
+        feature.setLong(3, Long.MAX_VALUE);
+        feature.setDouble(4, 0.1);
+        feature.setLong(5, 7);
+        feature.setBoolean(6, true);
+        feature.setDouble(7, 0.1);
+        assertEquals(Integer.valueOf(42), feature.getAttribute("count"));
+        assertEquals(42, feature.getInt(2));
+        assertEquals(42d, feature.getDouble(2));
+        assertEquals(Long.valueOf(Long.MAX_VALUE), feature.getAttribute(3));
+        assertEquals(Long.MAX_VALUE, feature.getLong(3));
+        assertEquals(Double.valueOf(0.1), feature.getAttribute(4));
+        assertEquals(0.1, feature.getDouble(4));
+        assertEquals(Short.valueOf((short) 7), feature.getAttribute(5));
+        assertEquals(Boolean.TRUE, feature.getAttribute(6));
+        assertTrue(feature.getBoolean(6));
+        assertEquals(Float.valueOf(0.1f), feature.getAttribute(7));
+        assertFalse(feature.isNull(2));
+
+        // setting a non matching primitive goes through the converters
+        feature.setDouble(2, 12);
+        assertEquals(Integer.valueOf(12), feature.getAttribute(2));
+        feature.setLong(1, 5);
+        assertEquals("5", feature.getAttribute(1));
+
+        // nulls
+        feature.setAttribute(2, null);
+        assertTrue(feature.isNull(2));
+        assertNull(feature.getAttribute(2));
+
+        try {
+            feature.getDouble(1);
+            fail("Not a number, should have failed");
+        } catch (IllegalArgumentException e) {
+            // fine
+        }
+    }
+
+    public void testReset() {
+        CompactSimpleFeature feature = new CompactSimpleFeature(schema, new FeatureIdImpl(
+                "compact.1"));
+        feature.setAttribute(0, point);
+        feature.setAttribute("count", 10);
+        feature.getUserData().put("key", "value");
+        feature.getProperty("name").getUserData().put("key", "value");
+
+        feature.reset(new FeatureIdImpl("compact.2"));
+        assertEquals("compact.2", feature.getID());
+        for (int i = 0; i < schema.getAttributeCount(); i++) {
+            assertNull(feature.getAttribute(i));
+        }
+        assertTrue(feature.getUserData().isEmpty());
+        assertTrue(feature.getProperty("name").getUserData().isEmpty());
+    }
+}
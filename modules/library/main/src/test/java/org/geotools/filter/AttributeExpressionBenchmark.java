@@ -0,0 +1,101 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.filter;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
+import org.geotools.filter.expression.PropertyAccessor;
+import org.geotools.filter.expression.PropertyAccessors;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+/**
+ * Evaluates an {@link AttributeExpressionImpl} against simple features of the same type, once
+ * with the attribute bound by index and once looking up the property accessors for every
+ * feature, which is what the expression did before. Reports the average time and the bytes
+ * allocated per evaluation.
+ * <p>
+ * The allocated bytes are read from <code>com.sun.management.ThreadMXBean</code>, they are
+ * only available on HotSpot based virtual machines.
+ * <p>
+ * Usage: <code>AttributeExpressionBenchmark [features] [runs]</code>
+ *
+ * @source $URL$
+ */
+public class AttributeExpressionBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        final int count = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        final int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        SimpleFeatureTypeBuilder tb = new SimpleFeatureTypeBuilder();
+        tb.setName("test");
+        tb.add("id", Integer.class);
+        tb.add("name", String.class);
+        tb.add("value", Double.class);
+        SimpleFeatureType type = tb.buildFeatureType();
+        SimpleFeature[] features = new SimpleFeature[count];
+        for (int i = 0; i < count; i++) {
+            features[i] = SimpleFeatureBuilder.build(type, new Object[] { i, "name" + i,
+                    i * 0.5 }, "test." + i);
+        }
+
+        AttributeExpressionImpl expression = new AttributeExpressionImpl("value");
+        for (boolean bound : new boolean[] { true, false }) {
+            // warm up
+            evaluate(expression, features, bound);
+            long elapsed = 0;
+            long allocated = 0;
+            for (int r = 0; r < runs; r++) {
+                long bytes = allocatedBytes();
+                elapsed += evaluate(expression, features, bound);
+                allocated += allocatedBytes() - bytes;
+            }
+            System.out.println((bound ? "bound by index: " : "accessor lookup: ") + elapsed
+                    / runs / count + "ns, " + allocated / runs / count + " bytes per evaluation");
+        }
+    }
+
+    static long evaluate(AttributeExpressionImpl expression, SimpleFeature[] features,
+            boolean bound) {
+        String xpath = expression.getPropertyName();
+        long start = System.nanoTime();
+        for (SimpleFeature feature : features) {
+            Object value;
+            if (bound) {
+                value = expression.evaluate(feature);
+            } else {
+                List<PropertyAccessor> accessors = PropertyAccessors.findPropertyAccessors(
+                        feature, xpath, null, null);
+                value = accessors.get(0).get(feature, xpath, null);
+            }
+            if (value == null) {
+                throw new IllegalStateException("No value for " + feature.getID());
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    static long allocatedBytes() {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -52,6 +52,45 @@ public class AttributeExpressionTest extends TestCase {
 		ex = new AttributeExpressionImpl( "@id" );
 		assertEquals( "fid", ex.evaluate( feature ) );
 	}
+
+
+	public void testFeatureTypeSwitch() {
+		SimpleFeatureTypeBuilder typeBuilder = new SimpleFeatureTypeBuilder();
+		typeBuilder.setName( "first" );
+		typeBuilder.add( "foo", Integer.class );
+		typeBuilder.add( "bar", String.class );
+		SimpleFeatureType first = typeBuilder.buildFeatureType();
+		
+		typeBuilder.setName( "second" );
+		typeBuilder.add( "bar", String.class );
+		typeBuilder.add( "foo", Integer.class );
+		SimpleFeatureType second = typeBuilder.buildFeatureType();
+		
+		SimpleFeature f1 = SimpleFeatureBuilder.build( first, new Object[] { 1, "a" }, "f1" );
+		SimpleFeature f2 = SimpleFeatureBuilder.build( first, new Object[] { 2, "b" }, "f2" );
+		SimpleFeature f3 = SimpleFeatureBuilder.build( second, new Object[] { "c", 3 }, "f3" );
+		
+		AttributeExpressionImpl ex = new AttributeExpressionImpl( "foo" );
+		assertEquals( 1, ex.evaluate( f1 ) );
+		assertEquals( 2, ex.evaluate( f2 ) );
+		assertEquals( 3, ex.evaluate( f3 ) );
+		assertEquals( 1, ex.evaluate( f1 ) );
+		assertEquals( "2", ex.evaluate( f2, String.class ) );
+		
+		ex = new AttributeExpressionImpl( "gml:bar" );
+		assertEquals( "a", ex.evaluate( f1 ) );
+		assertEquals( "c", ex.evaluate( f3 ) );
+		
+		ex = new AttributeExpressionImpl( "missing" );
+		assertNull( ex.evaluate( f1 ) );
+		ex.setLenient( false );
+		try {
+			ex.evaluate( f1 );
+			fail( "Expected an exception for a missing attribute" );
+		} catch( IllegalArgumentException e ) {
+			// fine
+		}
+	}
 	
 	
 }
@@ -0,0 +1,138 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.gml.producer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link CoordinateFormatter}.
+ *
+ * @source $URL$
+ */
+public class CoordinateFormatterTest {
+
+    @Test
+    public void testDecimals() {
+        CoordinateFormatter formatter = new CoordinateFormatter(4);
+        assertEquals("0", formatter.format(0));
+        assertEquals("0", formatter.format(-0d));
+        assertEquals("0", formatter.format(-0.00001));
+        assertEquals("10", formatter.format(10));
+        assertEquals("-10", formatter.format(-10));
+        assertEquals("0.25", formatter.format(0.25));
+        assertEquals("-0.25", formatter.format(-0.25));
+        assertEquals("3.1416", formatter.format(Math.PI));
+        assertEquals("-3.1416", formatter.format(-Math.PI));
+        assertEquals("0.0001", formatter.format(0.0001));
+        assertEquals("0.001", formatter.format(0.00099));
+        assertEquals("1", formatter.format(0.99999));
+        assertEquals("123456789.1235", formatter.format(123456789.12345678));
+        assertEquals("10000000", formatter.format(1e7));
+        assertEquals("0.1", formatter.format(0.1));
+    }
+
+    @Test
+    public void testNoDecimals() {
+        CoordinateFormatter formatter = new CoordinateFormatter(0);
+        assertEquals("3", formatter.format(Math.PI));
+        assertEquals("-4", formatter.format(-3.6));
+        assertEquals("1234567", formatter.format(1234567.4));
+    }
+
+    @Test
+    public void testSpecialValues() {
+        CoordinateFormatter formatter = new CoordinateFormatter(4);
+        assertEquals("NaN", formatter.format(Double.NaN));
+        assertEquals("Infinity", formatter.format(Double.POSITIVE_INFINITY));
+        assertEquals("-Infinity", formatter.format(Double.NEGATIVE_INFINITY));
+        // too large to be rounded exactly, still in plain notation
+        assertEquals("100000000000000000000", formatter.format(1e20));
+        assertEquals("-123450000000000000", formatter.format(-1.2345e17));
+    }
+
+    @Test
+    public void testPlainNotation() {
+        CoordinateFormatter formatter = new CoordinateFormatter(-1);
+        assertEquals("0.0000001", formatter.format(1e-7));
+        assertEquals("-0.00012345", formatter.format(-1.2345e-4));
+        assertEquals("12345678.9", formatter.format(1.23456789e7));
+        assertEquals("100000000000000000000", formatter.format(1e20));
+        assertEquals("0.001", formatter.format(0.001));
+        assertEquals("1.5", formatter.format(1.5));
+
+        char[] buffer = new char[formatter.getMaxLength()];
+        for (double value : new double[] { Double.MIN_VALUE, -Double.MIN_VALUE,
+                Double.MAX_VALUE, -Double.MAX_VALUE }) {
+            String text = new String(buffer, 0, formatter.format(value, buffer, 0));
+            assertFalse(text, text.indexOf('E') >= 0);
+            assertEquals(text, value, Double.parseDouble(text), 0);
+        }
+    }
+
+    @Test
+    public void testFullPrecision() {
+        CoordinateFormatter formatter = new CoordinateFormatter(-1);
+        Random random = new Random(0);
+        for (int i = 0; i < 1000; i++) {
+            double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(20) - 5);
+            String expected = Double.toString(value);
+            String text = formatter.format(value);
+            if (expected.indexOf('E') < 0) {
+                assertEquals(expected, text);
+            } else {
+                assertFalse(text, text.indexOf('E') >= 0);
+                assertEquals(text, value, Double.parseDouble(text), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testRoundTrip() {
+        Random random = new Random(0);
+        char[] buffer = new char[64];
+        for (int decimals = 0; decimals <= 8; decimals++) {
+            CoordinateFormatter formatter = new CoordinateFormatter(decimals);
+            for (int i = 0; i < 1000; i++) {
+                double value = (random.nextDouble() - 0.5) * 400;
+                int end = formatter.format(value, buffer, 3);
+                String text = new String(buffer, 3, end - 3);
+                double expected = Math.floor(value * Math.pow(10, decimals) + 0.5)
+                        / Math.pow(10, decimals);
+                assertEquals(text, expected, Double.parseDouble(text), 0);
+                // plain notation, no trailing zeros
+                assertFalse(text, text.indexOf('E') >= 0);
+                assertFalse(text, text.indexOf('.') >= 0 && text.endsWith("0"));
+                assertTrue(text, text.indexOf('.') < 0
+                        || text.length() - text.indexOf('.') - 1 <= decimals);
+            }
+        }
+    }
+
+    @Test
+    public void testAppend() {
+        CoordinateFormatter formatter = new CoordinateFormatter(2);
+        StringBuilder sb = new StringBuilder("x=");
+        formatter.format(1.005d * 1000, sb);
+        assertEquals("x=1005", sb.toString());
+    }
+}
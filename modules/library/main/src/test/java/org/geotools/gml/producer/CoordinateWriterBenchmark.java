@@ -0,0 +1,123 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.gml.producer;
+
+import java.text.FieldPosition;
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.Random;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.impl.CoordinateArraySequence;
+
+/**
+ * Measures the throughput, in MB of text per second, of the GML coordinate encoding: the
+ * {@link CoordinateWriter} is compared with a {@link NumberFormat} based encoding emitting one
+ * SAX event per coordinate, as it used to be done.
+ * <p>
+ * Usage: {@code CoordinateWriterBenchmark [numDecimals] [coordinates]}
+ *
+ * @source $URL$
+ */
+public class CoordinateWriterBenchmark {
+
+    /**
+     * Counts the characters received
+     */
+    static class CountingHandler extends DefaultHandler {
+        long chars;
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            chars += length;
+        }
+    }
+
+    /**
+     * The NumberFormat based encoding
+     */
+    static class NumberFormatWriter {
+        final NumberFormat format = NumberFormat.getInstance(Locale.US);
+
+        final StringBuffer sb = new StringBuffer();
+
+        final FieldPosition zero = new FieldPosition(0);
+
+        char[] buff = new char[200];
+
+        NumberFormatWriter(int numDecimals) {
+            format.setMaximumFractionDigits(numDecimals);
+            format.setGroupingUsed(false);
+        }
+
+        void writeCoordinates(CoordinateSequence cs, ContentHandler output) throws SAXException {
+            for (int i = 0; i < cs.size(); i++) {
+                sb.setLength(0);
+                format.format(cs.getOrdinate(i, 0), sb, zero);
+                sb.append(',');
+                format.format(cs.getOrdinate(i, 1), sb, zero);
+                if (i + 1 < cs.size()) {
+                    sb.append(' ');
+                }
+                if (sb.length() > buff.length) {
+                    buff = new char[sb.length()];
+                }
+                sb.getChars(0, sb.length(), buff, 0);
+                output.characters(buff, 0, sb.length());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int numDecimals = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        final int count = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+
+        // UTM like coordinates
+        Random random = new Random(0);
+        Coordinate[] coordinates = new Coordinate[count];
+        for (int i = 0; i < count; i++) {
+            coordinates[i] = new Coordinate(500000 + random.nextDouble() * 100000,
+                    4000000 + random.nextDouble() * 100000);
+        }
+        CoordinateSequence cs = new CoordinateArraySequence(coordinates);
+
+        CoordinateWriter writer = new CoordinateWriter(numDecimals);
+        NumberFormatWriter baseline = new NumberFormatWriter(numDecimals);
+        for (int round = 0; round < 5; round++) {
+            CountingHandler handler = new CountingHandler();
+            long start = System.nanoTime();
+            baseline.writeCoordinates(cs, handler);
+            report("NumberFormat", handler.chars, System.nanoTime() - start);
+
+            handler = new CountingHandler();
+            start = System.nanoTime();
+            writer.writeCoordinates(cs, handler);
+            report("CoordinateWriter", handler.chars, System.nanoTime() - start);
+        }
+    }
+
+    static void report(String name, long chars, long nanos) {
+        double mb = chars / (1024d * 1024d);
+        System.out.println(name + ": " + Math.round(mb) + "MB in " + nanos / 1000000 + "ms, "
+                + Math.round(mb / (nanos / 1e9)) + "MB/s");
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.util;
+
+import java.util.Date;
+
+/**
+ * Converts String to Number, Number to Number and String to Date values through
+ * {@link Converters#convert(Object, Class)}, which uses the cached converter lookups, and
+ * through a plain scan of the converter factories, which is what every conversion did before
+ * the lookups were cached. Reports the average time per conversion.
+ * <p>
+ * Usage: <code>ConvertersBenchmark [conversions] [runs]</code>
+ *
+ * @source $URL$
+ */
+public class ConvertersBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        final int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        final int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Object[] strings = new Object[count];
+        Object[] numbers = new Object[count];
+        Object[] dates = new Object[count];
+        for (int i = 0; i < count; i++) {
+            strings[i] = String.valueOf(i);
+            numbers[i] = Integer.valueOf(i);
+            dates[i] = String.format("2013-%02d-%02d", 1 + i % 12, 1 + i % 28);
+        }
+
+        run("String -> Number", strings, Double.class, runs);
+        run("Number -> Number", numbers, Long.class, runs);
+        run("String -> Date", dates, Date.class, runs);
+    }
+
+    static void run(String name, Object[] values, Class<?> target, int runs) {
+        System.out.println(name + ", " + values.length + " conversions");
+        // warm up
+        convert(values, target, true);
+        convert(values, target, false);
+        long cached = 0;
+        long scanned = 0;
+        for (int r = 0; r < runs; r++) {
+            cached += convert(values, target, true);
+            scanned += convert(values, target, false);
+        }
+        System.out.println("  cached lookup: " + cached / runs / values.length + "ns");
+        System.out.println("  factory scan: " + scanned / runs / values.length + "ns");
+    }
+
+    static long convert(Object[] values, Class<?> target, boolean cached) {
+        long start = System.nanoTime();
+        for (int i = 0; i < values.length; i++) {
+            Object converted = cached ? Converters.convert(values[i], target) : scan(values[i],
+                    target);
+            if (converted == null) {
+                throw new IllegalStateException("Could not convert " + values[i]);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Creates the converters for every value, as the uncached lookup did
+     */
+    static Object scan(Object value, Class<?> target) {
+        for (ConverterFactory factory : Converters.factories()) {
+            Converter converter = factory.createConverter(value.getClass(), target, null);
+            if (converter != null) {
+                try {
+                    Object converted = converter.convert(value, target);
+                    if (converted != null) {
+                        return converted;
+                    }
+                } catch (Exception e) {
+                    // try the next one
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.util;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Date;
+
+import junit.framework.TestCase;
+
+import org.geotools.factory.GeoTools;
+import org.geotools.factory.Hints;
+
+/**
+ *
+ *
+ * @source $URL$
+ */
+public class ConvertersTest extends TestCase {
+
+    protected void setUp() throws Exception {
+        Converters.scanForPlugins();
+    }
+
+    public void testConvert() throws Exception {
+        assertEquals(Integer.valueOf(12), Converters.convert("12", Integer.class));
+        assertEquals(Double.valueOf(1.5), Converters.convert("1.5", Double.class));
+        assertEquals(Long.valueOf(3), Converters.convert(Integer.valueOf(3), Long.class));
+        assertEquals(java.sql.Date.valueOf("2012-03-04"), Converters.convert("2012-03-04",
+                java.sql.Date.class));
+
+        // the cached converters are still value sensitive
+        assertNull(Converters.convert("abc", Integer.class));
+        assertEquals(Integer.valueOf(13), Converters.convert("13", Integer.class));
+    }
+
+    public void testCachedLookups() throws Exception {
+        assertEquals(Integer.valueOf(12), Converters.convert("12", Integer.class));
+        Converter[] converters = Converters.converters(String.class, Integer.class, null);
+        assertTrue(converters.length > 0);
+        assertSame(converters, Converters.converters(String.class, Integer.class, null));
+
+        // negative lookups are cached as well
+        Converter[] none = Converters.converters(Thread.class, Date.class, null);
+        assertEquals(0, none.length);
+        assertSame(none, Converters.converters(Thread.class, Date.class, null));
+        assertNull(Converters.convert(Thread.currentThread(), Date.class));
+
+        // rescanning discards the cache
+        Converters.scanForPlugins();
+        assertNotSame(converters, Converters.converters(String.class, Integer.class, null));
+    }
+
+    public void testConfigurationChangeDropsCache() throws Exception {
+        Converter[] none = Converters.converters(Thread.class, Date.class, null);
+        assertSame(none, Converters.converters(Thread.class, Date.class, null));
+        Converter[] converters = Converters.converters(String.class, Integer.class, null);
+
+        // e.g. a class loader providing new converters has been added
+        GeoTools.fireConfigurationChanged();
+        assertTrue(Converters.CONVERTERS.isEmpty());
+        assertNotSame(converters, Converters.converters(String.class, Integer.class, null));
+        assertEquals(Integer.valueOf(12), Converters.convert("12", Integer.class));
+    }
+
+    public void testCachedLookupsWithHints() throws Exception {
+        Hints hints = new Hints(ConverterFactory.SAFE_CONVERSION, Boolean.TRUE);
+        Converter[] converters = Converters.converters(String.class, Integer.class, hints);
+        assertSame(converters, Converters.converters(String.class, Integer.class,
+                new Hints(ConverterFactory.SAFE_CONVERSION, Boolean.TRUE)));
+
+        // changing the hints after the lookup does not affect the cached entry
+        hints.put(ConverterFactory.SAFE_CONVERSION, Boolean.FALSE);
+        assertNotSame(converters, Converters.converters(String.class, Integer.class, hints));
+        assertSame(converters, Converters.converters(String.class, Integer.class,
+                new Hints(ConverterFactory.SAFE_CONVERSION, Boolean.TRUE)));
+
+        // safe conversion refuses to lose precision
+        assertNull(Converters.convert(Double.valueOf(1.5), Integer.class, new Hints(
+                ConverterFactory.SAFE_CONVERSION, Boolean.TRUE)));
+        assertEquals(Integer.valueOf(1), Converters.convert(Double.valueOf(1.5), Integer.class));
+    }
+
+    public void testHintedLookupsEvictLeastRecentlyUsed() throws Exception {
+        Hints kept = new Hints(Hints.COMPARISON_TOLERANCE, Double.valueOf(-1));
+        Converter[] converters = Converters.converters(String.class, Integer.class, kept);
+        for (int i = 0; i < Converters.MAX_HINTED_CONVERTERS * 2; i++) {
+            Converters.converters(String.class, Integer.class, new Hints(
+                    Hints.COMPARISON_TOLERANCE, Double.valueOf(i)));
+            // the entry in use is never evicted
+            assertSame(converters, Converters.converters(String.class, Integer.class, kept));
+        }
+        assertEquals(Converters.MAX_HINTED_CONVERTERS, Converters.HINTED_CONVERTERS.size());
+    }
+
+    public void testForeignClassesNotPinned() throws Exception {
+        URL location = Foreign.class.getProtectionDomain().getCodeSource().getLocation();
+        ClassLoader loader = new URLClassLoader(new URL[] { location }, null);
+        Class<?> foreign = loader.loadClass(Foreign.class.getName());
+        assertNotSame(Foreign.class, foreign);
+        assertTrue(Converters.isShared(String.class));
+        assertTrue(Converters.isShared(Foreign.class));
+        assertFalse(Converters.isShared(foreign));
+
+        // the lookup is cached without strongly referencing the class
+        Converter[] converters = Converters.converters(foreign, Date.class, null);
+        assertSame(converters, Converters.converters(foreign, Date.class, null));
+        assertFalse(Converters.CONVERTERS.containsKey(foreign));
+        synchronized (Converters.FOREIGN_CONVERTERS) {
+            assertTrue(Converters.FOREIGN_CONVERTERS.containsKey(foreign));
+        }
+    }
+
+    /**
+     * A class without dependencies, loaded again by a separate class loader
+     */
+    public static class Foreign {
+    }
+}
@@ -589,6 +589,16 @@ public class Hints extends RenderingHints {
      * @since 2.4.1
      */
     public static final Key FEATURE_2D = new Key(Boolean.class);
+
+    /**
+     * Allows the feature readers to return the same feature instance at each call to
+     * {@code next()}, updating its values in place, instead of building a new feature per
+     * record. Meant for read only streaming access, the caller must not keep references to, or
+     * modify, the features it reads. Feature sources that do not support it will ignore it.
+     *
+     * @since 9.0
+     */
+    public static final Key FEATURE_REUSE = new Key(Boolean.class);
     
     /**
      * Key to control the maximum number of features that will be kept in memory
@@ -849,6 +859,9 @@ public class Hints extends RenderingHints {
      *   <li>{@code "none"} for disabling the cache.</li>
      *   <li>{@code "soft"} for holding the value throuhg(@linkplain java.lang.ref.SoftReference 
      *       soft references}.
+     *   <li>{@code "concurrent"} for holding up to {@link #CACHE_LIMIT} values through strong
+     *       references and the others through weak references, with non blocking reads and
+     *       per key write locks.</li>
      * </ul>
      *
      * @since 2.5
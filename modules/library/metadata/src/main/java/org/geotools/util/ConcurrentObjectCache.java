@@ -0,0 +1,323 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An {@link ObjectCache} whose reads never block, meant for caches hit by many threads at the
+ * same time, such as the ones in front of the referencing authority factories.
+ * <p>
+ * Values are kept by strong references up to the limit specified at construction time. Past
+ * that limit the oldest values are retained by {@linkplain WeakReference weak references}
+ * instead, so they are still returned as long as they are in use somewhere else in the
+ * application, and are promoted back to strong references when they are accessed again.
+ * The entries whose value has been garbage collected are removed on the next {@link #put}.
+ * </p>
+ * <p>
+ * The write locks are held per key, so two threads creating the values for two different keys
+ * do not wait on each other, while two threads creating the value for the same key will have
+ * the second one wait and then {@linkplain #peek find} the value created by the first one. The
+ * locks are removed from the cache as soon as they are released.
+ * </p>
+ * <p>
+ * The number of hits, misses and demotions to weak references are tracked and can be used to
+ * evaluate the cache efficiency.
+ * </p>
+ *
+ * @since 9.0
+ *
+ * @source $URL$
+ */
+public final class ConcurrentObjectCache implements ObjectCache {
+
+    /**
+     * The cached values for each key, either the value itself or a reference to it.
+     */
+    private final ConcurrentHashMap<Object, Object> cache;
+
+    /**
+     * The locks for keys under construction.
+     */
+    private final ConcurrentHashMap<Object, ReentrantLock> locks =
+            new ConcurrentHashMap<Object, ReentrantLock>();
+
+    /**
+     * The keys of the values held by strong reference, oldest first. May contain keys whose
+     * value has been removed or is already held by weak reference, those are skipped when
+     * the queue is drained.
+     */
+    private final Queue<Object> strongKeys = new ConcurrentLinkedQueue<Object>();
+
+    /**
+     * The size of {@link #strongKeys}, which {@link ConcurrentLinkedQueue#size} computes by
+     * traversing the whole queue.
+     */
+    private final AtomicInteger strongCount = new AtomicInteger();
+
+    /**
+     * The queue of the weak references whose value has been garbage collected.
+     */
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<Object>();
+
+    /**
+     * The maximum number of values held by strong references.
+     */
+    private final int maxStrongReferences;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates a new cache holding at most 50 values by strong reference.
+     */
+    public ConcurrentObjectCache() {
+        this(50);
+    }
+
+    /**
+     * Creates a new cache which will hold the specified amount of values by strong references,
+     * any additional value will be held by weak references.
+     *
+     * @param maxStrongReferences The maximum number of values to keep by strong reference.
+     */
+    public ConcurrentObjectCache(final int maxStrongReferences) {
+        if (maxStrongReferences < 0) {
+            throw new IllegalArgumentException("maxStrongReferences must be positive, but was "
+                    + maxStrongReferences);
+        }
+        this.maxStrongReferences = maxStrongReferences;
+        this.cache = new ConcurrentHashMap<Object, Object>(Math.max(16, maxStrongReferences * 2));
+    }
+
+    /**
+     * Removes all entries from this cache. The statistics are not reset.
+     */
+    public void clear() {
+        cache.clear();
+        strongKeys.clear();
+        strongCount.set(0);
+    }
+
+    /**
+     * Returns the value for the specified key, or {@code null} if not found. A value held by weak
+     * reference is promoted back to a strong one.
+     */
+    public Object get(final Object key) {
+        final Object stored = cache.get(key);
+        if (stored instanceof Reference) {
+            final Object value = ((Reference<?>) stored).get();
+            if (value == null) {
+                cache.remove(key, stored);
+            } else if (cache.replace(key, stored, value)) {
+                addStrong(key);
+            }
+            count(value);
+            return value;
+        }
+        count(stored);
+        return stored;
+    }
+
+    private void count(final Object value) {
+        if (value != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+    }
+
+    public Object peek(final Object key) {
+        final Object stored = cache.get(key);
+        if (stored instanceof Reference) {
+            return ((Reference<?>) stored).get();
+        }
+        return stored;
+    }
+
+    public void put(final Object key, final Object object) {
+        removeCollected();
+        if (object == null) {
+            cache.remove(key);
+            return;
+        }
+        final Object previous = cache.put(key, object);
+        if (previous == null || previous instanceof Reference) {
+            addStrong(key);
+        }
+    }
+
+    /**
+     * Records the key of a value that just became strongly referenced, and demotes the oldest
+     * strong values to weak references if the limit has been exceeded.
+     */
+    private void addStrong(final Object key) {
+        strongKeys.add(key);
+        strongCount.incrementAndGet();
+        while (strongCount.get() > maxStrongReferences) {
+            final Object oldest = strongKeys.poll();
+            if (oldest == null) {
+                // another thread drained the queue
+                break;
+            }
+            strongCount.decrementAndGet();
+            final Object value = cache.get(oldest);
+            if (value != null && !(value instanceof Reference)
+                    && cache.replace(oldest, value, new KeyReference(oldest, value, collected))) {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Removes the entries whose value has been garbage collected.
+     */
+    private void removeCollected() {
+        Reference<?> ref;
+        while ((ref = collected.poll()) != null) {
+            cache.remove(((KeyReference) ref).key, ref);
+        }
+    }
+
+    /**
+     * A weak reference to a demoted value, remembering its key so that the entry can be removed
+     * once the value has been garbage collected.
+     */
+    private static final class KeyReference extends WeakReference<Object> {
+        final Object key;
+
+        KeyReference(final Object key, final Object value, final ReferenceQueue<Object> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+    }
+
+    public void remove(final Object key) {
+        cache.remove(key);
+    }
+
+    /**
+     * @return a copy of the keys currently in the cache
+     */
+    public Set<Object> getKeys() {
+        return new HashSet<Object>(cache.keySet());
+    }
+
+    public void writeLock(final Object key) {
+        for (;;) {
+            ReentrantLock lock = locks.get(key);
+            if (lock == null) {
+                final ReentrantLock created = new ReentrantLock();
+                lock = locks.putIfAbsent(key, created);
+                if (lock == null) {
+                    lock = created;
+                }
+            }
+            lock.lock();
+            // the lock might have been released and removed by its previous owner while we
+            // were waiting for it, in that case try again with the current one
+            if (locks.get(key) == lock) {
+                return;
+            }
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Acquires the write lock for the specified key only if no other thread holds it.
+     *
+     * @return {@code true} if the lock has been acquired and must be released with
+     *         {@link #writeUnLock}
+     */
+    public boolean tryWriteLock(final Object key) {
+        for (;;) {
+            ReentrantLock lock = locks.get(key);
+            if (lock == null) {
+                final ReentrantLock created = new ReentrantLock();
+                lock = locks.putIfAbsent(key, created);
+                if (lock == null) {
+                    lock = created;
+                }
+            }
+            if (!lock.tryLock()) {
+                return false;
+            }
+            if (locks.get(key) == lock) {
+                return true;
+            }
+            lock.unlock();
+        }
+    }
+
+    public void writeUnLock(final Object key) {
+        final ReentrantLock lock = locks.get(key);
+        if (lock == null || !lock.isHeldByCurrentThread()) {
+            throw new IllegalMonitorStateException("Cannot unlock prior to locking");
+        }
+        if (lock.getHoldCount() == 1) {
+            locks.remove(key, lock);
+        }
+        lock.unlock();
+    }
+
+    /**
+     * The number of {@link #get} calls that found a value in the cache
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * The number of {@link #get} calls that did not find a value in the cache
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * The number of values demoted from strong to weak references because the cache was full
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * The maximum number of values held by strong references
+     */
+    public int getMaxStrongReferences() {
+        return maxStrongReferences;
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrentObjectCache[size=" + cache.size() + ", hits=" + hits + ", misses="
+                + misses + ", evictions=" + evictions + "]";
+    }
+}
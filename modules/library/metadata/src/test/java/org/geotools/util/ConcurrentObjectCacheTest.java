@@ -0,0 +1,205 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link ConcurrentObjectCache}
+ *
+ *
+ *
+ * @source $URL$
+ */
+public final class ConcurrentObjectCacheTest {
+
+    @Test
+    public void testSimple() {
+        ConcurrentObjectCache cache = new ConcurrentObjectCache(10);
+        assertNull(cache.get("a"));
+        cache.writeLock("a");
+        try {
+            assertNull(cache.peek("a"));
+            cache.put("a", "value a");
+        } finally {
+            cache.writeUnLock("a");
+        }
+        assertEquals("value a", cache.get("a"));
+        assertEquals(1, cache.getKeys().size());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        cache.remove("a");
+        assertNull(cache.peek("a"));
+        assertTrue(cache.getKeys().isEmpty());
+    }
+
+    @Test
+    public void testUnlockWithoutLock() {
+        ConcurrentObjectCache cache = new ConcurrentObjectCache(10);
+        try {
+            cache.writeUnLock("a");
+            fail("Should have failed, the key was not locked");
+        } catch (IllegalMonitorStateException e) {
+            // fine
+        }
+    }
+
+    @Test
+    public void testBounded() {
+        ConcurrentObjectCache cache = new ConcurrentObjectCache(5);
+        // keep the values alive so that the weak references are not cleared
+        List<Object> values = new ArrayList<Object>();
+        for (int i = 0; i < 20; i++) {
+            Object value = new Object();
+            values.add(value);
+            cache.put(i, value);
+        }
+        assertEquals(15, cache.getEvictionCount());
+        for (int i = 0; i < 20; i++) {
+            assertSame(values.get(i), cache.peek(i));
+        }
+        // accessing an old value makes it strong again, and demotes another one
+        assertSame(values.get(0), cache.get(0));
+        assertEquals(16, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testCollectedValuesRemoved() throws Exception {
+        ConcurrentObjectCache cache = new ConcurrentObjectCache(1);
+        cache.put("a", new Object());
+        // demotes "a" to a weak reference
+        cache.put("b", "value b");
+        for (int i = 0; i < 50 && cache.getKeys().contains("a"); i++) {
+            System.gc();
+            Thread.sleep(20);
+            cache.put("b", "value b");
+        }
+        assertFalse(cache.getKeys().contains("a"));
+        assertEquals("value b", cache.peek("b"));
+    }
+
+    @Test
+    public void testTryWriteLock() throws Exception {
+        final ConcurrentObjectCache cache = new ConcurrentObjectCache(10);
+        cache.writeLock("a");
+        try {
+            final boolean[] acquired = new boolean[2];
+            Thread t = new Thread() {
+                public void run() {
+                    acquired[0] = cache.tryWriteLock("a");
+                    acquired[1] = cache.tryWriteLock("b");
+                    if (acquired[1]) {
+                        cache.writeUnLock("b");
+                    }
+                }
+            };
+            t.start();
+            t.join(10000);
+            assertFalse(acquired[0]);
+            assertTrue(acquired[1]);
+            // reentrant for the owner
+            assertTrue(cache.tryWriteLock("a"));
+            cache.writeUnLock("a");
+        } finally {
+            cache.writeUnLock("a");
+        }
+    }
+
+    @Test
+    public void testSameKeyCreatedOnce() throws Exception {
+        final ConcurrentObjectCache cache = new ConcurrentObjectCache(10);
+        final AtomicInteger created = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Object>> results = new ArrayList<Future<Object>>();
+            for (int i = 0; i < threads * 4; i++) {
+                final String key = "key" + (i % 2);
+                results.add(executor.submit(new Callable<Object>() {
+                    public Object call() throws Exception {
+                        start.await();
+                        Object value = cache.get(key);
+                        if (value == null) {
+                            cache.writeLock(key);
+                            try {
+                                value = cache.peek(key);
+                                if (value == null) {
+                                    Thread.sleep(20);
+                                    created.incrementAndGet();
+                                    value = "value of " + key;
+                                    cache.put(key, value);
+                                }
+                            } finally {
+                                cache.writeUnLock(key);
+                            }
+                        }
+                        return value;
+                    }
+                }));
+            }
+            start.countDown();
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals("value of key" + (i % 2), results.get(i).get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(2, created.get());
+    }
+
+    @Test
+    public void testDifferentKeysDoNotBlock() throws Exception {
+        final ConcurrentObjectCache cache = new ConcurrentObjectCache(10);
+        cache.writeLock("a");
+        try {
+            Thread t = new Thread() {
+                public void run() {
+                    cache.writeLock("b");
+                    try {
+                        cache.put("b", "value b");
+                    } finally {
+                        cache.writeUnLock("b");
+                    }
+                }
+            };
+            t.start();
+            t.join(10000);
+            assertEquals("value b", cache.peek("b"));
+        } finally {
+            cache.writeUnLock("a");
+        }
+    }
+
+    @Test
+    public void testPolicy() {
+        assertTrue(ObjectCaches.create("concurrent", 10) instanceof ConcurrentObjectCache);
+    }
+}
@@ -194,6 +194,11 @@ public final class CRS {
      */
     private static CoordinateOperationFactory lenientFactory;
 
+    /**
+     * The transforms resolved by {@link #findMathTransform}.
+     */
+    private static final MathTransformCache transformCache = new MathTransformCache();
+
     /**
      * Registers a listener automatically invoked when the system-wide configuration changed.
      */
@@ -206,6 +211,7 @@ public final class CRS {
                     strictFactory  = null;
                     lenientFactory = null;
                 }
+                transformCache.clear();
             }
         });
     }
@@ -1160,12 +1166,39 @@ search:             if (DefaultCoordinateSystemAxis.isCompassDirection(axis.getD
                                                   boolean lenient)
             throws FactoryException
     {
+        if (sourceCRS == targetCRS && sourceCRS != null) {
+            return IdentityTransform.create(sourceCRS.getCoordinateSystem().getDimension());
+        }
+        if (sourceCRS == null || targetCRS == null) {
+            // let the factory report the error
+            return getCoordinateOperationFactory(lenient).createOperation(sourceCRS, targetCRS)
+                    .getMathTransform();
+        }
+        MathTransform transform = transformCache.get(sourceCRS, targetCRS, lenient);
+        if (transform != null) {
+            return transform;
+        }
         if (equalsIgnoreMetadata(sourceCRS, targetCRS)) {
             // Slight optimization in order to avoid the overhead of loading the full referencing engine.
-            return IdentityTransform.create(sourceCRS.getCoordinateSystem().getDimension());
+            transform = IdentityTransform.create(sourceCRS.getCoordinateSystem().getDimension());
+        } else {
+            CoordinateOperationFactory operationFactory = getCoordinateOperationFactory(lenient);
+            transform = operationFactory.createOperation(sourceCRS, targetCRS).getMathTransform();
         }
-        CoordinateOperationFactory operationFactory = getCoordinateOperationFactory(lenient);
-        return operationFactory.createOperation(sourceCRS, targetCRS).getMathTransform();
+        transformCache.put(sourceCRS, targetCRS, lenient, transform);
+        return transform;
+    }
+
+    /**
+     * Returns the cache of the transforms resolved by
+     * {@link #findMathTransform(CoordinateReferenceSystem, CoordinateReferenceSystem, boolean)
+     * findMathTransform}. It can be used to inspect the cache statistics, or to clear it.
+     * The cache is cleared automatically when the system-wide configuration changes.
+     *
+     * @since 9.0
+     */
+    public static MathTransformCache getMathTransformCache() {
+        return transformCache;
     }
 
     /**
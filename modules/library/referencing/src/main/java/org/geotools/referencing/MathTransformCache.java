@@ -0,0 +1,255 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.referencing;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.MathTransform;
+
+/**
+ * A bounded cache of the {@linkplain MathTransform math transforms} resolved by
+ * {@link CRS#findMathTransform(CoordinateReferenceSystem, CoordinateReferenceSystem, boolean)},
+ * keyed by source CRS, target CRS and leniency.
+ * <p>
+ * Lookups never block. They first search the transforms by CRS identity, which is the common
+ * case since the CRS returned by {@link CRS#decode(String)} are cached, and only then by CRS
+ * equality, which requires computing the (deep) CRS hash codes. A transform found by equality
+ * is also registered under the identity of the requested CRS, so that the following lookups
+ * with the same instances take the fast path.
+ * <p>
+ * When the number of entries goes past the maximum size, an arbitrary quarter of them is
+ * evicted. The number of hits, misses and evictions are tracked and can be used to evaluate
+ * the cache efficiency.
+ *
+ * @since 9.0
+ *
+ * @source $URL$
+ */
+public final class MathTransformCache {
+    /**
+     * The default maximum number of entries.
+     */
+    static final int DEFAULT_MAX_SIZE = 256;
+
+    /**
+     * A (source, target, lenient) key, comparing the CRS by identity or by equality.
+     */
+    private static final class Key {
+        final CoordinateReferenceSystem source, target;
+
+        final boolean lenient, identity;
+
+        final int hash;
+
+        Key(final CoordinateReferenceSystem source, final CoordinateReferenceSystem target,
+                final boolean lenient, final boolean identity)
+        {
+            this.source   = source;
+            this.target   = target;
+            this.lenient  = lenient;
+            this.identity = identity;
+            int code;
+            if (identity) {
+                code = 31 * System.identityHashCode(source) + System.identityHashCode(target);
+            } else {
+                code = 31 * source.hashCode() + target.hashCode();
+            }
+            hash = lenient ? ~code : code;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            if (object == this) {
+                return true;
+            }
+            if (!(object instanceof Key)) {
+                return false;
+            }
+            final Key that = (Key) object;
+            if (lenient != that.lenient || identity != that.identity || hash != that.hash) {
+                return false;
+            }
+            if (source == that.source && target == that.target) {
+                return true;
+            }
+            return !identity && source.equals(that.source) && target.equals(that.target);
+        }
+    }
+
+    /**
+     * The transforms found by CRS identity.
+     */
+    private final ConcurrentHashMap<Key, MathTransform> byIdentity =
+            new ConcurrentHashMap<Key, MathTransform>();
+
+    /**
+     * The transforms found by CRS equality.
+     */
+    private final ConcurrentHashMap<Key, MathTransform> byEquality =
+            new ConcurrentHashMap<Key, MathTransform>();
+
+    /**
+     * The maximum number of entries in each map.
+     */
+    private final int maxSize;
+
+    /**
+     * An approximation of the number of entries in each map, {@link ConcurrentHashMap#size}
+     * being expensive.
+     */
+    private final AtomicInteger identitySize = new AtomicInteger();
+
+    private final AtomicInteger equalitySize = new AtomicInteger();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates a cache holding at most {@value #DEFAULT_MAX_SIZE} transforms.
+     */
+    public MathTransformCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a cache holding at most the specified number of transforms.
+     *
+     * @param maxSize The maximum number of transforms kept in the cache.
+     */
+    public MathTransformCache(final int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive, but was " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the cached transform for the specified CRS pair, or {@code null} if none.
+     */
+    public MathTransform get(final CoordinateReferenceSystem sourceCRS,
+            final CoordinateReferenceSystem targetCRS, final boolean lenient)
+    {
+        MathTransform transform = byIdentity.get(new Key(sourceCRS, targetCRS, lenient, true));
+        if (transform == null) {
+            transform = byEquality.get(new Key(sourceCRS, targetCRS, lenient, false));
+            if (transform != null) {
+                // next time, take the fast path
+                put(byIdentity, identitySize, new Key(sourceCRS, targetCRS, lenient, true),
+                        transform);
+            }
+        }
+        if (transform != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return transform;
+    }
+
+    /**
+     * Caches the transform for the specified CRS pair.
+     */
+    public void put(final CoordinateReferenceSystem sourceCRS,
+            final CoordinateReferenceSystem targetCRS, final boolean lenient,
+            final MathTransform transform)
+    {
+        put(byIdentity, identitySize, new Key(sourceCRS, targetCRS, lenient, true), transform);
+        put(byEquality, equalitySize, new Key(sourceCRS, targetCRS, lenient, false), transform);
+    }
+
+    private void put(final ConcurrentHashMap<Key, MathTransform> map, final AtomicInteger size,
+            final Key key, final MathTransform transform)
+    {
+        if (map.put(key, transform) == null && size.incrementAndGet() > maxSize) {
+            // evict an arbitrary quarter of the entries, we don't have access statistics
+            int toRemove = Math.max(1, maxSize / 4);
+            for (final Iterator<Key> it = map.keySet().iterator(); it.hasNext() && toRemove > 0;) {
+                if (map.remove(it.next()) != null) {
+                    size.decrementAndGet();
+                    if (map == byEquality) {
+                        // the identity entries are only shortcuts to these ones
+                        evictions.incrementAndGet();
+                    }
+                    toRemove--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all the cached transforms. The statistics are not reset.
+     */
+    public void clear() {
+        byIdentity.clear();
+        byEquality.clear();
+        identitySize.set(0);
+        equalitySize.set(0);
+    }
+
+    /**
+     * The number of distinct CRS pairs in the cache.
+     */
+    public int size() {
+        return byEquality.size();
+    }
+
+    /**
+     * The maximum number of CRS pairs in the cache.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * The number of lookups that found a transform in the cache.
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * The number of lookups that did not find a transform in the cache.
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * The number of transforms evicted because the cache was full.
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "MathTransformCache[size=" + size() + ", hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions + "]";
+    }
+}
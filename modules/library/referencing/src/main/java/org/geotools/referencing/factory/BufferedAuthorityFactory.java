@@ -19,15 +19,11 @@
  */
 package org.geotools.referencing.factory;
 
-import java.lang.ref.Reference;
-import java.lang.ref.WeakReference;
 import java.util.Map;
 import java.util.Set;
-import java.util.Iterator;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.WeakHashMap;
-import java.util.LinkedHashMap;
 import java.util.logging.LogRecord;
 import java.util.logging.Level;
 import javax.measure.unit.Unit;
@@ -47,6 +43,7 @@ import org.opengis.util.InternationalString;
 
 import org.geotools.factory.Hints;
 import org.geotools.factory.BufferedFactory;
+import org.geotools.referencing.factory.CreatedObjects.Creator;
 import org.geotools.util.Utilities;
 import org.geotools.resources.i18n.Errors;
 import org.geotools.resources.i18n.ErrorKeys;
@@ -63,10 +60,13 @@ import org.geotools.resources.i18n.LoggingKeys;
  * <p>
  * Objects are cached by strong references, up to the amount of objects specified at
  * construction time. If a greater amount of objects are cached, the oldest ones will
- * be retained through a {@linkplain WeakReference weak reference} instead of a strong
- * one. This means that this buffered factory will continue to returns them as long as
- * they are in use somewhere else in the Java virtual machine, but will be discarted
+ * be retained through a {@linkplain java.lang.ref.WeakReference weak reference} instead
+ * of a strong one. This means that this buffered factory will continue to returns them as
+ * long as they are in use somewhere else in the Java virtual machine, but will be discarted
  * (and recreated on the fly if needed) otherwise.
+ * <p>
+ * Cached objects are returned without any locking. When an object is not in the cache, only
+ * the requests for the same code wait for each other while it is being created.
  *
  * @since 2.1
  *
@@ -77,7 +77,7 @@ import org.geotools.resources.i18n.LoggingKeys;
  */
 public class BufferedAuthorityFactory extends AbstractAuthorityFactory implements BufferedFactory {
     /**
-     * The default value for {@link #maxStrongReferences}.
+     * The default value for {@code maxStrongReferences}.
      */
     static final int DEFAULT_MAX = 20;
 
@@ -93,17 +93,10 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
     volatile AbstractAuthorityFactory backingStore;
 
     /**
-     * The pool of cached objects.
-     */
-    private final LinkedHashMap<Object,Object> pool =
-            new LinkedHashMap<Object,Object>(32, 0.75f, true);
-
-    /**
-     * The maximum number of objects to keep by strong reference. If a greater amount of
-     * objects are created, then the strong references for the oldest ones are replaced by
-     * weak references.
+     * The cache for referencing objects. Lookups do not block, and the objects not found are
+     * created under a lock on their own key only.
      */
-    private final int maxStrongReferences;
+    private final CreatedObjects objects;
 
     /**
      * The pool of objects identified by {@link #find}.
@@ -146,7 +139,7 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
             factory = ((BufferedAuthorityFactory) factory).backingStore;
         }
         this.backingStore        = factory;
-        this.maxStrongReferences = maxStrongReferences;
+        this.objects = new CreatedObjects(maxStrongReferences);
         completeHints();
     }
 
@@ -164,7 +157,7 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      */
     BufferedAuthorityFactory(final int priority, final int maxStrongReferences) {
         super(priority);
-        this.maxStrongReferences = maxStrongReferences;
+        this.objects = new CreatedObjects(maxStrongReferences);
         // completeHints() will be invoked by DeferredAuthorityFactory.getBackingStore()
     }
 
@@ -314,6 +307,35 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
         return getBackingStore().getBackingStoreDescription();
     }
 
+    /**
+     * Returns the number of objects requested from this factory that were found in the cache.
+     *
+     * @since 9.0
+     */
+    public long getCacheHitCount() {
+        return objects.getCache().getHitCount();
+    }
+
+    /**
+     * Returns the number of objects requested from this factory that were not found in the
+     * cache, and had to be created by the backing store.
+     *
+     * @since 9.0
+     */
+    public long getCacheMissCount() {
+        return objects.getCache().getMissCount();
+    }
+
+    /**
+     * Returns the number of cached objects demoted from strong to weak references because
+     * the cache was full. Weakly referenced objects are lost once garbage collected.
+     *
+     * @since 9.0
+     */
+    public long getCacheEvictionCount() {
+        return objects.getCache().getEvictionCount();
+    }
+
     /**
      * Returns the set of authority codes of the given type. The {@code type}
      * argument specify the base class.
@@ -351,19 +373,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized IdentifiedObject createObject(final String code)
+    public IdentifiedObject createObject(final String code)
             throws FactoryException
     {
-        final IdentifiedObject object;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof IdentifiedObject) {
-            object = (IdentifiedObject) cached;
-        } else {
-            object = getBackingStore().createObject(code);
-        }
-        put(key, object);
-        return object;
+        return objects.get(trimAuthority(code), IdentifiedObject.class, new Creator<IdentifiedObject>() {
+            @Override
+            IdentifiedObject create() throws FactoryException {
+                return getBackingStore().createObject(code);
+            }
+        });
     }
 
     /**
@@ -372,19 +390,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized Datum createDatum(final String code)
+    public Datum createDatum(final String code)
             throws FactoryException
     {
-        final Datum datum;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof Datum) {
-            datum = (Datum) cached;
-        } else {
-            datum = getBackingStore().createDatum(code);
-        }
-        put(key, datum);
-        return datum;
+        return objects.get(trimAuthority(code), Datum.class, new Creator<Datum>() {
+            @Override
+            Datum create() throws FactoryException {
+                return getBackingStore().createDatum(code);
+            }
+        });
     }
 
     /**
@@ -393,19 +407,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized EngineeringDatum createEngineeringDatum(final String code)
+    public EngineeringDatum createEngineeringDatum(final String code)
             throws FactoryException
     {
-        final EngineeringDatum datum;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof EngineeringDatum) {
-            datum = (EngineeringDatum) cached;
-        } else {
-            datum = getBackingStore().createEngineeringDatum(code);
-        }
-        put(key, datum);
-        return datum;
+        return objects.get(trimAuthority(code), EngineeringDatum.class, new Creator<EngineeringDatum>() {
+            @Override
+            EngineeringDatum create() throws FactoryException {
+                return getBackingStore().createEngineeringDatum(code);
+            }
+        });
     }
 
     /**
@@ -414,19 +424,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized ImageDatum createImageDatum(final String code)
+    public ImageDatum createImageDatum(final String code)
             throws FactoryException
     {
-        final ImageDatum datum;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof ImageDatum) {
-            datum = (ImageDatum) cached;
-        } else {
-            datum = getBackingStore().createImageDatum(code);
-        }
-        put(key, datum);
-        return datum;
+        return objects.get(trimAuthority(code), ImageDatum.class, new Creator<ImageDatum>() {
+            @Override
+            ImageDatum create() throws FactoryException {
+                return getBackingStore().createImageDatum(code);
+            }
+        });
     }
 
     /**
@@ -435,19 +441,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized VerticalDatum createVerticalDatum(final String code)
+    public VerticalDatum createVerticalDatum(final String code)
             throws FactoryException
     {
-        final VerticalDatum datum;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof VerticalDatum) {
-            datum = (VerticalDatum) cached;
-        } else {
-            datum = getBackingStore().createVerticalDatum(code);
-        }
-        put(key, datum);
-        return datum;
+        return objects.get(trimAuthority(code), VerticalDatum.class, new Creator<VerticalDatum>() {
+            @Override
+            VerticalDatum create() throws FactoryException {
+                return getBackingStore().createVerticalDatum(code);
+            }
+        });
     }
 
     /**
@@ -456,19 +458,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized TemporalDatum createTemporalDatum(final String code)
+    public TemporalDatum createTemporalDatum(final String code)
             throws FactoryException
     {
-        final TemporalDatum datum;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof TemporalDatum) {
-            datum = (TemporalDatum) cached;
-        } else {
-            datum = getBackingStore().createTemporalDatum(code);
-        }
-        put(key, datum);
-        return datum;
+        return objects.get(trimAuthority(code), TemporalDatum.class, new Creator<TemporalDatum>() {
+            @Override
+            TemporalDatum create() throws FactoryException {
+                return getBackingStore().createTemporalDatum(code);
+            }
+        });
     }
 
     /**
@@ -477,19 +475,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized GeodeticDatum createGeodeticDatum(final String code)
+    public GeodeticDatum createGeodeticDatum(final String code)
             throws FactoryException
     {
-        final GeodeticDatum datum;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof GeodeticDatum) {
-            datum = (GeodeticDatum) cached;
-        } else {
-            datum = getBackingStore().createGeodeticDatum(code);
-        }
-        put(key, datum);
-        return datum;
+        return objects.get(trimAuthority(code), GeodeticDatum.class, new Creator<GeodeticDatum>() {
+            @Override
+            GeodeticDatum create() throws FactoryException {
+                return getBackingStore().createGeodeticDatum(code);
+            }
+        });
     }
 
     /**
@@ -498,19 +492,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized Ellipsoid createEllipsoid(final String code)
+    public Ellipsoid createEllipsoid(final String code)
             throws FactoryException
     {
-        final Ellipsoid ellipsoid;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof Ellipsoid) {
-            ellipsoid = (Ellipsoid) cached;
-        } else {
-            ellipsoid = getBackingStore().createEllipsoid(code);
-        }
-        put(key, ellipsoid);
-        return ellipsoid;
+        return objects.get(trimAuthority(code), Ellipsoid.class, new Creator<Ellipsoid>() {
+            @Override
+            Ellipsoid create() throws FactoryException {
+                return getBackingStore().createEllipsoid(code);
+            }
+        });
     }
 
     /**
@@ -519,19 +509,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized PrimeMeridian createPrimeMeridian(final String code)
+    public PrimeMeridian createPrimeMeridian(final String code)
             throws FactoryException
     {
-        final PrimeMeridian meridian;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof PrimeMeridian) {
-            meridian = (PrimeMeridian) cached;
-        } else {
-            meridian = getBackingStore().createPrimeMeridian(code);
-        }
-        put(key, meridian);
-        return meridian;
+        return objects.get(trimAuthority(code), PrimeMeridian.class, new Creator<PrimeMeridian>() {
+            @Override
+            PrimeMeridian create() throws FactoryException {
+                return getBackingStore().createPrimeMeridian(code);
+            }
+        });
     }
 
     /**
@@ -540,19 +526,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized Extent createExtent(final String code)
+    public Extent createExtent(final String code)
             throws FactoryException
     {
-        final Extent extent;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof Extent) {
-            extent = (Extent) cached;
-        } else {
-            extent = getBackingStore().createExtent(code);
-        }
-        put(key, extent);
-        return extent;
+        return objects.get(trimAuthority(code), Extent.class, new Creator<Extent>() {
+            @Override
+            Extent create() throws FactoryException {
+                return getBackingStore().createExtent(code);
+            }
+        });
     }
 
     /**
@@ -561,19 +543,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized CoordinateSystem createCoordinateSystem(final String code)
+    public CoordinateSystem createCoordinateSystem(final String code)
             throws FactoryException
     {
-        final CoordinateSystem cs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof CoordinateSystem) {
-            cs = (CoordinateSystem) cached;
-        } else {
-            cs = getBackingStore().createCoordinateSystem(code);
-        }
-        put(key, cs);
-        return cs;
+        return objects.get(trimAuthority(code), CoordinateSystem.class, new Creator<CoordinateSystem>() {
+            @Override
+            CoordinateSystem create() throws FactoryException {
+                return getBackingStore().createCoordinateSystem(code);
+            }
+        });
     }
 
     /**
@@ -582,19 +560,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized CartesianCS createCartesianCS(final String code)
+    public CartesianCS createCartesianCS(final String code)
             throws FactoryException
     {
-        final CartesianCS cs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof CartesianCS) {
-            cs = (CartesianCS) cached;
-        } else {
-            cs = getBackingStore().createCartesianCS(code);
-        }
-        put(key, cs);
-        return cs;
+        return objects.get(trimAuthority(code), CartesianCS.class, new Creator<CartesianCS>() {
+            @Override
+            CartesianCS create() throws FactoryException {
+                return getBackingStore().createCartesianCS(code);
+            }
+        });
     }
 
     /**
@@ -603,19 +577,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized PolarCS createPolarCS(final String code)
+    public PolarCS createPolarCS(final String code)
             throws FactoryException
     {
-        final PolarCS cs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof PolarCS) {
-            cs = (PolarCS) cached;
-        } else {
-            cs = getBackingStore().createPolarCS(code);
-        }
-        put(key, cs);
-        return cs;
+        return objects.get(trimAuthority(code), PolarCS.class, new Creator<PolarCS>() {
+            @Override
+            PolarCS create() throws FactoryException {
+                return getBackingStore().createPolarCS(code);
+            }
+        });
     }
 
     /**
@@ -624,19 +594,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized CylindricalCS createCylindricalCS(final String code)
+    public CylindricalCS createCylindricalCS(final String code)
             throws FactoryException
     {
-        final CylindricalCS cs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof CylindricalCS) {
-            cs = (CylindricalCS) cached;
-        } else {
-            cs = getBackingStore().createCylindricalCS(code);
-        }
-        put(key, cs);
-        return cs;
+        return objects.get(trimAuthority(code), CylindricalCS.class, new Creator<CylindricalCS>() {
+            @Override
+            CylindricalCS create() throws FactoryException {
+                return getBackingStore().createCylindricalCS(code);
+            }
+        });
     }
 
     /**
@@ -645,19 +611,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized SphericalCS createSphericalCS(final String code)
+    public SphericalCS createSphericalCS(final String code)
             throws FactoryException
     {
-        final SphericalCS cs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof SphericalCS) {
-            cs = (SphericalCS) cached;
-        } else {
-            cs = getBackingStore().createSphericalCS(code);
-        }
-        put(key, cs);
-        return cs;
+        return objects.get(trimAuthority(code), SphericalCS.class, new Creator<SphericalCS>() {
+            @Override
+            SphericalCS create() throws FactoryException {
+                return getBackingStore().createSphericalCS(code);
+            }
+        });
     }
 
     /**
@@ -666,19 +628,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized EllipsoidalCS createEllipsoidalCS(final String code)
+    public EllipsoidalCS createEllipsoidalCS(final String code)
             throws FactoryException
     {
-        final EllipsoidalCS cs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof EllipsoidalCS) {
-            cs = (EllipsoidalCS) cached;
-        } else {
-            cs = getBackingStore().createEllipsoidalCS(code);
-        }
-        put(key, cs);
-        return cs;
+        return objects.get(trimAuthority(code), EllipsoidalCS.class, new Creator<EllipsoidalCS>() {
+            @Override
+            EllipsoidalCS create() throws FactoryException {
+                return getBackingStore().createEllipsoidalCS(code);
+            }
+        });
     }
 
     /**
@@ -687,19 +645,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized VerticalCS createVerticalCS(final String code)
+    public VerticalCS createVerticalCS(final String code)
             throws FactoryException
     {
-        final VerticalCS cs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof VerticalCS) {
-            cs = (VerticalCS) cached;
-        } else {
-            cs = getBackingStore().createVerticalCS(code);
-        }
-        put(key, cs);
-        return cs;
+        return objects.get(trimAuthority(code), VerticalCS.class, new Creator<VerticalCS>() {
+            @Override
+            VerticalCS create() throws FactoryException {
+                return getBackingStore().createVerticalCS(code);
+            }
+        });
     }
 
     /**
@@ -708,19 +662,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized TimeCS createTimeCS(final String code)
+    public TimeCS createTimeCS(final String code)
             throws FactoryException
     {
-        final TimeCS cs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof TimeCS) {
-            cs = (TimeCS) cached;
-        } else {
-            cs = getBackingStore().createTimeCS(code);
-        }
-        put(key, cs);
-        return cs;
+        return objects.get(trimAuthority(code), TimeCS.class, new Creator<TimeCS>() {
+            @Override
+            TimeCS create() throws FactoryException {
+                return getBackingStore().createTimeCS(code);
+            }
+        });
     }
 
     /**
@@ -729,19 +679,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized CoordinateSystemAxis createCoordinateSystemAxis(final String code)
+    public CoordinateSystemAxis createCoordinateSystemAxis(final String code)
             throws FactoryException
     {
-        final CoordinateSystemAxis axis;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof CoordinateSystemAxis) {
-            axis = (CoordinateSystemAxis) cached;
-        } else {
-            axis = getBackingStore().createCoordinateSystemAxis(code);
-        }
-        put(key, axis);
-        return axis;
+        return objects.get(trimAuthority(code), CoordinateSystemAxis.class, new Creator<CoordinateSystemAxis>() {
+            @Override
+            CoordinateSystemAxis create() throws FactoryException {
+                return getBackingStore().createCoordinateSystemAxis(code);
+            }
+        });
     }
 
     /**
@@ -750,19 +696,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized Unit<?> createUnit(final String code)
+    public Unit<?> createUnit(final String code)
             throws FactoryException
     {
-        final Unit<?> unit;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof Unit) {
-            unit = (Unit) cached;
-        } else {
-            unit = getBackingStore().createUnit(code);
-        }
-        put(key, unit);
-        return unit;
+        return objects.get(trimAuthority(code), Unit.class, new Creator<Unit<?>>() {
+            @Override
+            Unit<?> create() throws FactoryException {
+                return getBackingStore().createUnit(code);
+            }
+        });
     }
 
     /**
@@ -771,19 +713,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized CoordinateReferenceSystem createCoordinateReferenceSystem(final String code)
+    public CoordinateReferenceSystem createCoordinateReferenceSystem(final String code)
             throws FactoryException
     {
-        final CoordinateReferenceSystem crs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof CoordinateReferenceSystem) {
-            crs = (CoordinateReferenceSystem) cached;
-        } else {
-            crs = getBackingStore().createCoordinateReferenceSystem(code);
-        }
-        put(key, crs);
-        return crs;
+        return objects.get(trimAuthority(code), CoordinateReferenceSystem.class, new Creator<CoordinateReferenceSystem>() {
+            @Override
+            CoordinateReferenceSystem create() throws FactoryException {
+                return getBackingStore().createCoordinateReferenceSystem(code);
+            }
+        });
     }
 
     /**
@@ -792,19 +730,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized CompoundCRS createCompoundCRS(final String code)
+    public CompoundCRS createCompoundCRS(final String code)
             throws FactoryException
     {
-        final CompoundCRS crs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof CompoundCRS) {
-            crs = (CompoundCRS) cached;
-        } else {
-            crs = getBackingStore().createCompoundCRS(code);
-        }
-        put(key, crs);
-        return crs;
+        return objects.get(trimAuthority(code), CompoundCRS.class, new Creator<CompoundCRS>() {
+            @Override
+            CompoundCRS create() throws FactoryException {
+                return getBackingStore().createCompoundCRS(code);
+            }
+        });
     }
 
     /**
@@ -813,19 +747,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized DerivedCRS createDerivedCRS(final String code)
+    public DerivedCRS createDerivedCRS(final String code)
             throws FactoryException
     {
-        final DerivedCRS crs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof DerivedCRS) {
-            crs = (DerivedCRS) cached;
-        } else {
-            crs = getBackingStore().createDerivedCRS(code);
-        }
-        put(key, crs);
-        return crs;
+        return objects.get(trimAuthority(code), DerivedCRS.class, new Creator<DerivedCRS>() {
+            @Override
+            DerivedCRS create() throws FactoryException {
+                return getBackingStore().createDerivedCRS(code);
+            }
+        });
     }
 
     /**
@@ -834,19 +764,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized EngineeringCRS createEngineeringCRS(final String code)
+    public EngineeringCRS createEngineeringCRS(final String code)
             throws FactoryException
     {
-        final EngineeringCRS crs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof EngineeringCRS) {
-            crs = (EngineeringCRS) cached;
-        } else {
-            crs = getBackingStore().createEngineeringCRS(code);
-        }
-        put(key, crs);
-        return crs;
+        return objects.get(trimAuthority(code), EngineeringCRS.class, new Creator<EngineeringCRS>() {
+            @Override
+            EngineeringCRS create() throws FactoryException {
+                return getBackingStore().createEngineeringCRS(code);
+            }
+        });
     }
 
     /**
@@ -855,19 +781,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized GeographicCRS createGeographicCRS(final String code)
+    public GeographicCRS createGeographicCRS(final String code)
             throws FactoryException
     {
-        final GeographicCRS crs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof GeographicCRS) {
-            crs = (GeographicCRS) cached;
-        } else {
-            crs = getBackingStore().createGeographicCRS(code);
-        }
-        put(key, crs);
-        return crs;
+        return objects.get(trimAuthority(code), GeographicCRS.class, new Creator<GeographicCRS>() {
+            @Override
+            GeographicCRS create() throws FactoryException {
+                return getBackingStore().createGeographicCRS(code);
+            }
+        });
     }
 
     /**
@@ -876,19 +798,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized GeocentricCRS createGeocentricCRS(final String code)
+    public GeocentricCRS createGeocentricCRS(final String code)
             throws FactoryException
     {
-        final GeocentricCRS crs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof GeocentricCRS) {
-            crs = (GeocentricCRS) cached;
-        } else {
-            crs = getBackingStore().createGeocentricCRS(code);
-        }
-        put(key, crs);
-        return crs;
+        return objects.get(trimAuthority(code), GeocentricCRS.class, new Creator<GeocentricCRS>() {
+            @Override
+            GeocentricCRS create() throws FactoryException {
+                return getBackingStore().createGeocentricCRS(code);
+            }
+        });
     }
 
     /**
@@ -897,19 +815,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized ImageCRS createImageCRS(final String code)
+    public ImageCRS createImageCRS(final String code)
             throws FactoryException
     {
-        final ImageCRS crs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof ImageCRS) {
-            crs = (ImageCRS) cached;
-        } else {
-            crs = getBackingStore().createImageCRS(code);
-        }
-        put(key, crs);
-        return crs;
+        return objects.get(trimAuthority(code), ImageCRS.class, new Creator<ImageCRS>() {
+            @Override
+            ImageCRS create() throws FactoryException {
+                return getBackingStore().createImageCRS(code);
+            }
+        });
     }
 
     /**
@@ -918,19 +832,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized ProjectedCRS createProjectedCRS(final String code)
+    public ProjectedCRS createProjectedCRS(final String code)
             throws FactoryException
     {
-        final ProjectedCRS crs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof ProjectedCRS) {
-            crs = (ProjectedCRS) cached;
-        } else {
-            crs = getBackingStore().createProjectedCRS(code);
-        }
-        put(key, crs);
-        return crs;
+        return objects.get(trimAuthority(code), ProjectedCRS.class, new Creator<ProjectedCRS>() {
+            @Override
+            ProjectedCRS create() throws FactoryException {
+                return getBackingStore().createProjectedCRS(code);
+            }
+        });
     }
 
     /**
@@ -939,19 +849,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized TemporalCRS createTemporalCRS(final String code)
+    public TemporalCRS createTemporalCRS(final String code)
             throws FactoryException
     {
-        final TemporalCRS crs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof TemporalCRS) {
-            crs = (TemporalCRS) cached;
-        } else {
-            crs = getBackingStore().createTemporalCRS(code);
-        }
-        put(key, crs);
-        return crs;
+        return objects.get(trimAuthority(code), TemporalCRS.class, new Creator<TemporalCRS>() {
+            @Override
+            TemporalCRS create() throws FactoryException {
+                return getBackingStore().createTemporalCRS(code);
+            }
+        });
     }
 
     /**
@@ -960,19 +866,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized VerticalCRS createVerticalCRS(final String code)
+    public VerticalCRS createVerticalCRS(final String code)
             throws FactoryException
     {
-        final VerticalCRS crs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof VerticalCRS) {
-            crs = (VerticalCRS) cached;
-        } else {
-            crs = getBackingStore().createVerticalCRS(code);
-        }
-        put(key, crs);
-        return crs;
+        return objects.get(trimAuthority(code), VerticalCRS.class, new Creator<VerticalCRS>() {
+            @Override
+            VerticalCRS create() throws FactoryException {
+                return getBackingStore().createVerticalCRS(code);
+            }
+        });
     }
 
     /**
@@ -983,19 +885,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @since 2.2
      */
     @Override
-    public synchronized ParameterDescriptor createParameterDescriptor(final String code)
+    public ParameterDescriptor createParameterDescriptor(final String code)
             throws FactoryException
     {
-        final ParameterDescriptor parameter;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof ParameterDescriptor) {
-            parameter = (ParameterDescriptor) cached;
-        } else {
-            parameter = getBackingStore().createParameterDescriptor(code);
-        }
-        put(key, parameter);
-        return parameter;
+        return objects.get(trimAuthority(code), ParameterDescriptor.class, new Creator<ParameterDescriptor>() {
+            @Override
+            ParameterDescriptor create() throws FactoryException {
+                return getBackingStore().createParameterDescriptor(code);
+            }
+        });
     }
 
     /**
@@ -1006,19 +904,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @since 2.2
      */
     @Override
-    public synchronized OperationMethod createOperationMethod(final String code)
+    public OperationMethod createOperationMethod(final String code)
             throws FactoryException
     {
-        final OperationMethod method;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof OperationMethod) {
-            method = (OperationMethod) cached;
-        } else {
-            method = getBackingStore().createOperationMethod(code);
-        }
-        put(key, method);
-        return method;
+        return objects.get(trimAuthority(code), OperationMethod.class, new Creator<OperationMethod>() {
+            @Override
+            OperationMethod create() throws FactoryException {
+                return getBackingStore().createOperationMethod(code);
+            }
+        });
     }
 
     /**
@@ -1029,19 +923,15 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @since 2.2
      */
     @Override
-    public synchronized CoordinateOperation createCoordinateOperation(final String code)
+    public CoordinateOperation createCoordinateOperation(final String code)
             throws FactoryException
     {
-        final CoordinateOperation operation;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof CoordinateOperation) {
-            operation = (CoordinateOperation) cached;
-        } else {
-            operation = getBackingStore().createCoordinateOperation(code);
-        }
-        put(key, operation);
-        return operation;
+        return objects.get(trimAuthority(code), CoordinateOperation.class, new Creator<CoordinateOperation>() {
+            @Override
+            CoordinateOperation create() throws FactoryException {
+                return getBackingStore().createCoordinateOperation(code);
+            }
+        });
     }
 
     /**
@@ -1052,21 +942,18 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @since 2.2
      */
     @Override
-    public synchronized Set<CoordinateOperation> createFromCoordinateReferenceSystemCodes(
+    public Set<CoordinateOperation> createFromCoordinateReferenceSystemCodes(
                         final String sourceCRS, final String targetCRS)
             throws FactoryException
     {
-        final Set<CoordinateOperation> operations;
         final CodePair key = new CodePair(trimAuthority(sourceCRS), trimAuthority(targetCRS));
-        final Object cached = get(key);
-        if (cached instanceof Set) {
-            operations = (Set<CoordinateOperation>) cached;
-        } else {
-            operations = Collections.unmodifiableSet(getBackingStore()
-                         .createFromCoordinateReferenceSystemCodes(sourceCRS, targetCRS));
-        }
-        put(key, operations);
-        return operations;
+        return objects.get(key, Set.class, new Creator<Set<CoordinateOperation>>() {
+            @Override
+            Set<CoordinateOperation> create() throws FactoryException {
+                return Collections.unmodifiableSet(getBackingStore()
+                        .createFromCoordinateReferenceSystemCodes(sourceCRS, targetCRS));
+            }
+        });
     }
 
     /**
@@ -1115,7 +1002,7 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @since 2.4
      */
     @Override
-    public synchronized IdentifiedObjectFinder getIdentifiedObjectFinder(
+    public IdentifiedObjectFinder getIdentifiedObjectFinder(
             final Class<? extends IdentifiedObject> type) throws FactoryException
     {
         return new Finder(getBackingStore().getIdentifiedObjectFinder(type));
@@ -1200,52 +1087,16 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
             backingStore.dispose();
             backingStore = null;
         }
-        pool.clear();
+        objects.clear();
         findPool.clear();
         super.dispose();
     }
 
     /**
-     * Returns an object from the pool for the specified code. If the object was retained as a
-     * {@linkplain Reference weak reference}, the {@link Reference#get referent} is returned.
-     *
-     * @todo Consider logging a message here to the finer or finest level.
-     */
-    private Object get(final Object key) {
-        assert Thread.holdsLock(this);
-        Object object = pool.get(key);
-        if (object instanceof Reference) {
-            object = ((Reference<?>) object).get();
-        }
-        return object;
-    }
-
-    /**
-     * Put an element in the pool. This method is invoked everytime a {@code createFoo(...)}
-     * method is invoked, even if an object was already in the pool for the given code, for
-     * the following reasons: 1) Replaces weak reference by strong reference (if applicable)
-     * and 2) Alters the linked hash set order, so that this object is declared as the last
-     * one used.
+     * Returns {@code true} if some {@code createFoo(...)} method is currently using the
+     * backing store.
      */
-    private void put(final Object key, final Object object) {
-        assert Thread.holdsLock(this);
-        pool.put(key, object);
-        int toReplace = pool.size() - maxStrongReferences;
-        if (toReplace > 0) {
-            for (final Iterator<Map.Entry<Object,Object>> it=pool.entrySet().iterator(); it.hasNext();) {
-                final Map.Entry<Object,Object> entry = it.next();
-                final Object value = entry.getValue();
-                if (value instanceof Reference) {
-                    if (((Reference) value).get() == null) {
-                        it.remove();
-                    }
-                    continue;
-                }
-                entry.setValue(new WeakReference<Object>(value));
-                if (--toReplace == 0) {
-                    break;
-                }
-            }
-        }
+    final boolean isBusy() {
+        return objects.isBusy();
     }
 }
@@ -0,0 +1,147 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.referencing.factory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.geotools.util.ConcurrentObjectCache;
+import org.opengis.referencing.FactoryException;
+
+
+/**
+ * The objects created by the backing store of a {@link BufferedAuthorityFactory} or
+ * {@link ThreadedAuthorityFactory}. Cached objects are returned without locking. A missing
+ * object is created under a lock on its own key, so that concurrent requests for the same
+ * code reach the backing store only once, while requests for different codes proceed in
+ * parallel.
+ * <p>
+ * A thread that already holds the key of an object being created (because the backing store
+ * creates the dependencies of that object through the buffered factory) never waits for
+ * another key: if that key is held by someone else the dependency is created without the lock.
+ * Only the threads holding no key can wait, so the threads holding keys always make progress
+ * and no cycle can form, whatever locks the backing store takes on its own.
+ *
+ * @since 9.0
+ *
+ * @source $URL$
+ */
+final class CreatedObjects {
+    /**
+     * Creates an object missing from the cache.
+     */
+    static abstract class Creator<T> {
+        /**
+         * Asks the backing store for the object.
+         */
+        abstract T create() throws FactoryException;
+    }
+
+    /**
+     * The number of keys locked by the current thread, over all the buffered factories.
+     */
+    private static final ThreadLocal<int[]> HELD_KEYS = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[1];
+        }
+    };
+
+    /**
+     * The cache for referencing objects.
+     */
+    private final ConcurrentObjectCache cache;
+
+    /**
+     * The number of objects currently being created by the backing store.
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * Creates a cache which will hold the specified amount of objects by strong references.
+     */
+    CreatedObjects(final int maxStrongReferences) {
+        cache = new ConcurrentObjectCache(maxStrongReferences);
+    }
+
+    /**
+     * Returns the cached object of the specified type for the given key, asking the creator
+     * for it if missing.
+     *
+     * @param key  The cache key, usually the code without authority.
+     * @param type The expected type of the object. A cached object of an other type is replaced.
+     * @param creator Creates the object from the backing store.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(final Object key, final Class<?> type, final Creator<T> creator)
+            throws FactoryException
+    {
+        Object cached = cache.get(key);
+        if (type.isInstance(cached)) {
+            return (T) cached;
+        }
+        inFlight.incrementAndGet();
+        try {
+            final int[] held = HELD_KEYS.get();
+            final boolean locked;
+            if (held[0] == 0) {
+                cache.writeLock(key);
+                locked = true;
+            } else {
+                locked = cache.tryWriteLock(key);
+            }
+            if (locked) {
+                held[0]++;
+            }
+            try {
+                cached = cache.peek(key);
+                if (!type.isInstance(cached)) {
+                    cached = creator.create();
+                    cache.put(key, cached);
+                }
+            } finally {
+                if (locked) {
+                    held[0]--;
+                    cache.writeUnLock(key);
+                }
+            }
+        } finally {
+            inFlight.decrementAndGet();
+        }
+        return (T) cached;
+    }
+
+    /**
+     * Returns {@code true} if some object is currently being created by the backing store.
+     */
+    boolean isBusy() {
+        return inFlight.get() > 0;
+    }
+
+    /**
+     * Returns the cache, for the hit, miss and eviction counts.
+     */
+    ConcurrentObjectCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Removes all the cached objects.
+     */
+    void clear() {
+        cache.clear();
+    }
+}
@@ -68,7 +68,7 @@ public abstract class DeferredAuthorityFactory extends BufferedAuthorityFactory
      * A value of {@code true} means that the task must wait again. A value of {@code false}
      * means that it can dispose the backing store.
      */
-    private boolean used;
+    private volatile boolean used;
 
     /**
      * Constructs an instance without initial backing store. Subclasses are responsible for
@@ -127,18 +127,23 @@ public abstract class DeferredAuthorityFactory extends BufferedAuthorityFactory
      */
     @Override
     protected final AbstractAuthorityFactory getBackingStore() throws FactoryException {
+        AbstractAuthorityFactory backingStore = this.backingStore;
         if (backingStore == null) {
             synchronized (this) {
+                backingStore = this.backingStore;
                 if(backingStore == null) {
                     backingStore = createBackingStore();
                     if (backingStore == null) {
                         throw new FactoryNotFoundException(Errors.format(ErrorKeys.NO_DATA_SOURCE));
                     }
+                    this.backingStore = backingStore;
                     completeHints();
                 }
+                used = true; // Tell to the disposer to wait again.
             }
+        } else {
+            used = true;
         }
-        used = true; // Tell to the disposer to wait again.
         return backingStore;
     }
 
@@ -249,7 +254,9 @@ public abstract class DeferredAuthorityFactory extends BufferedAuthorityFactory
     private final class Disposer extends TimerTask {
         public void run() {
             synchronized (DeferredAuthorityFactory.this) {
-                if (used || !canDisposeBackingStore(backingStore)) {
+                // the create methods are not synchronized, so check that none of them
+                // is still working with the backing store
+                if (used || isBusy() || !canDisposeBackingStore(backingStore)) {
                     used = false;
                     return;
                 }
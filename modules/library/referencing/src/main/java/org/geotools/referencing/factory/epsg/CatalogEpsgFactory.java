@@ -0,0 +1,262 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.referencing.factory.epsg;
+
+import java.text.ParseException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.geotools.factory.Hints;
+import org.geotools.metadata.iso.citation.Citations;
+import org.geotools.referencing.factory.DirectAuthorityFactory;
+import org.geotools.referencing.factory.ReferencingFactoryContainer;
+import org.geotools.referencing.wkt.Parser;
+import org.geotools.referencing.wkt.Symbols;
+import org.geotools.util.SimpleInternationalString;
+import org.opengis.metadata.citation.Citation;
+import org.opengis.metadata.extent.Extent;
+import org.opengis.referencing.FactoryException;
+import org.opengis.referencing.IdentifiedObject;
+import org.opengis.referencing.NoSuchAuthorityCodeException;
+import org.opengis.referencing.ReferenceIdentifier;
+import org.opengis.referencing.ReferenceSystem;
+import org.opengis.referencing.crs.CRSAuthorityFactory;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.util.InternationalString;
+
+/**
+ * The backing store of {@link FactoryUsingCatalog}: creates the coordinate reference systems
+ * by parsing the WKT definitions of an {@link EpsgCatalog}, and gives them the identifiers,
+ * domain of validity and scope stored in the catalog.
+ * <p>
+ * This factory doesn't cache any result, it should be wrapped in a buffered factory. The WKT
+ * parsers are not thread safe, each thread gets its own one so that concurrent requests are
+ * not serialized.
+ *
+ * @since 9.0
+ *
+ * @source $URL$
+ */
+final class CatalogEpsgFactory extends DirectAuthorityFactory implements CRSAuthorityFactory {
+    /**
+     * The catalog providing the definitions.
+     */
+    private final EpsgCatalog catalog;
+
+    /**
+     * The set of all the codes, created when first needed.
+     */
+    private Set<String> codes;
+
+    /**
+     * The codes filtered by type, created when first needed.
+     */
+    private final Map<Class<?>, Set<String>> filteredCodes = new HashMap<Class<?>, Set<String>>();
+
+    /**
+     * The per thread WKT parsers.
+     */
+    private final ThreadLocal<DefinitionParser> parsers = new ThreadLocal<DefinitionParser>() {
+        @Override
+        protected DefinitionParser initialValue() {
+            return new DefinitionParser();
+        }
+    };
+
+    /**
+     * Creates a factory backed by the specified catalog.
+     *
+     * @param factories The underlying factories used for objects creation.
+     * @param catalog   The catalog providing the definitions.
+     */
+    CatalogEpsgFactory(final ReferencingFactoryContainer factories, final EpsgCatalog catalog) {
+        super(factories, MINIMUM_PRIORITY + 10);
+        this.catalog = catalog;
+        // The definitions come from the EPSG database with the axis order it specifies
+        hints.put(Hints.FORCE_LONGITUDE_FIRST_AXIS_ORDER, Boolean.FALSE);
+        hints.put(Hints.FORCE_STANDARD_AXIS_DIRECTIONS,   Boolean.FALSE);
+        hints.put(Hints.FORCE_STANDARD_AXIS_UNITS,        Boolean.FALSE);
+    }
+
+    /**
+     * Returns the EPSG authority.
+     */
+    public Citation getAuthority() {
+        return Citations.EPSG;
+    }
+
+    /**
+     * Returns a description of the catalog and of the database it has been built from.
+     */
+    @Override
+    public String getBackingStoreDescription() throws FactoryException {
+        return catalog.toString();
+    }
+
+    /**
+     * Returns the set of authority codes of the given type. The catalog contains only
+     * coordinate reference systems, the codes for a more specific type are found by
+     * looking at the WKT keyword of each definition.
+     */
+    public synchronized Set<String> getAuthorityCodes(final Class<? extends IdentifiedObject> type)
+            throws FactoryException
+    {
+        if (codes == null) {
+            final Set<String> all = new LinkedHashSet<String>();
+            for (final Integer code : catalog.getCodes()) {
+                all.add(code.toString());
+            }
+            codes = Collections.unmodifiableSet(all);
+        }
+        if (type == null || type.isAssignableFrom(CoordinateReferenceSystem.class)) {
+            return codes;
+        }
+        if (!CoordinateReferenceSystem.class.isAssignableFrom(type)) {
+            return Collections.emptySet();
+        }
+        Set<String> filtered = filteredCodes.get(type);
+        if (filtered == null) {
+            filtered = new LinkedHashSet<String>();
+            for (final String code : codes) {
+                final String wkt = catalog.getWKT(code);
+                final int length = wkt.length();
+                int i = 0;
+                while (i < length && Character.isJavaIdentifierPart(wkt.charAt(i))) i++;
+                final Class<?> candidate = Parser.getClassOf(wkt.substring(0, i));
+                if (candidate != null && type.isAssignableFrom(candidate)) {
+                    filtered.add(code);
+                }
+            }
+            filtered = Collections.unmodifiableSet(filtered);
+            filteredCodes.put(type, filtered);
+        }
+        return filtered;
+    }
+
+    /**
+     * Returns the Well Know Text for the specified code.
+     *
+     * @throws NoSuchAuthorityCodeException if the specified {@code code} was not found.
+     */
+    private String getWKT(final String code) throws NoSuchAuthorityCodeException {
+        return getDefinition(code).getWKT();
+    }
+
+    /**
+     * Returns the definition for the specified code.
+     *
+     * @throws NoSuchAuthorityCodeException if the specified {@code code} was not found.
+     */
+    private EpsgCatalog.Definition getDefinition(final String code)
+            throws NoSuchAuthorityCodeException
+    {
+        ensureNonNull("code", code);
+        final EpsgCatalog.Definition definition = catalog.getDefinition(trimAuthority(code));
+        if (definition == null) {
+            throw noSuchAuthorityCode(CoordinateReferenceSystem.class, code);
+        }
+        return definition;
+    }
+
+    /**
+     * Returns the name of the object corresponding to a code.
+     */
+    public InternationalString getDescriptionText(final String code)
+            throws NoSuchAuthorityCodeException, FactoryException
+    {
+        final String wkt = getWKT(code);
+        int start = wkt.indexOf('"');
+        if (start >= 0) {
+            final int end = wkt.indexOf('"', ++start);
+            if (end >= 0) {
+                return new SimpleInternationalString(wkt.substring(start, end).trim());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the coordinate reference system for the specified code.
+     */
+    @Override
+    public IdentifiedObject createObject(final String code)
+            throws NoSuchAuthorityCodeException, FactoryException
+    {
+        return createCoordinateReferenceSystem(code);
+    }
+
+    /**
+     * Returns the coordinate reference system for the specified code.
+     */
+    @Override
+    public CoordinateReferenceSystem createCoordinateReferenceSystem(final String code)
+            throws NoSuchAuthorityCodeException, FactoryException
+    {
+        final EpsgCatalog.Definition definition = getDefinition(code);
+        final DefinitionParser parser = parsers.get();
+        parser.definition = definition;
+        try {
+            return parser.parseCoordinateReferenceSystem(definition.getWKT());
+        } catch (ParseException exception) {
+            throw new FactoryException(exception);
+        } finally {
+            parser.definition = null;
+        }
+    }
+
+    /**
+     * A WKT parser adding the metadata stored in the catalog to the root object.
+     */
+    private final class DefinitionParser extends Parser {
+        /**
+         * For cross-version compatibility.
+         */
+        private static final long serialVersionUID = 3120370466137233470L;
+
+        /**
+         * The definition being parsed.
+         */
+        EpsgCatalog.Definition definition;
+
+        DefinitionParser() {
+            super(Symbols.DEFAULT, factories);
+        }
+
+        @Override
+        protected Map<String,Object> alterProperties(Map<String,Object> properties) {
+            if (definition != null) {
+                properties = new HashMap<String,Object>(properties);
+                final ReferenceIdentifier[] identifiers = definition.getIdentifiers();
+                if (identifiers.length != 0) {
+                    properties.put(IdentifiedObject.IDENTIFIERS_KEY, identifiers);
+                }
+                final Extent extent = definition.getDomainOfValidity();
+                if (extent != null) {
+                    properties.put(ReferenceSystem.DOMAIN_OF_VALIDITY_KEY, extent);
+                }
+                final InternationalString scope = definition.getScope();
+                if (scope != null) {
+                    properties.put(ReferenceSystem.SCOPE_KEY, scope);
+                }
+            }
+            return super.alterProperties(properties);
+        }
+    }
+}
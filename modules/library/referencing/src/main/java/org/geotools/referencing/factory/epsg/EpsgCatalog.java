@@ -0,0 +1,559 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.referencing.factory.epsg;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.geotools.metadata.iso.citation.Citations;
+import org.geotools.metadata.iso.extent.ExtentImpl;
+import org.geotools.metadata.iso.extent.GeographicBoundingBoxImpl;
+import org.geotools.referencing.CRS;
+import org.geotools.referencing.NamedIdentifier;
+import org.geotools.referencing.factory.gridshift.DataUtilities;
+import org.geotools.util.SimpleInternationalString;
+import org.opengis.metadata.extent.Extent;
+import org.opengis.metadata.extent.GeographicBoundingBox;
+import org.opengis.referencing.ReferenceIdentifier;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.util.InternationalString;
+
+/**
+ * A compact, read only catalog of EPSG coordinate reference system definitions, stored as
+ * <cite>Well Known Text</cite> in a binary file that can be memory mapped. The metadata that
+ * WKT can't carry (identifiers, domain of validity and scope) is stored along with each
+ * definition.
+ * <p>
+ * The catalog is meant to be generated once, at build time, from the full EPSG database, and
+ * then used to answer {@code createCoordinateReferenceSystem} requests without starting a
+ * database. Opening the catalog only reads its header: the definitions are located with a
+ * binary search over the sorted code index and decoded on demand.
+ * <p>
+ * The file layout, all numbers being big endian, is:
+ * <ul>
+ *   <li>the {@code "GTEC"} magic number, and the format version</li>
+ *   <li>the number of definitions, followed by a short description of the source database
+ *       (length as a short, UTF-8 bytes)</li>
+ *   <li>the index, one {@code (code, offset, length)} triplet of integers per definition,
+ *       sorted by code</li>
+ *   <li>the definitions, the offsets in the index being relative to the start of this section.
+ *       Each definition is made of the west, east, south and north bounds of its domain of
+ *       validity as doubles ({@code NaN} if unknown), the domain of validity description,
+ *       the scope, the number of identifiers as a byte followed by the identifiers in
+ *       {@code authority:code} form, all strings being UTF-8 bytes prefixed by their length
+ *       as a short, and finally the UTF-8 encoded WKT up to the end of the definition</li>
+ * </ul>
+ * Instances are immutable and thread safe.
+ *
+ * @since 9.0
+ *
+ * @source $URL$
+ */
+public final class EpsgCatalog {
+    /**
+     * The default catalog file name.
+     */
+    public static final String FILENAME = "epsg.catalog";
+
+    /**
+     * The magic number at the beginning of a catalog file ("GTEC").
+     */
+    static final int MAGIC = 0x47544543;
+
+    /**
+     * The current version of the file format.
+     */
+    static final int VERSION = 2;
+
+    /**
+     * The number of bytes used by each entry in the index.
+     */
+    private static final int ENTRY_SIZE = 12;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * The catalog contents. Only absolute reads are performed on it, so that it can be shared
+     * among threads.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The number of definitions in the catalog.
+     */
+    private final int count;
+
+    /**
+     * The position of the index and of the definitions in the buffer.
+     */
+    private final int indexStart, dataStart;
+
+    /**
+     * The description of the database the catalog has been built from.
+     */
+    private final String description;
+
+    /**
+     * Reads the catalog header from the specified buffer.
+     */
+    EpsgCatalog(final ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < 14 || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an EPSG catalog");
+        }
+        final int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported EPSG catalog version " + version);
+        }
+        count = buffer.getInt(8);
+        final int descriptionLength = buffer.getShort(12) & 0xFFFF;
+        description = decode(14, descriptionLength);
+        indexStart = 14 + descriptionLength;
+        dataStart = indexStart + count * ENTRY_SIZE;
+        if (count < 0 || dataStart > buffer.limit()) {
+            throw new IOException("Truncated EPSG catalog");
+        }
+    }
+
+    /**
+     * Opens the catalog stored in the specified file, memory mapping it.
+     *
+     * @param file The catalog file
+     * @throws IOException if the file can't be read or is not a valid catalog
+     */
+    public static EpsgCatalog open(final File file) throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = raf.getChannel();
+            // the mapping stays valid after the channel is closed
+            return new EpsgCatalog(channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size()));
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Opens the catalog at the specified location. The catalog is memory mapped if the URL
+     * points to a file, and read in memory otherwise (for example, when it's packaged in a jar).
+     *
+     * @param url The catalog location
+     * @throws IOException if the catalog can't be read or is not valid
+     */
+    public static EpsgCatalog open(final URL url) throws IOException {
+        final File file = DataUtilities.urlToFile(url);
+        if (file != null && file.isFile()) {
+            return open(file);
+        }
+        final InputStream in = url.openStream();
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(1024 * 1024);
+            final byte[] chunk = new byte[8192];
+            int read;
+            while ((read = in.read(chunk)) >= 0) {
+                out.write(chunk, 0, read);
+            }
+            return new EpsgCatalog(ByteBuffer.wrap(out.toByteArray()));
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Writes a catalog containing the specified definitions.
+     *
+     * @param definitions The WKT definitions, by EPSG code
+     * @param description A short description of the source database, or {@code null}
+     * @param file The file to be written
+     * @throws IOException if the file can't be written
+     */
+    public static void write(final Map<Integer, String> definitions, final String description,
+            final File file) throws IOException
+    {
+        final Map<Integer, Definition> wrapped = new TreeMap<Integer, Definition>();
+        for (final Map.Entry<Integer, String> entry : definitions.entrySet()) {
+            wrapped.put(entry.getKey(), new Definition(entry.getValue()));
+        }
+        writeDefinitions(wrapped, description, file);
+    }
+
+    /**
+     * Writes a catalog containing the specified definitions and their metadata.
+     *
+     * @param definitions The definitions, by EPSG code
+     * @param description A short description of the source database, or {@code null}
+     * @param file The file to be written
+     * @throws IOException if the file can't be written
+     */
+    public static void writeDefinitions(final Map<Integer, Definition> definitions,
+            final String description, final File file) throws IOException
+    {
+        final SortedMap<Integer, Definition> sorted = new TreeMap<Integer, Definition>(definitions);
+        final byte[][] encoded = new byte[sorted.size()][];
+        int i = 0;
+        for (final Definition definition : sorted.values()) {
+            encoded[i++] = definition.encode();
+        }
+        byte[] descriptionBytes = (description != null ? description : "").getBytes(UTF8);
+        if (descriptionBytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Description is too long");
+        }
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(file)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(encoded.length);
+            out.writeShort(descriptionBytes.length);
+            out.write(descriptionBytes);
+            i = 0;
+            int offset = 0;
+            for (final Integer code : sorted.keySet()) {
+                out.writeInt(code);
+                out.writeInt(offset);
+                out.writeInt(encoded[i].length);
+                offset += encoded[i++].length;
+            }
+            for (final byte[] bytes : encoded) {
+                out.write(bytes);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * The number of definitions in this catalog.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * A short description of the database this catalog has been built from.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Returns the sorted list of the codes in this catalog. The list is a view over the index,
+     * no code is read until requested.
+     */
+    public List<Integer> getCodes() {
+        return new AbstractList<Integer>() {
+            @Override
+            public Integer get(final int index) {
+                if (index < 0 || index >= count) {
+                    throw new IndexOutOfBoundsException(String.valueOf(index));
+                }
+                return buffer.getInt(indexStart + index * ENTRY_SIZE);
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    /**
+     * Returns the Well Known Text for the specified code, or {@code null} if not found.
+     *
+     * @param code The EPSG code, without authority prefix
+     */
+    public String getWKT(final String code) {
+        final int value;
+        try {
+            value = Integer.parseInt(code.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return getWKT(value);
+    }
+
+    /**
+     * Returns the Well Known Text for the specified code, or {@code null} if not found.
+     *
+     * @param code The EPSG code
+     */
+    public String getWKT(final int code) {
+        final Definition definition = getDefinition(code);
+        return (definition != null) ? definition.wkt : null;
+    }
+
+    /**
+     * Returns the definition for the specified code, or {@code null} if not found.
+     *
+     * @param code The EPSG code, without authority prefix
+     */
+    public Definition getDefinition(final String code) {
+        final int value;
+        try {
+            value = Integer.parseInt(code.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return getDefinition(value);
+    }
+
+    /**
+     * Returns the definition for the specified code, or {@code null} if not found.
+     *
+     * @param code The EPSG code
+     */
+    public Definition getDefinition(final int code) {
+        final int position = find(code);
+        if (position < 0) {
+            return null;
+        }
+        final int entry = indexStart + position * ENTRY_SIZE;
+        int start = dataStart + buffer.getInt(entry + 4);
+        final int end = start + buffer.getInt(entry + 8);
+        final double west  = buffer.getDouble(start);
+        final double east  = buffer.getDouble(start + 8);
+        final double south = buffer.getDouble(start + 16);
+        final double north = buffer.getDouble(start + 24);
+        start += 32;
+        final String domain = decodeString(start);
+        start += 2 + (buffer.getShort(start) & 0xFFFF);
+        final String scope = decodeString(start);
+        start += 2 + (buffer.getShort(start) & 0xFFFF);
+        final String[] identifiers = new String[buffer.get(start++) & 0xFF];
+        for (int i = 0; i < identifiers.length; i++) {
+            identifiers[i] = decodeString(start);
+            start += 2 + (buffer.getShort(start) & 0xFFFF);
+        }
+        final double[] bounds = Double.isNaN(west) ? null
+                : new double[] {west, east, south, north};
+        return new Definition(decode(start, end - start), identifiers, domain, bounds, scope);
+    }
+
+    /**
+     * Returns true if the catalog contains a definition for the specified code
+     */
+    public boolean contains(final int code) {
+        return find(code) >= 0;
+    }
+
+    /**
+     * Binary search of the specified code in the index, returns its position or -1
+     */
+    private int find(final int code) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int candidate = buffer.getInt(indexStart + mid * ENTRY_SIZE);
+            if (candidate < code) {
+                low = mid + 1;
+            } else if (candidate > code) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decodes the string prefixed by its length at the specified position, returns
+     * {@code null} for empty strings
+     */
+    private String decodeString(final int position) {
+        final int length = buffer.getShort(position) & 0xFFFF;
+        return (length != 0) ? decode(position + 2, length) : null;
+    }
+
+    /**
+     * Decodes the UTF-8 string at the specified position
+     */
+    private String decode(final int position, final int length) {
+        final byte[] bytes = new byte[length];
+        // work on a duplicate, the buffer position is shared among threads
+        final ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        view.get(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    @Override
+    public String toString() {
+        return "EpsgCatalog[" + count + " definitions, " + description + "]";
+    }
+
+    /**
+     * A coordinate reference system definition: its WKT, and the metadata WKT can't carry.
+     */
+    public static final class Definition {
+        final String wkt;
+
+        final String[] identifiers;
+
+        final String domain;
+
+        final double[] bounds;
+
+        final String scope;
+
+        /**
+         * Creates a definition without metadata.
+         */
+        public Definition(final String wkt) {
+            this(wkt, new String[0], null, null, null);
+        }
+
+        /**
+         * Creates a definition for the specified coordinate reference system, keeping its
+         * identifiers, domain of validity and scope.
+         *
+         * @param crs The coordinate reference system
+         * @param wkt Its WKT formatting
+         */
+        public Definition(final CoordinateReferenceSystem crs, final String wkt) {
+            this.wkt = wkt;
+            final List<String> ids = new ArrayList<String>();
+            for (final ReferenceIdentifier identifier : crs.getIdentifiers()) {
+                String authority = identifier.getCodeSpace();
+                if (authority == null) {
+                    authority = Citations.getIdentifier(identifier.getAuthority());
+                }
+                if (authority != null) {
+                    ids.add(authority + ':' + identifier.getCode());
+                }
+            }
+            this.identifiers = ids.toArray(new String[ids.size()]);
+            final Extent extent = crs.getDomainOfValidity();
+            this.domain = (extent != null && extent.getDescription() != null)
+                    ? extent.getDescription().toString() : null;
+            final GeographicBoundingBox box = CRS.getGeographicBoundingBox(crs);
+            this.bounds = (box != null) ? new double[] {box.getWestBoundLongitude(),
+                    box.getEastBoundLongitude(), box.getSouthBoundLatitude(),
+                    box.getNorthBoundLatitude()} : null;
+            this.scope = (crs.getScope() != null) ? crs.getScope().toString() : null;
+        }
+
+        Definition(final String wkt, final String[] identifiers, final String domain,
+                final double[] bounds, final String scope)
+        {
+            this.wkt = wkt;
+            this.identifiers = identifiers;
+            this.domain = domain;
+            this.bounds = bounds;
+            this.scope = scope;
+        }
+
+        /**
+         * The Well Known Text of the coordinate reference system.
+         */
+        public String getWKT() {
+            return wkt;
+        }
+
+        /**
+         * The identifiers of the coordinate reference system, or an empty array if none
+         * was stored.
+         */
+        public ReferenceIdentifier[] getIdentifiers() {
+            final ReferenceIdentifier[] result = new ReferenceIdentifier[identifiers.length];
+            for (int i = 0; i < identifiers.length; i++) {
+                final String identifier = identifiers[i];
+                final int split = identifier.lastIndexOf(':');
+                result[i] = new NamedIdentifier(Citations.fromName(identifier.substring(0,
+                        split)), identifier.substring(split + 1));
+            }
+            return result;
+        }
+
+        /**
+         * The domain of validity, or {@code null} if unknown.
+         */
+        public Extent getDomainOfValidity() {
+            if (domain == null && bounds == null) {
+                return null;
+            }
+            final ExtentImpl extent = new ExtentImpl();
+            if (domain != null) {
+                extent.setDescription(new SimpleInternationalString(domain));
+            }
+            if (bounds != null) {
+                extent.setGeographicElements(Collections.singleton(new GeographicBoundingBoxImpl(
+                        bounds[0], bounds[1], bounds[2], bounds[3])));
+            }
+            extent.freeze();
+            return extent;
+        }
+
+        /**
+         * The scope, or {@code null} if unknown.
+         */
+        public InternationalString getScope() {
+            return (scope != null) ? new SimpleInternationalString(scope) : null;
+        }
+
+        /**
+         * Encodes this definition in the catalog format.
+         */
+        byte[] encode() throws IOException {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream(wkt.length() + 64);
+            final DataOutputStream out = new DataOutputStream(bytes);
+            for (int i = 0; i < 4; i++) {
+                out.writeDouble(bounds != null ? bounds[i] : Double.NaN);
+            }
+            writeString(out, domain);
+            writeString(out, scope);
+            if (identifiers.length > 0xFF) {
+                throw new IllegalArgumentException("Too many identifiers");
+            }
+            out.writeByte(identifiers.length);
+            for (final String identifier : identifiers) {
+                writeString(out, identifier);
+            }
+            out.write(wkt.trim().getBytes(UTF8));
+            out.close();
+            return bytes.toByteArray();
+        }
+
+        private static void writeString(final DataOutputStream out, final String value)
+                throws IOException
+        {
+            final byte[] bytes = (value != null ? value : "").getBytes(UTF8);
+            if (bytes.length > 0xFFFF) {
+                throw new IllegalArgumentException("String too long: " + value);
+            }
+            out.writeShort(bytes.length);
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.referencing.factory.epsg;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+
+import org.geotools.factory.Hints;
+import org.geotools.metadata.iso.citation.Citations;
+import org.geotools.referencing.factory.AbstractAuthorityFactory;
+import org.geotools.referencing.factory.DeferredAuthorityFactory;
+import org.geotools.referencing.factory.FactoryNotFoundException;
+import org.geotools.referencing.factory.ReferencingFactoryContainer;
+import org.geotools.resources.i18n.ErrorKeys;
+import org.geotools.resources.i18n.Errors;
+import org.geotools.util.logging.Logging;
+import org.opengis.metadata.citation.Citation;
+import org.opengis.referencing.FactoryException;
+import org.opengis.referencing.crs.CRSAuthorityFactory;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+/**
+ * Authority factory for EPSG {@linkplain CoordinateReferenceSystem Coordinate Reference Systems}
+ * backed by a precompiled {@link EpsgCatalog}. The catalog is generated from the full EPSG
+ * database at build time, and is memory mapped at runtime, so that the first
+ * {@code createCoordinateReferenceSystem} call doesn't need to start any database.
+ * <p>
+ * The catalog file, named {@value EpsgCatalog#FILENAME}, is searched in the directory specified
+ * by the {@link Hints#CRS_AUTHORITY_EXTRA_DIRECTORY} hint, then in every
+ * {@code org/geotools/referencing/factory/epsg} directory on the classpath. If no catalog is
+ * found, the factory won't be activated, which is the default: the catalog is opt-in. It is
+ * built from the HSQL database by {@code EpsgCatalogBuilder}, and packaged in the
+ * {@code gt-epsg-hsql} jar only when that module is built with the {@code catalog} profile.
+ * <p>
+ * The catalog keeps the identifiers, domain of validity and scope of each definition, so the
+ * objects created are the ones of the database the catalog has been built from. Definitions
+ * that WKT can't represent, such as datums with several Bursa-Wolf parameter sets, are left
+ * out of the catalog. The priority of this factory is higher than the one of the SQL backed
+ * EPSG factories, codes that are not found in the catalog are looked up in the latter (if
+ * available). Note that the factory registry checks the availability of the HSQL factory,
+ * which starts its database: the startup gain requires a catalog file in the
+ * {@link Hints#CRS_AUTHORITY_EXTRA_DIRECTORY} directory and no {@code gt-epsg-hsql} jar on
+ * the classpath.
+ *
+ * @since 9.0
+ *
+ * @source $URL$
+ */
+public class FactoryUsingCatalog extends DeferredAuthorityFactory implements CRSAuthorityFactory {
+    /**
+     * Default priority for this factory, higher than the one of the SQL backed EPSG factories.
+     */
+    protected static final int DEFAULT_PRIORITY = ThreadedEpsgFactory.PRIORITY + 5;
+
+    /**
+     * The factories to be given to the backing store.
+     */
+    private final ReferencingFactoryContainer factories;
+
+    /**
+     * Directory scanned for the catalog.
+     */
+    private final File directory;
+
+    /**
+     * Constructs an authority factory using the default set of factories.
+     */
+    public FactoryUsingCatalog() {
+        this(null);
+    }
+
+    /**
+     * Constructs an authority factory using a set of factories created from the specified hints.
+     */
+    public FactoryUsingCatalog(final Hints userHints) {
+        this(userHints, DEFAULT_PRIORITY);
+    }
+
+    /**
+     * Constructs an authority factory using the specified hints and priority.
+     */
+    protected FactoryUsingCatalog(final Hints userHints, final int priority) {
+        super(userHints, priority);
+        factories = ReferencingFactoryContainer.instance(userHints);
+        Object hint = null;
+        if (userHints != null) {
+            hint = userHints.get(Hints.CRS_AUTHORITY_EXTRA_DIRECTORY);
+        }
+        if (hint instanceof File) {
+            directory = (File) hint;
+        } else if (hint instanceof String) {
+            directory = new File((String) hint);
+        } else {
+            directory = null;
+        }
+        hints.put(Hints.CRS_AUTHORITY_EXTRA_DIRECTORY, directory);
+        // Releases the mapped catalog after at least 15 minutes of inactivity.
+        setTimeout(15 * 60 * 1000L);
+    }
+
+    /**
+     * Returns the EPSG authority.
+     */
+    @Override
+    public Citation getAuthority() {
+        return Citations.EPSG;
+    }
+
+    /**
+     * Returns the URL to the catalog, or {@code null} if none was found.
+     */
+    protected URL getCatalogURL() {
+        try {
+            if (directory != null) {
+                final File file = new File(directory, EpsgCatalog.FILENAME);
+                if (file.isFile()) {
+                    return file.toURI().toURL();
+                }
+            }
+        } catch (SecurityException exception) {
+            Logging.unexpectedException(LOGGER, exception);
+        } catch (MalformedURLException exception) {
+            Logging.unexpectedException(LOGGER, exception);
+        }
+        return FactoryUsingCatalog.class.getResource(EpsgCatalog.FILENAME);
+    }
+
+    /**
+     * Creates the backing store authority factory.
+     *
+     * @throws FactoryNotFoundException if no catalog has been found.
+     * @throws FactoryException if the catalog can't be read.
+     */
+    protected AbstractAuthorityFactory createBackingStore() throws FactoryException {
+        final URL url = getCatalogURL();
+        if (url == null) {
+            throw new FactoryNotFoundException(Errors.format(
+                    ErrorKeys.FILE_DOES_NOT_EXIST_$1, EpsgCatalog.FILENAME));
+        }
+        try {
+            return new CatalogEpsgFactory(factories, EpsgCatalog.open(url));
+        } catch (IOException exception) {
+            throw new FactoryException(Errors.format(ErrorKeys.CANT_READ_$1, url), exception);
+        }
+    }
+}
@@ -55,6 +55,7 @@ import org.geotools.util.Utilities;
 import org.geotools.util.logging.Logging;
 
 import static java.lang.Math.*;
+import static java.util.Arrays.copyOfRange;
 
 
 /**
@@ -891,59 +892,136 @@ public abstract class MapProjection extends AbstractMathTransform
         return ptDst;
     }
 
+    /**
+     * Transforms in place a list of normalized coordinates, stored as (<var>lambda</var>,
+     * <var>phi</var>) pairs in <strong>radians</strong>, with the same conventions as
+     * {@link #transformNormalized(double, double, Point2D)}. This method is invoked by
+     * {@link #transform(double[], int, double[], int, int)} to project whole arrays of
+     * coordinates at once.
+     * <p>
+     * The default implementation invokes {@link #transformNormalized(double, double, Point2D)}
+     * for each point, reusing the same destination point. The most used projections override
+     * this method with a loop working directly on the array. Subclasses overriding
+     * {@link #transformNormalized(double, double, Point2D)} must override this method as well,
+     * or the two methods would disagree.
+     *
+     * @param ordinates The array of ordinates, updated in place.
+     * @param offset    The offset of the first point in the array.
+     * @param numPts    The number of points to transform.
+     * @throws ProjectionException if a point can't be transformed. This method tries to
+     *         transform every points even if some of them can't be transformed, 
+     *         non-transformable points are set to {@link Double#NaN} and the exception
+     *         thrown is the one of the first failure.
+     *
+     * @since 9.0
+     */
+    protected void transformNormalized(final double[] ordinates, final int offset, final int numPts)
+            throws ProjectionException
+    {
+        final Point2D.Double point = new Point2D.Double();
+        ProjectionException failure = null;
+        for (int i = offset, upper = offset + 2*numPts; i < upper; i += 2) {
+            try {
+                transformNormalized(ordinates[i], ordinates[i+1], point);
+                ordinates[i  ] = point.x;
+                ordinates[i+1] = point.y;
+            } catch (ProjectionException exception) {
+                ordinates[i  ] = Double.NaN;
+                ordinates[i+1] = Double.NaN;
+                if (failure == null) {
+                    failure = exception;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
     /**
      * Transforms a list of coordinate point ordinal values. Ordinates must be
      * (<var>longitude</var>,<var>latitude</var>) pairs in decimal degrees.
+     * <p>
+     * The points are normalized in the destination array, projected in a single
+     * {@link #transformNormalized(double[], int, int)} call, and finally scaled and
+     * translated, without building an intermediate object for each point.
      *
      * @throws ProjectionException if a point can't be transformed. This method tries to transform
      *         every points even if some of them can't be transformed. Non-transformable points will
-     *         have value {@link Double#NaN}. If more than one point can't be transformed, then this
-     *         exception may be about an arbitrary point.
+     *         have value {@link Double#NaN}.
      */
     public final void transform(final double[] srcPts, int srcOff,
                                 final double[] dstPts, int dstOff, int numPts)
             throws ProjectionException
     {
+        if (numPts <= 0) {
+            return;
+        }
         /*
-         * Vérifie s'il faudra parcourir le tableau en sens inverse.
-         * Ce sera le cas si les tableaux source et destination se
-         * chevauchent et que la destination est après la source.
+         * Keeps a copy of the source points for the reciprocal checks, which are
+         * performed only when assertions are enabled.
          */
-        final boolean reverse = (srcPts == dstPts && srcOff < dstOff &&
-                                 srcOff + (2*numPts) > dstOff);
-        if (reverse) {
-            srcOff += 2*numPts;
-            dstOff += 2*numPts;
+        double[] checkPts = null;
+        if (invertible) {
+            assert (checkPts = copyOfRange(srcPts, srcOff, srcOff + 2*numPts)) != null;
         }
-        final Point2D.Double point = new Point2D.Double();
-        ProjectionException firstException = null;
-        while (--numPts >= 0) {
-            try {
-                point.x = srcPts[srcOff++];
-                point.y = srcPts[srcOff++];
-                transform(point, point);
-                dstPts[dstOff++] = point.x;
-                dstPts[dstOff++] = point.y;
-            } catch (ProjectionException exception) {
-                dstPts[dstOff++] = Double.NaN;
-                dstPts[dstOff++] = Double.NaN;
-                if (firstException == null) {
-                    firstException = exception;
-                }
+        /*
+         * System.arraycopy handles the case where the source and destination
+         * arrays overlap, we can then work in place in the destination array.
+         */
+        if (srcPts != dstPts || srcOff != dstOff) {
+            System.arraycopy(srcPts, srcOff, dstPts, dstOff, 2*numPts);
+        }
+        final int upper = dstOff + 2*numPts;
+        boolean verify = verifyCoordinateRanges();
+        for (int i = dstOff; i < upper; i += 2) {
+            final double x = dstPts[i  ];
+            final double y = dstPts[i+1];
+            if (verify && verifyGeographicRanges(this, x, y)) {
+                warningLogged();
+                verify = false;
             }
-            if (reverse) {
-                srcOff -= 4;
-                dstOff -= 4;
+            // See transform(Point2D, Point2D) about the longitude rolling
+            dstPts[i  ] = centralMeridian != 0 ?
+                    rollLongitude(toRadians(x) - centralMeridian) : toRadians(x);
+            dstPts[i+1] = toRadians(y);
+        }
+        ProjectionException failure = null;
+        try {
+            transformNormalized(dstPts, dstOff, numPts);
+        } catch (ProjectionException exception) {
+            failure = exception;
+        }
+        for (int i = dstOff; i < upper; i += 2) {
+            dstPts[i  ] = globalScale*dstPts[i  ] + falseEasting;
+            dstPts[i+1] = globalScale*dstPts[i+1] + falseNorthing;
+        }
+        if (checkPts != null) {
+            for (int i = 0, j = dstOff; i < checkPts.length; i += 2, j += 2) {
+                if (!Double.isNaN(dstPts[j]) && !Double.isNaN(dstPts[j+1])) {
+                    assert checkReciprocal(new Point2D.Double(dstPts[j], dstPts[j+1]),
+                            new Point2D.Double(checkPts[i], checkPts[i+1]), true);
+                }
             }
         }
-        if (firstException != null) {
-            throw firstException;
+        if (failure != null) {
+            throw new ProjectionException(Errors.format(ErrorKeys.CANT_TRANSFORM_VALID_POINTS),
+                    failure);
         }
     }
 
+    /**
+     * Number of points converted to double precision at once by
+     * {@link #transform(float[], int, float[], int, int)}.
+     */
+    private static final int FLOAT_CHUNK = 256;
+
     /**
      * Transforms a list of coordinate point ordinal values. Ordinates must be
      * (<var>longitude</var>,<var>latitude</var>) pairs in decimal degrees.
+     * <p>
+     * The points are converted to double precision and projected in chunks of a bounded size,
+     * so that transforming large arrays does not allocate a copy of the whole array.
      *
      * @throws ProjectionException if a point can't be transformed. This method tries to transform
      *         every points even if some of them can't be transformed. Non-transformable points will
@@ -951,39 +1029,42 @@ public abstract class MapProjection extends AbstractMathTransform
      *         exception may be about an arbitrary point.
      */
     @Override
-    public final void transform(final float[] srcPts, int srcOff,
+    public final void transform(float[] srcPts, int srcOff,
                                 final float[] dstPts, int dstOff, int numPts)
             throws ProjectionException
     {
-        final boolean reverse = (srcPts == dstPts && srcOff < dstOff &&
-                                 srcOff + (2*numPts) > dstOff);
-        if (reverse) {
-            srcOff += 2*numPts;
-            dstOff += 2*numPts;
+        if (numPts <= 0) {
+            return;
         }
-        final Point2D.Double point = new Point2D.Double();
-        ProjectionException firstException = null;
-        while (--numPts >= 0) {
+        if (srcPts == dstPts && srcOff < dstOff && dstOff < srcOff + 2*numPts) {
+            // the chunks written would overwrite source points not read yet
+            srcPts = copyOfRange(srcPts, srcOff, srcOff + 2*numPts);
+            srcOff = 0;
+        }
+        final double[] buffer = new double[2*Math.min(numPts, FLOAT_CHUNK)];
+        ProjectionException failure = null;
+        while (numPts > 0) {
+            final int chunk = Math.min(numPts, FLOAT_CHUNK);
+            final int length = 2*chunk;
+            for (int i = 0; i < length; i++) {
+                buffer[i] = srcPts[srcOff + i];
+            }
             try {
-                point.x = srcPts[srcOff++];
-                point.y = srcPts[srcOff++];
-                transform(point, point);
-                dstPts[dstOff++] = (float) point.x;
-                dstPts[dstOff++] = (float) point.y;
+                transform(buffer, 0, buffer, 0, chunk);
             } catch (ProjectionException exception) {
-                dstPts[dstOff++] = Float.NaN;
-                dstPts[dstOff++] = Float.NaN;
-                if (firstException == null) {
-                    firstException = exception;
+                if (failure == null) {
+                    failure = exception;
                 }
             }
-            if (reverse) {
-                srcOff -= 4;
-                dstOff -= 4;
+            for (int i = 0; i < length; i++) {
+                dstPts[dstOff + i] = (float) buffer[i];
             }
+            srcOff += length;
+            dstOff += length;
+            numPts -= chunk;
         }
-        if (firstException != null) {
-            throw firstException;
+        if (failure != null) {
+            throw failure;
         }
     }
 
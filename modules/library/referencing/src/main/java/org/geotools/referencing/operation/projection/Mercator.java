@@ -154,6 +154,31 @@ public abstract class Mercator extends MapProjection {
         return new Point2D.Double(x,y);
     }
 
+    /**
+     * Transforms in place an array of normalized coordinates (units in radians).
+     */
+    @Override
+    protected void transformNormalized(final double[] ordinates, final int offset, final int numPts)
+            throws ProjectionException
+    {
+        ProjectionException failure = null;
+        for (int i = offset, upper = offset + 2*numPts; i < upper; i += 2) {
+            final double y = ordinates[i+1];
+            if (abs(y) > (PI/2 - EPSILON)) {
+                if (failure == null) {
+                    failure = new ProjectionException(y);
+                }
+                ordinates[i  ] = Double.NaN;
+                ordinates[i+1] = Double.NaN;
+            } else {
+                ordinates[i+1] = -log(tsfn(y, sin(y)));
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
     /**
      * Transforms the specified (<var>x</var>,<var>y</var>) coordinates
      * and stores the result in {@code ptDst}.
@@ -221,6 +246,32 @@ public abstract class Mercator extends MapProjection {
             return new Point2D.Double(x,y);
         }
 
+        /**
+         * Transforms in place an array of normalized coordinates (units in radians)
+         * using equations for a sphere.
+         */
+        @Override
+        protected void transformNormalized(final double[] ordinates, final int offset,
+                final int numPts) throws ProjectionException
+        {
+            ProjectionException failure = null;
+            for (int i = offset, upper = offset + 2*numPts; i < upper; i += 2) {
+                final double y = ordinates[i+1];
+                if (abs(y) > (PI/2 - EPSILON)) {
+                    if (failure == null) {
+                        failure = new ProjectionException(y);
+                    }
+                    ordinates[i  ] = Double.NaN;
+                    ordinates[i+1] = Double.NaN;
+                } else {
+                    ordinates[i+1] = log(tan(PI/4 + 0.5*y));
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
         /**
          * Transforms the specified (<var>x</var>,<var>y</var>) coordinates
          * and stores the result in {@code ptDst} using equations for a sphere.
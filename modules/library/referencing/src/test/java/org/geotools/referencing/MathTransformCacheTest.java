@@ -0,0 +1,125 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.referencing;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.MathTransform;
+
+/**
+ * Tests the {@link MathTransformCache} and its use in {@link CRS#findMathTransform}.
+ *
+ *
+ *
+ * @source $URL$
+ */
+public final class MathTransformCacheTest {
+
+    private CoordinateReferenceSystem mercator;
+
+    private CoordinateReferenceSystem utm;
+
+    @Before
+    public void setUp() throws Exception {
+        mercator = CRS.parseWKT(WKT.MERCATOR_GOOGLE);
+        utm = CRS.parseWKT(WKT.UTM_10N);
+    }
+
+    /**
+     * Returns a distinct instance equal to the specified CRS, the WKT parser would return the
+     * same one.
+     */
+    private static CoordinateReferenceSystem copy(final CoordinateReferenceSystem crs)
+            throws Exception
+    {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final ObjectOutputStream out = new ObjectOutputStream(buffer);
+        out.writeObject(crs);
+        out.close();
+        return (CoordinateReferenceSystem) new ObjectInputStream(
+                new ByteArrayInputStream(buffer.toByteArray())).readObject();
+    }
+
+    @Test
+    public void testFindMathTransform() throws Exception {
+        final MathTransformCache cache = CRS.getMathTransformCache();
+        cache.clear();
+        final long misses = cache.getMissCount();
+        final long hits = cache.getHitCount();
+
+        final MathTransform transform = CRS.findMathTransform(utm, DefaultGeographicCRS.WGS84);
+        assertEquals(misses + 1, cache.getMissCount());
+        assertSame(transform, CRS.findMathTransform(utm, DefaultGeographicCRS.WGS84));
+        assertEquals(hits + 1, cache.getHitCount());
+
+        // an equal but distinct CRS finds the same transform
+        final CoordinateReferenceSystem utm2 = copy(utm);
+        assertNotSame(utm, utm2);
+        assertSame(transform, CRS.findMathTransform(utm2, DefaultGeographicCRS.WGS84));
+        assertEquals(hits + 2, cache.getHitCount());
+
+        // the leniency is part of the key
+        CRS.findMathTransform(utm, DefaultGeographicCRS.WGS84, true);
+        assertEquals(misses + 2, cache.getMissCount());
+
+        // identity transforms
+        assertTrue(CRS.findMathTransform(utm, utm).isIdentity());
+        assertTrue(CRS.findMathTransform(utm, utm2).isIdentity());
+    }
+
+    @Test
+    public void testCache() throws Exception {
+        final MathTransformCache cache = new MathTransformCache(10);
+        final MathTransform transform =
+                CRS.findMathTransform(mercator, DefaultGeographicCRS.WGS84);
+        assertNull(cache.get(mercator, DefaultGeographicCRS.WGS84, false));
+        cache.put(mercator, DefaultGeographicCRS.WGS84, false, transform);
+        assertSame(transform, cache.get(mercator, DefaultGeographicCRS.WGS84, false));
+        assertNull(cache.get(mercator, DefaultGeographicCRS.WGS84, true));
+        assertNull(cache.get(DefaultGeographicCRS.WGS84, mercator, false));
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertNull(cache.get(mercator, DefaultGeographicCRS.WGS84, false));
+    }
+
+    @Test
+    public void testBounded() throws Exception {
+        final MathTransformCache cache = new MathTransformCache(8);
+        final MathTransform transform =
+                CRS.findMathTransform(mercator, DefaultGeographicCRS.WGS84);
+        for (int i = 0; i < 20; i++) {
+            // distinct instances, and distinct by equality thanks to the name
+            final CoordinateReferenceSystem crs = CRS.parseWKT(
+                    WKT.MERCATOR_GOOGLE.replace("Google Mercator", "Mercator " + i));
+            cache.put(crs, DefaultGeographicCRS.WGS84, false, transform);
+            assertTrue(cache.size() <= 8);
+        }
+        assertTrue(cache.getEvictionCount() > 0);
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.referencing.factory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.opengis.metadata.citation.Citation;
+import org.opengis.referencing.FactoryException;
+import org.opengis.referencing.IdentifiedObject;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.util.InternationalString;
+
+import org.geotools.metadata.iso.citation.Citations;
+import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.geotools.referencing.cs.DefaultEllipsoidalCS;
+import org.geotools.referencing.datum.DefaultGeodeticDatum;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link BufferedAuthorityFactory} when used by many threads at the same time.
+ *
+ *
+ *
+ * @source $URL$
+ */
+public final class BufferedAuthorityFactoryTest {
+    /**
+     * The codes requested, all but the first one depend on the first one.
+     */
+    private static final String[] CODES = {"4326", "3857", "32632", "32633", "2154"};
+
+    /**
+     * Many threads asking for the same and different codes, while the backing store serializes
+     * the creations and creates the dependencies through the buffered factory, like
+     * {@link org.geotools.referencing.factory.epsg.DirectEpsgFactory} does.
+     */
+    @Test(timeout = 60000)
+    public void testConcurrentCreation() throws Exception {
+        final CountingFactory backingStore = new CountingFactory();
+        final BufferedAuthorityFactory factory = new BufferedAuthorityFactory(backingStore, 20) {};
+        backingStore.owner = factory;
+
+        final int threads = 16;
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final List<Future<CoordinateReferenceSystem>> results =
+                new ArrayList<Future<CoordinateReferenceSystem>>();
+        try {
+            for (int i = 0; i < threads * 25; i++) {
+                final String code = CODES[i % CODES.length];
+                results.add(executor.submit(new Callable<CoordinateReferenceSystem>() {
+                    public CoordinateReferenceSystem call() throws Exception {
+                        start.await();
+                        return factory.createCoordinateReferenceSystem(code);
+                    }
+                }));
+            }
+            start.countDown();
+            for (int i = 0; i < results.size(); i++) {
+                final String code = CODES[i % CODES.length];
+                final CoordinateReferenceSystem crs = results.get(i).get(30, TimeUnit.SECONDS);
+                assertEquals(code, crs.getName().getCode());
+                if (i >= CODES.length) {
+                    // the dependency might have been created more than once by the nested calls,
+                    // the other codes are created once and always returned from the cache
+                    if (!code.equals(CODES[0])) {
+                        assertSame(results.get(i % CODES.length).get(), crs);
+                    }
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        for (int i = 1; i < CODES.length; i++) {
+            assertEquals(CODES[i], 1, backingStore.count(CODES[i]));
+            assertSame(results.get(i).get(), factory.createCoordinateReferenceSystem(CODES[i]));
+            assertEquals(1, backingStore.count(CODES[i]));
+        }
+        assertTrue(backingStore.count(CODES[0]) >= 1);
+        assertFalse(factory.isBusy());
+    }
+
+    /**
+     * Tests the cache hit, miss and eviction counts.
+     */
+    @Test
+    public void testCacheStatistics() throws Exception {
+        final CountingFactory backingStore = new CountingFactory();
+        final BufferedAuthorityFactory factory = new BufferedAuthorityFactory(backingStore, 20) {};
+        backingStore.owner = factory;
+        assertEquals(0, factory.getCacheHitCount());
+        assertEquals(0, factory.getCacheMissCount());
+
+        factory.createCoordinateReferenceSystem(CODES[0]);
+        assertEquals(0, factory.getCacheHitCount());
+        assertEquals(1, factory.getCacheMissCount());
+        factory.createCoordinateReferenceSystem(CODES[0]);
+        assertEquals(1, factory.getCacheHitCount());
+
+        // the dependency is found in the cache
+        factory.createCoordinateReferenceSystem(CODES[1]);
+        assertEquals(2, factory.getCacheHitCount());
+        assertEquals(2, factory.getCacheMissCount());
+        assertEquals(0, factory.getCacheEvictionCount());
+    }
+
+    /**
+     * A backing store serializing the creations and counting them. Every CRS but the first
+     * code asks the buffered factory for the first one, from inside the backing store monitor.
+     */
+    private static final class CountingFactory extends AbstractAuthorityFactory {
+        final ConcurrentHashMap<String, AtomicInteger> counts =
+                new ConcurrentHashMap<String, AtomicInteger>();
+
+        volatile AbstractAuthorityFactory owner;
+
+        CountingFactory() {
+            super(NORMAL_PRIORITY);
+        }
+
+        int count(final String code) {
+            final AtomicInteger count = counts.get(code);
+            return (count != null) ? count.get() : 0;
+        }
+
+        @Override
+        public synchronized CoordinateReferenceSystem createCoordinateReferenceSystem(
+                final String code) throws FactoryException
+        {
+            AtomicInteger count = counts.get(code);
+            if (count == null) {
+                final AtomicInteger created = new AtomicInteger();
+                count = counts.putIfAbsent(code, created);
+                if (count == null) {
+                    count = created;
+                }
+            }
+            count.incrementAndGet();
+            if (!code.equals(CODES[0])) {
+                assertEquals(CODES[0], owner.createCoordinateReferenceSystem(CODES[0])
+                        .getName().getCode());
+            }
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                throw new FactoryException(e);
+            }
+            return new DefaultGeographicCRS(code, DefaultGeodeticDatum.WGS84,
+                    DefaultEllipsoidalCS.GEODETIC_2D);
+        }
+
+        @Override
+        public Citation getAuthority() {
+            return Citations.EPSG;
+        }
+
+        public Set<String> getAuthorityCodes(Class<? extends IdentifiedObject> type) {
+            return Collections.emptySet();
+        }
+
+        public InternationalString getDescriptionText(String code) {
+            return null;
+        }
+    }
+}
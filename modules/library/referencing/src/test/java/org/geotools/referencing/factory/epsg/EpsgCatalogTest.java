@@ -0,0 +1,192 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.referencing.factory.epsg;
+
+import static org.junit.Assert.*;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.geotools.factory.Hints;
+import org.geotools.metadata.iso.citation.Citations;
+import org.geotools.metadata.iso.extent.ExtentImpl;
+import org.geotools.metadata.iso.extent.GeographicBoundingBoxImpl;
+import org.geotools.referencing.CRS;
+import org.geotools.referencing.NamedIdentifier;
+import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.geotools.util.SimpleInternationalString;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.metadata.extent.GeographicBoundingBox;
+import org.opengis.referencing.IdentifiedObject;
+import org.opengis.referencing.NoSuchAuthorityCodeException;
+import org.opengis.referencing.ReferenceSystem;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.crs.GeographicCRS;
+import org.opengis.referencing.crs.ProjectedCRS;
+import org.opengis.referencing.cs.AxisDirection;
+
+/**
+ * Tests {@link EpsgCatalog} and {@link FactoryUsingCatalog}.
+ *
+ *
+ *
+ * @source $URL$
+ */
+public final class EpsgCatalogTest {
+
+    static final String WGS84 = "GEOGCS[\"WGS 84\", DATUM[\"World Geodetic System 1984\", "
+            + "SPHEROID[\"WGS 84\", 6378137.0, 298.257223563, AUTHORITY[\"EPSG\",\"7030\"]], "
+            + "AUTHORITY[\"EPSG\",\"6326\"]], "
+            + "PRIMEM[\"Greenwich\", 0.0, AUTHORITY[\"EPSG\",\"8901\"]], "
+            + "UNIT[\"degree\", 0.017453292519943295], AXIS[\"Geodetic latitude\", NORTH], "
+            + "AXIS[\"Geodetic longitude\", EAST], AUTHORITY[\"EPSG\",\"4326\"]]";
+
+    static final String UTM32N = "PROJCS[\"WGS 84 / UTM zone 32N\", GEOGCS[\"WGS 84\", "
+            + "DATUM[\"World Geodetic System 1984\", SPHEROID[\"WGS 84\", 6378137.0, 298.257223563]], "
+            + "PRIMEM[\"Greenwich\", 0.0], UNIT[\"degree\", 0.017453292519943295]], "
+            + "PROJECTION[\"Transverse_Mercator\"], PARAMETER[\"central_meridian\", 9.0], "
+            + "PARAMETER[\"latitude_of_origin\", 0.0], PARAMETER[\"scale_factor\", 0.9996], "
+            + "PARAMETER[\"false_easting\", 500000.0], PARAMETER[\"false_northing\", 0.0], "
+            + "UNIT[\"m\", 1.0], AXIS[\"Easting\", EAST], AXIS[\"Northing\", NORTH], "
+            + "AUTHORITY[\"EPSG\",\"32632\"]]";
+
+    private File directory;
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = File.createTempFile("catalog", "test");
+        directory.delete();
+        directory.mkdir();
+        file = new File(directory, EpsgCatalog.FILENAME);
+        Map<Integer, String> definitions = new HashMap<Integer, String>();
+        definitions.put(32632, UTM32N);
+        definitions.put(4326, WGS84);
+        EpsgCatalog.write(definitions, "Test catalog", file);
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+        directory.delete();
+    }
+
+    @Test
+    public void testCatalog() throws Exception {
+        EpsgCatalog catalog = EpsgCatalog.open(file);
+        assertEquals(2, catalog.size());
+        assertEquals("Test catalog", catalog.getDescription());
+        assertEquals(Arrays.asList(4326, 32632), catalog.getCodes());
+        assertEquals(WGS84, catalog.getWKT(4326));
+        assertEquals(UTM32N, catalog.getWKT(" 32632"));
+        assertTrue(catalog.contains(4326));
+        assertFalse(catalog.contains(4327));
+        assertNull(catalog.getWKT(1));
+        assertNull(catalog.getWKT("abc"));
+
+        // the same contents read in memory rather than mapped
+        byte[] bytes = new byte[(int) file.length()];
+        DataInputStream in = new DataInputStream(new FileInputStream(file));
+        try {
+            in.readFully(bytes);
+        } finally {
+            in.close();
+        }
+        EpsgCatalog heap = new EpsgCatalog(ByteBuffer.wrap(bytes));
+        assertEquals(catalog.getCodes(), heap.getCodes());
+        assertEquals(UTM32N, heap.getWKT(32632));
+    }
+
+    @Test
+    public void testMetadata() throws Exception {
+        CoordinateReferenceSystem wgs84 = CRS.parseWKT(WGS84);
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put(IdentifiedObject.NAME_KEY, "WGS 84");
+        properties.put(IdentifiedObject.IDENTIFIERS_KEY, new NamedIdentifier(Citations.EPSG,
+                "4326"));
+        ExtentImpl extent = new ExtentImpl();
+        extent.setDescription(new SimpleInternationalString("World"));
+        extent.setGeographicElements(Collections.singleton(new GeographicBoundingBoxImpl(
+                -180, 180, -90, 90)));
+        properties.put(ReferenceSystem.DOMAIN_OF_VALIDITY_KEY, extent);
+        properties.put(ReferenceSystem.SCOPE_KEY, "Horizontal component of 3D system.");
+        GeographicCRS crs = new DefaultGeographicCRS(properties,
+                ((GeographicCRS) wgs84).getDatum(), ((GeographicCRS) wgs84).getCoordinateSystem());
+
+        Map<Integer, EpsgCatalog.Definition> definitions =
+                new HashMap<Integer, EpsgCatalog.Definition>();
+        definitions.put(4326, new EpsgCatalog.Definition(crs, WGS84));
+        definitions.put(32632, new EpsgCatalog.Definition(UTM32N));
+        EpsgCatalog.writeDefinitions(definitions, "Test catalog", file);
+
+        FactoryUsingCatalog factory = new FactoryUsingCatalog(new Hints(
+                Hints.CRS_AUTHORITY_EXTRA_DIRECTORY, directory));
+        try {
+            CoordinateReferenceSystem decoded = factory.createCoordinateReferenceSystem("4326");
+            assertEquals("EPSG:4326", CRS.toSRS(decoded));
+            assertEquals("World", decoded.getDomainOfValidity().getDescription().toString());
+            GeographicBoundingBox box = CRS.getGeographicBoundingBox(decoded);
+            assertEquals(-180, box.getWestBoundLongitude(), 0d);
+            assertEquals(90, box.getNorthBoundLatitude(), 0d);
+            assertEquals("Horizontal component of 3D system.", decoded.getScope().toString());
+            assertNotNull(CRS.getEnvelope(decoded));
+
+            // no metadata stored
+            assertNull(factory.createCoordinateReferenceSystem("32632").getDomainOfValidity());
+        } finally {
+            factory.dispose();
+        }
+    }
+
+    @Test
+    public void testFactory() throws Exception {
+        FactoryUsingCatalog factory = new FactoryUsingCatalog(new Hints(
+                Hints.CRS_AUTHORITY_EXTRA_DIRECTORY, directory));
+        try {
+            CoordinateReferenceSystem crs = factory.createCoordinateReferenceSystem("EPSG:4326");
+            assertTrue(crs instanceof GeographicCRS);
+            assertEquals(AxisDirection.NORTH,
+                    crs.getCoordinateSystem().getAxis(0).getDirection());
+            assertSame(crs, factory.createCoordinateReferenceSystem("4326"));
+            assertTrue(factory.createCoordinateReferenceSystem("32632") instanceof ProjectedCRS);
+            assertEquals("WGS 84", factory.getDescriptionText("4326").toString());
+
+            Set<String> codes = factory.getAuthorityCodes(CoordinateReferenceSystem.class);
+            assertEquals(2, codes.size());
+            assertEquals(1, factory.getAuthorityCodes(ProjectedCRS.class).size());
+            assertTrue(factory.getAuthorityCodes(ProjectedCRS.class).contains("32632"));
+            try {
+                factory.createCoordinateReferenceSystem("EPSG:4327");
+                fail("4327 is not in the catalog");
+            } catch (NoSuchAuthorityCodeException e) {
+                // fine
+            }
+        } finally {
+            factory.dispose();
+        }
+    }
+}
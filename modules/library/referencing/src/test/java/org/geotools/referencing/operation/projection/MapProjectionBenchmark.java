@@ -0,0 +1,105 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.referencing.operation.projection;
+
+import static org.geotools.referencing.operation.projection.MapProjection.AbstractProvider.SEMI_MAJOR;
+import static org.geotools.referencing.operation.projection.MapProjection.AbstractProvider.SEMI_MINOR;
+
+import java.awt.geom.Point2D;
+
+import org.geotools.referencing.ReferencingFactoryFinder;
+import org.opengis.parameter.ParameterValueGroup;
+import org.opengis.referencing.operation.MathTransformFactory;
+
+/**
+ * Projects a coordinate array with the projections overriding the array based transform,
+ * comparing a single call over the whole array with a loop transforming one point at a time,
+ * on the ellipsoid and on the sphere. Reports the average time per million points.
+ * <p>
+ * Usage: <code>MapProjectionBenchmark [points] [runs]</code>
+ *
+ * @source $URL$
+ */
+public class MapProjectionBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        final int numPts = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        final int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        final double[] geographic = new double[2 * numPts];
+        for (int i = 0; i < numPts; i++) {
+            geographic[2 * i] = -10 + 20.0 * i / numPts;
+            geographic[2 * i + 1] = 20 + (i % 1000) * 0.04;
+        }
+        final double[] projected = new double[geographic.length];
+
+        for (boolean spherical : new boolean[] { false, true }) {
+            System.out.println(spherical ? "Sphere" : "Ellipsoid");
+            run(create("Mercator_1SP", spherical), geographic, projected, runs);
+            run(create("Transverse_Mercator", spherical), geographic, projected, runs);
+            run(create("Lambert_Conformal_Conic_2SP", spherical, "standard_parallel_1", 30.0,
+                    "standard_parallel_2", 60.0), geographic, projected, runs);
+        }
+    }
+
+    static void run(MapProjection mt, double[] geographic, double[] projected, int runs)
+            throws Exception {
+        final int numPts = geographic.length / 2;
+        // warm up
+        bulk(mt, geographic, projected);
+        loop(mt, geographic, projected);
+        long bulk = 0, loop = 0;
+        for (int r = 0; r < runs; r++) {
+            bulk += bulk(mt, geographic, projected);
+            loop += loop(mt, geographic, projected);
+        }
+        final double scale = 1e6 / numPts / runs / 1e6;
+        System.out.println("  " + mt.getClass().getName() + ": array " + Math.round(bulk * scale)
+                + "ms, point by point " + Math.round(loop * scale) + "ms per million points");
+    }
+
+    static long bulk(MapProjection mt, double[] geographic, double[] projected) throws Exception {
+        long start = System.nanoTime();
+        mt.transform(geographic, 0, projected, 0, geographic.length / 2);
+        return System.nanoTime() - start;
+    }
+
+    static long loop(MapProjection mt, double[] geographic, double[] projected) throws Exception {
+        final Point2D point = new Point2D.Double();
+        long start = System.nanoTime();
+        for (int i = 0; i < geographic.length; i += 2) {
+            point.setLocation(geographic[i], geographic[i + 1]);
+            mt.transform(point, point);
+            projected[i] = point.getX();
+            projected[i + 1] = point.getY();
+        }
+        return System.nanoTime() - start;
+    }
+
+    static MapProjection create(String name, boolean spherical, Object... parameterValues)
+            throws Exception {
+        MathTransformFactory mtFactory = ReferencingFactoryFinder.getMathTransformFactory(null);
+        ParameterValueGroup parameters = mtFactory.getDefaultParameters(name);
+        parameters.parameter(SEMI_MAJOR.getName().getCode()).setValue(6378137.0);
+        parameters.parameter(SEMI_MINOR.getName().getCode()).setValue(
+                spherical ? 6378137.0 : 6356752.314245);
+        for (int i = 0; i < parameterValues.length; i += 2) {
+            parameters.parameter((String) parameterValues[i]).setValue(parameterValues[i + 1]);
+        }
+        return (MapProjection) mtFactory.createParameterizedTransform(parameters);
+    }
+}
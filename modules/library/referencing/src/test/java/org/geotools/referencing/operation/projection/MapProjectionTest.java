@@ -19,6 +19,8 @@ package org.geotools.referencing.operation.projection;
 import static org.geotools.referencing.operation.projection.MapProjection.AbstractProvider.SEMI_MAJOR;
 import static org.geotools.referencing.operation.projection.MapProjection.AbstractProvider.SEMI_MINOR;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.awt.geom.Point2D;
 
@@ -26,6 +28,7 @@ import org.geotools.referencing.ReferencingFactoryFinder;
 import org.junit.Test;
 import org.opengis.parameter.ParameterValueGroup;
 import org.opengis.referencing.FactoryException;
+import org.opengis.referencing.operation.MathTransform;
 import org.opengis.referencing.operation.MathTransformFactory;
 import org.opengis.referencing.operation.TransformException;
 
@@ -127,4 +130,180 @@ public final class MapProjectionTest {
     	Point2D target2 = new Point2D.Double(src.getX(), src.getY()+0.000000000001);
     	assertEquals(1.1117412E-7, mt.orthodromicDistance(src, target2), 1E-12);
     }
+
+    /**
+     * Creates the named projection, optionally on a sphere, with the given extra parameters.
+     */
+    private static MapProjection createProjection(final String name, final boolean spherical,
+            final Object... parameterValues) throws FactoryException
+    {
+        MathTransformFactory mtFactory = ReferencingFactoryFinder.getMathTransformFactory(null);
+        final ParameterValueGroup parameters = mtFactory.getDefaultParameters(name);
+        parameters.parameter(SEMI_MAJOR.getName().getCode()).setValue(6378137.0);
+        parameters.parameter(SEMI_MINOR.getName().getCode()).setValue(
+                spherical ? 6378137.0 : 6356752.314245);
+        for (int i=0; i<parameterValues.length; i+=2) {
+            parameters.parameter((String) parameterValues[i]).setValue(parameterValues[i+1]);
+        }
+        return (MapProjection) mtFactory.createParameterizedTransform(parameters);
+    }
+
+    /**
+     * Tests that the array based transform gives the same results than the point based one.
+     */
+    @Test
+    public void testBulkTransform() throws TransformException, FactoryException {
+        final double[] geographic = new double[2 * 11 * 9];
+        int k = 0;
+        for (int i=0; i<11; i++) {
+            for (int j=0; j<9; j++) {
+                geographic[k++] = -8 + 1.5*i + 0.1*j;
+                geographic[k++] =  10 + 8*j + 0.1*i;
+            }
+        }
+        for (boolean spherical : new boolean[] {false, true}) {
+            checkBulkTransform(createProjection("Mercator_1SP", spherical), geographic);
+            checkBulkTransform(createProjection("Transverse_Mercator", spherical), geographic);
+            checkBulkTransform(createProjection("Lambert_Conformal_Conic_2SP", spherical,
+                    "standard_parallel_1", 30.0, "standard_parallel_2", 60.0), geographic);
+            checkBulkTransform(createProjection("Albers_Conic_Equal_Area", spherical,
+                    "standard_parallel_1", 30.0, "standard_parallel_2", 60.0), geographic);
+            checkBulkTransform(createProjection("Polar_Stereographic", spherical), geographic);
+        }
+    }
+
+    private static void checkBulkTransform(final MapProjection mt, final double[] geographic)
+            throws TransformException
+    {
+        final int numPts = geographic.length / 2;
+        final double[] bulk = new double[geographic.length + 2];
+        mt.transform(geographic, 0, bulk, 2, numPts);
+        final float[] floats = new float[geographic.length];
+        for (int i=0; i<floats.length; i++) {
+            floats[i] = (float) geographic[i];
+        }
+        mt.transform(floats, 0, floats, 0, numPts);
+        final Point2D point = new Point2D.Double();
+        for (int i=0; i<numPts; i++) {
+            point.setLocation(geographic[2*i], geographic[2*i+1]);
+            mt.transform(point, point);
+            assertEquals(mt.getName(), point.getX(), bulk[2*i+2], 1E-6);
+            assertEquals(mt.getName(), point.getY(), bulk[2*i+3], 1E-6);
+            assertEquals(mt.getName(), point.getX(), floats[2*i  ], 1);
+            assertEquals(mt.getName(), point.getY(), floats[2*i+1], 1);
+        }
+        final MathTransform inverse = mt.inverse();
+        final double[] back = new double[geographic.length];
+        inverse.transform(bulk, 2, back, 0, numPts);
+        for (int i=0; i<back.length; i++) {
+            assertEquals(mt.getName(), geographic[i], back[i], 1E-6);
+        }
+    }
+
+    /**
+     * Creates the named projection on the ellipsoid of the given semi-major axis and
+     * inverse flattening, with the given extra parameters.
+     */
+    private static MapProjection createProjection(final String name, final double semiMajor,
+            final double inverseFlattening, final Object... parameterValues) throws FactoryException
+    {
+        MathTransformFactory mtFactory = ReferencingFactoryFinder.getMathTransformFactory(null);
+        final ParameterValueGroup parameters = mtFactory.getDefaultParameters(name);
+        parameters.parameter(SEMI_MAJOR.getName().getCode()).setValue(semiMajor);
+        parameters.parameter(SEMI_MINOR.getName().getCode()).setValue(
+                semiMajor * (1 - 1 / inverseFlattening));
+        for (int i=0; i<parameterValues.length; i+=2) {
+            parameters.parameter((String) parameterValues[i]).setValue(parameterValues[i+1]);
+        }
+        return (MapProjection) mtFactory.createParameterizedTransform(parameters);
+    }
+
+    /**
+     * Tests the array based transform of the projections overriding it against the
+     * examples of the EPSG guidance note 7-2.
+     */
+    @Test
+    public void testBulkTransformReferenceValues() throws TransformException, FactoryException {
+        // Makassar / NEIEZ
+        checkReferenceValue(createProjection("Mercator_1SP", 6377397.155, 299.1528128,
+                "central_meridian", 110.0, "scale_factor", 0.997,
+                "false_easting", 3900000.0, "false_northing", 900000.0),
+                120, -3, 5009726.58, 569150.82);
+        // WGS 84 / Pseudo-Mercator
+        checkReferenceValue(createGoogleMercator(),
+                -(100 + 20/60.0), 24 + 22/60.0 + 54.433/3600, -11169055.58, 2800000.00);
+        // OSGB 1936 / British National Grid
+        checkReferenceValue(createProjection("Transverse_Mercator", 6377563.396, 299.3249646,
+                "latitude_of_origin", 49.0, "central_meridian", -2.0,
+                "scale_factor", 0.9996012717,
+                "false_easting", 400000.0, "false_northing", -100000.0),
+                0.5, 50.5, 577274.99, 69740.50);
+        // NAD27 / Texas South Central, with the false easting converted from US feet
+        checkReferenceValue(createProjection("Lambert_Conformal_Conic_2SP", 6378206.4, 294.9786982,
+                "latitude_of_origin", 27 + 50/60.0, "central_meridian", -99.0,
+                "standard_parallel_1", 28 + 23/60.0, "standard_parallel_2", 30 + 17/60.0,
+                "false_easting", 2000000 * 1200 / 3937.0),
+                -96, 28.5, 903277.799, 77650.943);
+    }
+
+    private static void checkReferenceValue(final MapProjection mt, final double longitude,
+            final double latitude, final double easting, final double northing)
+            throws TransformException
+    {
+        // the reference point among others, so that the loop runs past its first iteration
+        final double[] points = {longitude - 1, latitude, longitude, latitude,
+                                 longitude + 1, latitude + 1};
+        mt.transform(points, 0, points, 0, 3);
+        assertEquals(mt.getName(), easting,  points[2], 0.01);
+        assertEquals(mt.getName(), northing, points[3], 0.01);
+        final Point2D point = mt.transform(new Point2D.Double(longitude, latitude), null);
+        assertEquals(mt.getName(), easting,  point.getX(), 0.01);
+        assertEquals(mt.getName(), northing, point.getY(), 0.01);
+    }
+
+    /**
+     * Tests the float transform over more points than converted at once, in place with the
+     * destination shifted over the source.
+     */
+    @Test
+    public void testFloatTransformChunks() throws TransformException, FactoryException {
+        final MapProjection mt = createProjection("Transverse_Mercator", false);
+        final int numPts = 1000;
+        final float[] floats = new float[2*numPts + 2];
+        for (int i=0; i<numPts; i++) {
+            floats[2*i  ] = -3 + 0.006f*i;
+            floats[2*i+1] = 10 + 0.07f*i;
+        }
+        final float[] geographic = floats.clone();
+        mt.transform(floats, 0, floats, 2, numPts);
+        final Point2D point = new Point2D.Double();
+        for (int i=0; i<numPts; i++) {
+            point.setLocation(geographic[2*i], geographic[2*i+1]);
+            mt.transform(point, point);
+            assertEquals(point.getX(), floats[2*i+2], 1);
+            assertEquals(point.getY(), floats[2*i+3], 1);
+        }
+    }
+
+    /**
+     * Tests that a point which can not be projected is set to NaN in a bulk transform,
+     * without preventing the other points to be transformed.
+     */
+    @Test
+    public void testBulkTransformFailure() throws FactoryException {
+        final MapProjection mt = createGoogleMercator();
+        final double[] points = {10, 45, 20, 90, 30, -30};
+        try {
+            mt.transform(points, 0, points, 0, 3);
+            fail("Expected a ProjectionException");
+        } catch (TransformException e) {
+            assertTrue(e instanceof ProjectionException);
+            // the failure of the point at the pole is reported as the cause
+            assertTrue(e.getCause() instanceof ProjectionException);
+        }
+        assertTrue(Double.isNaN(points[2]));
+        assertTrue(Double.isNaN(points[3]));
+        assertEquals(1113194.9079, points[0], 0.001);
+        assertEquals(3339584.7238, points[4], 0.001);
+    }
 }
@@ -156,6 +156,11 @@ public final class LabelCacheImpl implements LabelCache {
 
     private boolean needsOrdering = false;
 
+    /** Max time allowed for label placement, in milliseconds, zero or negative means no limit */
+    private long maxPlacementTime = 0;
+
+    private LabelPlacementStatistics statistics = new LabelPlacementStatistics();
+
     public void enableLayer(String layerId) {
         needsOrdering = true;
         enabledLayers.add(layerId);
@@ -172,6 +177,29 @@ public final class LabelCacheImpl implements LabelCache {
         this.labelRenderingMode = mode;
     }
 
+    /**
+     * Returns the max time allowed for placing labels, in milliseconds
+     */
+    public long getMaxPlacementTime() {
+        return maxPlacementTime;
+    }
+
+    /**
+     * Sets the max time allowed for placing labels, in milliseconds. Labels are placed in
+     * priority order, once the limit is reached the remaining ones are skipped. Zero or a
+     * negative value (the default) means no limit
+     */
+    public void setMaxPlacementTime(long maxPlacementTime) {
+        this.maxPlacementTime = maxPlacementTime;
+    }
+
+    /**
+     * Returns the statistics collected during the last label placement run
+     */
+    public LabelPlacementStatistics getStatistics() {
+        return statistics;
+    }
+
     public void stop() {
         stop = true;
         activeLayers.clear();
@@ -536,7 +564,12 @@ public final class LabelCacheImpl implements LabelCache {
                     + " are layers that started rendering but have not completed,"
                     + " stop() or endLayer() must be called before end() is called");
         }
-        LabelIndex glyphs = new LabelIndex();
+        LabelPlacementStatistics statistics = new LabelPlacementStatistics();
+        this.statistics = statistics;
+        long start = System.nanoTime();
+        long deadline = maxPlacementTime > 0 ? start + maxPlacementTime * 1000000 : 0;
+
+        LabelIndex glyphs = new LabelIndex(displayArea);
         glyphs.reserveArea( reserved );
 
         // Hack: let's reduce the display area width and height by one pixel.
@@ -559,12 +592,32 @@ public final class LabelCacheImpl implements LabelCache {
         } else {
             items = getActiveLabels();
         }
+        statistics.candidates = items.size();
+        try {
+            paintLabels(graphics, displayArea, items, glyphs, deadline);
+        } finally {
+            statistics.placementTime = (System.nanoTime() - start) / 1000000;
+            statistics.skipped = statistics.candidates - statistics.placed
+                    - statistics.rejected;
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine(statistics.toString());
+            }
+        }
+    }
+
+    private void paintLabels(Graphics2D graphics, Rectangle displayArea,
+            List<LabelCacheItem> items, LabelIndex glyphs, long deadline) {
         LabelPainter painter = new LabelPainter(graphics, labelRenderingMode);
         for (LabelCacheItem labelItem : items) {
             if (stop)
                 return;
+            if (deadline > 0 && System.nanoTime() > deadline) {
+                LOGGER.fine("Label placement time limit reached, skipping the remaining labels");
+                return;
+            }
             
             painter.setLabel(labelItem);
+            boolean painted = false;
             try {
                 // LabelCacheItem labelItem = (LabelCacheItem)
                 // labelCache.get(labelIter.next());
@@ -587,19 +640,24 @@ public final class LabelCacheImpl implements LabelCache {
 
                 Geometry geom = labelItem.getGeometry();
                 if ((geom instanceof Point) || (geom instanceof MultiPoint))
-                    paintPointLabel(painter, tempTransform, displayArea, glyphs);
+                    painted = paintPointLabel(painter, tempTransform, displayArea, glyphs);
                 else if (((geom instanceof LineString) && !(geom instanceof LinearRing))
                         || (geom instanceof MultiLineString))
-                    paintLineLabels(painter, tempTransform, displayArea, glyphs);
+                    painted = paintLineLabels(painter, tempTransform, displayArea, glyphs);
                 else if (geom instanceof Polygon || geom instanceof MultiPolygon
                         || geom instanceof LinearRing)
-                    paintPolygonLabel(painter, tempTransform, displayArea, glyphs);
+                    painted = paintPolygonLabel(painter, tempTransform, displayArea, glyphs);
             } catch (Exception e) {
                 System.out.println("Issues painting " + labelItem.getLabel());
                 // the decimation can cause problems - we try to minimize it
                 // do nothing
                 e.printStackTrace();
             }
+            if (painted) {
+                statistics.placed++;
+            } else {
+                statistics.rejected++;
+            }
         }
     }
 
@@ -636,6 +694,12 @@ public final class LabelCacheImpl implements LabelCache {
         }
         if (representativeGeom.getGeometry() instanceof Polygon) {
             Rectangle2D glyphBounds = painter.getFullLabelBounds();
+            // the label is not even close to the polygon, no need to sample
+            Envelope eglyph = toEnvelope(transform.createTransformedShape(glyphBounds)
+                    .getBounds2D());
+            if (!representativeGeom.getGeometry().getEnvelopeInternal().intersects(eglyph)) {
+                return 0.0;
+            }
             try {
                 // do a sampling, how many points sitting on the labels are also
                 // within a certain distance of the polygon?
@@ -670,7 +734,6 @@ public final class LabelCacheImpl implements LabelCache {
                 Geometry g = representativeGeom.getGeometry();
                 g.geometryChanged();
                 Envelope ePoly = g.getEnvelopeInternal();
-                Envelope eglyph = toEnvelope(transform.createTransformedShape(glyphBounds).getBounds2D());
                 Envelope inter = intersection(ePoly, eglyph);
                 if (inter != null) {
                     return (inter.getWidth() * inter.getHeight())
@@ -683,6 +746,19 @@ public final class LabelCacheImpl implements LabelCache {
         return 0.0;
     }
 
+    /**
+     * Checks the label fits the polygon according to the goodness of fit required by the label,
+     * skipping the sampling altogether when any fit is acceptable
+     */
+    private boolean isGoodFit(LabelPainter painter, AffineTransform transform,
+            PreparedGeometry representativeGeom) {
+        double minGoodnessOfFit = painter.getLabel().getGoodnessOfFit();
+        if (minGoodnessOfFit <= 0) {
+            return true;
+        }
+        return goodnessOfFit(painter, transform, representativeGeom) >= minGoodnessOfFit;
+    }
+
     private boolean paintLineLabels(LabelPainter painter, AffineTransform originalTransform,
             Rectangle displayArea, LabelIndex paintedBounds) throws Exception {
         final LabelCacheItem labelItem = painter.getLabel();
@@ -709,7 +785,7 @@ public final class LabelCacheImpl implements LabelCache {
         int labelDistance = labelItem.getRepeat();
         // min distance, if any
         int minDistance = labelItem.getMinGroupDistance();
-        LabelIndex groupLabels = new LabelIndex();
+        LabelIndex groupLabels = new LabelIndex(displayArea);
         // Max displacement for the current label
         double labelOffset = labelItem.getMaxDisplacement();
         boolean allowOverruns = labelItem.allowOverruns();
@@ -1248,7 +1324,7 @@ public final class LabelCacheImpl implements LabelCache {
         if (!displayArea.contains(transformed)
                 || (labelItem.isConflictResolutionEnabled() 
                         && glyphs.labelsWithinDistance(transformed, labelItem.getSpaceAround()))
-                || goodnessOfFit(painter, tempTransform, pg) < painter.getLabel().getGoodnessOfFit()) {
+                || !isGoodFit(painter, tempTransform, pg)) {
             // try the alternate rotation if possible
             if(textStyle.flipRotation(pg.getGeometry())) {
                 tempTransform.setTransform(original);
@@ -1258,7 +1334,7 @@ public final class LabelCacheImpl implements LabelCache {
                 if (!displayArea.contains(transformed)
                         || (labelItem.isConflictResolutionEnabled() 
                                 && glyphs.labelsWithinDistance(transformed, labelItem.getSpaceAround()))
-                        || goodnessOfFit(painter, tempTransform, pg) < painter.getLabel().getGoodnessOfFit()) {
+                        || !isGoodFit(painter, tempTransform, pg)) {
                     textStyle.flipRotation(pg.getGeometry());
                     return false;
                 }
@@ -16,16 +16,19 @@
  */
 package org.geotools.renderer.label;
 
+import java.awt.Rectangle;
 import java.awt.geom.Rectangle2D;
-import java.util.Iterator;
 import java.util.List;
 
-import com.vividsolutions.jts.geom.Envelope;
-import com.vividsolutions.jts.index.quadtree.Quadtree;
-
 /**
  * Stores label items and helps in finding the interferering ones, either by
  * pure overlap or within a certain distance from the specified bounds
+ * <p>
+ * The label bounds are kept in a packed array and, once there are enough of
+ * them, indexed by a uniform grid covering the rendering area. Bounds falling
+ * outside of the area are indexed in the border cells, so the results are
+ * correct for any bounds, but the index is fast only for the area it was
+ * built for.
  * 
  * @author Andrea Aime
  * 
@@ -36,7 +39,75 @@ import com.vividsolutions.jts.index.quadtree.Quadtree;
  */
 public class LabelIndex {
 
-    Quadtree index = new Quadtree();
+    /**
+     * The grid cell size, in pixels
+     */
+    static final int CELL_SIZE = 32;
+
+    /**
+     * The max number of cells in the grid, larger areas will use larger cells
+     */
+    static final int MAX_CELLS = 1 << 16;
+
+    /**
+     * Below this number of labels a linear scan is faster than the grid
+     */
+    static final int GRID_THRESHOLD = 16;
+
+    /**
+     * The area used when none is provided
+     */
+    static final Rectangle DEFAULT_AREA = new Rectangle(0, 0, 1024, 1024);
+
+    final double minX;
+
+    final double minY;
+
+    final double cellSize;
+
+    final int columns;
+
+    final int rows;
+
+    /**
+     * The label bounds, as minx, miny, maxx, maxy quadruplets
+     */
+    double[] bounds = new double[4 * GRID_THRESHOLD];
+
+    int count;
+
+    /**
+     * The ids of the labels intersecting each cell, built lazily
+     */
+    int[][] cells;
+
+    int[] cellCounts;
+
+    /**
+     * Builds an index for a 1024x1024 pixels area
+     */
+    public LabelIndex() {
+        this(DEFAULT_AREA);
+    }
+
+    /**
+     * Builds an index optimized for the specified area, usually the display area
+     * 
+     * @param area
+     */
+    public LabelIndex(Rectangle2D area) {
+        double size = CELL_SIZE;
+        double width = Math.max(area.getWidth(), 1);
+        double height = Math.max(area.getHeight(), 1);
+        while (Math.ceil(width / size) * Math.ceil(height / size) > MAX_CELLS) {
+            size *= 2;
+        }
+        this.minX = area.getMinX();
+        this.minY = area.getMinY();
+        this.cellSize = size;
+        this.columns = (int) Math.ceil(width / size);
+        this.rows = (int) Math.ceil(height / size);
+    }
 
     /**
      * Returns true if there is any label in the index within the specified
@@ -47,20 +118,36 @@ public class LabelIndex {
      * @param distance
      * @return
      */
-    @SuppressWarnings("unchecked")
     public boolean labelsWithinDistance(Rectangle2D bounds, double distance) {
-        if (distance < 0)
+        if (distance < 0 || count == 0)
             return false;
 
-        Envelope e = toEnvelope(bounds);
-        e.expandBy(distance);
-        List<InterferenceItem> results = index.query(e);
-        if (results.size() == 0)
+        double qMinX = bounds.getMinX() - distance;
+        double qMinY = bounds.getMinY() - distance;
+        double qMaxX = bounds.getMaxX() + distance;
+        double qMaxY = bounds.getMaxY() + distance;
+        if (cells == null) {
+            for (int i = 0; i < count; i++) {
+                if (intersects(i, qMinX, qMinY, qMaxX, qMaxY)) {
+                    return true;
+                }
+            }
             return false;
-        for (Iterator<InterferenceItem> it = results.iterator(); it.hasNext();) {
-            InterferenceItem item = it.next();
-            if (item.env.intersects(e)) {
-                return true;
+        }
+
+        int minCol = column(qMinX);
+        int maxCol = column(qMaxX);
+        int minRow = row(qMinY);
+        int maxRow = row(qMaxY);
+        for (int r = minRow; r <= maxRow; r++) {
+            for (int c = minCol; c <= maxCol; c++) {
+                int cell = r * columns + c;
+                int[] ids = cells[cell];
+                for (int i = 0, n = cellCounts[cell]; i < n; i++) {
+                    if (intersects(ids[i], qMinX, qMinY, qMaxX, qMaxY)) {
+                        return true;
+                    }
+                }
             }
         }
         return false;
@@ -73,51 +160,99 @@ public class LabelIndex {
      * @param bounds
      */
     public void addLabel(LabelCacheItem item, Rectangle2D bounds) {
-        Envelope e = toEnvelope(bounds);
-        index.insert(e, new InterferenceItem(e, item));
+        add(bounds);
     }
 
     /**
-     * Turns the specified Java2D rectangle into a JTS envelope
+     * Reserve the area indicated by these Geometry.
      * 
-     * @param bounds
-     * @return
+     * @param reserved
      */
-    private Envelope toEnvelope(Rectangle2D bounds) {
-        return new Envelope(bounds.getMinX(), bounds.getMaxX(), bounds.getMinY(), bounds.getMaxY());
+    public void reserveArea(List<Rectangle2D> reserved) {
+        for (Rectangle2D area : reserved) {
+            add(area);
+        }
     }
 
     /**
-     * Simple structure stored into the quadtree (keeping the item around helps
-     * in debugging)
-     * 
-     * @author Andrea Aime
+     * Returns the number of labels and reserved areas in the index
      * 
+     * @return
      */
-    static class InterferenceItem {
-        Envelope env;
+    public int size() {
+        return count;
+    }
+
+    void add(Rectangle2D area) {
+        if (4 * (count + 1) > bounds.length) {
+            double[] grown = new double[bounds.length * 2];
+            System.arraycopy(bounds, 0, grown, 0, 4 * count);
+            bounds = grown;
+        }
+        int base = 4 * count;
+        bounds[base] = area.getMinX();
+        bounds[base + 1] = area.getMinY();
+        bounds[base + 2] = area.getMaxX();
+        bounds[base + 3] = area.getMaxY();
+        int id = count++;
 
-        LabelCacheItem item;
+        if (cells != null) {
+            insert(id);
+        } else if (count > GRID_THRESHOLD) {
+            cells = new int[columns * rows][];
+            cellCounts = new int[columns * rows];
+            for (int i = 0; i < count; i++) {
+                insert(i);
+            }
+        }
+    }
 
-        public InterferenceItem(Envelope env, LabelCacheItem item) {
-            super();
-            this.env = env;
-            this.item = item;
+    private void insert(int id) {
+        int base = 4 * id;
+        int minCol = column(bounds[base]);
+        int maxCol = column(bounds[base + 2]);
+        int minRow = row(bounds[base + 1]);
+        int maxRow = row(bounds[base + 3]);
+        for (int r = minRow; r <= maxRow; r++) {
+            for (int c = minCol; c <= maxCol; c++) {
+                int cell = r * columns + c;
+                int[] ids = cells[cell];
+                int n = cellCounts[cell];
+                if (ids == null) {
+                    ids = new int[4];
+                    cells[cell] = ids;
+                } else if (n == ids.length) {
+                    int[] grown = new int[n * 2];
+                    System.arraycopy(ids, 0, grown, 0, n);
+                    ids = grown;
+                    cells[cell] = ids;
+                }
+                ids[n] = id;
+                cellCounts[cell] = n + 1;
+            }
         }
+    }
 
+    private boolean intersects(int id, double qMinX, double qMinY, double qMaxX, double qMaxY) {
+        int base = 4 * id;
+        return !(bounds[base] > qMaxX || bounds[base + 2] < qMinX || bounds[base + 1] > qMaxY
+                || bounds[base + 3] < qMinY);
     }
 
-    /**
-     * Reserve the area indicated by these Geometry.
-     * 
-     * @param reserved
-     */
-    public void reserveArea(List<Rectangle2D> reserved) {
-        for( Rectangle2D area : reserved ){
-            Envelope env = toEnvelope(area);
-            
-            InterferenceItem item = new InterferenceItem(env,null);            
-            index.insert( env, item );
+    private int column(double x) {
+        return clamp((int) Math.floor((x - minX) / cellSize), columns);
+    }
+
+    private int row(double y) {
+        return clamp((int) Math.floor((y - minY) / cellSize), rows);
+    }
+
+    private static int clamp(int value, int size) {
+        if (value < 0) {
+            return 0;
+        } else if (value >= size) {
+            return size - 1;
         }
+        return value;
     }
 }
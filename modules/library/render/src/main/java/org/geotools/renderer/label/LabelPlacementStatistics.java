@@ -0,0 +1,80 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.renderer.label;
+
+/**
+ * Collects a few figures about a single label placement run of the {@link LabelCacheImpl}
+ *
+ * @source $URL$
+ */
+public class LabelPlacementStatistics {
+
+    int candidates;
+
+    int placed;
+
+    int rejected;
+
+    int skipped;
+
+    long placementTime;
+
+    /**
+     * The number of labels that were candidates for placement
+     */
+    public int getCandidates() {
+        return candidates;
+    }
+
+    /**
+     * The number of labels that got painted
+     */
+    public int getPlaced() {
+        return placed;
+    }
+
+    /**
+     * The number of labels that could not be placed, because of conflicts with other labels,
+     * lack of space or errors
+     */
+    public int getRejected() {
+        return rejected;
+    }
+
+    /**
+     * The number of labels that were not even tried because the rendering was stopped or the
+     * placement time limit was reached
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * The time spent placing and painting labels, in milliseconds
+     */
+    public long getPlacementTime() {
+        return placementTime;
+    }
+
+    @Override
+    public String toString() {
+        return "LabelPlacementStatistics [candidates=" + candidates + ", placed=" + placed
+                + ", rejected=" + rejected + ", skipped=" + skipped + ", placementTime="
+                + placementTime + "ms]";
+    }
+
+}
@@ -45,6 +45,9 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -348,6 +351,36 @@ public class StreamingRenderer implements GTRenderer {
      */
     public static final String OPTIMIZE_FTS_RENDERING_KEY = "optimizeFTSRendering";
 
+    /**
+     * Boolean flag enabling the parallel preparation of the layers (disabled by default).
+     * <p>When enabled each layer is read, transformed, generalized and styled in a separate
+     * task. The resulting paint and label requests are still painted and added to the
+     * label cache one layer at a time, in layer order, so the output is the same as the
+     * one of the sequential rendering.</p>
+     * <p>The layer preparations run on the pool provided with
+     * {@link #setThreadPool(ExecutorService)}, so the number of threads does not grow with the
+     * number of concurrent paint calls. Each call submits the layers at most as many layers
+     * ahead of the one being painted as the core size of the pool, or as the available
+     * processors if the pool is not a {@link ThreadPoolExecutor}. The calling thread prepares
+     * itself the first layer not painted yet if no pool thread started it, so the rendering
+     * completes even when the pool threads are all busy. Without a pool all the layers are
+     * prepared by the calling thread. Each layer preparation blocks once it has a large enough
+     * set of requests waiting to be painted, so the memory used does not grow with the number
+     * of layers.</p>
+     * <p>The {@link RenderListener} callbacks are invoked by the threads preparing the
+     * layers, so they can arrive concurrently and must be thread safe.</p>
+     */
+    public static final String PARALLEL_LAYER_RENDERING_KEY = "parallelLayerRendering";
+
+    /**
+     * Boolean flag enabling the tile rendering mode of the {@link GridCoverageRenderer}
+     * (disabled by default): only the destination tiles in the map area are computed, and the
+     * coverage is reprojected straight at the map resolution. The tiles are computed on the
+     * pool provided with {@link #setThreadPool(ExecutorService)}, if any, and by the painter.
+     * See {@link GridCoverageRenderer#setTileRendering(boolean)}
+     */
+    public static final String RASTER_TILE_RENDERING_KEY = "rasterTileRendering";
+
 
     /**
      * Enables advanced reprojection handling. Geometries will be sliced to fit into the
@@ -410,6 +443,17 @@ public class StreamingRenderer implements GTRenderer {
 
     private PainterThread painterThread;
 
+    /**
+     * The renderers preparing the layers when parallel layer rendering is enabled
+     */
+    private final List<StreamingRenderer> layerRenderers = new CopyOnWriteArrayList<StreamingRenderer>();
+
+    /**
+     * When true text symbolizers are turned into label requests queued along with the paint
+     * requests, instead of being added to the label cache directly
+     */
+    private boolean deferredLabels = false;
+
     /**
      * Creates a new instance of LiteRenderer without a context. Use it only to
      * gain access to utility methods of this class or if you want to render
@@ -526,6 +570,14 @@ public class StreamingRenderer implements GTRenderer {
             		"request in the requests queue, this should never happen", e);
         }
 
+        // stop the layers being prepared in parallel, if any, and wake up the paint thread
+        // if it is waiting for one of them
+        for (StreamingRenderer layerRenderer : layerRenderers) {
+            layerRenderer.renderingStopRequested = true;
+            layerRenderer.requests.clear();
+            layerRenderer.requests.offer(new EndRequest());
+        }
+
         labelCache.stop();
     }
 
@@ -648,6 +700,94 @@ public class StreamingRenderer implements GTRenderer {
                 worldToScreen);
     }
 
+    /**
+     * Renders a meta tile, that is, a block of adjacent tiles, in a single pass and splits it
+     * into the tiles composing it. <p/> Compared to rendering each tile on its own the data is
+     * queried, reprojected and decimated only once for the whole block, and labelling happens
+     * in a single label cache run, so labels crossing the tile edges are placed consistently in
+     * all the tiles sharing them.
+     * <p>
+     * The meta tile image is provided by the caller, so that the image type and background can
+     * be chosen freely, and it is expected to be <code>columns * tileWidth + 2 * gutter</code>
+     * pixels wide and <code>rows * tileHeight + 2 * gutter</code> pixels high. The gutter is an
+     * extra band of pixels painted around the tiles and then discarded, it can be used to
+     * avoid symbols and labels being truncated at the meta tile edges.
+     * 
+     * @param metaTile
+     *            The image the meta tile will be rendered onto
+     * @param mapArea
+     *            The area covered by the tiles in map coordinates (gutter excluded)
+     * @param tileWidth
+     *            The width of a single tile, in pixels
+     * @param tileHeight
+     *            The height of a single tile, in pixels
+     * @param gutter
+     *            The size of the band of pixels rendered around the tiles and then discarded
+     * @return The tiles, as a <code>[row][column]</code> array, with row zero being the top one
+     */
+    public BufferedImage[][] paintMetaTile(BufferedImage metaTile, ReferencedEnvelope mapArea,
+            int tileWidth, int tileHeight, int gutter) {
+        if (metaTile == null || mapArea == null) {
+            throw new NullPointerException("Meta tile rendering requires an image and a map area");
+        }
+        if (tileWidth <= 0 || tileHeight <= 0 || gutter < 0) {
+            throw new IllegalArgumentException("Invalid tile size " + tileWidth + "x"
+                    + tileHeight + " or gutter " + gutter);
+        }
+        int tilesWidth = metaTile.getWidth() - 2 * gutter;
+        int tilesHeight = metaTile.getHeight() - 2 * gutter;
+        if (tilesWidth <= 0 || tilesHeight <= 0 || tilesWidth % tileWidth != 0
+                || tilesHeight % tileHeight != 0) {
+            throw new IllegalArgumentException("The meta tile image size "
+                    + metaTile.getWidth() + "x" + metaTile.getHeight()
+                    + " is not a multiple of the tile size " + tileWidth + "x" + tileHeight
+                    + " plus a gutter of " + gutter + " pixels");
+        }
+        int columns = tilesWidth / tileWidth;
+        int rows = tilesHeight / tileHeight;
+
+        // expand the map area to cover the gutter too, keeping the same resolution
+        ReferencedEnvelope paintedArea = mapArea;
+        if (gutter > 0) {
+            double dx = mapArea.getWidth() / tilesWidth * gutter;
+            double dy = mapArea.getHeight() / tilesHeight * gutter;
+            paintedArea = new ReferencedEnvelope(mapArea.getMinX() - dx, mapArea.getMaxX() + dx,
+                    mapArea.getMinY() - dy, mapArea.getMaxY() + dy,
+                    mapArea.getCoordinateReferenceSystem());
+        }
+
+        Graphics2D graphics = metaTile.createGraphics();
+        try {
+            paint(graphics, new Rectangle(metaTile.getWidth(), metaTile.getHeight()),
+                    paintedArea);
+        } finally {
+            graphics.dispose();
+        }
+
+        return splitMetaTile(metaTile, tileWidth, tileHeight, rows, columns, gutter);
+    }
+
+    /**
+     * Splits the meta tile into its tiles. Each tile gets its own raster so that the meta tile
+     * image can be garbage collected as soon as the tiles are encoded
+     */
+    static BufferedImage[][] splitMetaTile(BufferedImage metaTile, int tileWidth,
+            int tileHeight, int rows, int columns, int gutter) {
+        BufferedImage[][] tiles = new BufferedImage[rows][columns];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                BufferedImage source = metaTile.getSubimage(gutter + col * tileWidth, gutter
+                        + row * tileHeight, tileWidth, tileHeight);
+                BufferedImage tile = new BufferedImage(metaTile.getColorModel(), source
+                        .getRaster().createCompatibleWritableRaster(tileWidth, tileHeight),
+                        metaTile.isAlphaPremultiplied(), null);
+                source.copyData(tile.getRaster());
+                tiles[row][col] = tile;
+            }
+        }
+        return tiles;
+    }
+
     private double computeScale(ReferencedEnvelope envelope, Rectangle paintArea, 
             AffineTransform worldToScreen, Map hints) {
         if(getScaleComputationMethod().equals(SCALE_ACCURATE)) {
@@ -796,44 +936,48 @@ public class StreamingRenderer implements GTRenderer {
             if(labelCache instanceof LabelCacheImpl) {
                 ((LabelCacheImpl) labelCache).setLabelRenderingMode(LabelRenderingMode.valueOf(getTextRenderingMethod()));
             }
-            final int layersNumber = mapContent.layers().size();
-            for (int i = 0; i < layersNumber; i++) // DJB: for each layer (ie. one
-            {
-                Layer layer = mapContent.layers().get(i);
+            if (isParallelLayerRenderingEnabled()) {
+                paintLayersInParallel(graphics);
+            } else {
+                final int layersNumber = mapContent.layers().size();
+                for (int i = 0; i < layersNumber; i++) // DJB: for each layer (ie. one
+                {
+                    Layer layer = mapContent.layers().get(i);
     
-                if (!layer.isVisible()) {
-                    // Only render layer when layer is visible
-                    continue;
-                }
+                    if (!layer.isVisible()) {
+                        // Only render layer when layer is visible
+                        continue;
+                    }
     
-                if (renderingStopRequested) {
-                    return;
-                }
-                labelCache.startLayer(i+"");
-                
-                if (layer instanceof DirectLayer) {
-                    RenderingRequest request = new RenderDirectLayerRequest(
-                            graphics, (DirectLayer) layer);
-                    try {
-                        requests.put(request);
-                    } catch (InterruptedException e) {
-                        fireErrorEvent(e);
+                    if (renderingStopRequested) {
+                        return;
                     }
+                    labelCache.startLayer(i+"");
+                
+                    if (layer instanceof DirectLayer) {
+                        RenderingRequest request = new RenderDirectLayerRequest(
+                                graphics, (DirectLayer) layer);
+                        try {
+                            requests.put(request);
+                        } catch (InterruptedException e) {
+                            fireErrorEvent(e);
+                        }
                     
-                } else {
-                    MapLayer currLayer = new MapLayer(layer);
-                    try {
-
-                        // extract the feature type stylers from the style object
-                        // and process them
-                        processStylers(graphics, currLayer, worldToScreenTransform,
-                                destinationCrs, mapExtent, screenSize, i + "");
-                    } catch (Throwable t) {
-                        fireErrorEvent(t);
+                    } else {
+                        MapLayer currLayer = new MapLayer(layer);
+                        try {
+
+                            // extract the feature type stylers from the style object
+                            // and process them
+                            processStylers(graphics, currLayer, worldToScreenTransform,
+                                    destinationCrs, mapExtent, screenSize, i + "");
+                        } catch (Throwable t) {
+                            fireErrorEvent(t);
+                        }
                     }
-                }
     
-                labelCache.endLayer(i+"", graphics, screenSize);
+                    labelCache.endLayer(i+"", graphics, screenSize);
+                }
             }
         } finally {
             try {
@@ -871,6 +1015,165 @@ public class StreamingRenderer implements GTRenderer {
         
     }
 
+    /**
+     * Prepares the layers in parallel on the thread pool, and forwards their paint and label
+     * requests to the painter and the label cache one layer at a time, in layer order.
+     */
+    private void paintLayersInParallel(Graphics2D graphics) {
+        final List<Layer> layers = mapContent.layers();
+        final int layersNumber = layers.size();
+        final List<LayerPreparation> preparations = new ArrayList<LayerPreparation>(
+                layersNumber);
+        for (int i = 0; i < layersNumber; i++) {
+            Layer layer = layers.get(i);
+            if (!layer.isVisible() || layer instanceof DirectLayer) {
+                preparations.add(null);
+                continue;
+            }
+            StreamingRenderer layerRenderer = createLayerRenderer();
+            layerRenderers.add(layerRenderer);
+            preparations.add(layerRenderer.new LayerPreparation(graphics, new MapLayer(layer),
+                    i + ""));
+        }
+
+        final int window = getLayerPreparationThreads();
+        int submitted = 0;
+        boolean completed = false;
+        try {
+            for (int i = 0; i < layersNumber; i++) {
+                submitted = submitLayerPreparations(preparations, submitted, i + window);
+                Layer layer = layers.get(i);
+                if (!layer.isVisible()) {
+                    continue;
+                }
+                if (renderingStopRequested) {
+                    return;
+                }
+                labelCache.startLayer(i + "");
+
+                if (layer instanceof DirectLayer) {
+                    requests.put(new RenderDirectLayerRequest(graphics, (DirectLayer) layer));
+                } else {
+                    LayerPreparation preparation = preparations.get(i);
+                    if (preparation.claim()) {
+                        // no pool thread started it, the previous layers are all painted:
+                        // prepare it here, as the sequential rendering does
+                        try {
+                            processStylers(graphics, preparation.layer, worldToScreenTransform,
+                                    destinationCrs, mapExtent, screenSize, i + "");
+                        } catch (Throwable t) {
+                            fireErrorEvent(t);
+                        }
+                    } else {
+                        BlockingQueue<RenderingRequest> layerQueue = preparation.getRequests();
+                        while (true) {
+                            RenderingRequest request = layerQueue.take();
+                            if (request instanceof EndRequest || renderingStopRequested) {
+                                break;
+                            } else if (request instanceof PutLabelRequest) {
+                                // labels are added from this thread, as in sequential rendering
+                                request.execute();
+                            } else {
+                                requests.put(request);
+                            }
+                        }
+                    }
+                }
+
+                labelCache.endLayer(i + "", graphics, screenSize);
+            }
+            completed = true;
+        } catch (InterruptedException e) {
+            fireErrorEvent(e);
+        } finally {
+            if (!completed) {
+                // make sure no layer preparation is left blocked on its queue, and that
+                // the ones not started yet do nothing
+                for (LayerPreparation preparation : preparations) {
+                    if (preparation != null) {
+                        preparation.cancel();
+                    }
+                }
+            }
+            layerRenderers.clear();
+        }
+    }
+
+    /**
+     * Submits to the thread pool the layer preparations from {@code from} up to {@code to}
+     * excluded, returning the index of the first one not submitted. Layers that the pool
+     * rejects are left to the calling thread.
+     */
+    private int submitLayerPreparations(List<LayerPreparation> preparations, int from, int to) {
+        to = Math.min(to, preparations.size());
+        if (threadPool == null) {
+            return to;
+        }
+        for (int i = from; i < to; i++) {
+            LayerPreparation preparation = preparations.get(i);
+            if (preparation != null) {
+                try {
+                    threadPool.execute(preparation);
+                } catch (RejectedExecutionException e) {
+                    LOGGER.log(Level.FINE, "Layer " + i + " will be prepared by the paint thread",
+                            e);
+                }
+            }
+        }
+        return Math.max(from, to);
+    }
+
+    /**
+     * Returns the number of layers prepared ahead of the one being painted, see
+     * {@link #PARALLEL_LAYER_RENDERING_KEY}
+     */
+    private int getLayerPreparationThreads() {
+        int threads;
+        if (threadPool instanceof ThreadPoolExecutor) {
+            // the core threads are the ones surely created, the maximum ones are only
+            // created once the pool queue is full, which may never happen
+            threads = ((ThreadPoolExecutor) threadPool).getCorePoolSize();
+        } else {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        return Math.max(1, threads);
+    }
+
+    /**
+     * Builds a renderer that prepares a single layer, sharing the configuration and the
+     * current rendering state of this one. The renderer has its own request queue and
+     * style factory, paints with this renderer painter and queues its labels.
+     */
+    private StreamingRenderer createLayerRenderer() {
+        StreamingRenderer renderer = new StreamingRenderer();
+        renderer.setRendererHints(rendererHints);
+        renderer.setJava2DHints(java2dHints);
+        renderer.setGeneralizationDistance(generalizationDistance);
+        renderer.interactive = interactive;
+        renderer.concatTransforms = concatTransforms;
+        renderer.mapContent = mapContent;
+        renderer.renderListeners = renderListeners;
+        renderer.labelCache = labelCache;
+        renderer.painter = painter;
+        // only used to compute the raster tiles, the layer renderer paint() is never called
+        renderer.threadPool = threadPool;
+        renderer.deferredLabels = true;
+
+        renderer.destinationCrs = destinationCrs;
+        renderer.mapExtent = mapExtent;
+        renderer.originalMapExtent = originalMapExtent;
+        renderer.screenSize = screenSize;
+        renderer.worldToScreenTransform = worldToScreenTransform;
+        renderer.scaleDenominator = scaleDenominator;
+        if (projectionHandler != null) {
+            // the handler keeps the rendering envelope, each layer gets its own
+            renderer.projectionHandler = ProjectionHandlerFinder.getHandler(mapExtent,
+                    isMapWrappingEnabled());
+        }
+        renderer.requests = renderer.getRequestsQueue();
+        return renderer;
+    }
+
     /**
      * Builds the blocking queue used to bridge between the data loading thread and
      * the painting one
@@ -1390,6 +1693,16 @@ public class StreamingRenderer implements GTRenderer {
         return Boolean.TRUE.equals(result);
     }
 
+    /**
+     * Checks if the layers should be prepared in parallel. See
+     * {@link #PARALLEL_LAYER_RENDERING_KEY} description for a full explanation.
+     */
+    private boolean isParallelLayerRenderingEnabled() {
+        if (rendererHints == null)
+            return false;
+        return Boolean.TRUE.equals(rendererHints.get(PARALLEL_LAYER_RENDERING_KEY));
+    }
+
     /**
      * Checks if the advanced projection handling is enabled
      * @return
@@ -1403,6 +1716,19 @@ public class StreamingRenderer implements GTRenderer {
         return Boolean.TRUE.equals(result);
     }
     
+    /**
+     * Checks if the tile rendering mode of the rasters is enabled
+     * @return
+     */
+    private boolean isRasterTileRenderingEnabled() {
+        if (rendererHints == null)
+            return false;
+        Object result = rendererHints.get(RASTER_TILE_RENDERING_KEY);
+        if (result == null)
+            return false;
+        return Boolean.TRUE.equals(result);
+    }
+    
     /**
      * Checks if continuous map wrapping is enabled
      * @return
@@ -2753,8 +3079,13 @@ public class StreamingRenderer implements GTRenderer {
                 }
                 
                 if (symbolizer instanceof TextSymbolizer && drawMe.content instanceof Feature) {
-                    labelCache.put(layerId, (TextSymbolizer) symbolizer, (Feature) drawMe.content,
-                            shape, scaleRange);
+                    if (deferredLabels) {
+                        requests.put(new PutLabelRequest(layerId, (TextSymbolizer) symbolizer,
+                                (Feature) drawMe.content, shape, scaleRange));
+                    } else {
+                        labelCache.put(layerId, (TextSymbolizer) symbolizer,
+                                (Feature) drawMe.content, shape, scaleRange);
+                    }
                 } else {
                     Style2D style = styleFactory.createStyle(drawMe.content,
                             symbolizer, scaleRange);
@@ -3482,6 +3813,8 @@ public class StreamingRenderer implements GTRenderer {
                 // /////////////////////////////////////////////////////////////////
                 final GridCoverageRenderer gcr = new GridCoverageRenderer(destinationCRS,
                         originalMapExtent, screenSize, worldToScreen, java2dHints);
+                gcr.setTileRendering(isRasterTileRenderingEnabled());
+                gcr.setThreadPool(threadPool);
 
                 try {
                     gcr.paint(graphics, coverage, symbolizer);
@@ -3546,6 +3879,98 @@ public class StreamingRenderer implements GTRenderer {
         
     }
     
+    /**
+     * A request to add a label to the label cache. Used when the layers are prepared in
+     * parallel, it is executed by the thread collecting the layers, never by the painter.
+     */
+    class PutLabelRequest extends RenderingRequest {
+        private final String layerId;
+        private final TextSymbolizer symbolizer;
+        private final Feature feature;
+        private final LiteShape2 shape;
+        private final NumberRange scaleRange;
+
+        public PutLabelRequest(String layerId, TextSymbolizer symbolizer, Feature feature,
+                LiteShape2 shape, NumberRange scaleRange) {
+            this.layerId = layerId;
+            this.symbolizer = symbolizer;
+            this.feature = feature;
+            this.shape = shape;
+            this.scaleRange = scaleRange;
+        }
+
+        @Override
+        void execute() {
+            try {
+                labelCache.put(layerId, symbolizer, feature, shape, scaleRange);
+            } catch (Throwable t) {
+                fireErrorEvent(t);
+            }
+        }
+    }
+
+    /**
+     * Reads and styles a single layer, queueing the paint and label requests. Used
+     * when the layers are prepared in parallel. The preparation runs once, either in
+     * a pool thread or, when it {@link #claim() claims} it first, in the paint thread.
+     */
+    class LayerPreparation implements Runnable {
+        private final Graphics2D graphics;
+        private final MapLayer layer;
+        private final String layerId;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        public LayerPreparation(Graphics2D graphics, MapLayer layer, String layerId) {
+            this.graphics = graphics;
+            this.layer = layer;
+            this.layerId = layerId;
+        }
+
+        /**
+         * Returns true if the preparation was not started yet, and marks it as started
+         */
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        /**
+         * The queue the requests of this layer are put into
+         */
+        BlockingQueue<RenderingRequest> getRequests() {
+            return requests;
+        }
+
+        /**
+         * Stops the preparation, or prevents it from starting, and wakes up the thread
+         * waiting for its requests
+         */
+        void cancel() {
+            claim();
+            renderingStopRequested = true;
+            requests.clear();
+            requests.offer(new EndRequest());
+        }
+
+        public void run() {
+            if (!claim()) {
+                // cancelled, or prepared by the paint thread
+                return;
+            }
+            try {
+                processStylers(graphics, layer, worldToScreenTransform, destinationCrs,
+                        mapExtent, screenSize, layerId);
+            } catch (Throwable t) {
+                fireErrorEvent(t);
+            } finally {
+                try {
+                    requests.put(new EndRequest());
+                } catch (InterruptedException e) {
+                    // the rendering has been stopped, nobody is waiting for this layer
+                }
+            }
+        }
+    }
+
     /**
      * Marks the end of the request flow, instructs the painting thread to exit
      * @author Andrea Aime - OpenGeo
@@ -26,11 +26,20 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.NoninvertibleTransformException;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
 import java.awt.image.ImagingOpException;
 import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
+import java.awt.image.WritableRaster;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -40,6 +49,7 @@ import javax.media.jai.ImageLayout;
 import javax.media.jai.Interpolation;
 import javax.media.jai.InterpolationNearest;
 import javax.media.jai.JAI;
+import javax.media.jai.PlanarImage;
 
 import org.geotools.coverage.CoverageFactoryFinder;
 import org.geotools.coverage.GridSampleDimension;
@@ -61,6 +71,7 @@ import org.geotools.referencing.CRS;
 import org.geotools.referencing.crs.DefaultGeographicCRS;
 import org.geotools.referencing.operation.builder.GridToEnvelopeMapper;
 import org.geotools.referencing.operation.matrix.XAffineTransform;
+import org.geotools.referencing.operation.transform.AffineTransform2D;
 import org.geotools.resources.i18n.ErrorKeys;
 import org.geotools.resources.i18n.Errors;
 import org.geotools.styling.RasterSymbolizer;
@@ -197,6 +208,15 @@ public final class GridCoverageRenderer {
 
     private final Hints hints = new Hints();
 
+    /** The size of the destination tiles computed in tile rendering mode */
+    static final int TILE_SIZE = 256;
+
+    /** When true only the destination tiles in the rendering area are computed */
+    private boolean tileRendering;
+
+    /** The optional thread pool used to compute the destination tiles */
+    private ExecutorService threadPool;
+
     // FORMULAE FOR FORWARD MAP are derived as follows
     //     Nearest
     //        Minimum:
@@ -370,6 +390,37 @@ public final class GridCoverageRenderer {
         this.hints.put(Hints.COVERAGE_PROCESSING_VIEW, ViewType.SAME);
     }
 
+    /**
+     * Enables or disables the tile rendering mode, disabled by default.
+     * <p>
+     * In tile rendering mode the coverage is reprojected straight into the destination grid,
+     * instead of being reprojected at its native resolution and then scaled, and
+     * {@link #paint(Graphics2D, GridCoverage2D, RasterSymbolizer)} computes only the
+     * destination tiles intersecting the rendering area, in parallel if a thread pool has been
+     * provided. The source tiles are read on demand, and the operations of the chain cache
+     * their tiles in the {@link JAI#KEY_TILE_CACHE} of the hints, or in the default JAI tile
+     * cache if not set.
+     */
+    public void setTileRendering(boolean tileRendering) {
+        this.tileRendering = tileRendering;
+    }
+
+    /**
+     * Returns true if the tile rendering mode is enabled
+     */
+    public boolean isTileRendering() {
+        return tileRendering;
+    }
+
+    /**
+     * Sets the thread pool used to compute the destination tiles in tile rendering mode. When
+     * not set, the tiles are computed by the calling thread. The calling thread also computes
+     * the tiles the pool did not start yet, so the pool can be the one running the caller.
+     */
+    public void setThreadPool(ExecutorService threadPool) {
+        this.threadPool = threadPool;
+    }
+
     /**
      * Reprojecting the input coverage using the provided parameters.
      * 
@@ -381,7 +432,8 @@ public final class GridCoverageRenderer {
      */
     private static GridCoverage2D resample(final GridCoverage2D gc,
             CoordinateReferenceSystem crs, final Interpolation interpolation,
-            final GeneralEnvelope destinationEnvelope, final Hints hints) throws FactoryException {
+            final GeneralEnvelope destinationEnvelope, final GridGeometry2D gridGeometry,
+            final Hints hints) throws FactoryException {
         // paranoiac check
         assert CRS.equalsIgnoreMetadata(destinationEnvelope
                 .getCoordinateReferenceSystem(), crs)
@@ -396,10 +448,43 @@ public final class GridCoverageRenderer {
         param.parameter("source").setValue(gc);
         param.parameter("CoordinateReferenceSystem").setValue(crs);
         param.parameter("InterpolationType").setValue(interpolation);
+        if (gridGeometry != null) {
+            param.parameter("GridGeometry").setValue(gridGeometry);
+        }
         return (GridCoverage2D) resampleFactory.doOperation(param, hints);
 
     }
 
+    /**
+     * Returns the grid geometry of the destination pixels covered by the specified source
+     * envelope, or null if it cannot be computed and the coverage should be reprojected at its
+     * native resolution instead
+     */
+    private GridGeometry2D getDestinationGridGeometry(GeneralEnvelope sourceEnvelope,
+            MathTransform sourceCRSToDestinationCRSTransformation) {
+        // rotated views are handled by the final affine transformation
+        if (XAffineTransform.getRotation(finalWorldToGrid) != 0.0) {
+            return null;
+        }
+        try {
+            final GeneralEnvelope envelope = CRS.transform(
+                    sourceCRSToDestinationCRSTransformation, sourceEnvelope);
+            final Rectangle2D world = new Rectangle2D.Double(envelope.getMinimum(0),
+                    envelope.getMinimum(1), envelope.getSpan(0), envelope.getSpan(1));
+            final Rectangle pixels = XAffineTransform.transform(finalWorldToGrid, world, null)
+                    .getBounds().intersection(destinationSize);
+            if (pixels.isEmpty()) {
+                return null;
+            }
+            return new GridGeometry2D(new GridEnvelope2D(pixels), PixelInCell.CELL_CORNER,
+                    new AffineTransform2D(finalGridToWorld), destinationCRS, null);
+        } catch (TransformException e) {
+            if (LOGGER.isLoggable(Level.FINE))
+                LOGGER.log(Level.FINE, "Unable to compute the destination grid geometry", e);
+            return null;
+        }
+    }
+
     /**
      * Cropping the provided coverage to the requested geographic area.
      * 
@@ -659,7 +744,12 @@ public final class GridCoverageRenderer {
         // /////////////////////////////////////////////////////////////////////
         GridCoverage2D preSymbolizer;
         if (doReprojection) {
-            preSymbolizer = resample(preResample, destinationCRS,interpolation == null ? new InterpolationNearest(): interpolation, destinationEnvelope,localHints);
+            // in tile rendering mode reproject straight into the destination grid, so that only
+            // the visible pixels are computed, at the destination resolution
+            final GridGeometry2D destinationGG = tileRendering ? getDestinationGridGeometry(
+                    (GeneralEnvelope) preResample.getEnvelope(),
+                    sourceCRSToDestinationCRSTransformation) : null;
+            preSymbolizer = resample(preResample, destinationCRS,interpolation == null ? new InterpolationNearest(): interpolation, destinationEnvelope,destinationGG,localHints);
             if (LOGGER.isLoggable(Level.FINE))
                 LOGGER.fine("Reprojecting to crs "+ destinationCRS.toWKT());
         } else
@@ -877,12 +967,24 @@ public final class GridCoverageRenderer {
         
         
         // Build the final image and the transformation
-        GCpair couple = prepareFinalImage(gridCoverage, symbolizer);
-        if (couple == null)
-            return;
-
-        RenderedImage finalImage = couple.getGridCoverage().getRenderedImage();
-        AffineTransform clonedFinalWorldToGrid = couple.getTransform();
+        RenderedImage finalImage;
+        AffineTransform clonedFinalWorldToGrid;
+        if (tileRendering) {
+            // the image is already in the destination raster space
+            finalImage = renderImage(gridCoverage, symbolizer, getInterpolation(), null,
+                    TILE_SIZE, TILE_SIZE);
+            if (finalImage == null) {
+                graphics.setRenderingHints(oldHints);
+                return;
+            }
+            clonedFinalWorldToGrid = new AffineTransform();
+        } else {
+            GCpair couple = prepareFinalImage(gridCoverage, symbolizer);
+            if (couple == null)
+                return;
+            finalImage = couple.getGridCoverage().getRenderedImage();
+            clonedFinalWorldToGrid = couple.getTransform();
+        }
 
         try {
             //debug
@@ -898,8 +1000,16 @@ public final class GridCoverageRenderer {
             // //
             // Drawing the Image
             // //
-            graphics.drawRenderedImage(finalImage, clonedFinalWorldToGrid);
+            if (tileRendering && finalImage.getColorModel() != null) {
+                drawTiles(graphics, finalImage);
+            } else {
+                graphics.drawRenderedImage(finalImage, clonedFinalWorldToGrid);
+            }
             
+        } catch (TileComputationException e) {
+            // no Java2D workaround for these, let the caller report them
+            graphics.setRenderingHints(oldHints);
+            throw e;
         } catch (Throwable t) {
             try {
                 //log the error
@@ -984,6 +1094,139 @@ public final class GridCoverageRenderer {
 
 
 
+    /**
+     * Returns the interpolation matching the hints, nearest neighbor if not set
+     */
+    private Interpolation getInterpolation() {
+        final Object interpolation = hints.get(JAI.KEY_INTERPOLATION);
+        if (interpolation instanceof Interpolation) {
+            return (Interpolation) interpolation;
+        }
+        final Object java2d = hints.get(RenderingHints.KEY_INTERPOLATION);
+        if (RenderingHints.VALUE_INTERPOLATION_BILINEAR.equals(java2d)) {
+            return Interpolation.getInstance(Interpolation.INTERP_BILINEAR);
+        } else if (RenderingHints.VALUE_INTERPOLATION_BICUBIC.equals(java2d)) {
+            return Interpolation.getInstance(Interpolation.INTERP_BICUBIC);
+        }
+        return Interpolation.getInstance(Interpolation.INTERP_NEAREST);
+    }
+
+    /**
+     * Computes the tiles of the image intersecting the destination area, in parallel if a
+     * thread pool is available, and draws them. The image must be in the destination raster
+     * space.
+     * 
+     * @throws TileComputationException if the computation of a tile failed or was interrupted,
+     *         in which case the remaining tiles are cancelled
+     */
+    private void drawTiles(final Graphics2D graphics, final RenderedImage image) {
+        final Rectangle area = destinationSize.intersection(new Rectangle(image.getMinX(),
+                image.getMinY(), image.getWidth(), image.getHeight()));
+        if (area.isEmpty()) {
+            return;
+        }
+
+        final List<Callable<Raster>> tasks = new ArrayList<Callable<Raster>>();
+        final int minTileX = PlanarImage.XToTileX(area.x, image.getTileGridXOffset(),
+                image.getTileWidth());
+        final int maxTileX = PlanarImage.XToTileX(area.x + area.width - 1,
+                image.getTileGridXOffset(), image.getTileWidth());
+        final int minTileY = PlanarImage.YToTileY(area.y, image.getTileGridYOffset(),
+                image.getTileHeight());
+        final int maxTileY = PlanarImage.YToTileY(area.y + area.height - 1,
+                image.getTileGridYOffset(), image.getTileHeight());
+        for (int ty = minTileY; ty <= maxTileY; ty++) {
+            for (int tx = minTileX; tx <= maxTileX; tx++) {
+                final int tileX = tx, tileY = ty;
+                tasks.add(new Callable<Raster>() {
+                    public Raster call() throws Exception {
+                        return image.getTile(tileX, tileY);
+                    }
+                });
+            }
+        }
+
+        // Graphics2D is not thread safe, the tiles are computed in parallel but drawn here
+        final ColorModel cm = image.getColorModel();
+        if (threadPool == null || tasks.size() < 2) {
+            for (Callable<Raster> task : tasks) {
+                try {
+                    drawTile(graphics, cm, task.call(), area);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        } else {
+            final List<FutureTask<Raster>> futures = new ArrayList<FutureTask<Raster>>(
+                    tasks.size());
+            for (Callable<Raster> task : tasks) {
+                final FutureTask<Raster> future = new FutureTask<Raster>(task);
+                futures.add(future);
+                threadPool.execute(future);
+            }
+            boolean completed = false;
+            try {
+                for (FutureTask<Raster> future : futures) {
+                    // computes the tile here if no pool thread picked it up yet, does nothing
+                    // otherwise, so that a busy pool cannot stall the drawing
+                    future.run();
+                    drawTile(graphics, cm, future.get(), area);
+                }
+                completed = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TileComputationException("Interrupted while computing the tiles", e);
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new TileComputationException(cause.getLocalizedMessage(), cause);
+            } finally {
+                if (!completed) {
+                    for (FutureTask<Raster> future : futures) {
+                        future.cancel(true);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Thrown when the destination tiles could not be computed, it is not handled by the
+     * Java2D workarounds of {@link GridCoverageRenderer#paint}
+     */
+    static final class TileComputationException extends RuntimeException {
+        private static final long serialVersionUID = -2815640276540296431L;
+
+        TileComputationException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * Draws the portion of the tile inside the destination area
+     */
+    private static void drawTile(Graphics2D graphics, ColorModel cm, Raster tile, Rectangle area) {
+        final Rectangle bounds = tile.getBounds().intersection(area);
+        if (bounds.isEmpty()) {
+            return;
+        }
+        final WritableRaster raster;
+        if (tile instanceof WritableRaster) {
+            raster = ((WritableRaster) tile).createWritableChild(bounds.x, bounds.y,
+                    bounds.width, bounds.height, 0, 0, null);
+        } else {
+            raster = tile.createCompatibleWritableRaster(bounds.width, bounds.height);
+            raster.setRect(-bounds.x, -bounds.y, tile);
+        }
+        final BufferedImage image = new BufferedImage(cm, raster, cm.isAlphaPremultiplied(),
+                null);
+        graphics.drawImage(image, bounds.x, bounds.y, null);
+    }
+
     private static Rectangle2D layoutHelper(RenderedImage source,
                                         float scaleX,
                                         float scaleY,
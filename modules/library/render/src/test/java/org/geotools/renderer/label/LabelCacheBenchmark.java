@@ -0,0 +1,115 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.renderer.label;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
+import org.geotools.geometry.jts.LiteShape2;
+import org.geotools.styling.StyleBuilder;
+import org.geotools.styling.TextSymbolizer;
+import org.geotools.util.NumberRange;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+/**
+ * Places a large number of synthetic point and line labels on a single image and reports the
+ * label cache statistics, useful to evaluate changes in the label placement code.
+ * <p>
+ * Usage: <code>LabelCacheBenchmark [points] [lines] [imageSize]</code>
+ *
+ * @source $URL$
+ */
+public class LabelCacheBenchmark {
+
+    static final NumberRange<Double> SCALE_RANGE = NumberRange.create(0d, Double.MAX_VALUE);
+
+    public static void main(String[] args) throws Exception {
+        int points = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        int lines = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 2048;
+
+        for (int i = 0; i < 5; i++) {
+            System.out.println("Points: " + run(points, 0, size));
+            System.out.println("Lines: " + run(0, lines, size));
+            System.out.println("Mixed: " + run(points, lines, size));
+        }
+    }
+
+    static LabelPlacementStatistics run(int points, int lines, int size) throws Exception {
+        SimpleFeatureTypeBuilder tb = new SimpleFeatureTypeBuilder();
+        tb.setName("labels");
+        tb.add("geom", Geometry.class);
+        tb.add("name", String.class);
+        SimpleFeatureType type = tb.buildFeatureType();
+
+        StyleBuilder sb = new StyleBuilder();
+        TextSymbolizer pointSymbolizer = sb.createTextSymbolizer(Color.BLACK, sb.createFont(
+                "Serif", 10), "name");
+        TextSymbolizer lineSymbolizer = sb.createTextSymbolizer(Color.BLACK, sb.createFont(
+                "Serif", 10), "name");
+        lineSymbolizer.setLabelPlacement(sb.createLinePlacement(0));
+
+        LabelCacheImpl cache = new LabelCacheImpl();
+        cache.start();
+        cache.startLayer("labels");
+        GeometryFactory gf = new GeometryFactory();
+        Random random = new Random(0);
+        for (int i = 0; i < points; i++) {
+            Geometry point = gf.createPoint(new Coordinate(random.nextDouble() * size, random
+                    .nextDouble()
+                    * size));
+            put(cache, type, pointSymbolizer, point, i);
+        }
+        for (int i = 0; i < lines; i++) {
+            Coordinate[] coordinates = new Coordinate[5];
+            double x = random.nextDouble() * size;
+            double y = random.nextDouble() * size;
+            for (int j = 0; j < coordinates.length; j++) {
+                coordinates[j] = new Coordinate(x, y);
+                x += random.nextDouble() * 60;
+                y += random.nextDouble() * 40 - 20;
+            }
+            put(cache, type, lineSymbolizer, gf.createLineString(coordinates), i);
+        }
+
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_4BYTE_ABGR);
+        Graphics2D graphics = image.createGraphics();
+        Rectangle area = new Rectangle(size, size);
+        cache.endLayer("labels", graphics, area);
+        cache.end(graphics, area);
+        graphics.dispose();
+        return cache.getStatistics();
+    }
+
+    static void put(LabelCacheImpl cache, SimpleFeatureType type, TextSymbolizer symbolizer,
+            Geometry geometry, int i) throws Exception {
+        SimpleFeature feature = SimpleFeatureBuilder.build(type, new Object[] { geometry,
+                "label " + i }, null);
+        cache.put("labels", symbolizer, feature, new LiteShape2(geometry, null, null, false),
+                SCALE_RANGE);
+    }
+}
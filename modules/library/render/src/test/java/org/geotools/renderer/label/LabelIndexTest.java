@@ -0,0 +1,116 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.renderer.label;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * 
+ *
+ * @source $URL$
+ */
+public class LabelIndexTest {
+
+    @Test
+    public void testOverlap() {
+        LabelIndex index = new LabelIndex(new Rectangle(0, 0, 256, 256));
+        index.addLabel(null, new Rectangle2D.Double(10, 10, 50, 10));
+
+        assertTrue(index.labelsWithinDistance(new Rectangle2D.Double(20, 15, 5, 5), 0));
+        assertFalse(index.labelsWithinDistance(new Rectangle2D.Double(70, 10, 10, 10), 0));
+        assertTrue(index.labelsWithinDistance(new Rectangle2D.Double(70, 10, 10, 10), 10));
+        // negative distances disable the check
+        assertFalse(index.labelsWithinDistance(new Rectangle2D.Double(20, 15, 5, 5), -1));
+    }
+
+    @Test
+    public void testReservedArea() {
+        LabelIndex index = new LabelIndex(new Rectangle(0, 0, 256, 256));
+        List<Rectangle2D> reserved = new ArrayList<Rectangle2D>();
+        reserved.add(new Rectangle2D.Double(100, 100, 20, 20));
+        index.reserveArea(reserved);
+
+        assertEquals(1, index.size());
+        assertTrue(index.labelsWithinDistance(new Rectangle2D.Double(110, 110, 30, 5), 0));
+        assertFalse(index.labelsWithinDistance(new Rectangle2D.Double(0, 0, 30, 5), 0));
+    }
+
+    @Test
+    public void testEmptyReservedArea() {
+        LabelIndex index = new LabelIndex();
+        index.reserveArea(Collections.<Rectangle2D> emptyList());
+        assertFalse(index.labelsWithinDistance(new Rectangle2D.Double(0, 0, 30, 5), 100));
+    }
+
+    @Test
+    public void testCompareBruteForce() {
+        // the index covers just part of the area, labels outside of it must be found too
+        LabelIndex index = new LabelIndex(new Rectangle(0, 0, 500, 400));
+        List<Rectangle2D> labels = new ArrayList<Rectangle2D>();
+        Random random = new Random(0);
+        for (int i = 0; i < 2000; i++) {
+            Rectangle2D label = randomRectangle(random);
+            if (i % 10 == 0 || bruteForce(labels, label, 2) == false) {
+                index.addLabel(null, label);
+                labels.add(label);
+            }
+        }
+        assertEquals(labels.size(), index.size());
+
+        for (int i = 0; i < 2000; i++) {
+            Rectangle2D query = randomRectangle(random);
+            double distance = random.nextInt(20) - 2;
+            assertEquals(query.toString(), bruteForce(labels, query, distance), index
+                    .labelsWithinDistance(query, distance));
+        }
+    }
+
+    Rectangle2D randomRectangle(Random random) {
+        double x = random.nextDouble() * 700 - 100;
+        double y = random.nextDouble() * 600 - 100;
+        return new Rectangle2D.Double(x, y, 5 + random.nextDouble() * 80,
+                5 + random.nextDouble() * 15);
+    }
+
+    boolean bruteForce(List<Rectangle2D> labels, Rectangle2D query, double distance) {
+        if (distance < 0) {
+            return false;
+        }
+        Rectangle2D expanded = new Rectangle2D.Double(query.getMinX() - distance, query.getMinY()
+                - distance, query.getWidth() + 2 * distance, query.getHeight() + 2 * distance);
+        for (Rectangle2D label : labels) {
+            if (label.getMinX() <= expanded.getMaxX() && label.getMaxX() >= expanded.getMinX()
+                    && label.getMinY() <= expanded.getMaxY()
+                    && label.getMaxY() >= expanded.getMinY()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.renderer.lite;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.geotools.coverage.grid.GridCoverage2D;
+import org.geotools.gce.geotiff.GeoTiffReader;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.renderer.lite.gridcoverage2d.GridCoverageRenderer;
+import org.geotools.styling.RasterSymbolizer;
+import org.geotools.styling.StyleBuilder;
+import org.opengis.geometry.Envelope;
+
+/**
+ * Renders random map tiles out of a large GeoTIFF, comparing the classic rendering of the
+ * {@link GridCoverageRenderer} with its tile rendering mode, sequential and parallel, and
+ * reports the average latency per map tile.
+ * <p>
+ * Usage: <code>GridCoverageRendererBenchmark geotiff [tiles] [tileSize] [zoom] [threads]</code>,
+ * where zoom is the number of source pixels per map tile pixel
+ *
+ * @source $URL$
+ */
+public class GridCoverageRendererBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: GridCoverageRendererBenchmark geotiff "
+                    + "[tiles] [tileSize] [zoom] [threads]");
+            System.exit(1);
+        }
+        final File file = new File(args[0]);
+        final int tiles = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        final int tileSize = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+        final double zoom = args.length > 3 ? Double.parseDouble(args[3]) : 1;
+        final int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime()
+                .availableProcessors();
+
+        final GeoTiffReader reader = new GeoTiffReader(file);
+        final GridCoverage2D coverage = reader.read(null);
+        final RasterSymbolizer symbolizer = new StyleBuilder().createRasterSymbolizer();
+        final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 5; round++) {
+                report("Classic", run(coverage, symbolizer, tiles, tileSize, zoom, false, null),
+                        tiles);
+                report("Tiled", run(coverage, symbolizer, tiles, tileSize, zoom, true, null),
+                        tiles);
+                report("Tiled, " + threads + " threads",
+                        run(coverage, symbolizer, tiles, tileSize, zoom, true, pool), tiles);
+            }
+        } finally {
+            pool.shutdown();
+            coverage.dispose(true);
+            reader.dispose();
+        }
+    }
+
+    static long run(GridCoverage2D coverage, RasterSymbolizer symbolizer, int tiles,
+            int tileSize, double zoom, boolean tileRendering, ExecutorService pool)
+            throws Exception {
+        final Envelope bounds = coverage.getEnvelope2D();
+        final Rectangle screen = new Rectangle(0, 0, tileSize, tileSize);
+        final double resX = bounds.getSpan(0) / coverage.getGridGeometry().getGridRange2D().width;
+        final double resY = bounds.getSpan(1)
+                / coverage.getGridGeometry().getGridRange2D().height;
+        final double spanX = Math.min(resX * tileSize * zoom, bounds.getSpan(0));
+        final double spanY = Math.min(resY * tileSize * zoom, bounds.getSpan(1));
+
+        // same tiles for all the runs
+        final Random random = new Random(0);
+        final long start = System.nanoTime();
+        for (int i = 0; i < tiles; i++) {
+            final double x = bounds.getMinimum(0) + random.nextDouble()
+                    * (bounds.getSpan(0) - spanX);
+            final double y = bounds.getMinimum(1) + random.nextDouble()
+                    * (bounds.getSpan(1) - spanY);
+            final ReferencedEnvelope envelope = new ReferencedEnvelope(x, x + spanX, y,
+                    y + spanY, coverage.getCoordinateReferenceSystem2D());
+
+            final GridCoverageRenderer renderer = new GridCoverageRenderer(
+                    envelope.getCoordinateReferenceSystem(), envelope, screen, null);
+            renderer.setTileRendering(tileRendering);
+            renderer.setThreadPool(pool);
+            final BufferedImage image = new BufferedImage(tileSize, tileSize,
+                    BufferedImage.TYPE_4BYTE_ABGR);
+            final Graphics2D graphics = image.createGraphics();
+            try {
+                renderer.paint(graphics, coverage, symbolizer);
+            } finally {
+                graphics.dispose();
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    static void report(String name, long nanos, int tiles) {
+        System.out.println(name + ": " + nanos / 1000000 + "ms, " + nanos / 1000 / tiles
+                + "us per tile");
+    }
+}
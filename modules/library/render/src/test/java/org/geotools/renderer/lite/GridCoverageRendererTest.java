@@ -17,6 +17,7 @@
 package org.geotools.renderer.lite;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.awt.Graphics2D;
@@ -28,6 +29,8 @@ import java.io.File;
 import java.io.IOException;
 import java.text.ParseException;
 import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.imageio.ImageIO;
 
@@ -43,6 +46,7 @@ import org.geotools.referencing.crs.DefaultGeographicCRS;
 import org.geotools.referencing.crs.DefaultProjectedCRS;
 import org.geotools.referencing.cs.DefaultCartesianCS;
 import org.geotools.referencing.operation.DefaultMathTransformFactory;
+import org.geotools.renderer.lite.gridcoverage2d.GridCoverageRenderer;
 import org.geotools.styling.RasterSymbolizer;
 import org.geotools.styling.Style;
 import org.geotools.styling.StyleBuilder;
@@ -246,6 +250,66 @@ public class GridCoverageRendererTest  {
 
 	}
 
+	@Test
+	public void tileRendering() throws Exception {
+		final GridCoverage2D coverage = getGC();
+		final ReferencedEnvelope envelope = new ReferencedEnvelope(40, 60, -30, -10,
+				DefaultGeographicCRS.WGS84);
+		final Rectangle screen = new Rectangle(0, 0, 600, 400);
+		final RasterSymbolizer symbolizer = new StyleBuilder().createRasterSymbolizer();
+
+		final BufferedImage reference = paint(coverage, envelope, screen, symbolizer, false, null);
+		final ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			final BufferedImage tiled = paint(coverage, envelope, screen, symbolizer, true, pool);
+			// same output, up to rounding differences at the source pixel edges
+			int painted = 0, different = 0;
+			for (int y = 0; y < screen.height; y++) {
+				for (int x = 0; x < screen.width; x++) {
+					if ((tiled.getRGB(x, y) >>> 24) != 0) {
+						painted++;
+					}
+					if (tiled.getRGB(x, y) != reference.getRGB(x, y)) {
+						different++;
+					}
+				}
+			}
+			assertEquals(screen.width * screen.height, painted);
+			assertTrue("Too many different pixels: " + different,
+					different < screen.width * screen.height / 50);
+
+			// nothing is drawn outside of the coverage
+			final ReferencedEnvelope outside = new ReferencedEnvelope(100, 120, 10, 30,
+					DefaultGeographicCRS.WGS84);
+			final BufferedImage empty = paint(coverage, outside, screen, symbolizer, true, pool);
+			for (int y = 0; y < screen.height; y++) {
+				for (int x = 0; x < screen.width; x++) {
+					assertEquals(0, empty.getRGB(x, y) >>> 24);
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private static BufferedImage paint(GridCoverage2D coverage, ReferencedEnvelope envelope,
+			Rectangle screen, RasterSymbolizer symbolizer, boolean tileRendering,
+			ExecutorService pool) throws Exception {
+		final GridCoverageRenderer renderer = new GridCoverageRenderer(
+				envelope.getCoordinateReferenceSystem(), envelope, screen, null);
+		renderer.setTileRendering(tileRendering);
+		renderer.setThreadPool(pool);
+		final BufferedImage image = new BufferedImage(screen.width, screen.height,
+				BufferedImage.TYPE_4BYTE_ABGR);
+		final Graphics2D graphics = image.createGraphics();
+		try {
+			renderer.paint(graphics, coverage, symbolizer);
+		} finally {
+			graphics.dispose();
+		}
+		return image;
+	}
+
 	private static Style getStyle() {
 		StyleBuilder sb = new StyleBuilder();
 		Style rasterstyle = sb.createStyle();
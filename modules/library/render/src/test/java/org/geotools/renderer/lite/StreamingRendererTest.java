@@ -24,15 +24,25 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import java.awt.image.RenderedImage;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.geotools.coverage.grid.GridCoverage2D;
 import org.geotools.coverage.grid.GridCoverageFactory;
@@ -58,6 +68,7 @@ import org.geotools.renderer.lite.StreamingRenderer.RenderingBlockingQueue;
 import org.geotools.renderer.lite.StreamingRenderer.RenderingRequest;
 import org.geotools.styling.Style;
 import org.geotools.styling.StyleBuilder;
+import org.geotools.styling.TextSymbolizer;
 import org.junit.Before;
 import org.junit.Test;
 import org.opengis.feature.simple.SimpleFeature;
@@ -320,5 +331,238 @@ public class StreamingRendererTest {
         assertTrue("Pixel should be drawn at image max corner ", image.getRGB(screen.width - 1,
                 screen.height - 1) != 0);
     }
+
+    @Test
+    public void testParallelLayerRendering() throws Exception {
+        MapContent mapContent = createParallelMapContent();
+        BufferedImage sequential = renderLayers(mapContent, null, new AtomicInteger(),
+                new AtomicInteger());
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            assertParallelRendering(mapContent, sequential, pool);
+        } finally {
+            pool.shutdown();
+            mapContent.dispose();
+        }
+    }
+
+    /**
+     * A pool with a single core thread and an unbounded queue never creates a second thread,
+     * even if its maximum size is larger, the layers must be prepared anyways
+     */
+    @Test(timeout = 30000)
+    public void testParallelLayerRenderingSingleThreadPool() throws Exception {
+        MapContent mapContent = createParallelMapContent();
+        BufferedImage sequential = renderLayers(mapContent, null, new AtomicInteger(),
+                new AtomicInteger());
+        ExecutorService pool = new ThreadPoolExecutor(1, 4, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>());
+        try {
+            assertParallelRendering(mapContent, sequential, pool);
+        } finally {
+            pool.shutdown();
+            mapContent.dispose();
+        }
+    }
+
+    /**
+     * Executors that are not thread pool executors cannot be sized, the layers are submitted
+     * a processor count ahead. The single thread runs the painter, so the paint thread
+     * prepares the layers itself
+     */
+    @Test(timeout = 30000)
+    public void testParallelLayerRenderingDirectExecutor() throws Exception {
+        MapContent mapContent = createParallelMapContent();
+        BufferedImage sequential = renderLayers(mapContent, null, new AtomicInteger(),
+                new AtomicInteger());
+        final ExecutorService single = Executors.newSingleThreadExecutor();
+        ExecutorService pool = new AbstractExecutorService() {
+            public void execute(Runnable command) {
+                single.execute(command);
+            }
+            public void shutdown() {
+                single.shutdown();
+            }
+            public List<Runnable> shutdownNow() {
+                return single.shutdownNow();
+            }
+            public boolean isShutdown() {
+                return single.isShutdown();
+            }
+            public boolean isTerminated() {
+                return single.isTerminated();
+            }
+            public boolean awaitTermination(long timeout, TimeUnit unit)
+                    throws InterruptedException {
+                return single.awaitTermination(timeout, unit);
+            }
+        };
+        try {
+            assertParallelRendering(mapContent, sequential, pool);
+        } finally {
+            pool.shutdown();
+            mapContent.dispose();
+        }
+    }
+
+    /**
+     * Labels of different layers conflicting with each other, with different priorities, are
+     * resolved the same way as in sequential rendering
+     */
+    @Test(timeout = 30000)
+    public void testParallelLayerRenderingLabels() throws Exception {
+        SimpleFeatureTypeBuilder builder = new SimpleFeatureTypeBuilder();
+        builder.setName("Labels");
+        builder.add("geom", Point.class, DefaultGeographicCRS.WGS84);
+        builder.add("name", String.class);
+        builder.add("priority", Integer.class);
+        SimpleFeatureType labelType = builder.buildFeatureType();
+
+        StyleBuilder sb = new StyleBuilder();
+        TextSymbolizer ts = sb.createTextSymbolizer(Color.BLACK, sb.createFont("Serif", 14),
+                "name");
+        ts.setPriority(sb.attributeExpression("priority"));
+        Style labelStyle = sb.createStyle(ts);
+
+        MapContent mapContent = new MapContent();
+        for (int layer = 0; layer < 4; layer++) {
+            DefaultFeatureCollection labels = new DefaultFeatureCollection();
+            for (int i = 0; i < 10; i++) {
+                // close enough for the labels of all the layers to overlap
+                Point point = gf.createPoint(new Coordinate(-178 + i + 0.2 * layer,
+                        25 + i * 1.5 + 0.3 * layer));
+                labels.add(SimpleFeatureBuilder.build(labelType, new Object[] { point,
+                        "Label " + layer + "-" + i, (layer * 7 + i * 3) % 10 }, null));
+            }
+            mapContent.addLayer(new FeatureLayer(labels, labelStyle));
+        }
+        BufferedImage sequential = renderLayers(mapContent, null, new AtomicInteger(),
+                new AtomicInteger());
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            AtomicInteger renderedFeatures = new AtomicInteger();
+            AtomicInteger renderingErrors = new AtomicInteger();
+            BufferedImage parallel = renderLayers(mapContent, pool, renderedFeatures,
+                    renderingErrors);
+            assertEquals(0, renderingErrors.get());
+            assertEquals(40, renderedFeatures.get());
+            assertSameImage(sequential, parallel);
+        } finally {
+            pool.shutdown();
+            mapContent.dispose();
+        }
+    }
+
+    /**
+     * Stopping the rendering while the layers are prepared makes paint return, and leaves
+     * no layer preparation blocked on a full queue
+     */
+    @Test(timeout = 30000)
+    public void testParallelLayerRenderingStop() throws Exception {
+        MapContent mapContent = new MapContent();
+        int total = 0;
+        for (int layer = 0; layer < 6; layer++) {
+            // more features than the queue of a layer can hold
+            DefaultFeatureCollection points = new DefaultFeatureCollection();
+            for (int i = 0; i < 15000; i++) {
+                points.add(createPoint(-179 + (i % 100) * 0.08, 21 + (i / 100) * 0.1));
+            }
+            total += points.size();
+            mapContent.addLayer(new FeatureLayer(points, createPointStyle()));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            final StreamingRenderer sr = new StreamingRenderer();
+            sr.setMapContent(mapContent);
+            Map<Object, Object> hints = new HashMap<Object, Object>();
+            hints.put(StreamingRenderer.PARALLEL_LAYER_RENDERING_KEY, Boolean.TRUE);
+            sr.setRendererHints(hints);
+            sr.setThreadPool(pool);
+            final AtomicInteger renderedFeatures = new AtomicInteger();
+            sr.addRenderListener(new RenderListener() {
+                public void featureRenderer(SimpleFeature feature) {
+                    if (renderedFeatures.incrementAndGet() == 1000) {
+                        sr.stopRendering();
+                    }
+                }
+                public void errorOccurred(Exception e) {
+                }
+            });
+            BufferedImage image = new BufferedImage(200, 200, BufferedImage.TYPE_4BYTE_ABGR);
+            Graphics2D graphics = image.createGraphics();
+            sr.paint(graphics, new Rectangle(200, 200), new ReferencedEnvelope(-180, -170,
+                    20, 40, DefaultGeographicCRS.WGS84));
+            graphics.dispose();
+            assertTrue(renderedFeatures.get() < total);
+        } finally {
+            pool.shutdown();
+            mapContent.dispose();
+        }
+        // the preparations blocked on their queues have been released
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    private MapContent createParallelMapContent() throws Exception {
+        DefaultFeatureCollection points = new DefaultFeatureCollection();
+        points.add(createPoint(-175, 30));
+        points.add(createPoint(-172, 25));
+
+        MapContent mapContent = new MapContent();
+        mapContent.addLayer(new FeatureLayer(createLineCollection(), createLineStyle()));
+        mapContent.addLayer(new FeatureLayer(points, createPointStyle()));
+        mapContent.addLayer(new FeatureLayer(createLineCollection(), createLineStyle()));
+        return mapContent;
+    }
+
+    private void assertParallelRendering(MapContent mapContent, BufferedImage sequential,
+            ExecutorService pool) {
+        AtomicInteger renderedFeatures = new AtomicInteger();
+        AtomicInteger renderingErrors = new AtomicInteger();
+        BufferedImage parallel = renderLayers(mapContent, pool, renderedFeatures,
+                renderingErrors);
+        assertEquals(0, renderingErrors.get());
+        assertEquals(8, renderedFeatures.get());
+        assertSameImage(sequential, parallel);
+    }
+
+    private void assertSameImage(BufferedImage expected, BufferedImage actual) {
+        for (int x = 0; x < expected.getWidth(); x++) {
+            for (int y = 0; y < expected.getHeight(); y++) {
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+            }
+        }
+    }
+
+    /**
+     * Renders the map, in parallel if a pool is provided. The listener is called by the
+     * threads preparing the layers, so the counters are atomic
+     */
+    private BufferedImage renderLayers(MapContent mapContent, ExecutorService pool,
+            final AtomicInteger renderedFeatures, final AtomicInteger renderingErrors) {
+        ReferencedEnvelope envelope = new ReferencedEnvelope(new Envelope(-180,
+                -170, 20, 40), DefaultGeographicCRS.WGS84);
+        StreamingRenderer sr = new StreamingRenderer();
+        sr.setMapContent(mapContent);
+        if (pool != null) {
+            Map<Object, Object> hints = new HashMap<Object, Object>();
+            hints.put(StreamingRenderer.PARALLEL_LAYER_RENDERING_KEY, Boolean.TRUE);
+            sr.setRendererHints(hints);
+            sr.setThreadPool(pool);
+        }
+        sr.addRenderListener(new RenderListener() {
+            public void featureRenderer(SimpleFeature feature) {
+                renderedFeatures.incrementAndGet();
+            }
+            public void errorOccurred(Exception e) {
+                renderingErrors.incrementAndGet();
+            }
+        });
+        BufferedImage image = new BufferedImage(200, 200, BufferedImage.TYPE_4BYTE_ABGR);
+        Graphics2D graphics = image.createGraphics();
+        sr.paint(graphics, new Rectangle(200, 200), envelope);
+        graphics.dispose();
+        return image;
+    }
     
 }
@@ -0,0 +1,181 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.referencing.factory.epsg;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.geotools.referencing.CRS;
+import org.geotools.referencing.datum.BursaWolfParameters;
+import org.geotools.referencing.datum.DefaultGeodeticDatum;
+import org.geotools.referencing.factory.AbstractAuthorityFactory;
+import org.geotools.referencing.wkt.Formattable;
+import org.geotools.util.logging.Logging;
+import org.opengis.referencing.FactoryException;
+import org.opengis.referencing.crs.CompoundCRS;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.crs.SingleCRS;
+import org.opengis.referencing.datum.Datum;
+
+/**
+ * Builds the {@link EpsgCatalog} used by {@link FactoryUsingCatalog} out of the embedded HSQL
+ * EPSG database. Every coordinate reference system that can be formatted as strict <cite>Well
+ * Known Text</cite> and parsed back is stored along with its identifiers, domain of validity
+ * and scope, the others are logged and skipped: they will be served by the database backed
+ * factories. The definitions whose datum has Bursa-Wolf parameters WKT can't carry, such as
+ * several {@code TOWGS84} sets, are skipped as well.
+ * <p>
+ * Usage: {@code java org.geotools.referencing.factory.epsg.EpsgCatalogBuilder [file]}, the
+ * default output being {@value EpsgCatalog#FILENAME} in the current directory. The catalog
+ * is not built by default: with {@code -Pcatalog} the build runs it in the
+ * {@code prepare-package} phase, so that the catalog is packaged in the
+ * {@code org/geotools/referencing/factory/epsg} directory of this module jar, where
+ * {@link FactoryUsingCatalog} looks for it.
+ *
+ * @since 9.0
+ *
+ * @source $URL$
+ */
+public final class EpsgCatalogBuilder {
+
+    static final Logger LOGGER = Logging.getLogger("org.geotools.referencing.factory.epsg");
+
+    private EpsgCatalogBuilder() {
+    }
+
+    /**
+     * Writes all the coordinate reference systems provided by the specified factory into
+     * the given catalog file.
+     *
+     * @return The number of definitions written.
+     */
+    public static int build(final AbstractAuthorityFactory factory, final File file)
+            throws FactoryException, IOException
+    {
+        return build(factory, factory.getAuthorityCodes(CoordinateReferenceSystem.class), file);
+    }
+
+    /**
+     * Writes the specified coordinate reference systems provided by the given factory into
+     * the given catalog file.
+     *
+     * @return The number of definitions written.
+     */
+    public static int build(final AbstractAuthorityFactory factory,
+            final Collection<String> codes, final File file) throws FactoryException, IOException
+    {
+        final Map<Integer, EpsgCatalog.Definition> definitions =
+                new HashMap<Integer, EpsgCatalog.Definition>();
+        for (final String code : codes) {
+            final int value;
+            try {
+                value = Integer.parseInt(code.trim());
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            try {
+                final CoordinateReferenceSystem crs =
+                        factory.createCoordinateReferenceSystem(code);
+                // strict formatting, fails on the objects WKT can't represent
+                final String wkt = ((Formattable) crs).toWKT(Formattable.SINGLE_LINE);
+                // make sure we can parse back what we generated, without losing
+                // the datum shifts
+                if (!sameBursaWolf(crs, CRS.parseWKT(wkt))) {
+                    LOGGER.log(Level.FINE, "Skipping EPSG:" + code
+                            + ": Bursa-Wolf parameters can't be formatted");
+                    continue;
+                }
+                definitions.put(value, new EpsgCatalog.Definition(crs, wkt));
+            } catch (Exception e) {
+                // not all the codes can be decoded or formatted, list the ones skipped
+                LOGGER.log(Level.FINE, "Skipping EPSG:" + code + ": " + e.getMessage());
+            }
+        }
+        EpsgCatalog.writeDefinitions(definitions, "EPSG database version "
+                + ThreadedHsqlEpsgFactory.VERSION, file);
+        return definitions.size();
+    }
+
+    /**
+     * Returns {@code true} if the datums of the two coordinate reference systems have
+     * the same Bursa-Wolf parameters, ignoring the metadata of the target datums.
+     */
+    static boolean sameBursaWolf(final CoordinateReferenceSystem expected,
+            final CoordinateReferenceSystem actual)
+    {
+        final List<BursaWolfParameters> e = new ArrayList<BursaWolfParameters>();
+        final List<BursaWolfParameters> a = new ArrayList<BursaWolfParameters>();
+        addBursaWolf(expected, e);
+        addBursaWolf(actual, a);
+        if (e.size() != a.size()) {
+            return false;
+        }
+        for (int i = 0; i < e.size(); i++) {
+            final BursaWolfParameters p = e.get(i);
+            final BursaWolfParameters q = a.get(i);
+            if (Double.compare(p.dx, q.dx) != 0 || Double.compare(p.dy, q.dy) != 0
+                    || Double.compare(p.dz, q.dz) != 0 || Double.compare(p.ex, q.ex) != 0
+                    || Double.compare(p.ey, q.ey) != 0 || Double.compare(p.ez, q.ez) != 0
+                    || Double.compare(p.ppm, q.ppm) != 0
+                    || !CRS.equalsIgnoreMetadata(p.targetDatum, q.targetDatum)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void addBursaWolf(final CoordinateReferenceSystem crs,
+            final List<BursaWolfParameters> parameters)
+    {
+        if (crs instanceof CompoundCRS) {
+            for (CoordinateReferenceSystem component :
+                    ((CompoundCRS) crs).getCoordinateReferenceSystems()) {
+                addBursaWolf(component, parameters);
+            }
+        } else if (crs instanceof SingleCRS) {
+            final Datum datum = ((SingleCRS) crs).getDatum();
+            if (datum instanceof DefaultGeodeticDatum) {
+                for (BursaWolfParameters p : ((DefaultGeodeticDatum) datum)
+                        .getBursaWolfParameters()) {
+                    parameters.add(p);
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        final File file = new File(args.length > 0 ? args[0] : EpsgCatalog.FILENAME);
+        final File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        final ThreadedHsqlEpsgFactory factory = new ThreadedHsqlEpsgFactory();
+        try {
+            final int count = build(factory, file);
+            LOGGER.info("Wrote " + count + " definitions to " + file);
+        } finally {
+            factory.dispose();
+        }
+    }
+}
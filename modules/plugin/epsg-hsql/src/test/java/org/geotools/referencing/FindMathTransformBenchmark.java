@@ -0,0 +1,115 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.referencing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.CoordinateOperationFactory;
+
+/**
+ * Repeatedly resolves the transforms for the typical EPSG:4326 to EPSG:3857 and UTM to
+ * EPSG:4326 pairs, as the renderer does for each layer of each request, comparing the
+ * {@link CRS#findMathTransform} cache with a direct use of the coordinate operation factory.
+ * <p>
+ * Usage: {@code FindMathTransformBenchmark [iterations] [threads]}
+ *
+ *
+ * @source $URL$
+ */
+public class FindMathTransformBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        final int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        final CoordinateReferenceSystem[][] pairs = {
+            {CRS.decode("EPSG:4326", true), CRS.decode("EPSG:3857", true)},
+            {CRS.decode("EPSG:32632", true), CRS.decode("EPSG:4326", true)},
+            {CRS.decode("EPSG:32633"), CRS.decode("EPSG:4326")}
+        };
+        final CoordinateOperationFactory factory = CRS.getCoordinateOperationFactory(true);
+        final Runnable[] modes = {
+            new Runnable() {
+                public void run() {
+                    for (int i = 0; i < iterations; i++) {
+                        final CoordinateReferenceSystem[] pair = pairs[i % pairs.length];
+                        try {
+                            factory.createOperation(pair[0], pair[1]).getMathTransform();
+                        } catch (Exception e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                }
+                @Override
+                public String toString() {
+                    return "operation factory";
+                }
+            },
+            new Runnable() {
+                public void run() {
+                    for (int i = 0; i < iterations; i++) {
+                        final CoordinateReferenceSystem[] pair = pairs[i % pairs.length];
+                        try {
+                            CRS.findMathTransform(pair[0], pair[1], true);
+                        } catch (Exception e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                }
+                @Override
+                public String toString() {
+                    return "CRS.findMathTransform";
+                }
+            }
+        };
+        // warm up
+        for (Runnable mode : modes) {
+            mode.run();
+        }
+        for (int round = 0; round < 3; round++) {
+            for (Runnable mode : modes) {
+                System.out.println(mode + ", 1 thread: " + time(mode, 1) + "ms, " + threads
+                        + " threads: " + time(mode, threads) + "ms");
+            }
+        }
+        System.out.println(CRS.getMathTransformCache());
+    }
+
+    /**
+     * Runs the specified task in the given number of threads, returns the elapsed time
+     */
+    static long time(final Runnable task, int threads) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final long start = System.nanoTime();
+            final List<Future<Object>> futures = new ArrayList<Future<Object>>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(Executors.callable(task)));
+            }
+            for (Future<Object> future : futures) {
+                future.get();
+            }
+            return (System.nanoTime() - start) / 1000000;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.referencing.factory.epsg;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.geotools.factory.Hints;
+import org.geotools.referencing.factory.DeferredAuthorityFactory;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+/**
+ * Compares the time to the first EPSG decode in a fresh JVM when using the HSQL database
+ * ({@link ThreadedHsqlEpsgFactory}) and the precompiled catalog ({@link FactoryUsingCatalog}).
+ * Each measure is taken in a new JVM, launched with the same classpath as this one.
+ * <p>
+ * Usage: {@code EpsgStartupBenchmark [runs] [catalogFile]}. The catalog is built from the HSQL
+ * database first if the file does not exist. The HSQL database is unpacked in the temporary
+ * directory by the first run, the following ones reuse it.
+ *
+ *
+ * @source $URL$
+ */
+public class EpsgStartupBenchmark {
+
+    static final String[] CODES = {"4326", "32632", "3857", "27700"};
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("child")) {
+            child(args[1], new File(args[2]));
+            return;
+        }
+        final int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        final File catalog = new File(args.length > 1 ? args[1]
+                : System.getProperty("java.io.tmpdir") + "/epsg-benchmark/" + EpsgCatalog.FILENAME);
+        if (!catalog.exists()) {
+            catalog.getParentFile().mkdirs();
+            final ThreadedHsqlEpsgFactory factory = new ThreadedHsqlEpsgFactory();
+            try {
+                final int count = EpsgCatalogBuilder.build(factory, catalog);
+                System.out.println("Built catalog with " + count + " definitions in " + catalog);
+            } finally {
+                factory.dispose();
+            }
+        }
+        for (String mode : new String[] {"hsql", "catalog"}) {
+            final List<Long> firstDecode = new ArrayList<Long>();
+            final List<Long> sinceStart = new ArrayList<Long>();
+            for (int i = 0; i < runs; i++) {
+                final long[] times = spawn(mode, catalog);
+                firstDecode.add(times[0]);
+                sinceStart.add(times[1]);
+            }
+            Collections.sort(firstDecode);
+            Collections.sort(sinceStart);
+            System.out.println(mode + ": first decode median " + firstDecode.get(runs / 2)
+                    + "ms (min " + firstDecode.get(0) + "ms), since JVM start median "
+                    + sinceStart.get(runs / 2) + "ms");
+        }
+    }
+
+    /**
+     * Runs a child JVM and returns the time to the first decode and the time since JVM start,
+     * in milliseconds.
+     */
+    static long[] spawn(String mode, File catalog) throws Exception {
+        final String java = System.getProperty("java.home") + File.separator + "bin"
+                + File.separator + "java";
+        final ProcessBuilder builder = new ProcessBuilder(Arrays.asList(java, "-cp",
+                System.getProperty("java.class.path"), EpsgStartupBenchmark.class.getName(),
+                "child", mode, catalog.getAbsolutePath()));
+        builder.redirectErrorStream(true);
+        final Process process = builder.start();
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(
+                process.getInputStream()));
+        long[] result = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith("TIMES ")) {
+                final String[] parts = line.split(" ");
+                result = new long[] {Long.parseLong(parts[1]), Long.parseLong(parts[2])};
+            }
+        }
+        if (process.waitFor() != 0 || result == null) {
+            throw new IllegalStateException("The " + mode + " run failed");
+        }
+        return result;
+    }
+
+    /**
+     * The measured part, executed in the child JVM.
+     */
+    static void child(String mode, File catalog) throws Exception {
+        final long start = System.nanoTime();
+        final DeferredAuthorityFactory factory;
+        if (mode.equals("hsql")) {
+            factory = new ThreadedHsqlEpsgFactory();
+        } else {
+            factory = new FactoryUsingCatalog(new Hints(Hints.CRS_AUTHORITY_EXTRA_DIRECTORY,
+                    catalog.getParentFile()));
+        }
+        final CoordinateReferenceSystem crs =
+                factory.createCoordinateReferenceSystem("EPSG:" + CODES[0]);
+        final long first = (System.nanoTime() - start) / 1000000;
+        final long sinceStart = System.currentTimeMillis()
+                - ManagementFactory.getRuntimeMXBean().getStartTime();
+        for (int i = 1; i < CODES.length; i++) {
+            factory.createCoordinateReferenceSystem("EPSG:" + CODES[i]);
+        }
+        System.out.println("Decoded " + crs.getName());
+        System.out.println("TIMES " + first + " " + sinceStart);
+        factory.dispose();
+    }
+}
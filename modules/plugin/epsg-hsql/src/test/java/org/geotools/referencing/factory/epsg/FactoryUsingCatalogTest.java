@@ -0,0 +1,124 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.referencing.factory.epsg;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.Set;
+
+import org.geotools.factory.Hints;
+import org.geotools.referencing.CRS;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opengis.metadata.extent.Extent;
+import org.opengis.metadata.extent.GeographicBoundingBox;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+/**
+ * Checks the coordinate reference systems created by {@link FactoryUsingCatalog} are the same
+ * as the ones of the HSQL database the catalog has been built from, metadata included, for
+ * every code of the catalog.
+ *
+ *
+ *
+ * @source $URL$
+ */
+public class FactoryUsingCatalogTest {
+
+    /** Commonly used codes that must make it into the catalog */
+    static final String[] CODES = {"4326", "4269", "32632", "3857", "27700", "2154", "3003"};
+
+    private static ThreadedHsqlEpsgFactory hsql;
+
+    private static FactoryUsingCatalog catalog;
+
+    private static File directory;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        hsql = new ThreadedHsqlEpsgFactory();
+        directory = File.createTempFile("catalog", "test");
+        directory.delete();
+        directory.mkdir();
+        int count = EpsgCatalogBuilder.build(hsql, new File(directory, EpsgCatalog.FILENAME));
+        assertTrue(count > 0);
+        catalog = new FactoryUsingCatalog(new Hints(Hints.CRS_AUTHORITY_EXTRA_DIRECTORY,
+                directory));
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        catalog.dispose();
+        hsql.dispose();
+        new File(directory, EpsgCatalog.FILENAME).delete();
+        directory.delete();
+    }
+
+    @Test
+    public void testCommonCodes() throws Exception {
+        Set<String> codes = catalog.getAuthorityCodes(CoordinateReferenceSystem.class);
+        for (String code : CODES) {
+            assertTrue(code, codes.contains(code));
+        }
+    }
+
+    @Test
+    public void testSameAsDatabase() throws Exception {
+        Set<String> codes = catalog.getAuthorityCodes(CoordinateReferenceSystem.class);
+        assertFalse(codes.isEmpty());
+        for (String code : codes) {
+            CoordinateReferenceSystem expected = hsql.createCoordinateReferenceSystem(code);
+            CoordinateReferenceSystem actual = catalog.createCoordinateReferenceSystem(code);
+            assertTrue(code, CRS.equalsIgnoreMetadata(expected, actual));
+            // equalsIgnoreMetadata does not look at the datum shifts
+            assertTrue(code, EpsgCatalogBuilder.sameBursaWolf(expected, actual));
+            assertEquals(code, CRS.toSRS(expected), CRS.toSRS(actual));
+            assertEquals(code, expected.getIdentifiers().size(), actual.getIdentifiers().size());
+            assertEquals(code, String.valueOf(expected.getScope()),
+                    String.valueOf(actual.getScope()));
+
+            Extent expectedDomain = expected.getDomainOfValidity();
+            Extent actualDomain = actual.getDomainOfValidity();
+            if (expectedDomain == null) {
+                assertNull(code, actualDomain);
+                continue;
+            }
+            assertNotNull(code, actualDomain);
+            assertEquals(code, String.valueOf(expectedDomain.getDescription()),
+                    String.valueOf(actualDomain.getDescription()));
+            GeographicBoundingBox expectedBox = CRS.getGeographicBoundingBox(expected);
+            GeographicBoundingBox actualBox = CRS.getGeographicBoundingBox(actual);
+            if (expectedBox == null) {
+                assertNull(code, actualBox);
+                continue;
+            }
+            assertNotNull(code, actualBox);
+            assertEquals(code, expectedBox.getWestBoundLongitude(),
+                    actualBox.getWestBoundLongitude(), 0d);
+            assertEquals(code, expectedBox.getEastBoundLongitude(),
+                    actualBox.getEastBoundLongitude(), 0d);
+            assertEquals(code, expectedBox.getSouthBoundLatitude(),
+                    actualBox.getSouthBoundLatitude(), 0d);
+            assertEquals(code, expectedBox.getNorthBoundLatitude(),
+                    actualBox.getNorthBoundLatitude(), 0d);
+            // used to be null for the WKT only definitions
+            assertEquals(code, CRS.getEnvelope(expected) == null, CRS.getEnvelope(actual) == null);
+        }
+    }
+}
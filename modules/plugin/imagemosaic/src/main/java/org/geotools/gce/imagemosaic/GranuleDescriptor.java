@@ -615,35 +615,49 @@ public class GranuleDescriptor {
 
 		ImageInputStream inStream=null;
 		ImageReader reader=null;
+		// the open readers are pooled for direct reads only, the image read operation keeps
+		// using its reader after this method returns
+		final GranuleReaderPool pool = request.getReadType() == ReadType.DIRECT_READ ? request.rasterManager.granuleReaderPool : null;
+		GranuleReaderPool.Entry pooledReader = null;
+		boolean failed = false;
 		try {
 			//
 			//get info about the raster we have to read
 			//
-			
-			// get a stream
-		        assert cachedStreamSPI!=null:"no cachedStreamSPI available!";
-                        inStream = cachedStreamSPI.createInputStreamInstance(granuleUrl, ImageIO.getUseCache(), ImageIO.getCacheDirectory());
-			if(inStream==null)
-				return null;
+			if (pool != null)
+				pooledReader = pool.acquire(granuleUrl);
+			if (pooledReader != null) {
+				// reuse an open stream and a reader that already parsed the granule header
+				inStream = pooledReader.stream;
+				reader = pooledReader.reader;
+			} else {
+				// get a stream
+			        assert cachedStreamSPI!=null:"no cachedStreamSPI available!";
+	                        inStream = cachedStreamSPI.createInputStreamInstance(granuleUrl, ImageIO.getUseCache(), ImageIO.getCacheDirectory());
+				if(inStream==null)
+					return null;
 			
 	
-			// get a reader and try to cache the relevant SPI
-			if(cachedReaderSPI==null){
-				reader = ImageIOExt.getImageioReader(inStream);
-				if(reader!=null)
-					cachedReaderSPI=reader.getOriginatingProvider();
-			}
-			else
-				reader=cachedReaderSPI.createReaderInstance();
-			if(reader==null) {
-				if (LOGGER.isLoggable(java.util.logging.Level.WARNING)){
-					LOGGER.warning(new StringBuilder("Unable to get s reader for granuleDescriptor ").append(this.toString())
-					        .append(" with request ").append(request.toString()).append(" Resulting in no granule loaded: Empty result").toString());
+				// get a reader and try to cache the relevant SPI
+				if(cachedReaderSPI==null){
+					reader = ImageIOExt.getImageioReader(inStream);
+					if(reader!=null)
+						cachedReaderSPI=reader.getOriginatingProvider();
 				}
-				return null;
+				else
+					reader=cachedReaderSPI.createReaderInstance();
+				if(reader==null) {
+					if (LOGGER.isLoggable(java.util.logging.Level.WARNING)){
+						LOGGER.warning(new StringBuilder("Unable to get s reader for granuleDescriptor ").append(this.toString())
+						        .append(" with request ").append(request.toString()).append(" Resulting in no granule loaded: Empty result").toString());
+					}
+					return null;
+				}
+				// set input
+				reader.setInput(inStream);
+				if (pool != null)
+					pooledReader = new GranuleReaderPool.Entry(granuleUrl, inStream, reader);
 			}
-			// set input
-			reader.setInput(inStream);
 			
 			// Checking for heterogeneous granules
 			if (request.isHeterogeneousGranules()){
@@ -723,6 +737,7 @@ public class GranuleDescriptor {
 				raster= request.getReadType().read(readParameters,imageIndex, granuleUrl, selectedlevel.rasterDimensions,reader, hints,false);
 				
 			} catch (Throwable e) {
+				failed = true;
 				if (LOGGER.isLoggable(java.util.logging.Level.FINE)){
 					LOGGER.log(java.util.logging.Level.FINE,
 					        "Unable to load raster for granuleDescriptor "
@@ -895,6 +910,7 @@ public class GranuleDescriptor {
 			}
 		
 		} catch (IllegalStateException e) {
+			failed = true;
 			if (LOGGER.isLoggable(java.util.logging.Level.WARNING)) {
 				LOGGER.log(java.util.logging.Level.WARNING, new StringBuilder("Unable to load raster for granuleDescriptor ")
 				.append(this.toString()).append(" with request ").append(request.toString()).append(" Resulting in no granule loaded: Empty result").toString(), e);
@@ -913,14 +929,28 @@ public class GranuleDescriptor {
                     }
 			return null;
 
+                } catch (RuntimeException e) {
+                    failed = true;
+                    throw e;
+                } catch (IOException e) {
+                    failed = true;
+                    throw e;
                 } finally {
-                    try {
-                        if (request.getReadType() != ReadType.JAI_IMAGEREAD && inStream != null) {
-                            inStream.close();
-                        }
-                    } finally {
-                        if (request.getReadType() != ReadType.JAI_IMAGEREAD && reader != null) {
-                            reader.dispose();
+                    if (pooledReader != null) {
+                        // give back the reader, unless it might be in an inconsistent state
+                        if (failed)
+                            GranuleReaderPool.close(pooledReader);
+                        else
+                            pool.release(pooledReader);
+                    } else {
+                        try {
+                            if (request.getReadType() != ReadType.JAI_IMAGEREAD && inStream != null) {
+                                inStream.close();
+                            }
+                        } finally {
+                            if (request.getReadType() != ReadType.JAI_IMAGEREAD && reader != null) {
+                                reader.dispose();
+                            }
                         }
                     }
                 }
@@ -19,6 +19,12 @@ package org.geotools.gce.imagemosaic;
 import java.awt.Dimension;
 import java.awt.RenderingHints;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.imageio.ImageReadParam;
 import javax.media.jai.ImageLayout;
@@ -40,6 +46,44 @@ import org.opengis.referencing.operation.MathTransform2D;
  */
 class GranuleLoader implements Callable<GranuleLoadingResult>{
 
+	/** Shared loader used when multithreading is allowed but no executor has been provided */
+	private static ExecutorService defaultExecutor;
+
+	/**
+	 * Returns the executor shared by all the mosaics that allow multithreading without providing
+	 * their own one via {@link Hints#EXECUTOR_SERVICE}. It runs a daemon thread per processor,
+	 * all of them taking the next granule to decode from a single queue, so that a slow granule
+	 * does not hold back the others. Threads go away when idle.
+	 */
+	static synchronized ExecutorService getDefaultExecutor() {
+		if (defaultExecutor == null) {
+			final int threads = Runtime.getRuntime().availableProcessors();
+			final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60,
+					TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+						final AtomicInteger count = new AtomicInteger();
+
+						public Thread newThread(Runnable r) {
+							final Thread thread = new Thread(r, "ImageMosaicGranuleLoader-"
+									+ count.incrementAndGet());
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			executor.allowCoreThreadTimeOut(true);
+			defaultExecutor = executor;
+		}
+		return defaultExecutor;
+	}
+
+	/** When this loader has been created, that is, queued */
+	final long createTime = System.nanoTime();
+
+	/** When the load started, 0 if it did not */
+	volatile long startTime;
+
+	/** When the load ended, 0 if it did not */
+	volatile long endTime;
+
 	final ReferencedEnvelope cropBBox;
 	
 	final MathTransform2D mosaicWorldToGrid;
@@ -107,7 +151,26 @@ class GranuleLoader implements Callable<GranuleLoadingResult>{
 	}
 	
 	public GranuleLoadingResult call() throws Exception {
-		return granuleDescriptor.loadRaster(readParameters, imageIndex, cropBBox, mosaicWorldToGrid, request, hints);
+		startTime = System.nanoTime();
+		try {
+			return granuleDescriptor.loadRaster(readParameters, imageIndex, cropBBox, mosaicWorldToGrid, request, hints);
+		} finally {
+			endTime = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Time spent waiting for a thread before loading, in nanoseconds
+	 */
+	long getQueueTime() {
+		return startTime > 0 ? startTime - createTime : 0;
+	}
+
+	/**
+	 * Time spent loading the granule, in nanoseconds
+	 */
+	long getLoadTime() {
+		return startTime > 0 && endTime > 0 ? endTime - startTime : 0;
 	}
 
 }
\ No newline at end of file
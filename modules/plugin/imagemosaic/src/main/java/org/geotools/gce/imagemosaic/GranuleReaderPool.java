@@ -0,0 +1,259 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.gce.imagemosaic;
+
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * A bounded pool of open granule readers, each one with its input stream already set, so that
+ * repeated reads of the same granule skip opening the file and parsing its header again.
+ * <p>
+ * A reader is taken out of the pool with {@link #acquire(URL)}, used by a single thread, and
+ * given back with {@link #release(Entry)}, or closed with {@link #close(Entry)} if it failed.
+ * The pool keeps at most {@code maxIdle} idle readers, the least recently released ones are
+ * closed first, and the readers left idle for longer than the timeout are closed as the pool
+ * is used. The readers in use are not counted, acquiring never blocks.
+ *
+ * @since 9.0
+ *
+ * @source $URL$
+ */
+class GranuleReaderPool {
+
+    /** Logger. */
+    private final static Logger LOGGER = org.geotools.util.logging.Logging
+            .getLogger(GranuleReaderPool.class);
+
+    /** The default time, in milliseconds, after which an idle reader is closed */
+    static final long DEFAULT_IDLE_TIMEOUT = 60000;
+
+    /**
+     * An open reader with its input stream
+     */
+    static final class Entry {
+        final String key;
+
+        final ImageInputStream stream;
+
+        final ImageReader reader;
+
+        long lastUsed;
+
+        Entry(URL url, ImageInputStream stream, ImageReader reader) {
+            this.key = url.toExternalForm();
+            this.stream = stream;
+            this.reader = reader;
+        }
+    }
+
+    private final int maxIdle;
+
+    private final long idleTimeout;
+
+    /**
+     * The idle readers of each granule, the most recently released last. The map is keyed by
+     * the external form of the granule URL, as comparing URLs may resolve their host names.
+     */
+    private final Map<String, ArrayDeque<Entry>> idle = new HashMap<String, ArrayDeque<Entry>>();
+
+    /** All the idle readers, the least recently released first */
+    private final LinkedHashSet<Entry> lru = new LinkedHashSet<Entry>();
+
+    private long lastEviction = System.currentTimeMillis();
+
+    private long hits;
+
+    private long misses;
+
+    private boolean disposed;
+
+    /**
+     * Builds a new pool
+     *
+     * @param maxIdle The maximum number of idle readers kept open
+     * @param idleTimeout The time, in milliseconds, after which an idle reader is closed
+     */
+    GranuleReaderPool(int maxIdle, long idleTimeout) {
+        this.maxIdle = maxIdle;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Returns an idle reader for the specified granule, or null if there is none and the caller
+     * has to open a new one
+     */
+    Entry acquire(URL url) {
+        List<Entry> expired;
+        Entry entry = null;
+        synchronized (this) {
+            final String key = url.toExternalForm();
+            final ArrayDeque<Entry> entries = idle.get(key);
+            if (entries != null) {
+                entry = entries.pollLast();
+                if (entries.isEmpty()) {
+                    idle.remove(key);
+                }
+                lru.remove(entry);
+            }
+            if (entry != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+            expired = evictExpired();
+        }
+        closeAll(expired);
+        return entry;
+    }
+
+    /**
+     * Gives back a reader that has been used successfully, the reader is closed instead if
+     * the pool has been disposed
+     */
+    void release(Entry entry) {
+        final List<Entry> evicted;
+        synchronized (this) {
+            if (disposed) {
+                evicted = new ArrayList<Entry>(1);
+                evicted.add(entry);
+            } else {
+                entry.lastUsed = System.currentTimeMillis();
+                ArrayDeque<Entry> entries = idle.get(entry.key);
+                if (entries == null) {
+                    entries = new ArrayDeque<Entry>(2);
+                    idle.put(entry.key, entries);
+                }
+                entries.addLast(entry);
+                lru.add(entry);
+
+                evicted = evictExpired();
+                for (Iterator<Entry> it = lru.iterator(); lru.size() > maxIdle && it.hasNext();) {
+                    final Entry eldest = it.next();
+                    it.remove();
+                    removeIdle(eldest);
+                    evicted.add(eldest);
+                }
+            }
+        }
+        closeAll(evicted);
+    }
+
+    /**
+     * Closes all the idle readers, the readers in use are closed as they are released
+     */
+    void dispose() {
+        final List<Entry> entries;
+        synchronized (this) {
+            disposed = true;
+            entries = new ArrayList<Entry>(lru);
+            lru.clear();
+            idle.clear();
+        }
+        closeAll(entries);
+    }
+
+    /**
+     * The number of idle readers
+     */
+    synchronized int getIdleCount() {
+        return lru.size();
+    }
+
+    /**
+     * The number of acquisitions that found an idle reader
+     */
+    synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * The number of acquisitions that did not find an idle reader
+     */
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Removes the readers idle for longer than the timeout, checking at most twice per timeout
+     * period. Must be called while holding the lock.
+     */
+    private List<Entry> evictExpired() {
+        final List<Entry> expired = new ArrayList<Entry>();
+        final long now = System.currentTimeMillis();
+        if (now - lastEviction < idleTimeout / 2) {
+            return expired;
+        }
+        lastEviction = now;
+        for (Iterator<Entry> it = lru.iterator(); it.hasNext();) {
+            final Entry entry = it.next();
+            if (now - entry.lastUsed < idleTimeout) {
+                break;
+            }
+            it.remove();
+            removeIdle(entry);
+            expired.add(entry);
+        }
+        return expired;
+    }
+
+    private void removeIdle(Entry entry) {
+        final ArrayDeque<Entry> entries = idle.get(entry.key);
+        if (entries != null) {
+            entries.remove(entry);
+            if (entries.isEmpty()) {
+                idle.remove(entry.key);
+            }
+        }
+    }
+
+    private static void closeAll(List<Entry> entries) {
+        for (Entry entry : entries) {
+            close(entry);
+        }
+    }
+
+    /**
+     * Closes the reader and the stream of the entry, swallowing any error
+     */
+    static void close(Entry entry) {
+        try {
+            entry.stream.close();
+        } catch (Throwable t) {
+            if (LOGGER.isLoggable(Level.FINE))
+                LOGGER.log(Level.FINE, t.getLocalizedMessage(), t);
+        } finally {
+            try {
+                entry.reader.dispose();
+            } catch (Throwable t) {
+                if (LOGGER.isLoggable(Level.FINE))
+                    LOGGER.log(Level.FINE, t.getLocalizedMessage(), t);
+            }
+        }
+    }
+}
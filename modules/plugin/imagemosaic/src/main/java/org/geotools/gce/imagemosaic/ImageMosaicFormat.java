@@ -174,6 +174,21 @@ public final class ImageMosaicFormat extends AbstractGridFormat implements Forma
      * This parameter controls whether we want to merge in a single mosaic or stack all the bands into the final mosaic.
      */
     public static final ParameterDescriptor<String> MERGE_BEHAVIOR = new DefaultParameterDescriptor<String>("MergeBehavior",String.class,MergeBehavior.valuesAsStrings(), MergeBehavior.getDefault().toString());
+
+    /**
+     * Hint enabling the pool of open granule readers of the mosaic readers, with the maximum
+     * number of idle granule readers (and their open file handles) kept open by each mosaic
+     * reader. Reused readers skip opening the granule and parsing its header again. The pool
+     * is disabled by default, and it's used for direct reads only.
+     */
+    public static final Hints.Key MAX_OPEN_GRANULES = new Hints.Key(Integer.class);
+
+    /**
+     * Hint setting the time, in milliseconds, after which an idle pooled granule reader is
+     * closed, one minute by default. See {@link #MAX_OPEN_GRANULES}.
+     */
+    public static final Hints.Key GRANULE_IDLE_TIMEOUT = new Hints.Key(Long.class);
+
     /**
      * Creates an instance and sets the metadata.
      */
@@ -137,6 +137,9 @@ public class MosaicConfigurationBean {
 	/** we want to use caching for our index.*/
 	private boolean caching = Utils.DEFAULT_CONFIGURATION_CACHING;
 
+	/** we want to keep a persistent, memory mapped index of the granules next to the mosaic.*/
+	private boolean persistentIndex;
+
    /** <code>true</code> if we need to manage footprint if available.  */
     private boolean footprintManagement;
 
@@ -209,6 +212,12 @@ public class MosaicConfigurationBean {
 	public void setCaching(final boolean caching) {
 		this.caching = caching;
 	}
+	public boolean isPersistentIndex() {
+		return persistentIndex;
+	}
+	public void setPersistentIndex(final boolean persistentIndex) {
+		this.persistentIndex = persistentIndex;
+	}
 
     public void setFootprintManagement(final boolean footprintManagement) {
             this.footprintManagement = footprintManagement;
@@ -238,6 +247,7 @@ public class MosaicConfigurationBean {
 				+ ", typeName=" + typeName + ", sampleModel=" + sampleModel
 				+ ", envelope=" + envelope + ", heterogeneous="
 				+ heterogeneous + ", caching=" + caching
+				+ ", persistentIndex=" + persistentIndex
 				+ ", footprintManagement=" + footprintManagement + "]";
 		}
 }
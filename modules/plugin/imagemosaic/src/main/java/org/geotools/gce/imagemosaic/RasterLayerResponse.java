@@ -21,6 +21,7 @@ import java.awt.Dimension;
 import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
 import java.awt.geom.NoninvertibleTransformException;
 import java.awt.image.ColorModel;
 import java.awt.image.IndexColorModel;
@@ -38,8 +39,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -115,6 +118,7 @@ import org.opengis.referencing.datum.PixelInCell;
 import org.opengis.referencing.operation.MathTransform;
 import org.opengis.referencing.operation.MathTransform1D;
 import org.opengis.referencing.operation.MathTransform2D;
+import org.opengis.referencing.operation.TransformException;
 import org.opengis.util.InternationalString;
 
 import com.vividsolutions.jts.geom.Envelope;
@@ -328,6 +332,13 @@ class RasterLayerResponse{
 
                 private final int maxNumberOfGranules;
 		private final List<Future<GranuleLoadingResult>> tasks= new ArrayList<Future<GranuleLoadingResult>>();
+		private final List<GranuleLoader> loaders = new ArrayList<GranuleLoader>();
+		/** Loads the granules as they are visited, null to load them one by one in {@link #produce()} */
+		private final ExecutorService executor;
+		/** The max number of granules submitted to the executor ahead of the one being mosaicked */
+		private final int window;
+		/** The index of the next granule to submit */
+		private int nextSubmission;
 		private int   granulesNumber;
 		private List<ROI> rois = new ArrayList<ROI>();
 		private Color inputTransparentColor;
@@ -349,6 +360,21 @@ class RasterLayerResponse{
                 public MosaicBuilder(final RasterLayerRequest request) {
                     this.request=request;
                     maxNumberOfGranules=request.getMaximumNumberOfGranules();
+                    if (!multithreadingAllowed) {
+                        executor = null;
+                    } else if (rasterManager.parent.multiThreadedLoader != null) {
+                        executor = rasterManager.parent.multiThreadedLoader;
+                    } else {
+                        executor = GranuleLoader.getDefaultExecutor();
+                    }
+                    // keep the pool busy, but don't decode granules far ahead, they might
+                    // turn out to be hidden by the ones in front of them
+                    if (executor instanceof ThreadPoolExecutor
+                            && ((ThreadPoolExecutor) executor).getCorePoolSize() > 0) {
+                        window = ((ThreadPoolExecutor) executor).getCorePoolSize();
+                    } else {
+                        window = Runtime.getRuntime().availableProcessors();
+                    }
                 }
 		
 		public RenderedImage[] getSourcesAsArray() {
@@ -376,10 +402,12 @@ class RasterLayerResponse{
                     && inclusionGeometry.intersects(bb)) {
                 final GranuleLoader loader = new GranuleLoader(baseReadParameters, imageChoice,
                         mosaicBBox, finalWorldToGridCorner, granuleDescriptor, request, hints);
-                if (multithreadingAllowed && rasterManager.parent.multiThreadedLoader != null)
-                    tasks.add(rasterManager.parent.multiThreadedLoader.submit(loader));
-                else
-                    tasks.add(new FutureTask<GranuleLoadingResult>(loader));
+                loaders.add(loader);
+                tasks.add(null);
+                // start decoding the first granules right away, produce() will submit the
+                // others as it picks up the results in order
+                if (executor != null)
+                    submit(window, null);
 
                 granulesNumber++;
             }
@@ -398,8 +426,36 @@ class RasterLayerResponse{
 			int[] alphaIndex=null;
 			StringBuilder paths = new StringBuilder();
 			
-			for (Future<GranuleLoadingResult> future :tasks) {
-				
+			// with a flat overlay the first granule wins, so we can avoid loading the ones
+			// hidden by the opaque granules already in the mosaic
+			final OpaqueArea opaqueArea = !request.isBlend()
+					&& request.getMergeBehavior() == MergeBehavior.FLAT && !doInputTransparency ? new OpaqueArea(
+					rasterBounds) : null;
+			final long start = System.nanoTime();
+			int skipped = 0;
+			long loadTime = 0;
+			long maxQueueTime = 0;
+			
+			// the hidden granules whose load could not be cancelled
+			final List<Future<GranuleLoadingResult>> discarded = new ArrayList<Future<GranuleLoadingResult>>();
+			
+			for (int i = 0; i < loaders.size(); i++) {
+				final GranuleLoader loader = loaders.get(i);
+				if (executor != null)
+					submit(i + 1 + window, opaqueArea);
+				Future<GranuleLoadingResult> future = tasks.get(i);
+				if ((executor != null && future == null)
+						|| (opaqueArea != null && isCovered(loader, opaqueArea))) {
+					// hidden when it was about to be submitted, or by the granules added since
+					if (future != null && !future.cancel(false))
+						// do not interrupt a running load, the reader might be pooled
+						discarded.add(future);
+					skipped++;
+					if (LOGGER.isLoggable(Level.FINER))
+						LOGGER.finer("Skipping granule " + loader.getGranule().granuleUrl
+								+ " as it is hidden by the previous ones");
+					continue;
+				}
 				
 				final RenderedImage loadedImage;
 				final GranuleLoadingResult result;
@@ -408,13 +464,16 @@ class RasterLayerResponse{
 				final String canonicalPath;
 				boolean doFiltering;
 				try {
-					if(!multithreadingAllowed || rasterManager.parent.multiThreadedLoader == null)
+					if(executor == null)
 					{
 						//run the loading in this thread
-					    final FutureTask<GranuleLoadingResult> task=(FutureTask<GranuleLoadingResult>) future;
+					    final FutureTask<GranuleLoadingResult> task=new FutureTask<GranuleLoadingResult>(loader);
                                             task.run();
+                                            future = task;
 					}
 					result = future.get();
+					loadTime += loader.getLoadTime();
+					maxQueueTime = Math.max(maxQueueTime, loader.getQueueTime());
                                         if (result == null) {
                                             if (LOGGER.isLoggable(Level.FINE))
                                                 LOGGER.log(Level.FINE, "Unable to load the raster for granule " 
@@ -426,6 +485,10 @@ class RasterLayerResponse{
 					url = result.granuleUrl;
 					inputFile = DataUtilities.urlToFile(url);
 					canonicalPath = inputFile.getCanonicalPath();
+					if (LOGGER.isLoggable(Level.FINER))
+						LOGGER.finer("Granule " + canonicalPath + " waited "
+								+ loader.getQueueTime() / 1000000 + "ms and loaded in "
+								+ loader.getLoadTime() / 1000000 + "ms");
 					if(loadedImage==null)
 					{
 						if(LOGGER.isLoggable(Level.FINE))
@@ -488,9 +551,11 @@ class RasterLayerResponse{
 				Rectangle bounds = PlanarImage.wrapRenderedImage(raster).getBounds();
 				Geometry mask = JTS.toGeometry(new Envelope(bounds.getMinX(), bounds.getMaxX(), bounds.getMinY(), bounds.getMaxY()));
 				ROI imageBounds = new ROIGeometry(mask);
+				boolean hasFootprint = false;
                                 if (footprintManagement){
                                     final ROI footprint = result.getFootprint();
                                     if (footprint != null) {
+                                        hasFootprint = true;
                                         if (imageBounds.contains(footprint.getBounds2D().getBounds())) {
                                             imageBounds = footprint;
                                         } else {
@@ -523,6 +588,9 @@ class RasterLayerResponse{
                                     }
                                 }
                                 rois.add(imageBounds);
+                                if (opaqueArea != null)
+                                    opaqueArea.add(bounds, loadedImage.getColorModel().hasAlpha(),
+                                            hasFootprint);
 
 				// add to mosaic
                                 sources.add(raster);
@@ -532,7 +600,27 @@ class RasterLayerResponse{
 				granuleIndex++;
 			}
 
+			// release the hidden granules that have been loaded anyways
+			for (Future<GranuleLoadingResult> future : discarded) {
+				try {
+					dispose(future.get());
+				} catch (Exception e) {
+					if (LOGGER.isLoggable(Level.FINE))
+						LOGGER.log(Level.FINE, "Failed to load a hidden granule", e);
+				}
+			}
+
 			granulesNumber=granuleIndex;
+			if (LOGGER.isLoggable(Level.FINE))
+				LOGGER.fine("Loaded " + granuleIndex + " granules out of " + tasks.size() + " ("
+						+ skipped + " hidden ones skipped) in "
+						+ (System.nanoTime() - start) / 1000000 + "ms, total load time "
+						+ loadTime / 1000000 + "ms, max queue time " + maxQueueTime / 1000000
+						+ "ms, request was " + request);
+			// the builder gets reused if the filtered query returned nothing
+			tasks.clear();
+			loaders.clear();
+			nextSubmission = 0;
 			if(granulesNumber==0)
 			{
 				if(LOGGER.isLoggable(Level.FINE))
@@ -542,9 +630,100 @@ class RasterLayerResponse{
 			granulesPaths = paths.toString();
 	                sourceRoi = rois.toArray(new ROI[rois.size()]);
 		}
+
+		/**
+		 * Submits the granules to the executor up to the specified index, excluded. The granules
+		 * already hidden by the opaque granules in the mosaic are not submitted at all.
+		 */
+		private void submit(int end, OpaqueArea opaqueArea) {
+			end = Math.min(end, loaders.size());
+			for (; nextSubmission < end; nextSubmission++) {
+				final GranuleLoader loader = loaders.get(nextSubmission);
+				if (opaqueArea == null || !isCovered(loader, opaqueArea))
+					tasks.set(nextSubmission, executor.submit(loader));
+			}
+		}
+
+		/**
+		 * Releases the image of a granule that is not going to be mosaicked
+		 */
+		private void dispose(GranuleLoadingResult result) {
+			if (result != null && result.getRaster() instanceof PlanarImage)
+				ImageUtilities.disposePlanarImageChain((PlanarImage) result.getRaster());
+		}
+
+		/**
+		 * Checks whether the area the granule would cover in the output raster is already fully
+		 * covered by the opaque granules in front of it.
+		 */
+		private boolean isCovered(GranuleLoader loader, OpaqueArea opaqueArea) {
+			if (opaqueArea.isEmpty())
+				return false;
+			final ReferencedEnvelope granuleBBox = loader.getGranule().granuleBBOX;
+			if (granuleBBox == null || !mosaicBBox.intersects((Envelope) granuleBBox))
+				return false;
+			try {
+				final GeneralEnvelope granuleRaster = CRS.transform(finalWorldToGridCorner,
+						new ReferencedEnvelope(mosaicBBox.intersection(granuleBBox), mosaicBBox
+								.getCoordinateReferenceSystem()));
+				return opaqueArea.covers(granuleRaster.getMinimum(0), granuleRaster.getMinimum(1),
+						granuleRaster.getMaximum(0), granuleRaster.getMaximum(1));
+			} catch (TransformException e) {
+				return false;
+			}
+		}
 		
 	}
 
+	/**
+	 * The area of the output raster covered by the opaque granules already in a flat mosaic, where
+	 * the first granule wins, so that the granules hidden behind them can be skipped. Granules with
+	 * alpha or a footprint may let the ones behind show through, so they never add to the area.
+	 */
+	static class OpaqueArea {
+		private final Area area = new Area();
+
+		private final Rectangle rasterBounds;
+
+		/**
+		 * @param rasterBounds The bounds of the output raster
+		 */
+		OpaqueArea(Rectangle rasterBounds) {
+			this.rasterBounds = rasterBounds;
+		}
+
+		/**
+		 * Adds a granule to the mosaic
+		 * 
+		 * @param bounds The granule bounds in the output raster
+		 * @param hasAlpha Whether the granule has an alpha channel
+		 * @param hasFootprint Whether the granule has a footprint
+		 */
+		void add(Rectangle bounds, boolean hasAlpha, boolean hasFootprint) {
+			if (!hasAlpha && !hasFootprint)
+				area.add(new Area(bounds));
+		}
+
+		boolean isEmpty() {
+			return area.isEmpty();
+		}
+
+		/**
+		 * Checks whether the specified output raster area is fully covered by the opaque granules.
+		 * The area is rounded outwards, so that we never skip a granule that could still
+		 * contribute a pixel, and clipped to the output raster bounds.
+		 */
+		boolean covers(double minX, double minY, double maxX, double maxY) {
+			final int x = (int) Math.floor(minX) - 1;
+			final int y = (int) Math.floor(minY) - 1;
+			final int width = (int) Math.ceil(maxX) + 1 - x;
+			final int height = (int) Math.ceil(maxY) + 1 - y;
+			final Rectangle visible = new Rectangle(x, y, width, height)
+					.intersection(rasterBounds);
+			return !visible.isEmpty() && area.contains(visible);
+		}
+	}
+
 	/** Logger. */
 	private final static Logger LOGGER = org.geotools.util.logging.Logging.getLogger(RasterLayerResponse.class);
 	
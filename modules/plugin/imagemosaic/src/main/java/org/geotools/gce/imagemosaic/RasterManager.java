@@ -195,6 +195,9 @@ class RasterManager {
 	
 	ImageLayout defaultImageLayout;
 
+	/** The pool of open granule readers, null if not enabled */
+	final GranuleReaderPool granuleReaderPool;
+
 	public RasterManager(final ImageMosaicReader reader) throws DataSourceException {
 		
 		Utilities.ensureNonNull("ImageMosaicReader", reader);
@@ -209,6 +212,7 @@ class RasterManager {
         
         coverageIdentifier=reader.getName();
         hints = reader.getHints();
+        granuleReaderPool = createGranuleReaderPool(hints);
         this.coverageIdentifier =reader.getName();
         this.coverageFactory = reader.getGridCoverageFactory();
         this.pathType=parent.pathType;
@@ -355,9 +359,26 @@ class RasterManager {
                     if (LOGGER.isLoggable(Level.FINE))
                         LOGGER.log(Level.FINE, e.getLocalizedMessage(), e);
                 }                
+                if (granuleReaderPool != null)
+                    granuleReaderPool.dispose();
             }
 	}
 
+	/**
+	 * Creates the pool of open granule readers if enabled by the
+	 * {@link ImageMosaicFormat#MAX_OPEN_GRANULES} hint
+	 */
+	private static GranuleReaderPool createGranuleReaderPool(final Hints hints) {
+	    if (hints == null)
+	        return null;
+	    final Object maxOpen = hints.get(ImageMosaicFormat.MAX_OPEN_GRANULES);
+	    if (!(maxOpen instanceof Integer) || ((Integer) maxOpen).intValue() <= 0)
+	        return null;
+	    final Object timeout = hints.get(ImageMosaicFormat.GRANULE_IDLE_TIMEOUT);
+	    return new GranuleReaderPool((Integer) maxOpen, timeout instanceof Long ? (Long) timeout
+	            : GranuleReaderPool.DEFAULT_IDLE_TIMEOUT);
+	}
+
 	/**
 	 * Retrieves the list of features that intersect the provided envelope
 	 * loading them inside an index in memory where needed.
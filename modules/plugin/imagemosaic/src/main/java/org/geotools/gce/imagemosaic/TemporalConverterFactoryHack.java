@@ -74,7 +74,10 @@ class TemporalConverterFactoryHack implements ConverterFactory {
                 return new Converter() {
                     public Object convert(Object source, Class target) throws Exception {
                         if(source instanceof Date){
-                            return df.format((Date) source);
+                            // converters are cached and shared, SimpleDateFormat is not thread safe
+                            synchronized (df) {
+                                return df.format((Date) source);
+                            }
                         }
                         return null;
                     }
@@ -94,7 +97,9 @@ class TemporalConverterFactoryHack implements ConverterFactory {
                 return new Converter() {
                     public Object convert(Object source, Class target) throws Exception {
                         if(source instanceof Calendar){
-                            return df.format(((Calendar) source).getTime());
+                            synchronized (df) {
+                                return df.format(((Calendar) source).getTime());
+                            }
                         }  
                         return null;
                     }
@@ -111,7 +116,9 @@ class TemporalConverterFactoryHack implements ConverterFactory {
                 return new Converter() {
                     public Object convert(Object source, Class target) throws Exception {
                         if(source instanceof XMLGregorianCalendar){
-                            return df.format(((XMLGregorianCalendar) source).toGregorianCalendar(TimeZone.getTimeZone("GMT"),Locale.getDefault(),null).getTime());
+                            synchronized (df) {
+                                return df.format(((XMLGregorianCalendar) source).toGregorianCalendar(TimeZone.getTimeZone("GMT"),Locale.getDefault(),null).getTime());
+                            }
                         }
                         return null;
                     }
@@ -150,6 +150,7 @@ public class Utils {
         public static final String RESOLUTION_LEVELS = "ResolutionLevels";
         public static final String PROPERTY_COLLECTORS = "PropertyCollectors";
         public final static String CACHING= "Caching";        
+        public final static String PERSISTENT_INDEX= "PersistentIndex";
     }
         /**
 	 * Logger.
@@ -402,6 +403,14 @@ public class Utils {
 			}
 		}
 
+		//
+		// persistent index
+		//
+		if (properties.containsKey(Prop.PERSISTENT_INDEX)) {
+			retValue.setPersistentIndex(Boolean.valueOf(properties.getProperty(
+					Prop.PERSISTENT_INDEX).trim()));
+		}
+
 		//
 		// name is not optional
 		//
@@ -692,6 +692,26 @@ class GTDataStoreGranuleCatalog extends AbstractGranuleCatalog {
 		
 	}
 
+	/**
+	 * Returns the number of granules matching the query, letting the store count them if it
+	 * can do so without reading the features
+	 */
+	int getCount(Query query) throws IOException {
+		final Lock lock=rwLock.readLock();
+		try{
+			lock.lock();
+			checkStore();
+			final SimpleFeatureSource fs = tileIndexStore.getFeatureSource(query.getTypeName());
+			int count = fs.getCount(query);
+			if (count < 0) {
+				count = fs.getFeatures(query).size();
+			}
+			return count;
+		}finally{
+			lock.unlock();
+		}
+	}
+
 	public QueryCapabilities getQueryCapabilities() {
 		final Lock lock=rwLock.readLock();
 		try{
@@ -136,6 +136,19 @@ public abstract class GranuleCatalogFactory {
 			}
 		}		
 		// istantiate
+		if(configuration.isPersistentIndex()){
+			// the index is kept next to the source, named after the type
+			final String indexName=typeName!=null?typeName:FilenameUtils.getBaseName(sourceFile.getName());
+			final File indexFile=new File(sourceFile.getParentFile(),indexName+MappedGranuleCatalog.INDEX_EXTENSION);
+			return new MappedGranuleCatalog(
+					new GTDataStoreGranuleCatalog(params,false,spi),
+					indexFile,
+					sourceFile.lastModified(),
+					configuration.getTimeAttribute(),
+					configuration.getElevationAttribute(),
+					// the last modified time of the shapefile follows its contents
+					!extension.equalsIgnoreCase("shp"));
+		}
 		return configuration.isCaching()?new STRTreeGranuleCatalog(params,spi):new GTDataStoreGranuleCatalog(params,false,spi);
 	}
 
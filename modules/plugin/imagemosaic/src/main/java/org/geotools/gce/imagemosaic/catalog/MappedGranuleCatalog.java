@@ -0,0 +1,545 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.gce.imagemosaic.catalog;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.geotools.data.Query;
+import org.geotools.data.QueryCapabilities;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.factory.GeoTools;
+import org.geotools.feature.visitor.CountVisitor;
+import org.geotools.feature.visitor.FeatureCalc;
+import org.geotools.gce.imagemosaic.GranuleDescriptor;
+import org.geotools.gce.imagemosaic.catalog.GTDataStoreGranuleCatalog.BBOXFilterExtractor;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.util.Utilities;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.And;
+import org.opengis.filter.BinaryComparisonOperator;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+import org.opengis.filter.Or;
+import org.opengis.filter.PropertyIsBetween;
+import org.opengis.filter.PropertyIsEqualTo;
+import org.opengis.filter.PropertyIsGreaterThan;
+import org.opengis.filter.PropertyIsGreaterThanOrEqualTo;
+import org.opengis.filter.PropertyIsLessThan;
+import org.opengis.filter.PropertyIsLessThanOrEqualTo;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.Literal;
+import org.opengis.filter.expression.PropertyName;
+import org.opengis.filter.identity.FeatureId;
+import org.opengis.geometry.BoundingBox;
+
+/**
+ * A {@link GranuleCatalog} answering the spatial, time and elevation queries out of a
+ * {@link MappedGranuleIndex} stored next to the mosaic, and loading from the wrapped catalog
+ * only the granules that match, by feature identifier. The query filter is then evaluated on
+ * the features of the loaded granules, as the {@link STRTreeGranuleCatalog} does.
+ * <p>
+ * Differently from the {@link STRTreeGranuleCatalog} the granules are not all loaded in memory
+ * when the mosaic is opened: the index file is memory mapped, and it's built by scanning the
+ * wrapped catalog only if missing, or older than the catalog source. The modification time of
+ * a database catalog source does not follow the table contents, so for those catalogs the
+ * index is also rebuilt when the number of granules differs from the indexed one. Updates
+ * that keep the number of granules, such as a granule replaced in place, are not detected: the
+ * index file has to be removed to have it built again.
+ * <p>
+ * The catalog features must have stable identifiers, as shapefiles and databases with a primary
+ * key have. Queries the index cannot narrow down, or any query if the index cannot be built,
+ * are passed as they are to the wrapped catalog.
+ *
+ * @since 9.0
+ *
+ * @source $URL$
+ */
+class MappedGranuleCatalog extends AbstractGranuleCatalog {
+
+    /** Logger. */
+    final static Logger LOGGER = org.geotools.util.logging.Logging
+            .getLogger(MappedGranuleCatalog.class);
+
+    final static FilterFactory2 ff = CommonFactoryFinder.getFilterFactory2(GeoTools
+            .getDefaultHints());
+
+    /** The extension of the index files */
+    static final String INDEX_EXTENSION = ".gcx";
+
+    /** The number of granules loaded from the wrapped catalog with each query */
+    static final int BATCH_SIZE = 1000;
+
+    private GranuleCatalog wrappedCatalogue;
+
+    private final File indexFile;
+
+    private final long sourceLastModified;
+
+    private final boolean checkCount;
+
+    private final String timeAttribute;
+
+    private final String elevationAttribute;
+
+    private MappedGranuleIndex index;
+
+    private final ReadWriteLock rwLock = new ReentrantReadWriteLock(true);
+
+    /**
+     * Builds a new catalog, opening the index file or building it if missing or out of date.
+     * <p>
+     * Notice that this catalog will take ownership of the provided {@link GranuleCatalog},
+     * which means it is responsible for closing it.
+     *
+     * @param catalogue The {@link GranuleCatalog} to be wrapped
+     * @param indexFile The index file
+     * @param sourceLastModified The last modification time of the catalog source, an index
+     *        built for a different time is out of date
+     * @param timeAttribute The time attribute to index, or null
+     * @param elevationAttribute The elevation attribute to index, or null
+     * @param checkCount Whether to count the catalog granules when opening an existing index,
+     *        for sources whose modification time does not follow their contents
+     */
+    public MappedGranuleCatalog(GranuleCatalog catalogue, File indexFile,
+            long sourceLastModified, String timeAttribute, String elevationAttribute,
+            boolean checkCount) {
+        Utilities.ensureNonNull("catalogue", catalogue);
+        Utilities.ensureNonNull("indexFile", indexFile);
+        this.wrappedCatalogue = catalogue;
+        this.indexFile = indexFile;
+        this.sourceLastModified = sourceLastModified;
+        this.checkCount = checkCount;
+        this.timeAttribute = timeAttribute;
+        this.elevationAttribute = elevationAttribute;
+        try {
+            index = openIndex();
+        } catch (Throwable e) {
+            if (LOGGER.isLoggable(Level.WARNING))
+                LOGGER.log(Level.WARNING, "Unable to open the granule index " + indexFile
+                        + ", the granules will be queried from the catalog", e);
+        }
+    }
+
+    /**
+     * Opens the index file, building it first if missing or out of date
+     */
+    private MappedGranuleIndex openIndex() throws IOException {
+        if (indexFile.exists()) {
+            try {
+                final MappedGranuleIndex existing = MappedGranuleIndex.open(indexFile);
+                if (existing.getSourceLastModified() == sourceLastModified
+                        && Utilities.equals(existing.getTimeAttribute(), timeAttribute)
+                        && Utilities.equals(existing.getElevationAttribute(), elevationAttribute)
+                        && (!checkCount || existing.getCount() == countGranules())) {
+                    return existing;
+                }
+                // unmap it, or it could not be replaced on Windows
+                existing.close();
+                if (LOGGER.isLoggable(Level.FINE))
+                    LOGGER.fine("The granule index " + indexFile + " is out of date");
+            } catch (IOException e) {
+                if (LOGGER.isLoggable(Level.FINE))
+                    LOGGER.log(Level.FINE, "Invalid granule index " + indexFile, e);
+            }
+        }
+
+        // scan the catalog features, without creating the granules
+        final MappedGranuleIndex.Builder builder = new MappedGranuleIndex.Builder(
+                timeAttribute, elevationAttribute);
+        wrappedCatalogue.computeAggregateFunction(new Query(wrappedCatalogue.getType()
+                .getTypeName()), builder);
+        final ByteBuffer contents = builder.build(sourceLastModified);
+
+        // write it down and map it, falling back on the in memory copy if not writable
+        final File tmpFile = new File(indexFile.getParentFile(), indexFile.getName() + ".tmp");
+        try {
+            final RandomAccessFile raf = new RandomAccessFile(tmpFile, "rw");
+            try {
+                final FileChannel channel = raf.getChannel();
+                channel.truncate(0);
+                final ByteBuffer b = contents.duplicate();
+                while (b.hasRemaining()) {
+                    channel.write(b);
+                }
+            } finally {
+                raf.close();
+            }
+            if ((indexFile.exists() && !indexFile.delete()) || !tmpFile.renameTo(indexFile)) {
+                throw new IOException("Unable to replace " + indexFile);
+            }
+            return MappedGranuleIndex.open(indexFile);
+        } catch (IOException e) {
+            if (LOGGER.isLoggable(Level.WARNING))
+                LOGGER.log(Level.WARNING, "Unable to write the granule index " + indexFile
+                        + ", keeping it in memory", e);
+            tmpFile.delete();
+            return new MappedGranuleIndex(contents);
+        }
+    }
+
+    /**
+     * Counts the granules of the wrapped catalog, the data stores that can do so answer
+     * without reading the features, a database with a single aggregate query
+     */
+    private int countGranules() throws IOException {
+        final Query query = new Query(wrappedCatalogue.getType().getTypeName());
+        if (wrappedCatalogue instanceof GTDataStoreGranuleCatalog) {
+            return ((GTDataStoreGranuleCatalog) wrappedCatalogue).getCount(query);
+        }
+        final CountVisitor visitor = new CountVisitor();
+        wrappedCatalogue.computeAggregateFunction(query, visitor);
+        return visitor.getCount();
+    }
+
+    /**
+     * Looks up the granules matching the filter in the index
+     *
+     * @return The granules, sorted in ascending order, or null if the index can't narrow down
+     *         the filter
+     */
+    int[] select(Filter filter) {
+        int[] granules = null;
+
+        final BBOXFilterExtractor bboxExtractor = new BBOXFilterExtractor();
+        filter.accept(bboxExtractor, null);
+        final ReferencedEnvelope bbox = bboxExtractor.getBBox();
+        if (bbox != null) {
+            granules = index.search(bbox);
+        }
+        if (timeAttribute != null) {
+            final List<double[]> ranges = extractRanges(filter, timeAttribute);
+            if (ranges != null) {
+                granules = intersect(granules, index.searchTime(ranges));
+            }
+        }
+        if (elevationAttribute != null) {
+            final List<double[]> ranges = extractRanges(filter, elevationAttribute);
+            if (ranges != null) {
+                granules = intersect(granules, index.searchElevation(ranges));
+            }
+        }
+        return granules;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        return a == null ? b : MappedGranuleIndex.intersect(a, b);
+    }
+
+    /**
+     * Extracts the ranges of values of the specified attribute a filter can match, the result
+     * may be larger than the actual values matched but never smaller.
+     *
+     * @return The minimum and maximum value of each range, both included, or null if the
+     *         filter does not constrain the attribute
+     */
+    static List<double[]> extractRanges(Filter filter, String attribute) {
+        if (filter == null || filter == Filter.INCLUDE) {
+            return null;
+        }
+        if (filter == Filter.EXCLUDE) {
+            return new ArrayList<double[]>();
+        }
+        if (filter instanceof And) {
+            // all the constraints must be satisfied
+            List<double[]> result = null;
+            for (Filter child : ((And) filter).getChildren()) {
+                final List<double[]> ranges = extractRanges(child, attribute);
+                if (ranges != null) {
+                    result = result == null ? ranges : intersectRanges(result, ranges);
+                }
+            }
+            return result;
+        }
+        if (filter instanceof Or) {
+            // any constraint can be satisfied, all of them must be known
+            final List<double[]> result = new ArrayList<double[]>();
+            for (Filter child : ((Or) filter).getChildren()) {
+                final List<double[]> ranges = extractRanges(child, attribute);
+                if (ranges == null) {
+                    return null;
+                }
+                result.addAll(ranges);
+            }
+            return result;
+        }
+        if (filter instanceof PropertyIsBetween) {
+            final PropertyIsBetween between = (PropertyIsBetween) filter;
+            if (!isAttribute(between.getExpression(), attribute)) {
+                return null;
+            }
+            final double min = toKey(between.getLowerBoundary());
+            final double max = toKey(between.getUpperBoundary());
+            if (Double.isNaN(min) || Double.isNaN(max)) {
+                return null;
+            }
+            return range(min, max);
+        }
+        if (filter instanceof BinaryComparisonOperator) {
+            final BinaryComparisonOperator comparison = (BinaryComparisonOperator) filter;
+            final boolean attributeFirst;
+            final double value;
+            if (isAttribute(comparison.getExpression1(), attribute)) {
+                attributeFirst = true;
+                value = toKey(comparison.getExpression2());
+            } else if (isAttribute(comparison.getExpression2(), attribute)) {
+                attributeFirst = false;
+                value = toKey(comparison.getExpression1());
+            } else {
+                return null;
+            }
+            if (Double.isNaN(value)) {
+                return null;
+            }
+            // strict comparisons are widened, the filter is evaluated anyways
+            if (filter instanceof PropertyIsEqualTo) {
+                return range(value, value);
+            }
+            if (filter instanceof PropertyIsLessThan
+                    || filter instanceof PropertyIsLessThanOrEqualTo) {
+                return attributeFirst ? range(Double.NEGATIVE_INFINITY, value) : range(value,
+                        Double.POSITIVE_INFINITY);
+            }
+            if (filter instanceof PropertyIsGreaterThan
+                    || filter instanceof PropertyIsGreaterThanOrEqualTo) {
+                return attributeFirst ? range(value, Double.POSITIVE_INFINITY) : range(
+                        Double.NEGATIVE_INFINITY, value);
+            }
+        }
+        return null;
+    }
+
+    private static boolean isAttribute(Expression expression, String attribute) {
+        return expression instanceof PropertyName
+                && attribute.equalsIgnoreCase(((PropertyName) expression).getPropertyName());
+    }
+
+    private static double toKey(Expression expression) {
+        return expression instanceof Literal ? MappedGranuleIndex.toKey(((Literal) expression)
+                .getValue()) : Double.NaN;
+    }
+
+    private static List<double[]> range(double min, double max) {
+        final List<double[]> ranges = new ArrayList<double[]>(1);
+        ranges.add(new double[] { min, max });
+        return ranges;
+    }
+
+    private static List<double[]> intersectRanges(List<double[]> a, List<double[]> b) {
+        final List<double[]> result = new ArrayList<double[]>();
+        for (double[] ra : a) {
+            for (double[] rb : b) {
+                final double min = Math.max(ra[0], rb[0]);
+                final double max = Math.min(ra[1], rb[1]);
+                if (min <= max) {
+                    result.add(new double[] { min, max });
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Loads the specified granules from the wrapped catalog, in batches, evaluating the query
+     * filter on them as well.
+     * <p>
+     * The batches are queried by identifier alone, so that stores with a feature identifier
+     * index, such as the indexed shapefile one, can read the granules straight out of it, and
+     * the query filter is evaluated on the features of the loaded granules.
+     */
+    private void loadGranules(final Query q, final int[] granules,
+            final GranuleCatalogVisitor visitor) throws IOException {
+        final Filter filter = q.getFilter() == null ? Filter.INCLUDE : q.getFilter();
+        final int maxGranules = q.getMaxFeatures();
+        // sorting must happen on all the granules at once
+        final boolean sorted = q.getSortBy() != null && q.getSortBy().length > 0;
+        final int batchSize = sorted ? granules.length : BATCH_SIZE;
+        final int[] loaded = new int[1];
+        final GranuleCatalogVisitor filtering = new GranuleCatalogVisitor() {
+            public void visit(GranuleDescriptor granule, Object o) {
+                if (loaded[0] >= maxGranules) {
+                    return;
+                }
+                if (!Filter.INCLUDE.equals(filter)) {
+                    final SimpleFeature originator = granule.getOriginator();
+                    if (originator == null || !filter.evaluate(originator)) {
+                        return;
+                    }
+                }
+                loaded[0]++;
+                visitor.visit(granule, o);
+            }
+        };
+        for (int start = 0; start < granules.length && loaded[0] < maxGranules; start += batchSize) {
+            final int end = Math.min(start + batchSize, granules.length);
+            final Set<FeatureId> ids = new HashSet<FeatureId>();
+            for (int i = start; i < end; i++) {
+                ids.add(ff.featureId(index.getFeatureId(granules[i])));
+            }
+            final Query batch = new Query(q);
+            batch.setFilter(ff.id(ids));
+            // the filter is evaluated afterwards, the limit is enforced by the visitor
+            batch.setMaxFeatures(Query.DEFAULT_MAX);
+            wrappedCatalogue.getGranules(batch, filtering);
+        }
+    }
+
+    public void getGranules(Query q, GranuleCatalogVisitor visitor) throws IOException {
+        Utilities.ensureNonNull("q", q);
+        Utilities.ensureNonNull("visitor", visitor);
+        final Lock lock = rwLock.readLock();
+        try {
+            lock.lock();
+            checkStore();
+
+            final int[] granules = index != null && q.getFilter() != null ? select(q
+                    .getFilter()) : null;
+            if (granules == null) {
+                wrappedCatalogue.getGranules(q, visitor);
+            } else if (granules.length > 0) {
+                loadGranules(q, granules, visitor);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<GranuleDescriptor> getGranules(Query q) throws IOException {
+        final List<GranuleDescriptor> returnValue = new ArrayList<GranuleDescriptor>();
+        getGranules(q, new GranuleCatalogVisitor() {
+            public void visit(GranuleDescriptor granule, Object o) {
+                returnValue.add(granule);
+            }
+        });
+        return returnValue;
+    }
+
+    public void getGranules(BoundingBox envelope, GranuleCatalogVisitor visitor)
+            throws IOException {
+        Utilities.ensureNonNull("envelope", envelope);
+        getGranules(createQuery(envelope), visitor);
+    }
+
+    public List<GranuleDescriptor> getGranules(BoundingBox envelope) throws IOException {
+        Utilities.ensureNonNull("envelope", envelope);
+        return getGranules(createQuery(envelope));
+    }
+
+    private Query createQuery(BoundingBox envelope) throws IOException {
+        final SimpleFeatureType type = getType();
+        return new Query(type.getTypeName(), ff.bbox(ff.property(type.getGeometryDescriptor()
+                .getLocalName()), ReferencedEnvelope.reference(envelope)));
+    }
+
+    public Collection<GranuleDescriptor> getGranules() throws IOException {
+        final Lock lock = rwLock.readLock();
+        try {
+            lock.lock();
+            checkStore();
+            return wrappedCatalogue.getGranules();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void dispose() {
+        final Lock l = rwLock.writeLock();
+        try {
+            l.lock();
+            if (wrappedCatalogue != null)
+                try {
+                    wrappedCatalogue.dispose();
+                } catch (Exception e) {
+                    if (LOGGER.isLoggable(Level.FINE))
+                        LOGGER.log(Level.FINE, e.getLocalizedMessage(), e);
+                }
+        } finally {
+            if (index != null) {
+                index.close();
+            }
+            wrappedCatalogue = null;
+            index = null;
+            l.unlock();
+        }
+    }
+
+    /**
+     * @throws IllegalStateException
+     */
+    private void checkStore() throws IllegalStateException {
+        if (wrappedCatalogue == null)
+            throw new IllegalStateException("The underlying store has already been disposed!");
+    }
+
+    public BoundingBox getBounds() {
+        final Lock lock = rwLock.readLock();
+        try {
+            lock.lock();
+            checkStore();
+            return wrappedCatalogue.getBounds();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public SimpleFeatureType getType() throws IOException {
+        final Lock lock = rwLock.readLock();
+        try {
+            lock.lock();
+            checkStore();
+            return wrappedCatalogue.getType();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void computeAggregateFunction(Query query, FeatureCalc function) throws IOException {
+        final Lock lock = rwLock.readLock();
+        try {
+            lock.lock();
+            checkStore();
+            wrappedCatalogue.computeAggregateFunction(query, function);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public QueryCapabilities getQueryCapabilities() {
+        final Lock lock = rwLock.readLock();
+        try {
+            lock.lock();
+            checkStore();
+            return wrappedCatalogue.getQueryCapabilities();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
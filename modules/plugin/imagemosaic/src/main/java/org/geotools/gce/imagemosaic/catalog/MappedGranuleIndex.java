@@ -0,0 +1,565 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.gce.imagemosaic.catalog;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import org.geotools.feature.visitor.CalcResult;
+import org.geotools.feature.visitor.FeatureCalc;
+import org.geotools.index.TreeException;
+import org.geotools.index.hilbert.HilbertRTree;
+import org.geotools.index.hilbert.HilbertRTreeBuilder;
+import org.geotools.resources.NIOUtilities;
+import org.geotools.util.Converters;
+import org.opengis.feature.Feature;
+import org.opengis.feature.Property;
+import org.opengis.geometry.BoundingBox;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * A granule catalog index stored in a single flat file, that is memory mapped and searched in
+ * place, without loading the granules in memory.
+ * <p>
+ * The granules are identified by their position in the index, the index maps them to the
+ * identifiers of the catalog features, and holds a packed {@link HilbertRTree} of the granule
+ * bounds plus two sorted attribute indexes, for the time and elevation attributes, that map the
+ * attribute values to the granules. Times are stored as milliseconds since the epoch.
+ * </p>
+ * The file layout, in little endian byte order, is:
+ * <ul>
+ * <li>the "GCTX" signature, the format version, the last modification time of the catalog
+ * source, the number of granules, the number of time and elevation values, the length of the
+ * attribute names, of the tree and of the identifiers</li>
+ * <li>the time and elevation attribute names, separated by a new line</li>
+ * <li>the tree, in the {@link HilbertRTree} format</li>
+ * <li>the sorted time values and then the elevation values, as doubles</li>
+ * <li>the granules of each time value and then of each elevation value</li>
+ * <li>the offsets of the granule identifiers, and the identifiers themselves in UTF-8</li>
+ * </ul>
+ * The sections are aligned to eight bytes.
+ *
+ * @since 9.0
+ *
+ * @source $URL$
+ */
+class MappedGranuleIndex {
+
+    static final byte[] SIGNATURE = new byte[] { 'G', 'C', 'T', 'X' };
+
+    static final int VERSION = 1;
+
+    static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    static final int HEADER_SIZE = 48;
+
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    static final int[] EMPTY = new int[0];
+
+    private final ByteBuffer buffer;
+
+    /**
+     * The memory mapped file contents, if the index has been opened from a file, to be unmapped
+     * on close
+     */
+    private MappedByteBuffer mapped;
+
+    private final HilbertRTree tree;
+
+    private final long sourceLastModified;
+
+    private final int count;
+
+    private final String timeAttribute;
+
+    private final String elevationAttribute;
+
+    private final int timeCount;
+
+    private final int elevationCount;
+
+    private final int timeKeys;
+
+    private final int elevationKeys;
+
+    private final int timeIds;
+
+    private final int elevationIds;
+
+    private final int fidOffsets;
+
+    private final int fidData;
+
+    /**
+     * Opens the index stored in the specified file, memory mapping it
+     *
+     * @param file
+     * @throws IOException If the file can't be read or it's not a valid index
+     */
+    static MappedGranuleIndex open(File file) throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = raf.getChannel();
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Granule index " + file + " is too big");
+            }
+            final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            try {
+                final MappedGranuleIndex index = new MappedGranuleIndex(mapped);
+                index.mapped = mapped;
+                return index;
+            } catch (IOException e) {
+                NIOUtilities.clean(mapped, true);
+                throw e;
+            }
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Unmaps the index file, if the index has been opened from one. The mapped file is
+     * unmapped right away, so that it can be rebuilt or deleted also on Windows. The index
+     * must not be used anymore afterwards.
+     */
+    void close() {
+        if (mapped != null) {
+            NIOUtilities.clean(mapped, true);
+            mapped = null;
+        }
+    }
+
+    /**
+     * Wraps a buffer containing the index
+     *
+     * @param buffer
+     * @throws IOException If the buffer does not contain a valid index
+     */
+    MappedGranuleIndex(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.duplicate();
+        this.buffer.order(BYTE_ORDER);
+        final ByteBuffer b = this.buffer;
+        if (b.limit() < HEADER_SIZE) {
+            throw new IOException("Invalid granule index, the header is truncated");
+        }
+        for (int i = 0; i < SIGNATURE.length; i++) {
+            if (b.get(i) != SIGNATURE[i]) {
+                throw new IOException("Invalid granule index signature");
+            }
+        }
+        final int version = b.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported granule index version " + version);
+        }
+        sourceLastModified = b.getLong(8);
+        count = b.getInt(16);
+        timeCount = b.getInt(20);
+        elevationCount = b.getInt(24);
+        final int attributesLength = b.getInt(28);
+        final int treeLength = b.getInt(32);
+        final int fidDataLength = b.getInt(36);
+        if (count < 0 || timeCount < 0 || elevationCount < 0 || attributesLength < 0
+                || treeLength < 0 || fidDataLength < 0) {
+            throw new IOException("Invalid granule index, the header is corrupted");
+        }
+
+        // work out the sections positions, in longs to spot corrupted headers
+        final long treeOffset = align(HEADER_SIZE + (long) attributesLength);
+        final long timeKeys = align(treeOffset + treeLength);
+        final long elevationKeys = timeKeys + 8L * timeCount;
+        final long timeIds = elevationKeys + 8L * elevationCount;
+        final long elevationIds = timeIds + 4L * timeCount;
+        final long fidOffsets = elevationIds + 4L * elevationCount;
+        final long fidData = fidOffsets + 4L * (count + 1);
+        if (fidData + fidDataLength > b.limit()) {
+            throw new IOException("Invalid granule index, the file is corrupted or truncated");
+        }
+        this.timeKeys = (int) timeKeys;
+        this.elevationKeys = (int) elevationKeys;
+        this.timeIds = (int) timeIds;
+        this.elevationIds = (int) elevationIds;
+        this.fidOffsets = (int) fidOffsets;
+        this.fidData = (int) fidData;
+
+        final String[] attributes = new String(getBytes(HEADER_SIZE, attributesLength), UTF8)
+                .split("\n", -1);
+        if (attributes.length != 2) {
+            throw new IOException("Invalid granule index, the attribute names are corrupted");
+        }
+        timeAttribute = attributes[0].length() > 0 ? attributes[0] : null;
+        elevationAttribute = attributes[1].length() > 0 ? attributes[1] : null;
+
+        final ByteBuffer treeBuffer = b.duplicate();
+        treeBuffer.position((int) treeOffset);
+        treeBuffer.limit((int) treeOffset + treeLength);
+        try {
+            tree = new HilbertRTree(treeBuffer.slice());
+        } catch (TreeException e) {
+            throw (IOException) new IOException("Invalid granule index, the tree is corrupted")
+                    .initCause(e);
+        }
+        if (tree.getNumItems() != count) {
+            throw new IOException("Invalid granule index, the tree is corrupted");
+        }
+    }
+
+    /**
+     * The last modification time of the catalog source when the index was built
+     */
+    long getSourceLastModified() {
+        return sourceLastModified;
+    }
+
+    /**
+     * The number of granules
+     */
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * The indexed time attribute, or null
+     */
+    String getTimeAttribute() {
+        return timeAttribute;
+    }
+
+    /**
+     * The indexed elevation attribute, or null
+     */
+    String getElevationAttribute() {
+        return elevationAttribute;
+    }
+
+    /**
+     * Returns the granules whose bounds intersect the specified envelope, sorted in ascending
+     * order
+     */
+    int[] search(Envelope envelope) {
+        return tree.search(envelope);
+    }
+
+    /**
+     * Returns the granules whose time falls in at least one of the specified ranges, sorted in
+     * ascending order
+     *
+     * @param ranges The minimum and maximum time of each range, both included
+     */
+    int[] searchTime(List<double[]> ranges) {
+        return searchAttribute(timeKeys, timeIds, timeCount, ranges);
+    }
+
+    /**
+     * Returns the granules whose elevation falls in at least one of the specified ranges,
+     * sorted in ascending order
+     *
+     * @param ranges The minimum and maximum elevation of each range, both included
+     */
+    int[] searchElevation(List<double[]> ranges) {
+        return searchAttribute(elevationKeys, elevationIds, elevationCount, ranges);
+    }
+
+    int[] searchAttribute(int keys, int ids, int size, List<double[]> ranges) {
+        final ByteBuffer b = buffer;
+        int[] result = new int[16];
+        int n = 0;
+        for (double[] range : ranges) {
+            // find the first value not lower than the range minimum
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (b.getDouble(keys + mid * 8) < range[0]) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            for (int i = low; i < size && b.getDouble(keys + i * 8) <= range[1]; i++) {
+                if (n == result.length) {
+                    result = Arrays.copyOf(result, n * 2);
+                }
+                result[n++] = b.getInt(ids + i * 4);
+            }
+        }
+        return sortUnique(result, n);
+    }
+
+    /**
+     * The identifier of the catalog feature of the specified granule
+     */
+    String getFeatureId(int granule) {
+        final int start = buffer.getInt(fidOffsets + granule * 4);
+        final int end = buffer.getInt(fidOffsets + granule * 4 + 4);
+        return new String(getBytes(fidData + start, end - start), UTF8);
+    }
+
+    private byte[] getBytes(int position, int length) {
+        final byte[] bytes = new byte[length];
+        final ByteBuffer b = buffer.duplicate();
+        b.position(position);
+        b.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Returns the values found in both the sorted arrays
+     */
+    static int[] intersect(int[] a, int[] b) {
+        final int[] result = new int[Math.min(a.length, b.length)];
+        int n = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length;) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    static int[] sortUnique(int[] values, int size) {
+        if (size == 0) {
+            return EMPTY;
+        }
+        Arrays.sort(values, 0, size);
+        int n = 1;
+        for (int i = 1; i < size; i++) {
+            if (values[i] != values[n - 1]) {
+                values[n++] = values[i];
+            }
+        }
+        return Arrays.copyOf(values, n);
+    }
+
+    /**
+     * Converts a time or elevation value to the double used as the index key, returns NaN if
+     * the value can't be converted
+     */
+    static double toKey(Object value) {
+        if (value instanceof Date) {
+            return ((Date) value).getTime();
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value != null) {
+            final Date date = Converters.convert(value, Date.class);
+            if (date != null) {
+                return date.getTime();
+            }
+            final Double number = Converters.convert(value, Double.class);
+            if (number != null) {
+                return number.doubleValue();
+            }
+        }
+        return Double.NaN;
+    }
+
+    static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    /**
+     * Collects the granules of a catalog, visiting its features, and builds the index
+     */
+    static class Builder implements FeatureCalc {
+
+        private final String timeAttribute;
+
+        private final String elevationAttribute;
+
+        private final HilbertRTreeBuilder tree = new HilbertRTreeBuilder();
+
+        private final List<String> fids = new ArrayList<String>();
+
+        private final AttributeValues times = new AttributeValues();
+
+        private final AttributeValues elevations = new AttributeValues();
+
+        /**
+         * Builds a new index builder
+         *
+         * @param timeAttribute The time attribute to index, or null
+         * @param elevationAttribute The elevation attribute to index, or null
+         */
+        Builder(String timeAttribute, String elevationAttribute) {
+            this.timeAttribute = timeAttribute;
+            this.elevationAttribute = elevationAttribute;
+        }
+
+        public void visit(Feature feature) {
+            final BoundingBox bounds = feature.getBounds();
+            final int granule;
+            if (bounds == null || bounds.isEmpty()) {
+                granule = tree.add(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                        Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY);
+            } else {
+                granule = tree.add(bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(),
+                        bounds.getMaxY());
+            }
+            fids.add(feature.getIdentifier().getID());
+            if (timeAttribute != null) {
+                times.add(feature.getProperty(timeAttribute), granule);
+            }
+            if (elevationAttribute != null) {
+                elevations.add(feature.getProperty(elevationAttribute), granule);
+            }
+        }
+
+        public CalcResult getResult() {
+            return CalcResult.NULL_RESULT;
+        }
+
+        /**
+         * Builds the index contents
+         *
+         * @param sourceLastModified The last modification time of the catalog source
+         */
+        ByteBuffer build(long sourceLastModified) {
+            final byte[] attributes = ((timeAttribute != null ? timeAttribute : "") + "\n"
+                    + (elevationAttribute != null ? elevationAttribute : "")).getBytes(UTF8);
+            final ByteBuffer treeBuffer = tree.pack();
+            final byte[][] fidBytes = new byte[fids.size()][];
+            int fidDataLength = 0;
+            for (int i = 0; i < fidBytes.length; i++) {
+                fidBytes[i] = fids.get(i).getBytes(UTF8);
+                fidDataLength += fidBytes[i].length;
+            }
+            times.sort();
+            elevations.sort();
+
+            final long treeOffset = align(HEADER_SIZE + attributes.length);
+            final long timeKeys = align(treeOffset + treeBuffer.remaining());
+            final long size = timeKeys + 12L * (times.size + elevations.size) + 4L
+                    * (fidBytes.length + 1) + fidDataLength;
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Too many granules for a single index file");
+            }
+
+            final ByteBuffer b = ByteBuffer.allocate((int) size);
+            b.order(BYTE_ORDER);
+            b.put(SIGNATURE);
+            b.putInt(VERSION);
+            b.putLong(sourceLastModified);
+            b.putInt(fidBytes.length);
+            b.putInt(times.size);
+            b.putInt(elevations.size);
+            b.putInt(attributes.length);
+            b.putInt(treeBuffer.remaining());
+            b.putInt(fidDataLength);
+            b.position(HEADER_SIZE);
+            b.put(attributes);
+            b.position((int) treeOffset);
+            b.put(treeBuffer);
+            b.position((int) timeKeys);
+            times.putKeys(b);
+            elevations.putKeys(b);
+            times.putGranules(b);
+            elevations.putGranules(b);
+            int offset = 0;
+            for (int i = 0; i < fidBytes.length; i++) {
+                b.putInt(offset);
+                offset += fidBytes[i].length;
+            }
+            b.putInt(offset);
+            for (int i = 0; i < fidBytes.length; i++) {
+                b.put(fidBytes[i]);
+            }
+            b.flip();
+            return b;
+        }
+    }
+
+    /**
+     * The values of an indexed attribute, with the granules holding them
+     */
+    static class AttributeValues {
+        double[] keys = new double[1024];
+
+        int[] granules = new int[1024];
+
+        int size;
+
+        void add(Object value, int granule) {
+            if (value instanceof Property) {
+                value = ((Property) value).getValue();
+            }
+            final double key = toKey(value);
+            if (Double.isNaN(key)) {
+                return;
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                granules = Arrays.copyOf(granules, size * 2);
+            }
+            keys[size] = key;
+            granules[size] = granule;
+            size++;
+        }
+
+        void sort() {
+            final Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                public int compare(Integer a, Integer b) {
+                    return Double.compare(keys[a], keys[b]);
+                }
+            });
+            final double[] sortedKeys = new double[size];
+            final int[] sortedGranules = new int[size];
+            for (int i = 0; i < size; i++) {
+                sortedKeys[i] = keys[order[i]];
+                sortedGranules[i] = granules[order[i]];
+            }
+            keys = sortedKeys;
+            granules = sortedGranules;
+        }
+
+        void putKeys(ByteBuffer b) {
+            for (int i = 0; i < size; i++) {
+                b.putDouble(keys[i]);
+            }
+        }
+
+        void putGranules(ByteBuffer b) {
+            for (int i = 0; i < size; i++) {
+                b.putInt(granules[i]);
+            }
+        }
+    }
+}
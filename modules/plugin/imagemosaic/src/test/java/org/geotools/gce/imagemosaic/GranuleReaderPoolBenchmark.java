@@ -0,0 +1,111 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.gce.imagemosaic;
+
+import java.awt.Rectangle;
+import java.io.File;
+import java.util.Random;
+
+import org.geotools.coverage.grid.GridCoverage2D;
+import org.geotools.coverage.grid.GridEnvelope2D;
+import org.geotools.coverage.grid.GridGeometry2D;
+import org.geotools.coverage.grid.io.AbstractGridFormat;
+import org.geotools.factory.Hints;
+import org.geotools.geometry.GeneralEnvelope;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.opengis.coverage.grid.GridEnvelope;
+import org.opengis.parameter.GeneralParameterValue;
+import org.opengis.parameter.ParameterValue;
+
+/**
+ * Reads random small tiles out of a mosaic, with and without the pool of open granule readers,
+ * and reports the average latency per tile.
+ * <p>
+ * Usage: <code>GranuleReaderPoolBenchmark mosaicDir [tiles] [tileSize] [maxOpenGranules]</code>
+ *
+ * @source $URL$
+ */
+public class GranuleReaderPoolBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: GranuleReaderPoolBenchmark mosaicDir "
+                    + "[tiles] [tileSize] [maxOpenGranules]");
+            System.exit(1);
+        }
+        final File mosaic = new File(args[0]);
+        final int tiles = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        final int tileSize = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+        final int maxOpen = args.length > 3 ? Integer.parseInt(args[3]) : 256;
+
+        final ImageMosaicFormat format = new ImageMosaicFormat();
+        final ImageMosaicReader direct = format.getReader(mosaic, null);
+        final ImageMosaicReader pooled = format.getReader(mosaic, new Hints(
+                ImageMosaicFormat.MAX_OPEN_GRANULES, maxOpen));
+        try {
+            for (int round = 0; round < 5; round++) {
+                report("Pool off", run(direct, tiles, tileSize), tiles);
+                report("Pool on", run(pooled, tiles, tileSize), tiles);
+            }
+        } finally {
+            direct.dispose();
+            pooled.dispose();
+        }
+    }
+
+    static long run(ImageMosaicReader reader, int tiles, int tileSize) throws Exception {
+        final GeneralEnvelope bounds = reader.getOriginalEnvelope();
+        final GridEnvelope range = reader.getOriginalGridRange();
+        final double spanX = Math.min(bounds.getSpan(0) / range.getSpan(0) * tileSize,
+                bounds.getSpan(0));
+        final double spanY = Math.min(bounds.getSpan(1) / range.getSpan(1) * tileSize,
+                bounds.getSpan(1));
+
+        // same tiles for all the runs, read at native resolution without deferred loading
+        final Random random = new Random(0);
+        final long start = System.nanoTime();
+        for (int i = 0; i < tiles; i++) {
+            final double x = bounds.getMinimum(0) + random.nextDouble()
+                    * (bounds.getSpan(0) - spanX);
+            final double y = bounds.getMinimum(1) + random.nextDouble()
+                    * (bounds.getSpan(1) - spanY);
+            final ReferencedEnvelope envelope = new ReferencedEnvelope(x, x + spanX, y,
+                    y + spanY, reader.getCrs());
+
+            final ParameterValue<GridGeometry2D> gg = AbstractGridFormat.READ_GRIDGEOMETRY2D
+                    .createValue();
+            gg.setValue(new GridGeometry2D(new GridEnvelope2D(new Rectangle(0, 0, tileSize,
+                    tileSize)), envelope));
+            final ParameterValue<Boolean> jaiImageRead = AbstractGridFormat.USE_JAI_IMAGEREAD
+                    .createValue();
+            jaiImageRead.setValue(false);
+
+            final GridCoverage2D coverage = reader.read(new GeneralParameterValue[] { gg,
+                    jaiImageRead });
+            if (coverage != null) {
+                coverage.getRenderedImage().getData();
+                coverage.dispose(true);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    static void report(String name, long nanos, int tiles) {
+        System.out.println(name + ": " + nanos / 1000000 + "ms, " + nanos / 1000 / tiles
+                + "us per tile");
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.gce.imagemosaic;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URL;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+
+import org.geotools.gce.imagemosaic.GranuleReaderPool.Entry;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Testing {@link GranuleReaderPool} class.
+ *
+ * @source $URL$
+ */
+public class GranuleReaderPoolTest extends Assert {
+
+    static Entry open(URL url) {
+        return new Entry(url, new MemoryCacheImageInputStream(new ByteArrayInputStream(
+                new byte[16])), ImageIO.getImageReadersByFormatName("png").next());
+    }
+
+    static boolean isClosed(Entry entry) {
+        try {
+            entry.stream.read();
+            return false;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    @Test
+    public void testReuse() throws Exception {
+        URL a = new URL("file:/data/a.tif");
+        URL b = new URL("file:/data/b.tif");
+        GranuleReaderPool pool = new GranuleReaderPool(4, GranuleReaderPool.DEFAULT_IDLE_TIMEOUT);
+
+        assertNull(pool.acquire(a));
+        Entry entry = open(a);
+        pool.release(entry);
+        assertEquals(1, pool.getIdleCount());
+
+        // another granule does not get it
+        assertNull(pool.acquire(b));
+        assertSame(entry, pool.acquire(new URL("file:/data/a.tif")));
+        assertEquals(0, pool.getIdleCount());
+        assertFalse(isClosed(entry));
+        assertEquals(1, pool.getHits());
+        assertEquals(2, pool.getMisses());
+        pool.dispose();
+    }
+
+    @Test
+    public void testMaxIdle() throws Exception {
+        GranuleReaderPool pool = new GranuleReaderPool(2, GranuleReaderPool.DEFAULT_IDLE_TIMEOUT);
+        Entry first = open(new URL("file:/data/a.tif"));
+        Entry second = open(new URL("file:/data/b.tif"));
+        Entry third = open(new URL("file:/data/a.tif"));
+        pool.release(first);
+        pool.release(second);
+        pool.release(third);
+
+        // the least recently released one is closed
+        assertEquals(2, pool.getIdleCount());
+        assertTrue(isClosed(first));
+        assertFalse(isClosed(second));
+        assertSame(third, pool.acquire(new URL("file:/data/a.tif")));
+        assertNull(pool.acquire(new URL("file:/data/a.tif")));
+        pool.dispose();
+    }
+
+    @Test
+    public void testIdleTimeout() throws Exception {
+        GranuleReaderPool pool = new GranuleReaderPool(4, 0);
+        Entry entry = open(new URL("file:/data/a.tif"));
+        pool.release(entry);
+        assertNull(pool.acquire(new URL("file:/data/a.tif")));
+        assertEquals(0, pool.getIdleCount());
+        assertTrue(isClosed(entry));
+    }
+
+    @Test
+    public void testDispose() throws Exception {
+        GranuleReaderPool pool = new GranuleReaderPool(4, GranuleReaderPool.DEFAULT_IDLE_TIMEOUT);
+        Entry idle = open(new URL("file:/data/a.tif"));
+        pool.release(idle);
+        Entry used = open(new URL("file:/data/b.tif"));
+        pool.dispose();
+        assertTrue(isClosed(idle));
+        assertEquals(0, pool.getIdleCount());
+
+        // readers in use are closed as they come back
+        pool.release(used);
+        assertTrue(isClosed(used));
+        assertEquals(0, pool.getIdleCount());
+    }
+}
@@ -36,6 +36,7 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.TimeZone;
@@ -59,9 +60,13 @@ import org.geotools.coverage.grid.io.AbstractGridFormat;
 import org.geotools.coverage.grid.io.GridFormatFinder;
 import org.geotools.coverage.grid.io.OverviewPolicy;
 import org.geotools.coverage.grid.io.UnknownFormat;
+import org.geotools.data.Query;
+import org.geotools.factory.CommonFactoryFinder;
 import org.geotools.factory.Hints;
+import org.geotools.gce.imagemosaic.catalog.GranuleCatalog;
 import org.geotools.geometry.Envelope2D;
 import org.geotools.geometry.GeneralEnvelope;
+import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.geotools.parameter.Parameter;
 import org.geotools.referencing.CRS;
 import org.geotools.test.TestData;
@@ -74,6 +79,8 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
 import org.opengis.geometry.Envelope;
 import org.opengis.geometry.MismatchedDimensionException;
 import org.opengis.parameter.GeneralParameterValue;
@@ -1099,6 +1106,181 @@ public class ImageMosaicReaderTest extends Assert{
         assertEquals(255, pixel[3]);
     }
 
+    @Test
+    public void multithreadedLoading() throws Exception {
+        final AbstractGridFormat format = TestUtils.getFormat(rgbURL);
+        final ImageMosaicReader reader = TestUtils.getReader(rgbURL, format);
+        assertNotNull(reader);
+
+        // no executor provided, the shared granule loader kicks in
+        final ParameterValue<Boolean> multithreading = ImageMosaicFormat.ALLOW_MULTITHREADING
+                .createValue();
+        multithreading.setValue(true);
+        final ParameterValue<Boolean> jaiImageRead = AbstractGridFormat.USE_JAI_IMAGEREAD
+                .createValue();
+        jaiImageRead.setValue(false);
+        final GridCoverage2D threaded = reader.read(new GeneralParameterValue[] { multithreading,
+                jaiImageRead });
+        multithreading.setValue(false);
+        final GridCoverage2D serial = reader.read(new GeneralParameterValue[] { multithreading,
+                jaiImageRead });
+        assertNotNull(threaded);
+        assertNotNull(serial);
+
+        // granules are merged in the same order
+        final Raster expected = serial.getRenderedImage().getData();
+        final Raster actual = threaded.getRenderedImage().getData();
+        assertEquals(expected.getBounds(), actual.getBounds());
+        assertTrue(Arrays.equals(
+                expected.getPixels(expected.getMinX(), expected.getMinY(), expected.getWidth(),
+                        expected.getHeight(), (int[]) null),
+                actual.getPixels(actual.getMinX(), actual.getMinY(), actual.getWidth(),
+                        actual.getHeight(), (int[]) null)));
+        reader.dispose();
+    }
+
+    @Test
+    public void persistentIndex() throws Exception {
+        final File workDir = new File(TestData.file(this, "."), "watertemp4");
+        if (!workDir.mkdir()) {
+            FileUtils.deleteDirectory(workDir);
+            assertTrue("Unable to create workdir:" + workDir, workDir.mkdir());
+        }
+        FileUtils.copyFile(TestData.file(this, "watertemp.zip"), new File(workDir,
+                "watertemp.zip"));
+        TestData.unzipFile(this, "watertemp4/watertemp.zip");
+        final URL timeElevURL = TestData.url(this, "watertemp4");
+        final AbstractGridFormat format = TestUtils.getFormat(timeElevURL);
+        assertNotNull(format);
+
+        // the reference results, out of the default catalog
+        ImageMosaicReader reader = TestUtils.getReader(timeElevURL, format);
+        assertNotNull(reader);
+        final List<Filter> filters = getPersistentIndexFilters(reader);
+        final List<Set<String>> expected = new ArrayList<Set<String>>();
+        for (Filter filter : filters) {
+            expected.add(getGranuleLocations(reader, filter));
+        }
+        final Raster expectedRaster = readTimeElevation(reader);
+        reader.dispose();
+
+        // enable the persistent index
+        final File indexFile = new File(workDir, "watertemp4.gcx");
+        assertFalse(indexFile.exists());
+        FileWriter out = null;
+        try {
+            out = new FileWriter(new File(workDir, "watertemp4.properties"), true);
+            out.write("\nPersistentIndex=true\n");
+            out.flush();
+        } finally {
+            IOUtils.closeQuietly(out);
+        }
+        try {
+            reader = TestUtils.getReader(timeElevURL, format);
+            assertTrue(reader.rasterManager.granuleCatalog.getClass().getSimpleName()
+                    .startsWith("Mapped"));
+            assertTrue(indexFile.exists());
+            checkPersistentIndex(reader, filters, expected, expectedRaster);
+            reader.dispose();
+
+            // a corrupted index is rebuilt
+            final byte[] garbage = new byte[64];
+            FileUtils.writeByteArrayToFile(indexFile, garbage);
+            reader = TestUtils.getReader(timeElevURL, format);
+            assertTrue(indexFile.length() != garbage.length);
+            checkPersistentIndex(reader, filters, expected, expectedRaster);
+            reader.dispose();
+
+            // an index older than the catalog is rebuilt
+            final long past = 1000000000000L;
+            assertTrue(indexFile.setLastModified(past));
+            final File shapefile = new File(workDir, "watertemp4.shp");
+            assertTrue(shapefile.setLastModified(shapefile.lastModified() + 10000));
+            reader = TestUtils.getReader(timeElevURL, format);
+            assertTrue(indexFile.lastModified() != past);
+            checkPersistentIndex(reader, filters, expected, expectedRaster);
+        } finally {
+            reader.dispose();
+            if (!INTERACTIVE) {
+                FileUtils.deleteDirectory(workDir);
+            }
+        }
+    }
+
+    private void checkPersistentIndex(ImageMosaicReader reader, List<Filter> filters,
+            List<Set<String>> expected, Raster expectedRaster) throws Exception {
+        for (int i = 0; i < filters.size(); i++) {
+            assertEquals(filters.get(i).toString(), expected.get(i),
+                    getGranuleLocations(reader, filters.get(i)));
+        }
+        final Raster actual = readTimeElevation(reader);
+        assertEquals(expectedRaster.getBounds(), actual.getBounds());
+        assertTrue(Arrays.equals(
+                expectedRaster.getPixels(expectedRaster.getMinX(), expectedRaster.getMinY(),
+                        expectedRaster.getWidth(), expectedRaster.getHeight(), (double[]) null),
+                actual.getPixels(actual.getMinX(), actual.getMinY(), actual.getWidth(),
+                        actual.getHeight(), (double[]) null)));
+    }
+
+    /**
+     * The filters the granule index can narrow down, fully or partially, and one it can't
+     */
+    private List<Filter> getPersistentIndexFilters(ImageMosaicReader reader) throws Exception {
+        final FilterFactory2 ff = CommonFactoryFinder.getFilterFactory2(null);
+        final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.sss'Z'");
+        sdf.setTimeZone(TimeZone.getTimeZone("GMT+0"));
+        final Date first = sdf.parse("2008-10-31T00:00:00.000Z");
+        final Date second = sdf.parse("2008-11-01T00:00:00.000Z");
+        final Filter bbox = ff.bbox(ff.property("the_geom"), ReferencedEnvelope.reference(
+                reader.getOriginalEnvelope()));
+
+        final List<Filter> filters = new ArrayList<Filter>();
+        filters.add(bbox);
+        filters.add(ff.and(bbox, ff.equals(ff.property("ingestion"), ff.literal(second))));
+        filters.add(ff.and(bbox, ff.between(ff.property("elevation"), ff.literal(0),
+                ff.literal(10))));
+        filters.add(ff.and(Arrays.asList(bbox,
+                ff.or(ff.equals(ff.property("ingestion"), ff.literal(first)),
+                        ff.equals(ff.property("ingestion"), ff.literal(second))),
+                ff.equals(ff.property("elevation"), ff.literal(100)))));
+        // strict comparisons are widened by the index, the filter has to be evaluated
+        filters.add(ff.and(bbox, ff.greater(ff.property("elevation"), ff.literal(0))));
+        filters.add(ff.and(bbox, ff.less(ff.property("ingestion"), ff.literal(second))));
+        // an attribute the index does not know about
+        filters.add(ff.and(bbox, ff.equals(ff.property("location"),
+                ff.literal("NCOM_wattemp_100_20081101T0000000_12.tiff"))));
+        filters.add(ff.and(bbox, ff.equals(ff.property("elevation"), ff.literal(50))));
+        return filters;
+    }
+
+    private static Set<String> getGranuleLocations(ImageMosaicReader reader, Filter filter)
+            throws IOException {
+        final GranuleCatalog catalog = reader.rasterManager.granuleCatalog;
+        final Query query = new Query(catalog.getType().getTypeName(), filter);
+        final Set<String> locations = new HashSet<String>();
+        for (GranuleDescriptor granule : catalog.getGranules(query)) {
+            locations.add((String) granule.getOriginator().getAttribute("location"));
+        }
+        return locations;
+    }
+
+    private static Raster readTimeElevation(ImageMosaicReader reader) throws Exception {
+        final ParameterValue<List> time = ImageMosaicFormat.TIME.createValue();
+        final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.sss'Z'");
+        sdf.setTimeZone(TimeZone.getTimeZone("GMT+0"));
+        time.setValue(Arrays.asList(sdf.parse("2008-11-01T00:00:00.000Z")));
+        final ParameterValue<List> elevation = ImageMosaicFormat.ELEVATION.createValue();
+        elevation.setValue(Arrays.asList(NumberRange.create(0.0, 10.0)));
+        final ParameterValue<Boolean> direct = ImageMosaicFormat.USE_JAI_IMAGEREAD.createValue();
+        direct.setValue(false);
+        final GridCoverage2D coverage = reader.read(new GeneralParameterValue[] { time,
+                elevation, direct });
+        assertNotNull(coverage);
+        final Raster raster = coverage.getRenderedImage().getData();
+        coverage.dispose(true);
+        return raster;
+    }
+
 	/**
 	 * @param args
 	 */
@@ -0,0 +1,85 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.gce.imagemosaic;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Rectangle;
+
+import org.geotools.gce.imagemosaic.RasterLayerResponse.OpaqueArea;
+import org.junit.Test;
+
+/**
+ * Tests the skipping of the granules hidden by the opaque ones in a flat mosaic.
+ *
+ *
+ *
+ * @source $URL$
+ */
+public class RasterLayerResponseTest {
+
+    private static final Rectangle RASTER = new Rectangle(0, 0, 100, 100);
+
+    @Test
+    public void testOverlappingOpaqueGranules() {
+        final OpaqueArea area = new OpaqueArea(RASTER);
+        assertTrue(area.isEmpty());
+        assertFalse(area.covers(10, 10, 20, 20));
+
+        // two overlapping opaque granules in front
+        area.add(new Rectangle(0, 0, 60, 100), false, false);
+        area.add(new Rectangle(40, 0, 30, 100), false, false);
+        assertFalse(area.isEmpty());
+
+        // fully behind the first one, or behind both
+        assertTrue(area.covers(10, 10, 50, 50));
+        assertTrue(area.covers(30, 0, 65, 100));
+        // sticking out of the raster, the visible part is covered
+        assertTrue(area.covers(-50, -50, 30, 30));
+        // partially visible
+        assertFalse(area.covers(50, 10, 80, 20));
+        // ending within a pixel of the covered area edge
+        assertTrue(area.covers(10, 10, 68.5, 20));
+        assertFalse(area.covers(10, 10, 69.5, 20));
+        // outside of the raster
+        assertFalse(area.covers(200, 200, 300, 300));
+    }
+
+    @Test
+    public void testAlphaGranulesDoNotHide() {
+        final OpaqueArea area = new OpaqueArea(RASTER);
+        area.add(new Rectangle(0, 0, 100, 100), true, false);
+        assertTrue(area.isEmpty());
+        assertFalse(area.covers(10, 10, 50, 50));
+
+        // an opaque granule behind the alpha one still hides only its own area
+        area.add(new Rectangle(0, 0, 50, 100), false, false);
+        assertTrue(area.covers(10, 10, 40, 50));
+        assertFalse(area.covers(40, 10, 80, 50));
+    }
+
+    @Test
+    public void testFootprintGranulesDoNotHide() {
+        final OpaqueArea area = new OpaqueArea(RASTER);
+        area.add(new Rectangle(0, 0, 100, 100), false, true);
+        area.add(new Rectangle(0, 0, 100, 100), true, true);
+        assertTrue(area.isEmpty());
+        assertFalse(area.covers(10, 10, 50, 50));
+        assertFalse(area.covers(0, 0, 100, 100));
+    }
+}
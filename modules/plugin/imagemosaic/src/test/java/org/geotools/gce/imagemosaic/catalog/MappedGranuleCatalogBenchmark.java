@@ -0,0 +1,119 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.gce.imagemosaic.catalog;
+
+import java.io.File;
+import java.net.URL;
+import java.util.Random;
+
+import org.geotools.data.DataUtilities;
+import org.geotools.gce.imagemosaic.GranuleDescriptor;
+import org.geotools.gce.imagemosaic.MosaicConfigurationBean;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.opengis.geometry.BoundingBox;
+
+/**
+ * Opens the catalog of a shapefile based mosaic with the in memory {@link STRTreeGranuleCatalog}
+ * and with the {@link MappedGranuleCatalog}, and reports the open time (including the first
+ * query, as the in memory tree is built lazily), the heap retained by the open catalog and the
+ * average time of random queries.
+ * <p>
+ * Usage: <code>MappedGranuleCatalogBenchmark mosaicShapefile [queries] [querySize] [timeAttribute]</code>,
+ * where the query size is a fraction of the mosaic bounds. The first run of the mapped catalog
+ * builds the index file, the following ones just open it.
+ *
+ * @source $URL$
+ */
+public class MappedGranuleCatalogBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: MappedGranuleCatalogBenchmark mosaicShapefile "
+                    + "[queries] [querySize] [timeAttribute]");
+            System.exit(1);
+        }
+        final URL source = DataUtilities.fileToURL(new File(args[0]));
+        final int queries = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        final double querySize = args.length > 2 ? Double.parseDouble(args[2]) : 0.01;
+        final String timeAttribute = args.length > 3 ? args[3] : null;
+
+        for (int round = 0; round < 3; round++) {
+            run("In memory tree", source, false, timeAttribute, queries, querySize);
+            run("Mapped index", source, true, timeAttribute, queries, querySize);
+        }
+    }
+
+    static void run(String name, URL source, boolean mapped, String timeAttribute, int queries,
+            double querySize) throws Exception {
+        final MosaicConfigurationBean configuration = new MosaicConfigurationBean();
+        configuration.setLocationAttribute("location");
+        configuration.setCaching(!mapped);
+        configuration.setPersistentIndex(mapped);
+        configuration.setTimeAttribute(timeAttribute);
+
+        final long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        final GranuleCatalog catalog = GranuleCatalogFactory.createGranuleCatalog(source,
+                configuration);
+        try {
+            final BoundingBox bounds = catalog.getBounds();
+            final double spanX = bounds.getSpan(0) * querySize;
+            final double spanY = bounds.getSpan(1) * querySize;
+            catalog.getGranules(new ReferencedEnvelope(bounds.getMinX(), bounds.getMinX()
+                    + spanX, bounds.getMinY(), bounds.getMinY() + spanY, bounds
+                    .getCoordinateReferenceSystem()), new NullVisitor());
+            final long openTime = System.nanoTime() - start;
+            final long heap = usedHeap() - heapBefore;
+
+            // same queries for all the runs
+            final Random random = new Random(0);
+            final NullVisitor visitor = new NullVisitor();
+            start = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                final double x = bounds.getMinX() + random.nextDouble()
+                        * (bounds.getSpan(0) - spanX);
+                final double y = bounds.getMinY() + random.nextDouble()
+                        * (bounds.getSpan(1) - spanY);
+                catalog.getGranules(new ReferencedEnvelope(x, x + spanX, y, y + spanY, bounds
+                        .getCoordinateReferenceSystem()), visitor);
+            }
+            final long queryTime = System.nanoTime() - start;
+
+            System.out.println(name + ": open " + openTime / 1000000 + "ms, heap "
+                    + heap / 1024 / 1024 + "MB, " + queryTime / 1000 / queries
+                    + "us per query, " + visitor.count / queries + " granules per query");
+        } finally {
+            catalog.dispose();
+        }
+    }
+
+    static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    static class NullVisitor implements GranuleCatalogVisitor {
+        long count;
+
+        public void visit(GranuleDescriptor granule, Object o) {
+            count++;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.gce.imagemosaic.catalog;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.geotools.data.DataUtilities;
+import org.geotools.data.Query;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.feature.visitor.FeatureCalc;
+import org.junit.Assert;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+/**
+ * Testing {@link MappedGranuleIndex} class.
+ *
+ * @source $URL$
+ */
+public class MappedGranuleIndexTest extends Assert {
+
+    static final int COUNT = 1000;
+
+    static final long HOUR = 3600 * 1000;
+
+    static final FilterFactory2 FF = CommonFactoryFinder.getFilterFactory2(null);
+
+    List<SimpleFeature> createGranules() throws Exception {
+        SimpleFeatureType type = DataUtilities.createType("granules",
+                "the_geom:Polygon,location:String,ingestion:java.util.Date,elevation:Double");
+        SimpleFeatureBuilder fb = new SimpleFeatureBuilder(type);
+        GeometryFactory gf = new GeometryFactory();
+        Random random = new Random(0);
+        List<SimpleFeature> features = new ArrayList<SimpleFeature>();
+        for (int i = 0; i < COUNT; i++) {
+            double x = random.nextDouble() * 1000;
+            double y = random.nextDouble() * 1000;
+            Geometry geom = gf.toGeometry(new Envelope(x, x + 10, y, y + 10));
+            fb.add(geom);
+            fb.add("granule_" + i + ".tif");
+            // a granule every 10 without a time
+            fb.add(i % 10 == 5 ? null : new Date((i % 24) * HOUR));
+            fb.add(Double.valueOf(i % 7));
+            features.add(fb.buildFeature("granules.ü" + i));
+        }
+        return features;
+    }
+
+    MappedGranuleIndex buildIndex(List<SimpleFeature> features) throws Exception {
+        MappedGranuleIndex.Builder builder = new MappedGranuleIndex.Builder("ingestion",
+                "elevation");
+        for (SimpleFeature feature : features) {
+            builder.visit(feature);
+        }
+        return new MappedGranuleIndex(builder.build(12345));
+    }
+
+    @Test
+    public void testSearch() throws Exception {
+        List<SimpleFeature> features = createGranules();
+        MappedGranuleIndex index = buildIndex(features);
+        assertEquals(COUNT, index.getCount());
+        assertEquals(12345, index.getSourceLastModified());
+        assertEquals("ingestion", index.getTimeAttribute());
+        assertEquals("elevation", index.getElevationAttribute());
+
+        Envelope query = new Envelope(200, 400, 300, 600);
+        Set<String> expected = new TreeSet<String>();
+        for (SimpleFeature f : features) {
+            if (((Geometry) f.getDefaultGeometry()).getEnvelopeInternal().intersects(query)) {
+                expected.add(f.getID());
+            }
+        }
+        Set<String> actual = new TreeSet<String>();
+        for (int granule : index.search(query)) {
+            actual.add(index.getFeatureId(granule));
+        }
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testAttributes() throws Exception {
+        List<SimpleFeature> features = createGranules();
+        MappedGranuleIndex index = buildIndex(features);
+
+        // two separate time ranges
+        List<double[]> times = new ArrayList<double[]>();
+        times.add(new double[] { 2 * HOUR, 3 * HOUR });
+        times.add(new double[] { 20 * HOUR, 20 * HOUR });
+        Set<String> expected = new TreeSet<String>();
+        for (SimpleFeature f : features) {
+            Date time = (Date) f.getAttribute("ingestion");
+            if (time != null
+                    && ((time.getTime() >= 2 * HOUR && time.getTime() <= 3 * HOUR) || time
+                            .getTime() == 20 * HOUR)) {
+                expected.add(f.getID());
+            }
+        }
+        assertEquals(expected, toIds(index, index.searchTime(times)));
+
+        List<double[]> elevations = new ArrayList<double[]>();
+        elevations.add(new double[] { 3, 3 });
+        int[] granules = index.searchElevation(elevations);
+        assertEquals((COUNT + 3) / 7, granules.length);
+        for (int granule : granules) {
+            int i = Integer.parseInt(index.getFeatureId(granule).substring(10));
+            assertEquals(3, i % 7);
+        }
+
+        // combined
+        int[] both = MappedGranuleIndex.intersect(index.searchTime(times), granules);
+        for (String id : toIds(index, both)) {
+            int i = Integer.parseInt(id.substring(10));
+            assertEquals(3, i % 7);
+            assertTrue(expected.contains(id));
+        }
+    }
+
+    Set<String> toIds(MappedGranuleIndex index, int[] granules) {
+        Set<String> ids = new TreeSet<String>();
+        for (int i = 0; i < granules.length; i++) {
+            if (i > 0) {
+                assertTrue(granules[i - 1] < granules[i]);
+            }
+            ids.add(index.getFeatureId(granules[i]));
+        }
+        return ids;
+    }
+
+    @Test
+    public void testFile() throws Exception {
+        MappedGranuleIndex.Builder builder = new MappedGranuleIndex.Builder(null, null);
+        for (SimpleFeature feature : createGranules()) {
+            builder.visit(feature);
+        }
+        ByteBuffer contents = builder.build(1);
+        File file = File.createTempFile("granules", MappedGranuleCatalog.INDEX_EXTENSION);
+        try {
+            FileOutputStream fos = new FileOutputStream(file);
+            try {
+                fos.getChannel().write(contents);
+            } finally {
+                fos.close();
+            }
+            MappedGranuleIndex index = MappedGranuleIndex.open(file);
+            assertEquals(COUNT, index.getCount());
+            assertNull(index.getTimeAttribute());
+            assertNull(index.getElevationAttribute());
+            assertEquals(COUNT, index.search(new Envelope(-1, 1011, -1, 1011)).length);
+            assertEquals("granules.ü0", index.getFeatureId(0));
+
+            // truncated files are rejected
+            contents.flip();
+            try {
+                new MappedGranuleIndex((ByteBuffer) contents.limit(contents.limit() - 1));
+                fail("The truncated index should have been rejected");
+            } catch (java.io.IOException e) {
+                // fine
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testCatalogCountChange() throws Exception {
+        final List<SimpleFeature> granules = createGranules();
+        File file = File.createTempFile("granules", MappedGranuleCatalog.INDEX_EXTENSION);
+        assertTrue(file.delete());
+        try {
+            new MappedGranuleCatalog(new ListCatalog(granules), file, 1, "ingestion",
+                    "elevation", true).dispose();
+            assertEquals(COUNT, getIndexCount(file));
+
+            // same modification time, but a granule has been removed from the database
+            granules.remove(0);
+            new MappedGranuleCatalog(new ListCatalog(granules), file, 1, "ingestion",
+                    "elevation", true).dispose();
+            assertEquals(COUNT - 1, getIndexCount(file));
+
+            // the count is not checked for the sources whose modification time is reliable
+            granules.remove(0);
+            new MappedGranuleCatalog(new ListCatalog(granules), file, 1, "ingestion",
+                    "elevation", false).dispose();
+            assertEquals(COUNT - 1, getIndexCount(file));
+        } finally {
+            file.delete();
+        }
+    }
+
+    int getIndexCount(File file) throws Exception {
+        MappedGranuleIndex index = MappedGranuleIndex.open(file);
+        try {
+            return index.getCount();
+        } finally {
+            index.close();
+        }
+    }
+
+    /**
+     * A catalog visiting a list of granule features
+     */
+    static class ListCatalog extends AbstractGranuleCatalog {
+        final List<SimpleFeature> granules;
+
+        ListCatalog(List<SimpleFeature> granules) {
+            this.granules = granules;
+        }
+
+        @Override
+        public void computeAggregateFunction(Query q, FeatureCalc function) {
+            for (SimpleFeature granule : granules) {
+                function.visit(granule);
+            }
+        }
+
+        @Override
+        public SimpleFeatureType getType() {
+            return granules.get(0).getFeatureType();
+        }
+
+        @Override
+        public void dispose() {
+        }
+    }
+
+    @Test
+    public void testExtractRanges() throws Exception {
+        Date d1 = new Date(HOUR);
+        Date d2 = new Date(5 * HOUR);
+        // what the mosaic reader builds for a list of times and a range
+        Filter filter = FF.and(FF.bbox("the_geom", 0, 0, 10, 10, null), FF.or(FF.equal(
+                FF.property("ingestion"), FF.literal(d1), true), FF.and(FF.lessOrEqual(
+                FF.property("ingestion"), FF.literal(d2)), FF.greaterOrEqual(
+                FF.property("ingestion"), FF.literal(new Date(3 * HOUR))))));
+        List<double[]> ranges = MappedGranuleCatalog.extractRanges(filter, "ingestion");
+        assertEquals(2, ranges.size());
+        assertArrayEquals(new double[] { HOUR, HOUR }, ranges.get(0), 0);
+        assertArrayEquals(new double[] { 3 * HOUR, 5 * HOUR }, ranges.get(1), 0);
+
+        // not constrained
+        assertNull(MappedGranuleCatalog.extractRanges(filter, "elevation"));
+        assertNull(MappedGranuleCatalog.extractRanges(FF.or(FF.equal(FF.property("elevation"),
+                FF.literal(1), true), FF.equal(FF.property("location"), FF.literal("a"),
+                true)), "elevation"));
+        assertNull(MappedGranuleCatalog.extractRanges(FF.not(FF.equal(
+                FF.property("elevation"), FF.literal(1), true)), "elevation"));
+
+        // reversed operands and between
+        ranges = MappedGranuleCatalog.extractRanges(FF.and(FF.less(FF.literal(2),
+                FF.property("elevation")), FF.between(FF.property("elevation"), FF.literal(0),
+                FF.literal(10))), "elevation");
+        assertEquals(1, ranges.size());
+        assertArrayEquals(new double[] { 2, 10 }, ranges.get(0), 0);
+
+        // disjoint
+        assertTrue(MappedGranuleCatalog.extractRanges(FF.and(FF.greater(
+                FF.property("elevation"), FF.literal(5)), FF.less(FF.property("elevation"),
+                FF.literal(1))), "elevation").isEmpty());
+    }
+}
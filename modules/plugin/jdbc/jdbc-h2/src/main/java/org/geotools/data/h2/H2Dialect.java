@@ -28,6 +28,8 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.logging.Level;
@@ -438,6 +440,32 @@ public class H2Dialect extends SQLDialect {
         }
     }
     
+    @Override
+    public List<Object> getNextSequenceValues(String schemaName, String sequenceName,
+            int count, Connection cx) throws SQLException {
+        
+        Statement st = cx.createStatement();
+        try {
+            String sql = "SELECT NEXTVAL('" + sequenceName + "') FROM SYSTEM_RANGE(1, " 
+                + count + ")";
+            dataStore.getLogger().fine( sql );
+            ResultSet rs = st.executeQuery( sql );
+            try {
+                List<Object> values = new ArrayList<Object>(count);
+                while ( rs.next() ) {
+                    values.add( rs.getInt( 1 ) );
+                }
+                return values;
+            }
+            finally {
+                dataStore.closeSafe( rs );
+            }
+        }
+        finally {
+            dataStore.closeSafe( st );
+        }
+    }
+    
     @Override
     public Object getNextAutoGeneratedValue(String schemaName,
             String tableName, String columnName, Connection cx)
@@ -0,0 +1,156 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.h2;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.geotools.data.DataUtilities;
+import org.geotools.data.DefaultTransaction;
+import org.geotools.data.Transaction;
+import org.geotools.data.simple.SimpleFeatureStore;
+import org.geotools.factory.Hints;
+import org.geotools.feature.DefaultFeatureCollection;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.jdbc.JDBCDataStore;
+import org.geotools.jdbc.JDBCDataStoreFactory;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+/**
+ * Inserts features in a H2 database with increasing batch insert sizes and reports the
+ * insert rate. Batches are used for features carrying their own ids, and for tables whose key
+ * is filled from a sequence. The same features are also inserted without ids in a table with
+ * an auto increment key, which goes through the serialized, one statement per feature path.
+ * <p>
+ * Usage: <code>H2BatchInsertBenchmark [features] [runs]</code>
+ *
+ * @source $URL$
+ */
+public class H2BatchInsertBenchmark {
+
+    static final int[] BATCH_SIZES = { 1, 10, 100, 1000 };
+
+    public static void main(String[] args) throws Exception {
+        final int count = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        final int runs = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        File dir = File.createTempFile("h2bench", "");
+        dir.delete();
+        dir.mkdirs();
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put(JDBCDataStoreFactory.DBTYPE.key, "h2");
+        params.put(JDBCDataStoreFactory.DATABASE.key, new File(dir, "bench").getAbsolutePath());
+        JDBCDataStore store = new H2DataStoreFactory().createDataStore(params);
+        try {
+            SimpleFeatureType type = DataUtilities.createType("bench",
+                    "geom:Point:srid=4326,name:String,value:Integer");
+            store.createSchema(type);
+            SimpleFeatureStore fs = (SimpleFeatureStore) store.getFeatureSource("bench");
+            type = fs.getSchema();
+
+            // same table, with the key taken from a sequence instead of auto incremented
+            Connection cx = store.getDataSource().getConnection();
+            try {
+                Statement st = cx.createStatement();
+                st.execute("CREATE TABLE \"benchseq\" (\"fid\" int PRIMARY KEY, "
+                        + "\"name\" VARCHAR, \"value\" int)");
+                st.execute("CALL AddGeometryColumn(NULL, 'benchseq', 'geom', 4326, 'POINT', 2)");
+                st.execute("CREATE SEQUENCE BENCHSEQ_FID_SEQUENCE START WITH 1");
+                st.close();
+            } finally {
+                cx.close();
+            }
+            SimpleFeatureStore seqFs = (SimpleFeatureStore) store.getFeatureSource("benchseq");
+            SimpleFeatureType seqType = seqFs.getSchema();
+
+            // warm up
+            insert(store, fs, type, count, 100, true);
+            insert(store, fs, type, count, 1, false);
+
+            for (int batchSize : BATCH_SIZES) {
+                long elapsed = 0;
+                for (int i = 0; i < runs; i++) {
+                    elapsed += insert(store, fs, type, count, batchSize, true);
+                }
+                report("Provided fids, batch size " + batchSize, count, elapsed / runs);
+            }
+            for (int batchSize : BATCH_SIZES) {
+                long elapsed = 0;
+                for (int i = 0; i < runs; i++) {
+                    elapsed += insert(store, seqFs, seqType, count, batchSize, false);
+                }
+                report("Sequence keys, batch size " + batchSize, count, elapsed / runs);
+            }
+            long elapsed = 0;
+            for (int i = 0; i < runs; i++) {
+                elapsed += insert(store, fs, type, count, 100, false);
+            }
+            report("Auto increment keys", count, elapsed / runs);
+        } finally {
+            store.dispose();
+            for (File f : dir.listFiles()) {
+                f.delete();
+            }
+            dir.delete();
+        }
+    }
+
+    static long insert(JDBCDataStore store, SimpleFeatureStore fs, SimpleFeatureType type,
+            int count, int batchSize, boolean provideFid) throws Exception {
+        fs.setTransaction(Transaction.AUTO_COMMIT);
+        fs.removeFeatures(Filter.INCLUDE);
+        store.setBatchInsertSize(batchSize);
+
+        GeometryFactory gf = new GeometryFactory();
+        SimpleFeatureBuilder fb = new SimpleFeatureBuilder(type);
+        DefaultFeatureCollection features = new DefaultFeatureCollection(null, type);
+        for (int i = 0; i < count; i++) {
+            fb.set("geom", gf.createPoint(new Coordinate(i % 360 - 180, i % 180 - 90)));
+            fb.set("name", "feature " + i);
+            fb.set("value", i);
+            if (provideFid) {
+                fb.featureUserData(Hints.USE_PROVIDED_FID, Boolean.TRUE);
+                features.add(fb.buildFeature(type.getTypeName() + "." + (i + 1)));
+            } else {
+                features.add(fb.buildFeature(null));
+            }
+        }
+
+        long start = System.nanoTime();
+        Transaction t = new DefaultTransaction();
+        try {
+            fs.setTransaction(t);
+            fs.addFeatures(features);
+            t.commit();
+        } finally {
+            t.close();
+        }
+        return System.nanoTime() - start;
+    }
+
+    static void report(String name, int count, long elapsed) {
+        System.out.println(name + ": " + elapsed / 1000000 + "ms, "
+                + Math.round(count / (elapsed / 1e9)) + " features/s");
+    }
+}
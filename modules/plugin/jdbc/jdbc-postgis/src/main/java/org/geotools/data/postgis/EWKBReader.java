@@ -0,0 +1,309 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+
+package org.geotools.data.postgis;
+
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.CoordinateSequenceFactory;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.geom.PrecisionModel;
+import com.vividsolutions.jts.io.ParseException;
+
+/**
+ * A WKB/EWKB parser working directly against the raw byte array returned by the database.
+ * <p>
+ * Differently from the JTS WKBReader no intermediate {@link com.vividsolutions.jts.geom.Coordinate}
+ * arrays are built, the ordinates are decoded straight into coordinate sequences created by the
+ * geometry factory {@link CoordinateSequenceFactory}. Both the PostGIS extended format (Z, M and
+ * SRID flags in the geometry type) and the ISO one (type codes offset by 1000, 2000, 3000) are
+ * supported. M values are parsed and dropped, as JTS cannot represent them.
+ * </p>
+ * <p>
+ * Optionally a {@link PrecisionModel} can be used to reduce the precision of the x and y
+ * ordinates while parsing.
+ * </p>
+ * Instances of this class are not thread safe.
+ *
+ * @source $URL$
+ */
+class EWKBReader {
+
+    static final int WKB_POINT = 1;
+
+    static final int WKB_LINESTRING = 2;
+
+    static final int WKB_POLYGON = 3;
+
+    static final int WKB_MULTIPOINT = 4;
+
+    static final int WKB_MULTILINESTRING = 5;
+
+    static final int WKB_MULTIPOLYGON = 6;
+
+    static final int WKB_GEOMETRYCOLLECTION = 7;
+
+    static final int EWKB_Z_FLAG = 0x80000000;
+
+    static final int EWKB_M_FLAG = 0x40000000;
+
+    static final int EWKB_SRID_FLAG = 0x20000000;
+
+    GeometryFactory factory;
+
+    CoordinateSequenceFactory csFactory;
+
+    PrecisionModel precisionModel;
+
+    byte[] bytes;
+
+    int offset;
+
+    boolean littleEndian;
+
+    public EWKBReader(GeometryFactory factory) {
+        this(factory, null);
+    }
+
+    /**
+     * Builds a new reader
+     *
+     * @param factory The geometry factory used to build geometries and coordinate sequences
+     * @param precisionModel If not null, used to reduce the precision of the x and y ordinates
+     */
+    public EWKBReader(GeometryFactory factory, PrecisionModel precisionModel) {
+        this.factory = factory;
+        this.csFactory = factory.getCoordinateSequenceFactory();
+        if (precisionModel != null && !precisionModel.isFloating()) {
+            this.precisionModel = precisionModel;
+        }
+    }
+
+    /**
+     * Parses the specified WKB/EWKB bytes into a geometry
+     *
+     * @param wkb
+     * @return
+     * @throws ParseException
+     */
+    public Geometry read(byte[] wkb) throws ParseException {
+        this.bytes = wkb;
+        this.offset = 0;
+        try {
+            return readGeometry(0);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new ParseException("Unexpected end of WKB data at byte " + offset);
+        } finally {
+            this.bytes = null;
+        }
+    }
+
+    Geometry readGeometry(int parentSrid) throws ParseException {
+        readByteOrder();
+        int typeInt = readInt();
+
+        // EWKB flags
+        boolean hasZ = (typeInt & EWKB_Z_FLAG) != 0;
+        boolean hasM = (typeInt & EWKB_M_FLAG) != 0;
+        boolean hasSrid = (typeInt & EWKB_SRID_FLAG) != 0;
+        int type = typeInt & 0xFFFF;
+
+        // ISO WKB dimension encoding
+        if (type > 1000) {
+            int isoDimension = type / 1000;
+            hasZ |= isoDimension == 1 || isoDimension == 3;
+            hasM |= isoDimension == 2 || isoDimension == 3;
+            type = type % 1000;
+        }
+
+        int srid = parentSrid;
+        if (hasSrid) {
+            srid = readInt();
+        }
+
+        int inputDimension = 2 + (hasZ ? 1 : 0) + (hasM ? 1 : 0);
+        int outputDimension = hasZ ? 3 : 2;
+
+        Geometry geometry;
+        switch (type) {
+        case WKB_POINT:
+            geometry = readPoint(inputDimension, outputDimension);
+            break;
+        case WKB_LINESTRING:
+            geometry = factory.createLineString(readCoordinateSequence(inputDimension,
+                    outputDimension));
+            break;
+        case WKB_POLYGON:
+            geometry = readPolygon(inputDimension, outputDimension);
+            break;
+        case WKB_MULTIPOINT: {
+            Point[] points = new Point[readCount()];
+            for (int i = 0; i < points.length; i++) {
+                points[i] = (Point) readChild(srid, Point.class);
+            }
+            geometry = factory.createMultiPoint(points);
+            break;
+        }
+        case WKB_MULTILINESTRING: {
+            LineString[] lines = new LineString[readCount()];
+            for (int i = 0; i < lines.length; i++) {
+                lines[i] = (LineString) readChild(srid, LineString.class);
+            }
+            geometry = factory.createMultiLineString(lines);
+            break;
+        }
+        case WKB_MULTIPOLYGON: {
+            Polygon[] polygons = new Polygon[readCount()];
+            for (int i = 0; i < polygons.length; i++) {
+                polygons[i] = (Polygon) readChild(srid, Polygon.class);
+            }
+            geometry = factory.createMultiPolygon(polygons);
+            break;
+        }
+        case WKB_GEOMETRYCOLLECTION: {
+            Geometry[] geometries = new Geometry[readCount()];
+            for (int i = 0; i < geometries.length; i++) {
+                geometries[i] = readGeometry(srid);
+            }
+            geometry = factory.createGeometryCollection(geometries);
+            break;
+        }
+        default:
+            throw new ParseException("Unknown WKB type " + type);
+        }
+
+        geometry.setSRID(srid);
+        return geometry;
+    }
+
+    Geometry readChild(int srid, Class<? extends Geometry> expected) throws ParseException {
+        Geometry child = readGeometry(srid);
+        if (!expected.isInstance(child)) {
+            throw new ParseException("Invalid geometry type encountered, expected "
+                    + expected.getSimpleName() + " but got " + child.getGeometryType());
+        }
+        return child;
+    }
+
+    Point readPoint(int inputDimension, int outputDimension) {
+        CoordinateSequence cs = readOrdinates(1, inputDimension, outputDimension);
+        // PostGIS 2 encodes empty points as a point with NaN ordinates
+        if (Double.isNaN(cs.getOrdinate(0, 0)) && Double.isNaN(cs.getOrdinate(0, 1))) {
+            return factory.createPoint((CoordinateSequence) null);
+        }
+        return factory.createPoint(cs);
+    }
+
+    Polygon readPolygon(int inputDimension, int outputDimension) throws ParseException {
+        int numRings = readCount();
+        if (numRings == 0) {
+            return factory.createPolygon(null, null);
+        }
+        LinearRing shell = factory.createLinearRing(readCoordinateSequence(inputDimension,
+                outputDimension));
+        LinearRing[] holes = new LinearRing[numRings - 1];
+        for (int i = 0; i < holes.length; i++) {
+            holes[i] = factory.createLinearRing(readCoordinateSequence(inputDimension,
+                    outputDimension));
+        }
+        return factory.createPolygon(shell, holes);
+    }
+
+    CoordinateSequence readCoordinateSequence(int inputDimension, int outputDimension)
+            throws ParseException {
+        int size = readCount();
+        return readOrdinates(size, inputDimension, outputDimension);
+    }
+
+    CoordinateSequence readOrdinates(int size, int inputDimension, int outputDimension) {
+        CoordinateSequence cs = csFactory.create(size, outputDimension);
+        for (int i = 0; i < size; i++) {
+            double x = readDouble();
+            double y = readDouble();
+            if (precisionModel != null) {
+                x = precisionModel.makePrecise(x);
+                y = precisionModel.makePrecise(y);
+            }
+            cs.setOrdinate(i, 0, x);
+            cs.setOrdinate(i, 1, y);
+            if (outputDimension > 2) {
+                cs.setOrdinate(i, 2, readDouble());
+            }
+            // skip the measure, if any
+            if (inputDimension > outputDimension) {
+                offset += 8 * (inputDimension - outputDimension);
+            }
+        }
+        return cs;
+    }
+
+    void readByteOrder() throws ParseException {
+        byte order = bytes[offset++];
+        if (order == 0) {
+            littleEndian = false;
+        } else if (order == 1) {
+            littleEndian = true;
+        } else {
+            throw new ParseException("Unknown WKB byte order " + order);
+        }
+    }
+
+    int readCount() throws ParseException {
+        int count = readInt();
+        if (count < 0) {
+            throw new ParseException("Invalid element count " + count);
+        }
+        return count;
+    }
+
+    int readInt() {
+        byte[] b = bytes;
+        int o = offset;
+        offset += 4;
+        if (littleEndian) {
+            return (b[o] & 0xFF) | ((b[o + 1] & 0xFF) << 8) | ((b[o + 2] & 0xFF) << 16)
+                    | ((b[o + 3] & 0xFF) << 24);
+        } else {
+            return ((b[o] & 0xFF) << 24) | ((b[o + 1] & 0xFF) << 16) | ((b[o + 2] & 0xFF) << 8)
+                    | (b[o + 3] & 0xFF);
+        }
+    }
+
+    double readDouble() {
+        byte[] b = bytes;
+        int o = offset;
+        offset += 8;
+        long bits;
+        if (littleEndian) {
+            bits = (b[o] & 0xFFL) | ((b[o + 1] & 0xFFL) << 8) | ((b[o + 2] & 0xFFL) << 16)
+                    | ((b[o + 3] & 0xFFL) << 24) | ((b[o + 4] & 0xFFL) << 32)
+                    | ((b[o + 5] & 0xFFL) << 40) | ((b[o + 6] & 0xFFL) << 48)
+                    | ((b[o + 7] & 0xFFL) << 56);
+        } else {
+            bits = ((b[o] & 0xFFL) << 56) | ((b[o + 1] & 0xFFL) << 48)
+                    | ((b[o + 2] & 0xFFL) << 40) | ((b[o + 3] & 0xFFL) << 32)
+                    | ((b[o + 4] & 0xFFL) << 24) | ((b[o + 5] & 0xFFL) << 16)
+                    | ((b[o + 6] & 0xFFL) << 8) | (b[o + 7] & 0xFFL);
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+}
@@ -57,6 +57,7 @@ import com.vividsolutions.jts.geom.MultiPoint;
 import com.vividsolutions.jts.geom.MultiPolygon;
 import com.vividsolutions.jts.geom.Point;
 import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.geom.PrecisionModel;
 import com.vividsolutions.jts.io.ParseException;
 import com.vividsolutions.jts.io.WKTReader;
 
@@ -123,6 +124,10 @@ public class PostGISDialect extends BasicSQLDialect {
     
     boolean functionEncodingEnabled = false;
     
+    boolean binaryGeometriesEnabled = false;
+    
+    PrecisionModel precisionModel;
+    
     Version version, pgsqlVersion;
 
     public boolean isLooseBBOXEnabled() {
@@ -151,6 +156,31 @@ public class PostGISDialect extends BasicSQLDialect {
     public void setFunctionEncodingEnabled(boolean functionEncodingEnabled) {
         this.functionEncodingEnabled = functionEncodingEnabled;
     }
+    
+    public boolean isBinaryGeometriesEnabled() {
+        return binaryGeometriesEnabled;
+    }
+
+    /**
+     * @see PostgisNGDataStoreFactory#BINARY_GEOMETRIES
+     */
+    public void setBinaryGeometriesEnabled(boolean binaryGeometriesEnabled) {
+        this.binaryGeometriesEnabled = binaryGeometriesEnabled;
+    }
+    
+    public PrecisionModel getPrecisionModel() {
+        return precisionModel;
+    }
+
+    /**
+     * Sets the precision model used to reduce the precision of the geometry ordinates
+     * while decoding them, or <code>null</code> to keep them at full precision
+     * 
+     * @see PostgisNGDataStoreFactory#COORDINATE_PRECISION
+     */
+    public void setPrecisionModel(PrecisionModel precisionModel) {
+        this.precisionModel = precisionModel;
+    }
 
     @Override
     public void initializeConnection(Connection cx) throws SQLException {
@@ -201,8 +231,9 @@ public class PostGISDialect extends BasicSQLDialect {
 
     private WKBAttributeIO getWKBReader(GeometryFactory factory) {
         WKBAttributeIO reader = wkbReader.get();
-        if(reader == null) {
-            reader = new WKBAttributeIO(factory);
+        if(reader == null || reader.isBinary() != binaryGeometriesEnabled 
+                || reader.getPrecisionModel() != precisionModel) {
+            reader = new WKBAttributeIO(factory, binaryGeometriesEnabled, precisionModel);
             wkbReader.set(reader);
         }  else {
             reader.setGeometryFactory(factory);
@@ -224,25 +255,36 @@ public class PostGISDialect extends BasicSQLDialect {
                 JDBCDataStore.JDBC_NATIVE_TYPENAME));
     
         if (geography) {
-            sql.append("encode(ST_AsBinary(");
-            encodeColumnName(prefix, gatt.getLocalName(), sql);
-            sql.append("),'base64')");
+            encodeBinaryGeometryFunction("ST_AsBinary(", prefix, gatt, ")", sql);
         }
         else {
             boolean force2D = hints != null && hints.containsKey(Hints.FEATURE_2D) && 
                 Boolean.TRUE.equals(hints.get(Hints.FEATURE_2D));
 
             if (force2D) {
-                sql.append("encode(ST_AsBinary(ST_Force_2D(");
-                encodeColumnName(prefix, gatt.getLocalName(), sql);
-                sql.append(")),'base64')");
+                encodeBinaryGeometryFunction("ST_AsBinary(ST_Force_2D(", prefix, gatt, "))", sql);
             } else {
-                sql.append("encode(ST_AsEWKB(");
-                encodeColumnName(prefix, gatt.getLocalName(), sql);
-                sql.append("),'base64')");
+                encodeBinaryGeometryFunction("ST_AsEWKB(", prefix, gatt, ")", sql);
             }
         }
     }
+    
+    /**
+     * Encodes the function turning the geometry column into WKB, wrapping it into a base64 
+     * encoding unless binary geometries are enabled
+     */
+    void encodeBinaryGeometryFunction(String open, String prefix, GeometryDescriptor gatt,
+            String close, StringBuffer sql) {
+        if (!binaryGeometriesEnabled) {
+            sql.append("encode(");
+        }
+        sql.append(open);
+        encodeColumnName(prefix, gatt.getLocalName(), sql);
+        sql.append(close);
+        if (!binaryGeometriesEnabled) {
+            sql.append(",'base64')");
+        }
+    }
 
     @Override
     public void encodeGeometryEnvelope(String tableName, String geometryColumn,
@@ -561,6 +603,30 @@ public class PostGISDialect extends BasicSQLDialect {
         return null;
     }
 
+    @Override
+    public List<Object> getNextSequenceValues(String schemaName, String sequenceName,
+            int count, Connection cx) throws SQLException {
+        Statement st = cx.createStatement();
+        try {
+            String sql = "SELECT nextval('" + sequenceName + "') FROM generate_series(1, "
+                    + count + ")";
+
+            dataStore.getLogger().fine(sql);
+            ResultSet rs = st.executeQuery(sql);
+            try {
+                List<Object> values = new ArrayList<Object>(count);
+                while (rs.next()) {
+                    values.add(rs.getLong(1));
+                }
+                return values;
+            } finally {
+                dataStore.closeSafe(rs);
+            }
+        } finally {
+            dataStore.closeSafe(st);
+        }
+    }
+
     @Override
     public boolean lookupGeneratedValuesPostInsert() {
         return true;
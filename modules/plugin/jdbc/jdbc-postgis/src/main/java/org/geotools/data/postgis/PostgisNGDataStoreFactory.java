@@ -25,6 +25,8 @@ import org.geotools.jdbc.JDBCDataStoreFactory;
 import org.geotools.jdbc.SQLDialect;
 import org.geotools.util.KVP;
 
+import com.vividsolutions.jts.geom.PrecisionModel;
+
 /**
  * 
  *
@@ -63,6 +65,22 @@ public class PostgisNGDataStoreFactory extends JDBCDataStoreFactory {
             "the postgis table.", false, new Boolean(false),
             new KVP( Param.LEVEL, "advanced"));
     
+    /**
+     * Transfers geometries as raw binary WKB instead of base64 encoded text
+     */
+    public static final Param BINARY_GEOMETRIES = new Param("binary geometries", Boolean.class,
+            "set to true to have geometries transferred as binary EWKB and parsed directly, " +
+            "instead of being base64 encoded in the database and decoded on the client", 
+            false, Boolean.FALSE, new KVP( Param.LEVEL, "advanced"));
+    
+    /**
+     * Number of decimal digits kept in the geometry ordinates
+     */
+    public static final Param COORDINATE_PRECISION = new Param("coordinate precision", Integer.class,
+            "number of decimal digits kept in the x and y ordinates of the geometries read from " +
+            "the database. Leave empty to keep full precision", false, null, 
+            new KVP( Param.LEVEL, "advanced"));
+    
     
     @Override
     protected SQLDialect createSQLDialect(JDBCDataStore dataStore) {
@@ -125,6 +143,14 @@ public class PostgisNGDataStoreFactory extends JDBCDataStoreFactory {
         Boolean encodeFunctions = (Boolean) ENCODE_FUNCTIONS.lookUp(params);
         dialect.setFunctionEncodingEnabled(encodeFunctions != null && encodeFunctions);
         
+        // binary geometry transfer and precision reduction
+        Boolean binary = (Boolean) BINARY_GEOMETRIES.lookUp(params);
+        dialect.setBinaryGeometriesEnabled(Boolean.TRUE.equals(binary));
+        Integer digits = (Integer) COORDINATE_PRECISION.lookUp(params);
+        if(digits != null && digits >= 0) {
+            dialect.setPrecisionModel(new PrecisionModel(Math.pow(10, digits)));
+        }
+        
         // setup the ps dialect if need be
         Boolean usePs = (Boolean) PREPARED_STATEMENTS.lookUp(params);
         if(Boolean.TRUE.equals(usePs)) {
@@ -147,6 +173,8 @@ public class PostgisNGDataStoreFactory extends JDBCDataStoreFactory {
         parameters.put(PREPARED_STATEMENTS.key, PREPARED_STATEMENTS);
         parameters.put(MAX_OPEN_PREPARED_STATEMENTS.key, MAX_OPEN_PREPARED_STATEMENTS);
         parameters.put(ENCODE_FUNCTIONS.key, ENCODE_FUNCTIONS);
+        parameters.put(BINARY_GEOMETRIES.key, BINARY_GEOMETRIES);
+        parameters.put(COORDINATE_PRECISION.key, COORDINATE_PRECISION);
     }
     
     @Override
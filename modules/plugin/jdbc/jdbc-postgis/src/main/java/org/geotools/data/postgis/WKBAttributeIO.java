@@ -28,6 +28,7 @@ import org.geotools.data.DataSourceException;
 
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.PrecisionModel;
 import com.vividsolutions.jts.io.ByteArrayInStream;
 import com.vividsolutions.jts.io.WKBReader;
 import com.vividsolutions.jts.io.WKBWriter;
@@ -35,7 +36,13 @@ import com.vividsolutions.jts.io.WKBWriter;
 
 
 /**
- * An attribute IO implementation that can manage the WKB
+ * An attribute IO implementation that can manage the WKB. 
+ * <p>
+ * By default the geometries are expected to be base64 encoded (as generated by
+ * <code>encode(ST_AsEWKB(geom), 'base64')</code>) and are parsed by the JTS
+ * {@link WKBReader}. In binary mode, or when a precision model is set, the raw WKB/EWKB 
+ * bytes are parsed by the {@link EWKBReader} instead.
+ * </p>
  *
  * @author Andrea Aime
  *
@@ -46,18 +53,52 @@ import com.vividsolutions.jts.io.WKBWriter;
 public class WKBAttributeIO {
     WKBReader wkbr;
     ByteArrayInStream inStream = new ByteArrayInStream(new byte[0]);
+    EWKBReader ewkbr;
     GeometryFactory gf;
+    PrecisionModel precisionModel;
+    boolean binary;
 
     public WKBAttributeIO() {
         this(new GeometryFactory());
     }
     
     public WKBAttributeIO(GeometryFactory gf) {
-        wkbr = new WKBReader(gf);
+        this(gf, false, null);
+    }
+    
+    /**
+     * Builds a new attribute IO
+     * 
+     * @param gf The geometry factory used to build the geometries
+     * @param binary If true the column contents are parsed as raw WKB/EWKB, otherwise they
+     *        are expected to be base64 encoded
+     * @param precisionModel If not null, the precision model used to reduce the precision of
+     *        the x and y ordinates while parsing
+     */
+    public WKBAttributeIO(GeometryFactory gf, boolean binary, PrecisionModel precisionModel) {
+        this.binary = binary;
+        this.precisionModel = precisionModel;
+        setGeometryFactory(gf);
     }
     
     public void setGeometryFactory(GeometryFactory gf) {
-        wkbr = new WKBReader(gf);
+        // the factory is set before each read, avoid rebuilding the reader for the same factory
+        if((wkbr == null && ewkbr == null) || this.gf != gf) {
+            this.gf = gf;
+            if (binary || precisionModel != null) {
+                ewkbr = new EWKBReader(gf, precisionModel);
+            } else {
+                wkbr = new WKBReader(gf);
+            }
+        }
+    }
+    
+    public boolean isBinary() {
+        return binary;
+    }
+    
+    public PrecisionModel getPrecisionModel() {
+        return precisionModel;
     }
 
     /**
@@ -78,6 +119,9 @@ public class WKBAttributeIO {
         if (wkbBytes == null)  //DJB: null value from database --> null geometry (the same behavior as WKT).  NOTE: sending back a GEOMETRYCOLLECTION(EMPTY) is also a possibility, but this is not the same as NULL
             return null;
         try {
+            if (ewkbr != null) {
+                return ewkbr.read(wkbBytes);
+            }
             inStream.setBytes(wkbBytes);
             return wkbr.read(inStream);
         } catch (Exception e) {
@@ -94,7 +138,7 @@ public class WKBAttributeIO {
             byte bytes[] = rs.getBytes(columnName);
             if (bytes == null) // ie. its a null column -> return a null geometry!
                 return null;
-            return wkb2Geometry(Base64.decode(bytes));
+            return wkb2Geometry(binary ? bytes : Base64.decode(bytes));
         } catch (SQLException e) {
             throw new DataSourceException("SQL exception occurred while reading the geometry.", e);
         }
@@ -109,7 +153,7 @@ public class WKBAttributeIO {
             byte bytes[] = rs.getBytes(columnIndex);
             if (bytes == null) // ie. its a null column -> return a null geometry!
                 return null;
-            return wkb2Geometry(Base64.decode(bytes));
+            return wkb2Geometry(binary ? bytes : Base64.decode(bytes));
         } catch (SQLException e) {
             throw new DataSourceException("SQL exception occurred while reading the geometry.", e);
         }
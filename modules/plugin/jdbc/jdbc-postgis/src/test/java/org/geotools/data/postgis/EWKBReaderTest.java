@@ -0,0 +1,115 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.postgis;
+
+import junit.framework.TestCase;
+
+import org.geotools.data.Base64;
+import org.geotools.geometry.jts.LiteCoordinateSequence;
+import org.geotools.geometry.jts.LiteCoordinateSequenceFactory;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.geom.PrecisionModel;
+import com.vividsolutions.jts.io.ByteOrderValues;
+import com.vividsolutions.jts.io.WKBWriter;
+import com.vividsolutions.jts.io.WKTReader;
+
+/**
+ *
+ *
+ * @source $URL$
+ */
+public class EWKBReaderTest extends TestCase {
+
+    static final String[] WKTS = new String[] {
+            "POINT(1 2)",
+            "LINESTRING(0 0, 1 1, 2 0)",
+            "POLYGON((0 0, 10 0, 10 10, 0 10, 0 0), (1 1, 2 1, 2 2, 1 2, 1 1))",
+            "MULTIPOINT((0 0), (1 1))",
+            "MULTILINESTRING((0 0, 1 1), (2 2, 3 3, 4 2))",
+            "MULTIPOLYGON(((0 0, 1 0, 1 1, 0 0)), ((5 5, 6 5, 6 6, 5 5)))",
+            "GEOMETRYCOLLECTION(POINT(1 1), LINESTRING(0 0, 5 5))",
+            "LINESTRING EMPTY",
+            "POLYGON EMPTY" };
+
+    GeometryFactory gf = new GeometryFactory();
+
+    WKTReader wktReader = new WKTReader(gf);
+
+    public void testRoundTrip2D() throws Exception {
+        checkRoundTrip(2, ByteOrderValues.BIG_ENDIAN, false);
+        checkRoundTrip(2, ByteOrderValues.LITTLE_ENDIAN, false);
+    }
+
+    public void testRoundTripSRID() throws Exception {
+        checkRoundTrip(2, ByteOrderValues.BIG_ENDIAN, true);
+        checkRoundTrip(2, ByteOrderValues.LITTLE_ENDIAN, true);
+    }
+
+    public void testRoundTrip3D() throws Exception {
+        EWKBReader reader = new EWKBReader(gf);
+        Geometry expected = wktReader.read("LINESTRING(0 0 1, 1 1 2, 2 0 3)");
+        Geometry actual = reader.read(new WKBWriter(3, ByteOrderValues.LITTLE_ENDIAN)
+                .write(expected));
+        assertTrue(expected.equalsExact(actual));
+        Coordinate[] coordinates = actual.getCoordinates();
+        for (int i = 0; i < coordinates.length; i++) {
+            assertEquals(expected.getCoordinates()[i].z, coordinates[i].z, 0d);
+        }
+    }
+
+    public void testBase64() throws Exception {
+        Geometry expected = wktReader.read(WKTS[2]);
+        byte[] encoded = Base64.encodeBytes(new WKBWriter().write(expected)).getBytes();
+
+        WKBAttributeIO io = new WKBAttributeIO(gf);
+        assertFalse(io.isBinary());
+        EWKBReader reader = new EWKBReader(gf);
+        assertTrue(expected.equalsExact(reader.read(Base64.decode(encoded))));
+    }
+
+    public void testPrecisionReduction() throws Exception {
+        Geometry geometry = wktReader.read("LINESTRING(0.123456 1.987654, 2.55555 3.44444)");
+        EWKBReader reader = new EWKBReader(gf, new PrecisionModel(100));
+        Geometry reduced = reader.read(new WKBWriter().write(geometry));
+        assertTrue(wktReader.read("LINESTRING(0.12 1.99, 2.56 3.44)").equalsExact(reduced));
+    }
+
+    public void testCoordinateSequenceFactory() throws Exception {
+        GeometryFactory liteFactory = new GeometryFactory(new LiteCoordinateSequenceFactory());
+        EWKBReader reader = new EWKBReader(liteFactory);
+        Polygon polygon = (Polygon) reader.read(new WKBWriter().write(wktReader.read(WKTS[2])));
+        assertTrue(polygon.getExteriorRing().getCoordinateSequence() instanceof LiteCoordinateSequence);
+    }
+
+    void checkRoundTrip(int dimension, int byteOrder, boolean srid) throws Exception {
+        EWKBReader reader = new EWKBReader(gf);
+        WKBWriter writer = new WKBWriter(dimension, byteOrder, srid);
+        for (String wkt : WKTS) {
+            Geometry expected = wktReader.read(wkt);
+            if (srid) {
+                expected.setSRID(4326);
+            }
+            Geometry actual = reader.read(writer.write(expected));
+            assertTrue(wkt, expected.equalsExact(actual));
+            assertEquals(wkt, expected.getSRID(), actual.getSRID());
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.postgis;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.util.Random;
+
+import org.geotools.data.Base64;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.PrecisionModel;
+import com.vividsolutions.jts.io.ByteOrderValues;
+import com.vividsolutions.jts.io.WKBWriter;
+
+/**
+ * Decodes the geometry column of a simulated PostGIS result set through {@link WKBAttributeIO},
+ * comparing the default path (base64 text parsed by the JTS reader) with the binary EWKB path,
+ * with and without precision reduction, for polygons of increasing size. Reports the average
+ * decoding time and the amount of column data the driver would transfer.
+ * <p>
+ * The rows are the little endian EWKB PostGIS returns, base64 encoded with line breaks the way
+ * <code>encode(..., 'base64')</code> does for the default path. Only the client side decoding
+ * is measured, the database and network time are not.
+ * <p>
+ * Usage: <code>WKBAttributeIOBenchmark [geometries] [runs]</code>
+ *
+ * @source $URL$
+ */
+public class WKBAttributeIOBenchmark {
+
+    static final int[] VERTICES = { 5, 50, 500, 5000 };
+
+    public static void main(String[] args) throws Exception {
+        final int count = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        final int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        GeometryFactory gf = new GeometryFactory();
+        for (int vertices : VERTICES) {
+            int rows = Math.max(10, count * VERTICES[0] / vertices);
+            byte[][] binary = new byte[rows][];
+            byte[][] base64 = new byte[rows][];
+            createRows(gf, vertices, binary, base64);
+
+            WKBAttributeIO[] ios = new WKBAttributeIO[] { new WKBAttributeIO(gf),
+                    new WKBAttributeIO(gf, true, null),
+                    new WKBAttributeIO(gf, true, new PrecisionModel(1e6)) };
+            String[] names = new String[] { "base64 + JTS", "binary", "binary, 6 digits" };
+            byte[][][] data = new byte[][][] { base64, binary, binary };
+
+            System.out.println(rows + " polygons with " + vertices + " vertices");
+            for (int i = 0; i < ios.length; i++) {
+                // warm up
+                read(ios[i], data[i]);
+                long elapsed = 0;
+                for (int r = 0; r < runs; r++) {
+                    elapsed += read(ios[i], data[i]);
+                }
+                System.out.println("  " + names[i] + ": " + elapsed / runs / 1000000 + "ms, "
+                        + size(data[i]) / 1024 + "KB transferred");
+            }
+        }
+    }
+
+    static void createRows(GeometryFactory gf, int vertices, byte[][] binary, byte[][] base64)
+            throws Exception {
+        WKBWriter writer = new WKBWriter(2, ByteOrderValues.LITTLE_ENDIAN, true);
+        Random random = new Random(0);
+        for (int i = 0; i < binary.length; i++) {
+            // a star shaped ring around a random center
+            double cx = random.nextDouble() * 360 - 180;
+            double cy = random.nextDouble() * 180 - 90;
+            Coordinate[] ring = new Coordinate[vertices + 1];
+            for (int j = 0; j < vertices; j++) {
+                double angle = 2 * Math.PI * j / vertices;
+                double radius = 0.5 + random.nextDouble() * 0.5;
+                ring[j] = new Coordinate(cx + radius * Math.cos(angle), cy + radius
+                        * Math.sin(angle));
+            }
+            ring[vertices] = ring[0];
+            Geometry polygon = gf.createPolygon(gf.createLinearRing(ring), null);
+            polygon.setSRID(4326);
+
+            binary[i] = writer.write(polygon);
+            base64[i] = Base64.encodeBytes(binary[i]).getBytes("US-ASCII");
+        }
+    }
+
+    static long read(WKBAttributeIO io, byte[][] rows) throws Exception {
+        ResultSet rs = resultSet(rows);
+        long start = System.nanoTime();
+        for (int i = 0; i < rows.length; i++) {
+            rs.next();
+            if (io.read(rs, 1) == null) {
+                throw new IllegalStateException("Null geometry at row " + i);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * A result set handing out the rows through {@link ResultSet#getBytes(int)}
+     */
+    static ResultSet resultSet(final byte[][] rows) {
+        return (ResultSet) Proxy.newProxyInstance(WKBAttributeIOBenchmark.class
+                .getClassLoader(), new Class[] { ResultSet.class }, new InvocationHandler() {
+            int row = -1;
+
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("next".equals(method.getName())) {
+                    return ++row < rows.length;
+                } else if ("getBytes".equals(method.getName())) {
+                    return rows[row];
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    static long size(byte[][] rows) {
+        long size = 0;
+        for (byte[] row : rows) {
+            size += row.length;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.geotools.data.shapefile.MemoryMapCache.CachedMapping;
+import org.geotools.data.shapefile.MemoryMapCache.MappingKey;
+import org.geotools.util.logging.Logging;
+
+/**
+ * The byte budget shared by a set of {@link MemoryMapCache}, so that the total size of the
+ * mappings cached by all the open shapefiles is bounded, rather than the size of each cache.
+ * Once the budget is exceeded the least recently used mappings are evicted, whatever cache
+ * they belong to.
+ * <p>
+ * The {@link #SHARED} budget is used by all the shapefile stores of the JVM. Its size, in
+ * megabytes, is read from the <code>org.geotools.shapefile.memoryMapsCacheSize</code> system
+ * property, and can be changed with {@link ShapefileDataStoreFactory#setMemoryMapsCacheSize(long)}.
+ * </p>
+ *
+ * @author Andrea Aime - OpenGeo
+ */
+class MemoryMapBudget {
+
+    static final Logger LOGGER = Logging.getLogger("org.geotools.data.shapefile");
+
+    /**
+     * The max size of the {@link #SHARED} budget, in megabytes, when the system property is
+     * not set
+     */
+    static final long DEFAULT_SHARED_MAX_SIZE = 256;
+
+    /**
+     * The budget shared by all the {@link ShpFiles}
+     */
+    static final MemoryMapBudget SHARED = new MemoryMapBudget();
+
+    static {
+        long max = DEFAULT_SHARED_MAX_SIZE;
+        try {
+            String smax = System.getProperty("org.geotools.shapefile.memoryMapsCacheSize");
+            if (smax != null) {
+                max = Long.parseLong(smax);
+            }
+        } catch (Throwable t) {
+            LOGGER.log(Level.SEVERE, "Could not set the memory maps cache size", t);
+        }
+        SHARED.maxSize = max * 1024 * 1024;
+    }
+
+    /**
+     * The caches holding mappings accounted in this budget
+     */
+    final Set<MemoryMapCache> caches = Collections
+            .newSetFromMap(new ConcurrentHashMap<MemoryMapCache, Boolean>());
+
+    /**
+     * Used to order the mappings by last access, across caches
+     */
+    final AtomicLong clock = new AtomicLong();
+
+    /**
+     * The total size of the cached mappings
+     */
+    final AtomicLong size = new AtomicLong();
+
+    /**
+     * The max total size of the cached mappings, zero or negative means no limit
+     */
+    volatile long maxSize;
+
+    /**
+     * Changes the max total size of the cached mappings, evicting the least recently used
+     * ones right away if the new budget is exceeded
+     *
+     * @param maxSize the size in bytes, zero or negative means no limit
+     */
+    void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+        evictIfNeeded(null, null);
+    }
+
+    /**
+     * Accounts for a mapping added to the specified cache, evicting the least recently used
+     * mappings of all the caches if the budget is exceeded
+     *
+     * @param added the mapping just added, which is not evicted
+     */
+    void added(MemoryMapCache cache, MappingKey added) {
+        caches.add(cache);
+        size.addAndGet(added.size);
+        evictIfNeeded(cache, added);
+    }
+
+    /**
+     * Accounts for a mapping removed from a cache
+     */
+    void removed(MappingKey key) {
+        size.addAndGet(-key.size);
+    }
+
+    /**
+     * Evicts the least recently used mappings until the budget is respected again
+     *
+     * @param addedCache the cache the mapping has been added to, or null
+     * @param added the mapping just added, which is not evicted, or null
+     */
+    void evictIfNeeded(MemoryMapCache addedCache, MappingKey added) {
+        long max = maxSize;
+        if (max <= 0 || size.get() <= max) {
+            return;
+        }
+
+        List<CacheEntry> entries = new ArrayList<CacheEntry>();
+        for (MemoryMapCache cache : caches) {
+            for (Map.Entry<MappingKey, CachedMapping> entry : cache.buffers.entrySet()) {
+                if (cache != addedCache || !entry.getKey().equals(added)) {
+                    entries.add(new CacheEntry(cache, entry.getKey(), entry.getValue()));
+                }
+            }
+        }
+        Collections.sort(entries, new Comparator<CacheEntry>() {
+
+            public int compare(CacheEntry e1, CacheEntry e2) {
+                long a1 = e1.lastAccess;
+                long a2 = e2.lastAccess;
+                return a1 < a2 ? -1 : (a1 == a2 ? 0 : 1);
+            }
+        });
+        for (CacheEntry entry : entries) {
+            if (size.get() <= max) {
+                break;
+            }
+            entry.cache.evict(entry.key, entry.mapping);
+        }
+
+        // the other caches are not going to be read by this thread, their buffers can be
+        // released right away if nobody else is reading them
+        for (CacheEntry entry : entries) {
+            if (entry.cache != addedCache && entry.cache.hasEvicted()) {
+                entry.cache.cleanEvictedIfUnused();
+            }
+        }
+    }
+
+    /**
+     * A snapshot of a cache entry, the last access time is copied so that it does not
+     * change while sorting
+     */
+    static class CacheEntry {
+        final MemoryMapCache cache;
+
+        final MappingKey key;
+
+        final CachedMapping mapping;
+
+        final long lastAccess;
+
+        CacheEntry(MemoryMapCache cache, MappingKey key, CachedMapping mapping) {
+            this.cache = cache;
+            this.key = key;
+            this.mapping = mapping;
+            this.lastAccess = mapping.lastAccess;
+        }
+    }
+}
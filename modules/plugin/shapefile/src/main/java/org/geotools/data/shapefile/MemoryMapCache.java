@@ -24,19 +24,31 @@ import java.nio.channels.FileChannel;
 import java.nio.channels.FileChannel.MapMode;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.geotools.data.DataUtilities;
 import org.geotools.resources.NIOUtilities;
-import org.geotools.util.SoftValueHashMap;
-import org.geotools.util.SoftValueHashMap.ValueCleaner;
 import org.geotools.util.logging.Logging;
 
 /**
  * A cache for memory mapped buffers, used to avoid generating over and over
  * read only memory mapped buffers. Mapping a file is a synchronized operation,
  * plus by generating light copies the same buffer can be shared by various threads
+ * <p>
+ * Lookups do not lock, concurrent misses on the same region may map it more than
+ * once, but only one mapping ends up in the cache. The total size of the cached
+ * mappings is accounted in a {@link MemoryMapBudget}, shared by default among all the
+ * caches of the JVM. Once the budget is exceeded the least recently used mappings are
+ * evicted. Evicted buffers might still be in use by readers, so they are not unmapped
+ * right away, but queued until {@link #cleanEvicted()} is called, which the caller must
+ * do only when no reader is using the buffers. Regions larger than the whole budget are
+ * mapped without being cached, and queued for unmapping in the same way.
  * @author Andrea Aime - OpenGeo
  *
  */
@@ -44,8 +56,54 @@ class MemoryMapCache {
 	
 	static final Logger LOGGER = Logging.getLogger(MemoryMapCache.class);
 
-    SoftValueHashMap<MappingKey, MappedByteBuffer> buffers = new SoftValueHashMap<MappingKey, MappedByteBuffer>(0, new BufferCleaner());
-    
+    ConcurrentHashMap<MappingKey, CachedMapping> buffers = new ConcurrentHashMap<MappingKey, CachedMapping>();
+
+    /**
+     * Buffers evicted from the cache, waiting to be unmapped
+     */
+    Queue<MappedByteBuffer> evicted = new ConcurrentLinkedQueue<MappedByteBuffer>();
+
+    /**
+     * The budget limiting the total size of the cached mappings
+     */
+    final MemoryMapBudget budget;
+
+    /**
+     * The lock readers of the mapped files hold, if any. Used to unmap the evicted buffers
+     * when the eviction is triggered by another cache sharing the same budget
+     */
+    final ReentrantReadWriteLock lock;
+
+    /**
+     * The total size of the mappings of this cache
+     */
+    AtomicLong size = new AtomicLong();
+
+    volatile boolean statisticsEnabled;
+
+    AtomicLong hits = new AtomicLong();
+
+    AtomicLong misses = new AtomicLong();
+
+    AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Builds a cache accounting its mappings in the {@link MemoryMapBudget#SHARED} budget 
+     */
+    MemoryMapCache() {
+        this(MemoryMapBudget.SHARED, null);
+    }
+
+    /**
+     * Builds a cache accounting its mappings in the specified budget
+     * @param budget the budget shared with other caches
+     * @param lock the lock readers of the mapped files hold, or null if unknown
+     */
+    MemoryMapCache(MemoryMapBudget budget, ReentrantReadWriteLock lock) {
+        this.budget = budget;
+        this.lock = lock;
+    }
+
 	MappedByteBuffer map(FileChannel wrapped, URL url, MapMode mode, long position, long size) throws IOException {
 		if(mode != MapMode.READ_ONLY) {
 			return wrapped.map(mode, position, size);
@@ -53,25 +111,95 @@ class MemoryMapCache {
 		
 		File file = DataUtilities.urlToFile(url).getCanonicalFile();
 		MappingKey mk = new MappingKey(file, position, size);
-		MappedByteBuffer buffer = buffers.get(mk);
-		if(buffer == null) {
-			synchronized (this) {
-				buffer = buffers.get(mk);
-				if(buffer == null) {
-					buffer = wrapped.map(mode, position, size);
-					buffers.put(mk, buffer);
-					if(LOGGER.isLoggable(Level.FINE)) {
-						LOGGER.log(Level.FINE, "Mapping and caching " + file.getAbsolutePath());
-					}
-				}
-			}
+		CachedMapping mapping = buffers.get(mk);
+		if(mapping == null) {
+		    if(statisticsEnabled) {
+		        misses.incrementAndGet();
+		    }
+		    MappedByteBuffer buffer = wrapped.map(mode, position, size);
+		    long max = budget.maxSize;
+		    if(max > 0 && size > max) {
+		        // would not fit in the cache anyways, release it as soon as the
+		        // readers are done, like the evicted ones
+		        evicted.add(buffer);
+		        return buffer;
+		    }
+		    mapping = new CachedMapping(buffer);
+		    CachedMapping existing = buffers.putIfAbsent(mk, mapping);
+		    if(existing != null) {
+		        // another thread mapped the same region in the meantime, nobody else
+		        // has seen our buffer so it can be released right away
+		        NIOUtilities.clean(buffer, true);
+		        mapping = existing;
+		    } else {
+		        if(LOGGER.isLoggable(Level.FINE)) {
+		            LOGGER.log(Level.FINE, "Mapping and caching " + file.getAbsolutePath());
+		        }
+		        mapping.lastAccess = budget.clock.incrementAndGet();
+		        this.size.addAndGet(size);
+		        budget.added(this, mk);
+		    }
 		} else {
-			if(LOGGER.isLoggable(Level.FINE)) {
-				LOGGER.log(Level.FINE, "Using cached map for " + file.getAbsolutePath());
+		    if(statisticsEnabled) {
+		        hits.incrementAndGet();
+		    }
+			if(LOGGER.isLoggable(Level.FINEST)) {
+				LOGGER.log(Level.FINEST, "Using cached map for " + file.getAbsolutePath());
 			}
 		}
+		mapping.lastAccess = budget.clock.incrementAndGet();
 		
-		return (MappedByteBuffer) buffer.duplicate();
+		return (MappedByteBuffer) mapping.buffer.duplicate();
+	}
+
+	/**
+	 * Removes a mapping from the cache on behalf of the budget, queuing its buffer
+	 * for unmapping
+	 */
+	void evict(MappingKey key, CachedMapping mapping) {
+	    if(buffers.remove(key, mapping)) {
+	        size.addAndGet(-key.size);
+	        budget.removed(key);
+	        evicted.add(mapping.buffer);
+	        if(statisticsEnabled) {
+	            evictions.incrementAndGet();
+	        }
+	        if(LOGGER.isLoggable(Level.FINE)) {
+	            LOGGER.log(Level.FINE, "Evicted mapping for " + key.file.getAbsolutePath());
+	        }
+	    }
+	}
+	
+	/**
+	 * Unmaps the buffers evicted from the cache. To be called only when no reader is
+	 * using the buffers handed out by the cache
+	 */
+	void cleanEvicted() {
+	    MappedByteBuffer buffer;
+	    while((buffer = evicted.poll()) != null) {
+	        NIOUtilities.clean(buffer, true);
+	    }
+	}
+	
+	/**
+	 * Unmaps the evicted buffers if no reader is currently holding the files lock
+	 */
+	void cleanEvictedIfUnused() {
+	    if(lock == null || lock.isWriteLockedByCurrentThread() || !lock.writeLock().tryLock()) {
+	        return;
+	    }
+	    try {
+	        cleanEvicted();
+	    } finally {
+	        lock.writeLock().unlock();
+	    }
+	}
+	
+	/**
+	 * Returns true if there are evicted buffers waiting to be unmapped
+	 */
+	boolean hasEvicted() {
+	    return !evicted.isEmpty();
 	}
 	
 	/**
@@ -81,6 +209,7 @@ class MemoryMapCache {
 	 */
 	void cleanFileCache(URL url) {
 	    try {
+	        cleanEvicted();
     	    final File rawFile = DataUtilities.urlToFile(url);
     	    if(rawFile == null) {
     	        // not a local file
@@ -90,11 +219,7 @@ class MemoryMapCache {
     	    List<MappingKey> keys = new ArrayList<MappingKey>(buffers.keySet());
     	    for (MappingKey key : keys) {
                 if(key.file.equals(file)) {
-                    MappedByteBuffer buffer = buffers.remove(key);
-                    NIOUtilities.clean(buffer, true);
-                    if(LOGGER.isLoggable(Level.FINE)) {
-        				LOGGER.log(Level.FINE, "Removed mapping for " + file.getAbsolutePath());
-                    }
+                    remove(key);
                 }
             }
 	    } catch(Throwable t) {
@@ -103,14 +228,44 @@ class MemoryMapCache {
 	}
 	
 	void clean() {
+	    cleanEvicted();
 		List<MappingKey> keys = new ArrayList<MappingKey>(buffers.keySet());
 	    for (MappingKey key : keys) {
-            MappedByteBuffer buffer = buffers.remove(key);
-            NIOUtilities.clean(buffer, true);
-            if(LOGGER.isLoggable(Level.FINE)) {
-				LOGGER.log(Level.FINE, "Removed mapping for " + key.file.getAbsolutePath());
-            }
+	        remove(key);
         }
+	    budget.caches.remove(this);
+	}
+	
+	private void remove(MappingKey key) {
+	    CachedMapping mapping = buffers.remove(key);
+	    if(mapping != null) {
+	        size.addAndGet(-key.size);
+	        budget.removed(key);
+	        NIOUtilities.clean(mapping.buffer, true);
+	        if(LOGGER.isLoggable(Level.FINE)) {
+	            LOGGER.log(Level.FINE, "Removed mapping for " + key.file.getAbsolutePath());
+	        }
+	    }
+	}
+	
+	/**
+	 * Returns a snapshot of the cache usage counters
+	 */
+	MemoryMapCacheStatistics getStatistics() {
+	    return new MemoryMapCacheStatistics(hits.get(), misses.get(), evictions.get(), size.get(), buffers.size());
+	}
+	
+	/**
+	 * A cached buffer along with its last access time
+	 */
+	static class CachedMapping {
+	    final MappedByteBuffer buffer;
+	    
+	    volatile long lastAccess;
+	    
+	    CachedMapping(MappedByteBuffer buffer) {
+	        this.buffer = buffer;
+	    }
 	}
 	
 	/**
@@ -159,22 +314,5 @@ class MemoryMapCache {
             return true;
         }
 	}
-	
-	/**
-	 * Cleans up the buffers before the soft reference gets deallocated
-	 * @author Andrea Aime
- *
- *
- * @source $URL$
-	 */
-	public class BufferCleaner implements ValueCleaner {
-
-        public void clean(Object key, Object object) {
-            MappedByteBuffer buffer = (MappedByteBuffer) object;
-            NIOUtilities.clean(buffer, true);
-        }
-
-    }
-
 
 }
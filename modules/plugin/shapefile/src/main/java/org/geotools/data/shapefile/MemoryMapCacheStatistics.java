@@ -0,0 +1,87 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile;
+
+/**
+ * A snapshot of the usage counters of the memory map cache of a shapefile store. The hit, miss
+ * and eviction counters are collected only if enabled with
+ * {@link ShapefileDataStoreFactory#MEMORY_MAPS_CACHE_STATISTICS}
+ *
+ * @source $URL$
+ */
+public class MemoryMapCacheStatistics {
+
+    long hits;
+
+    long misses;
+
+    long evictions;
+
+    long size;
+
+    int mappings;
+
+    MemoryMapCacheStatistics(long hits, long misses, long evictions, long size, int mappings) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+        this.mappings = mappings;
+    }
+
+    /**
+     * The number of times a cached mapping was reused
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * The number of times a file region had to be mapped
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * The number of mappings evicted from the cache because of its size limit
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * The total size in bytes of the mappings currently in the cache
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * The number of mappings currently in the cache
+     */
+    public int getMappings() {
+        return mappings;
+    }
+
+    @Override
+    public String toString() {
+        return "MemoryMapCacheStatistics [hits=" + hits + ", misses=" + misses + ", evictions="
+                + evictions + ", size=" + size + ", mappings=" + mappings + "]";
+    }
+
+}
@@ -115,6 +115,8 @@ public class ShapefileAttributeReader extends AbstractAttributeIO implements
                 }
                 dbfindexes[i] = -1; // geometry
             }
+            // only decode the fields that are actually going to be read
+            dbf.setReadFields(dbfindexes);
         }
     }
 
@@ -326,6 +326,21 @@ public class ShapefileDataStore extends AbstractFileDataStore {
 		this.dbfTimeZone = dbftimeZone;
 	}
 
+    /**
+     * Enables the collection of the memory map cache hit, miss and eviction counts
+     * @param enabled
+     */
+    public void setMemoryMapCacheStatisticsEnabled(boolean enabled) {
+        shpFiles.setMemoryMapCacheStatisticsEnabled(enabled);
+    }
+
+    /**
+     * Returns a snapshot of the memory map cache usage counters
+     */
+    public MemoryMapCacheStatistics getMemoryMapCacheStatistics() {
+        return shpFiles.getMemoryMapCacheStatistics();
+    }
+
     /**
      * Latch onto xmlURL if it is there, we may be able to get out of
      * calculating the bounding box!
@@ -96,6 +96,13 @@ public class ShapefileDataStoreFactory extends AbstractDataStoreFactory implemen
             Boolean.class, "only memory map a file one, then cache and reuse the map", false, true,
             new KVP(Param.LEVEL,"advanced") );
     
+    /**
+     * Optional - collect the memory map cache usage counters
+     */
+    public static final Param MEMORY_MAPS_CACHE_STATISTICS = new Param("memory maps cache statistics",
+            Boolean.class, "collect the memory map cache hit, miss and eviction counts", false, false,
+            new KVP(Param.LEVEL,"advanced") );
+    
     /**
      * Optional - discriminator for directory stores
      */
@@ -119,6 +126,16 @@ public class ShapefileDataStoreFactory extends AbstractDataStoreFactory implemen
             "enable/disable the automatic creation of spatial index", false, true,
             new KVP(Param.LEVEL,"advanced") );
 
+    /**
+     * Optional - the type of spatial index, "qix" for the mapserver compatible quadtree (the
+     * default) or "hrx" for the packed Hilbert R-tree
+     */
+    public static final Param SPATIAL_INDEX_TYPE = new Param(
+            "spatial index type", String.class,
+            "the spatial index format, qix (quadtree) or hrx (packed Hilbert R-tree)", false, "qix",
+            new KVP(Param.LEVEL, "advanced", Param.OPTIONS, Arrays.asList(new String[] { "qix",
+                    "hrx" })));
+
     /**
      * Optional - character used to decode strings from the DBF file
      */
@@ -248,11 +265,13 @@ public class ShapefileDataStoreFactory extends AbstractDataStoreFactory implemen
         URL url = (URL) URLP.lookUp(params);
         Boolean isMemoryMapped = (Boolean) MEMORY_MAPPED.lookUp(params);
         Boolean cacheMemoryMaps = (Boolean) CACHE_MEMORY_MAPS.lookUp(params);
+        Boolean memoryMapsCacheStatistics = (Boolean) MEMORY_MAPS_CACHE_STATISTICS.lookUp(params);
         URI namespace = (URI) NAMESPACEP.lookUp(params);
         Charset dbfCharset = (Charset) DBFCHARSET.lookUp(params);
         TimeZone dbfTimeZone = (TimeZone) DBFTIMEZONE.lookUp(params);
         Boolean isCreateSpatialIndex = (Boolean) CREATE_SPATIAL_INDEX.lookUp(params);
         Boolean isEnableSpatialIndex = (Boolean) ENABLE_SPATIAL_INDEX.lookUp(params);
+        String spatialIndexType = (String) SPATIAL_INDEX_TYPE.lookUp(params);
         if (isEnableSpatialIndex == null) {
             // should not be needed as default is TRUE
             isEnableSpatialIndex = Boolean.TRUE;
@@ -279,6 +298,21 @@ public class ShapefileDataStoreFactory extends AbstractDataStoreFactory implemen
         if (cacheMemoryMaps == null) {
         	cacheMemoryMaps = Boolean.FALSE;
         }
+        if (memoryMapsCacheStatistics == null) {
+            memoryMapsCacheStatistics = Boolean.FALSE;
+        }
+        IndexType indexType = IndexType.QIX;
+        if (spatialIndexType != null) {
+            try {
+                indexType = IndexType.valueOf(spatialIndexType.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                indexType = null;
+            }
+            if (indexType == null || indexType == IndexType.NONE) {
+                throw new DataSourceException("Unknown spatial index type " + spatialIndexType
+                        + ", valid values are qix and hrx");
+            }
+        }
         
         // are we creating a directory of shapefiles store, or a single one?
         File dir = DataUtilities.urlToFile(url);
@@ -297,12 +331,13 @@ public class ShapefileDataStoreFactory extends AbstractDataStoreFactory implemen
             	ShapefileDataStore store;
                 if (enableIndex) {
                     store = new IndexedShapefileDataStore(url, namespace,
-                            useMemoryMappedBuffer, cacheMemoryMaps, createIndex, IndexType.QIX, dbfCharset);
+                            useMemoryMappedBuffer, cacheMemoryMaps, createIndex, indexType, dbfCharset);
                 } else {
                     store = new ShapefileDataStore(url, namespace,
                             useMemoryMappedBuffer, cacheMemoryMaps, dbfCharset);
                 }
                 store.setDbftimeZone(dbfTimeZone);
+                store.setMemoryMapCacheStatisticsEnabled(memoryMapsCacheStatistics);
                 return store;
             } catch (MalformedURLException mue) {
                 throw new DataSourceException(
@@ -375,7 +410,29 @@ public class ShapefileDataStoreFactory extends AbstractDataStoreFactory implemen
      */
     public Param[] getParametersInfo() {
         return new Param[] { URLP, NAMESPACEP, ENABLE_SPATIAL_INDEX, CREATE_SPATIAL_INDEX,
-                DBFCHARSET, DBFTIMEZONE, MEMORY_MAPPED, CACHE_MEMORY_MAPS, FILE_TYPE, FSTYPE };
+                SPATIAL_INDEX_TYPE, DBFCHARSET, DBFTIMEZONE, MEMORY_MAPPED, CACHE_MEMORY_MAPS,
+                MEMORY_MAPS_CACHE_STATISTICS, FILE_TYPE, FSTYPE };
+    }
+
+    /**
+     * Sets the max total size, in bytes, of the memory maps cached by all the shapefile stores
+     * of the JVM. Once the limit is exceeded the least recently used maps of any shapefile are
+     * evicted, and unmapped as soon as no reader is using them. The default is read, in
+     * megabytes, from the <code>org.geotools.shapefile.memoryMapsCacheSize</code> system
+     * property, and is 256MB when the property is not set.
+     * 
+     * @param maxSize The max size in bytes, zero or negative means no limit
+     */
+    public static void setMemoryMapsCacheSize(long maxSize) {
+        MemoryMapBudget.SHARED.setMaxSize(maxSize);
+    }
+
+    /**
+     * Returns the max total size, in bytes, of the memory maps cached by all the shapefile
+     * stores of the JVM, zero or negative means no limit
+     */
+    public static long getMemoryMapsCacheSize() {
+        return MemoryMapBudget.SHARED.maxSize;
     }
 
     /**
@@ -95,7 +95,8 @@ public class ShpFiles {
     /**
      * A cache for read only memory mapped buffers
      */
-    private final MemoryMapCache mapCache = new MemoryMapCache();
+    private final MemoryMapCache mapCache = new MemoryMapCache(MemoryMapBudget.SHARED,
+            readWriteLock);
     
     private boolean memoryMapCacheEnabled;
     
@@ -458,6 +459,12 @@ public class ShpFiles {
         if(threadLockers.size() == 0)
             lockers.remove(Thread.currentThread());
         readWriteLock.readLock().unlock();
+        
+        // unmap the buffers evicted from the memory map cache as soon as nobody
+        // is reading anymore
+        if(mapCache.hasEvicted()) {
+            mapCache.cleanEvictedIfUnused();
+        }
     }
 
     /**
@@ -998,6 +1005,37 @@ public class ShpFiles {
 		}
 	}
 
+	/**
+	 * Returns the max total size, in bytes, of the memory mapped buffers kept in the cache
+	 * of all the shapefiles, see {@link ShapefileDataStoreFactory#setMemoryMapsCacheSize(long)}.
+	 * Zero or negative means no limit
+	 */
+	public long getMemoryMapCacheSize() {
+	    return mapCache.budget.maxSize;
+	}
+
+	/**
+	 * Returns true if the memory map cache is collecting hit, miss and eviction counts
+	 */
+	public boolean isMemoryMapCacheStatisticsEnabled() {
+	    return mapCache.statisticsEnabled;
+	}
+
+	/**
+	 * Enables the collection of hit, miss and eviction counts in the memory map cache
+	 * @param enabled
+	 */
+	public void setMemoryMapCacheStatisticsEnabled(boolean enabled) {
+	    mapCache.statisticsEnabled = enabled;
+	}
+
+	/**
+	 * Returns a snapshot of the memory map cache usage counters
+	 */
+	public MemoryMapCacheStatistics getMemoryMapCacheStatistics() {
+	    return mapCache.getStatistics();
+	}
+
     /**
      * Returns true if the file exists. Throws an exception if the file is not
      * local.
@@ -29,6 +29,7 @@ import java.nio.channels.FileChannel;
 import java.nio.channels.FileChannel.MapMode;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Locale;
 import java.util.TimeZone;
@@ -77,6 +78,43 @@ public class DbaseFileReader implements FileReader {
             return readObject(offset, column);
         }
 
+        /**
+         * Returns true if the column value is null
+         */
+        public boolean isNull(final int column) throws IOException {
+            return readNull(column);
+        }
+
+        /**
+         * Reads a numeric column as an int, without allocating objects for the common
+         * cases. Null values are returned as zero, use {@link #isNull(int)} to tell them apart
+         * 
+         * @throws IllegalArgumentException if the column is not numeric
+         */
+        public int getInt(final int column) throws IOException {
+            return (int) readLong(column);
+        }
+
+        /**
+         * Reads a numeric column as a long, without allocating objects for the common
+         * cases. Null values are returned as zero, use {@link #isNull(int)} to tell them apart
+         * 
+         * @throws IllegalArgumentException if the column is not numeric
+         */
+        public long getLong(final int column) throws IOException {
+            return readLong(column);
+        }
+
+        /**
+         * Reads a numeric column as a double, without allocating objects for the common
+         * cases. Null values are returned as {@link Double#NaN}
+         * 
+         * @throws IllegalArgumentException if the column is not numeric
+         */
+        public double getDouble(final int column) throws IOException {
+            return readDouble(column);
+        }
+
         public String toString() {
             final StringBuffer ret = new StringBuffer("DBF Row - ");
             for (int i = 0; i < header.getNumFields(); i++) {
@@ -125,6 +163,36 @@ public class DbaseFileReader implements FileReader {
 
     private final long MILLISECS_PER_DAY = 24*60*60*1000;
 
+    /**
+     * The fields that will be decoded, or null if all of them are
+     */
+    boolean[] readFields;
+
+    /**
+     * The byte ranges of the record that need to be copied in order to decode the read fields
+     */
+    int[] readRangeStarts;
+
+    int[] readRangeLengths;
+
+    /**
+     * Results of the byte level number parsing
+     */
+    long parsedLong;
+
+    double parsedDouble;
+
+    /**
+     * The exactly representable powers of ten
+     */
+    static final double[] POWERS_OF_TEN = new double[23];
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
     
     /**
      * Creates a new instance of DBaseFileReader
@@ -258,6 +326,50 @@ public class DbaseFileReader implements FileReader {
         }
     }
 
+    /**
+     * Restricts the fields that will be decoded to the specified ones, the bytes of the other
+     * fields won't even be copied out of the file buffer. Reading a field that has been excluded
+     * will result in an {@link IllegalArgumentException}, {@link #readEntry(Object[])} will just
+     * leave them to null.
+     * 
+     * @param fields The zero based indexes of the fields to be read, negative values are
+     *        ignored. Use null to read all fields
+     */
+    public void setReadFields(final int[] fields) {
+        if (fields == null) {
+            readFields = null;
+            readRangeStarts = null;
+            readRangeLengths = null;
+            return;
+        }
+
+        final int numFields = header.getNumFields();
+        readFields = new boolean[numFields];
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i] >= 0) {
+                readFields[fields[i]] = true;
+            }
+        }
+
+        // merge the adjacent fields into contiguous byte ranges
+        final int[] starts = new int[numFields];
+        final int[] lengths = new int[numFields];
+        int ranges = 0;
+        for (int i = 0; i < numFields; i++) {
+            if (readFields[i] && fieldLengths[i] > 0) {
+                if (ranges > 0 && starts[ranges - 1] + lengths[ranges - 1] == fieldOffsets[i]) {
+                    lengths[ranges - 1] += fieldLengths[i];
+                } else {
+                    starts[ranges] = fieldOffsets[i];
+                    lengths[ranges] = fieldLengths[i];
+                    ranges++;
+                }
+            }
+        }
+        readRangeStarts = Arrays.copyOf(starts, ranges);
+        readRangeLengths = Arrays.copyOf(lengths, ranges);
+    }
+
     /**
      * Get the header from this file. The header is read upon instantiation.
      * 
@@ -371,7 +483,11 @@ public class DbaseFileReader implements FileReader {
         final int numFields = header.getNumFields();
 
         for (int j = 0; j < numFields; j++) {
-            entry[j + offset] = readObject(fieldOffsets[j], j);
+            if (readFields == null || readFields[j]) {
+                entry[j + offset] = readObject(fieldOffsets[j], j);
+            } else {
+                entry[j + offset] = null;
+            }
         }
 
         return entry;
@@ -419,9 +535,19 @@ public class DbaseFileReader implements FileReader {
                 continue;
             }
 
-            buffer.limit(buffer.position() + header.getRecordLength() - 1);
-            buffer.get(bytes); // SK: There is a side-effect here!!!
-            buffer.limit(buffer.capacity());
+            if (readRangeStarts == null) {
+                buffer.limit(buffer.position() + header.getRecordLength() - 1);
+                buffer.get(bytes); // SK: There is a side-effect here!!!
+                buffer.limit(buffer.capacity());
+            } else {
+                // only copy the bytes of the fields we are going to decode
+                final int start = buffer.position();
+                for (int i = 0; i < readRangeStarts.length; i++) {
+                    buffer.position(start + readRangeStarts[i]);
+                    buffer.get(bytes, readRangeStarts[i], readRangeLengths[i]);
+                }
+                buffer.position(start + bytes.length);
+            }
 
             foundRecord = true;
         }
@@ -441,8 +567,77 @@ public class DbaseFileReader implements FileReader {
     public Object[] readEntry(final Object[] entry) throws IOException {
         return readEntry(entry, 0);
     }
+    private void checkReadField(final int fieldNum) {
+        if (readFields != null && !readFields[fieldNum]) {
+            throw new IllegalArgumentException("Field " + header.getFieldName(fieldNum)
+                    + " has been excluded from the fields to be read");
+        }
+    }
+
+    private boolean isNumeric(final int fieldNum) {
+        final char type = fieldTypes[fieldNum];
+        return type == 'N' || type == 'n' || type == 'F' || type == 'f';
+    }
+
+    boolean readNull(final int fieldNum) throws IOException {
+        checkReadField(fieldNum);
+        if (fieldLengths[fieldNum] == 0) {
+            return true;
+        }
+        if (isNumeric(fieldNum)) {
+            return bytes[fieldOffsets[fieldNum]] == '*';
+        }
+        return readObject(fieldOffsets[fieldNum], fieldNum) == null;
+    }
+
+    long readLong(final int fieldNum) throws IOException {
+        checkReadField(fieldNum);
+        final int fieldOffset = fieldOffsets[fieldNum];
+        final int fieldLen = fieldLengths[fieldNum];
+        if (isNumeric(fieldNum) && fieldLen > 0) {
+            if (bytes[fieldOffset] == '*') {
+                return 0;
+            }
+            if (parseLong(fieldOffset, fieldLen)) {
+                return parsedLong;
+            }
+        }
+        return toNumber(fieldNum, readObject(fieldOffset, fieldNum)).longValue();
+    }
+
+    double readDouble(final int fieldNum) throws IOException {
+        checkReadField(fieldNum);
+        final int fieldOffset = fieldOffsets[fieldNum];
+        final int fieldLen = fieldLengths[fieldNum];
+        if (isNumeric(fieldNum) && fieldLen > 0) {
+            if (bytes[fieldOffset] == '*') {
+                return Double.NaN;
+            }
+            if (parseDouble(fieldOffset, fieldLen)) {
+                return parsedDouble;
+            }
+        }
+        Object value = readObject(fieldOffset, fieldNum);
+        if (value == null) {
+            return Double.NaN;
+        }
+        return toNumber(fieldNum, value).doubleValue();
+    }
+
+    private Number toNumber(final int fieldNum, final Object value) {
+        if (value == null) {
+            return 0;
+        } else if (value instanceof Number) {
+            return (Number) value;
+        } else {
+            throw new IllegalArgumentException("Field " + header.getFieldName(fieldNum)
+                    + " is not numeric");
+        }
+    }
+
     private Object readObject(final int fieldOffset, final int fieldNum)
             throws IOException {
+        checkReadField(fieldNum);
         final char type = fieldTypes[fieldNum];
         final int fieldLen = fieldLengths[fieldNum];
         Object object = null;
@@ -489,20 +684,16 @@ public class DbaseFileReader implements FileReader {
                 // If the first 8 characters are '0', this is a null date
                 for (int i = 0; i < 8; i++) {
                     if (bytes[fieldOffset+i] != '0') {
-                        try {
-                            String tempString = fastParse(bytes,fieldOffset,4); 
-                            final int tempYear = Integer.parseInt(tempString);
-                            tempString =  fastParse(bytes,fieldOffset + 4,2);
-                            final int tempMonth = Integer.parseInt(tempString) - 1;
-                            tempString = fastParse(bytes,fieldOffset + 6,2); 
-                            final int tempDay = Integer.parseInt(tempString);
+                        final int tempYear = parseDigits(fieldOffset, 4);
+                        final int tempMonth = parseDigits(fieldOffset + 4, 2) - 1;
+                        final int tempDay = parseDigits(fieldOffset + 6, 2);
+                        // todo: use progresslistener, an unparseable date isn't a grave error.
+                        if (tempYear >= 0 && tempMonth >= -1 && tempDay >= 0) {
                             calendar.clear();
                             calendar.set(Calendar.YEAR, tempYear);
                             calendar.set(Calendar.MONTH, tempMonth);
                             calendar.set(Calendar.DAY_OF_MONTH, tempDay);
                             object = calendar.getTime();
-                        } catch (final NumberFormatException nfe) {
-                            // todo: use progresslistener, this isn't a grave error.
                         }
                         break;
                     }
@@ -541,8 +732,18 @@ public class DbaseFileReader implements FileReader {
                 if (bytes[fieldOffset] == '*') {
                     break;
                 } else {
-                    final String string = fastParse(bytes,fieldOffset,fieldLen).trim();
                     Class clazz = header.getFieldClass(fieldNum);
+                    if ((clazz == Integer.class || clazz == Long.class)
+                            && parseLong(fieldOffset, fieldLen)) {
+                        // fast path, no intermediate strings
+                        if (clazz == Integer.class && (int) parsedLong == parsedLong) {
+                            object = Integer.valueOf((int) parsedLong);
+                        } else {
+                            object = Long.valueOf(parsedLong);
+                        }
+                        break;
+                    }
+                    final String string = fastParse(bytes,fieldOffset,fieldLen).trim();
                     if (clazz == Integer.class) {
                         try {
                             object = Integer.parseInt(string);
@@ -567,6 +768,10 @@ public class DbaseFileReader implements FileReader {
             case 'f':
             case 'F': 
                 if (bytes[fieldOffset] != '*') {
+                    if (parseDouble(fieldOffset, fieldLen)) {
+                        object = Double.valueOf(parsedDouble);
+                        break;
+                    }
                     try {
                         object = Double.parseDouble(fastParse(bytes,fieldOffset,fieldLen));
                     } catch (final NumberFormatException e) {
@@ -602,6 +807,134 @@ public class DbaseFileReader implements FileReader {
         return new String(chars);
     }
 
+    /**
+     * Parses a fixed number of digits from the record bytes
+     * 
+     * @return The parsed value, or -1 if a non digit char was found
+     */
+    int parseDigits(final int offset, final int length) {
+        int value = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            final int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Parses an integer number straight from the record bytes, storing it into
+     * {@link #parsedLong}. Only the plain, non overflowing numbers are handled, for anything
+     * else false is returned and the caller should fall back on the JDK parsing
+     */
+    boolean parseLong(final int offset, final int length) {
+        int i = offset;
+        int end = offset + length;
+        // same as String.trim()
+        while (i < end && (bytes[i] & 0xFF) <= ' ') {
+            i++;
+        }
+        while (end > i && (bytes[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        boolean negative = false;
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+        // 18 digits never overflow a long
+        if (i == end || end - i > 18) {
+            return false;
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            final int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return false;
+            }
+            value = value * 10 + digit;
+        }
+        parsedLong = negative ? -value : value;
+        return true;
+    }
+
+    /**
+     * Parses a decimal number straight from the record bytes, storing it into
+     * {@link #parsedDouble}. Only plain numbers with up to 15 significant digits and no exponent
+     * are handled, as for them a single floating point operation between exactly representable
+     * values gives the same, correctly rounded result as {@link Double#parseDouble(String)}. For
+     * anything else false is returned and the caller should fall back on the JDK parsing
+     */
+    boolean parseDouble(final int offset, final int length) {
+        int i = offset;
+        int end = offset + length;
+        while (i < end && (bytes[i] & 0xFF) <= ' ') {
+            i++;
+        }
+        while (end > i && (bytes[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        boolean negative = false;
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        int pendingZeros = 0;
+        boolean dot = false;
+        boolean found = false;
+        for (; i < end; i++) {
+            final byte b = bytes[i];
+            if (b == '.') {
+                if (dot) {
+                    return false;
+                }
+                dot = true;
+                continue;
+            }
+            final int digit = b - '0';
+            if (digit < 0 || digit > 9) {
+                return false;
+            }
+            found = true;
+            if (digit == 0 && dot) {
+                // trailing zeros in the fractional part are not significant
+                pendingZeros++;
+                continue;
+            }
+            for (; pendingZeros > 0; pendingZeros--) {
+                mantissa *= 10;
+                exponent--;
+                if (mantissa != 0) {
+                    digits++;
+                }
+            }
+            mantissa = mantissa * 10 + digit;
+            if (mantissa != 0) {
+                digits++;
+            }
+            if (dot) {
+                exponent--;
+            }
+            if (digits > 15) {
+                return false;
+            }
+        }
+        if (!found || -exponent >= POWERS_OF_TEN.length) {
+            return false;
+        }
+        double value = (double) mantissa;
+        if (exponent < 0) {
+            value = value / POWERS_OF_TEN[-exponent];
+        }
+        parsedDouble = negative ? -value : value;
+        return true;
+    }
+
     public static void main(final String[] args) throws Exception {
         final DbaseFileReader reader = new DbaseFileReader(new ShpFiles(args[0]),
                 false, Charset.forName("ISO-8859-1"), null);
@@ -34,7 +34,12 @@ public enum IndexType {
     /**
      * The same index as mapserver. Its the most reliable and is the default
      */
-    QIX(ShpFileType.QIX);
+    QIX(ShpFileType.QIX),
+    /**
+     * A static packed Hilbert R-tree, faster to search than the quadtree and returning less
+     * false positives on skewed data, but not understood by other software
+     */
+    HRX(ShpFileType.HRX);
 
     public final ShpFileType shpFileType;
 
@@ -70,6 +70,8 @@ import org.geotools.index.Data;
 import org.geotools.index.DataDefinition;
 import org.geotools.index.LockTimeoutException;
 import org.geotools.index.TreeException;
+import org.geotools.index.hilbert.HilbertRTree;
+import org.geotools.index.hilbert.HilbertSearchIterator;
 import org.geotools.index.quadtree.QuadTree;
 import org.geotools.index.quadtree.StoreException;
 import org.geotools.index.quadtree.fs.FileSystemIndexStore;
@@ -81,6 +83,7 @@ import org.opengis.feature.type.AttributeDescriptor;
 import org.opengis.filter.Filter;
 import org.opengis.filter.Id;
 import org.opengis.filter.identity.Identifier;
+import org.opengis.util.ProgressListener;
 
 import com.vividsolutions.jts.geom.CoordinateSequenceFactory;
 import com.vividsolutions.jts.geom.Envelope;
@@ -115,6 +118,10 @@ public class IndexedShapefileDataStore extends ShapefileDataStore implements
     
     CachedQuadTree cachedTree;
 
+    HilbertRTree hilbertTree;
+
+    long hilbertTreeLastModified;
+
 	int maxQixCacheSize = DEFAULT_MAX_QIX_CACHE_SIZE;
 	
 	static final int DEFAULT_MAX_QIX_CACHE_SIZE;
@@ -260,7 +267,20 @@ public class IndexedShapefileDataStore extends ShapefileDataStore implements
      * Forces the spatial index to be created
      */
     public void createSpatialIndex() throws IOException {
-        buildQuadTree();
+        createSpatialIndex(new NullProgressListener());
+    }
+
+    /**
+     * Forces the spatial index to be created, reporting the progress to the specified listener.
+     * If the listener gets canceled the current spatial index, if any, is left untouched.
+     */
+    public void createSpatialIndex(ProgressListener listener) throws IOException {
+        if (treeType == IndexType.HRX) {
+            closeHilbertRTree();
+            buildSpatialIndex(IndexType.HRX, listener);
+        } else {
+            buildSpatialIndex(IndexType.QIX, listener);
+        }
     }
 
     protected Filter getUnsupportedFilter(String typeName, Filter filter) {
@@ -530,7 +550,11 @@ public class IndexedShapefileDataStore extends ShapefileDataStore implements
 
             if (!bbox.isNull() && this.useIndex) {
                 try {
-                    goodRecs = this.queryQuadTree(bbox);
+                    if (treeType == IndexType.HRX) {
+                        goodRecs = this.queryHilbertRTree(bbox);
+                    } else {
+                        goodRecs = this.queryQuadTree(bbox);
+                    }
                 } catch (TreeException e) {
                     throw new IOException("Error querying index: "
                             + e.getMessage());
@@ -733,6 +757,14 @@ public class IndexedShapefileDataStore extends ShapefileDataStore implements
         }
     }
 
+    /**
+     * Returns the type of spatial index in use, it might turn into {@link IndexType#NONE} if
+     * the spatial index could not be built or opened
+     */
+    public IndexType getIndexType() {
+        return treeType;
+    }
+
     /**
      * Returns true if the indices already exist and do not need to be
      * regenerated or cannot be generated (IE isn't local).
@@ -839,6 +871,43 @@ public class IndexedShapefileDataStore extends ShapefileDataStore implements
         return tmp;
     }
 
+    /**
+     * Hilbert R-tree query. The matching records are returned sorted by record number, so that
+     * the shapefile is read sequentially
+     * 
+     * @param bbox
+     * @return The matching records, or null if the index is not available or the bbox contains
+     *         all the features
+     * @throws IOException
+     * @throws TreeException
+     */
+    protected CloseableIterator<Data> queryHilbertRTree(Envelope bbox) throws IOException,
+            TreeException {
+        // check if the spatial index needs recreating
+        createSpatialIndex(false);
+
+        HilbertRTree tree = openHilbertRTree();
+        if (tree == null || bbox.contains(tree.getBounds())) {
+            return null;
+        }
+        int[] ids;
+        try {
+            ids = tree.search(bbox);
+        } catch (IllegalStateException e) {
+            // the tree has been closed by a concurrent rebuild, search the new one
+            tree = openHilbertRTree();
+            if (tree == null) {
+                return null;
+            }
+            ids = tree.search(bbox);
+        }
+        IndexFile shx = openIndexFile();
+        if (shx == null) {
+            return null;
+        }
+        return new HilbertSearchIterator(ids, shx);
+    }
+
     /**
      * Convenience method for opening a DbaseFileReader.
      * 
@@ -928,6 +997,46 @@ public class IndexedShapefileDataStore extends ShapefileDataStore implements
 
     }
 
+    /**
+     * Convenience method for opening the Hilbert R-tree index. The tree is kept around and shared
+     * among queries until the index file changes
+     * 
+     * @return The Hilbert R-tree, or null if not available
+     * @throws IOException
+     * @throws TreeException
+     */
+    protected HilbertRTree openHilbertRTree() throws IOException, TreeException {
+        if (!isLocal()) {
+            return null;
+        }
+        URL treeURL = shpFiles.acquireRead(HRX, this);
+        try {
+            File treeFile = DataUtilities.urlToFile(treeURL);
+
+            if (!treeFile.exists() || (treeFile.length() == 0)) {
+                treeType = IndexType.NONE;
+                return null;
+            }
+
+            synchronized (this) {
+                HilbertRTree tree = hilbertTree;
+                long lastModified = treeFile.lastModified();
+                if (tree == null || lastModified != hilbertTreeLastModified) {
+                    if (tree != null) {
+                        // waits for the searches still running on the old tree
+                        tree.close();
+                    }
+                    tree = HilbertRTree.open(treeFile, useMemoryMappedBuffer);
+                    hilbertTree = tree;
+                    hilbertTreeLastModified = lastModified;
+                }
+                return tree;
+            }
+        } finally {
+            shpFiles.unlockRead(treeURL, this);
+        }
+    }
+
     /**
      * Create a FeatureWriter for the given type name.
      * 
@@ -1190,14 +1299,47 @@ public class IndexedShapefileDataStore extends ShapefileDataStore implements
      * @throws TreeException
      */
     public void buildQuadTree() throws TreeException {
+        buildSpatialIndex(IndexType.QIX, new NullProgressListener());
+    }
+
+    /**
+     * Builds the Hilbert R-tree index. Usually not necessary since reading features will index
+     * when required
+     * @throws TreeException
+     */
+    public void buildHilbertRTree() throws TreeException {
+        closeHilbertRTree();
+        buildSpatialIndex(IndexType.HRX, new NullProgressListener());
+    }
+
+    /**
+     * Closes the shared Hilbert R-tree, if any, unmapping the index file so that it can be
+     * rebuilt or deleted
+     */
+    synchronized void closeHilbertRTree() {
+        HilbertRTree tree = hilbertTree;
+        hilbertTree = null;
+        if (tree != null) {
+            tree.close();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        closeHilbertRTree();
+        super.dispose();
+    }
+
+    void buildSpatialIndex(IndexType indexType, ProgressListener listener) throws TreeException {
         if (isLocal()) {
             LOGGER.fine("Creating spatial index for " + shpFiles.get(SHP));
 
             ShapeFileIndexer indexer = new ShapeFileIndexer();
             indexer.setShapeFileName(shpFiles);
+            indexer.setIndexType(indexType);
             
             try {
-                indexer.index(false, new NullProgressListener());
+                indexer.index(false, listener);
             } catch (MalformedURLException e) {
                 throw new TreeException(e);
             } catch (LockTimeoutException e) {
@@ -116,9 +116,12 @@ class IndexedShapefileFeatureWriter extends ShapefileFeatureWriter implements
                 }
 
                 deleteFile(ShpFileType.QIX);
+                deleteFile(ShpFileType.HRX);
 
                 if (indexedShapefileDataStore.treeType == IndexType.QIX) {
                     indexedShapefileDataStore.buildQuadTree();
+                } else if (indexedShapefileDataStore.treeType == IndexType.HRX) {
+                    indexedShapefileDataStore.buildHilbertRTree();
                 }
             }
         } catch (Throwable e) {
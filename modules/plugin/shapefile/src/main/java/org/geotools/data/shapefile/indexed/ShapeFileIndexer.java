@@ -20,6 +20,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -28,20 +29,22 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.geotools.data.shapefile.FileWriter;
-import org.geotools.data.shapefile.ShpFileType;
 import org.geotools.data.shapefile.ShpFiles;
 import org.geotools.data.shapefile.StorageFile;
 import org.geotools.data.shapefile.shp.IndexFile;
+import org.geotools.data.shapefile.shp.ShapeType;
 import org.geotools.data.shapefile.shp.ShapefileHeader;
 import org.geotools.data.shapefile.shp.ShapefileReader;
 import org.geotools.data.shapefile.shp.ShapefileReader.Record;
 import org.geotools.index.LockTimeoutException;
 import org.geotools.index.TreeException;
+import org.geotools.index.hilbert.HilbertRTreeBuilder;
 import org.geotools.index.quadtree.Node;
 import org.geotools.index.quadtree.QuadTree;
 import org.geotools.index.quadtree.StoreException;
 import org.geotools.index.quadtree.fs.FileSystemIndexStore;
 import org.geotools.index.quadtree.fs.IndexHeader;
+import org.geotools.util.DelegateProgressListener;
 import org.geotools.util.NullProgressListener;
 import org.geotools.util.logging.Logging;
 import org.opengis.util.ProgressListener;
@@ -60,12 +63,26 @@ import com.vividsolutions.jts.geom.GeometryFactory;
 public class ShapeFileIndexer implements FileWriter {
     private static final Logger LOGGER = Logging.getLogger(ShapeFileIndexer.class);
     
+    /**
+     * The progress reported once the records have been read, the rest goes to the tree build
+     */
+    static final float SCAN_PROGRESS = 80;
+
+    /**
+     * The default maximum number of records whose bounds are scanned in memory to build a
+     * quadtree, see {@link #setMaxScanRecords(int)}
+     */
+    public static final int DEFAULT_MAX_SCAN_RECORDS = 8 * 1024 * 1024;
+    
     private int max = -1;
     private int leafSize = 16;
 
 	private String byteOrder;
     private boolean interactive = false;
     private ShpFiles shpFiles;
+    private IndexType indexType = IndexType.QIX;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int maxScanRecords = DEFAULT_MAX_SCAN_RECORDS;
 
     public static void main(String[] args) throws IOException {
         if ((args.length < 1) || (((args.length - 1) % 2) != 0)) {
@@ -79,15 +96,18 @@ public class ShapeFileIndexer implements FileWriter {
 
         for (int i = 0; i < args.length; i++) {
             if (args[i].equals("-t")) {
-                // idx.setIdxType(IndexType.valueOf(args[++i]));
-                // just skip it for backwards compatibility
-                i++;
+                // other values are just skipped for backwards compatibility
+                if ("HRX".equalsIgnoreCase(args[++i])) {
+                    idx.setIndexType(IndexType.HRX);
+                }
             } else if (args[i].equals("-M")) {
                 idx.setMax(Integer.parseInt(args[++i]));
             } else if (args[i].equals("-s")) {
                 idx.setLeafSize(Integer.parseInt(args[++i]));
             } else if (args[i].equals("-b")) {
                 idx.setByteOrder(args[++i]);
+            } else if (args[i].equals("-p")) {
+                idx.setThreads(Integer.parseInt(args[++i]));
             } else {
                 if (!args[i].toLowerCase().endsWith(".shp")) {
                     System.out.println("File extension must be '.shp'");
@@ -115,15 +135,18 @@ public class ShapeFileIndexer implements FileWriter {
     }
 
     private static void usage() {
-        System.out.println("Usage: ShapeFileIndexer " + "-t <QIX> "
+        System.out.println("Usage: ShapeFileIndexer " + "-t <QIX | HRX> "
                 + "[-M <max tree depth>] "
                 + "[-b <byte order NL | NM>] " + "<shape file>"
-                + "[-s <max number of items in a leaf>]");
+                + "[-s <max number of items in a leaf>] "
+                + "[-p <number of threads>]");
 
         System.out.println();
 
         System.out.println("Options:");
-        System.out.println("\t-t Index type: RTREE or QUADTREE");
+        System.out.println("\t-t Index type: QIX (quadtree) or HRX (packed Hilbert R-tree)");
+        System.out.println("\t-s max number of items in a leaf, or node size for HRX");
+        System.out.println("\t-p number of threads reading the shapefile");
         System.out.println();
         System.out.println("Following options apllies only to QUADTREE:");
         System.out.println("\t-b byte order to use: NL = LSB; "
@@ -137,11 +160,18 @@ public class ShapeFileIndexer implements FileWriter {
      * a thread starts, another thread is indexing the same file, this thread
      * will wait that the first thread ends indexing; in this case <b>zero</b>
      * is reurned as result of the indexing process.
+     * <p>
+     * The record bounds are read by {@link #getThreads()} threads, each scanning a range of
+     * records through memory mapped buffers, then the tree is bulk loaded from them. The
+     * bounds of all the records are held in memory meanwhile, 32 bytes per record, plus 4 more
+     * for a quadtree. Quadtrees of shapefiles with more than {@link #getMaxScanRecords()}
+     * records are built reading the records one at a time instead, on a single thread.
      * 
      * @param verbose
-     *                enable/disable printing of dots every 500 indexed records
+     *                enable/disable printing of dots while reading the records
      * @param listener
-     *                DOCUMENT ME!
+     *                notified of the indexing progress, the indexing stops without
+     *                touching the current index, and returns zero, if it gets canceled
      * 
      * @return The number of indexed records (or zero)
      * 
@@ -159,112 +189,208 @@ public class ShapeFileIndexer implements FileWriter {
         if (this.shpFiles == null) {
             throw new IOException("You have to set a shape file name!");
         }
+        if (listener == null) {
+            listener = new NullProgressListener();
+        }
 
         int cnt = 0;
 
-        ShapefileReader reader = null;
-
         // Temporary file for building...
-        StorageFile storage = shpFiles.getStorageFile(ShpFileType.QIX);
+        StorageFile storage = shpFiles.getStorageFile(indexType.shpFileType);
         File treeFile = storage.getFile();
 
-        try {
-            reader = new ShapefileReader(shpFiles, true, false, new GeometryFactory());
-            
-            if(max == -1) {
-                // compute a reasonable index max depth, considering a fully developed
-                // 10 levels one already contains 200k index nodes, good for indexing up
-                // to 3M features without consuming too much memory
-                int features = reader.getCount(0);
-                max = 1;
-                int nodes = 1;
-                while(nodes * leafSize < features) {
-                    max++;
-                    nodes *= 4;
-                }
-                if(max < 10) {
-                    max = 10;
+        listener.started();
+        int numRecords = getRecordCount();
+        if (indexType == IndexType.QIX && numRecords > maxScanRecords) {
+            if (max == -1) {
+                max = getDefaultMaxDepth(numRecords);
+            }
+            cnt = this.buildQuadTree(treeFile, verbose, listener);
+        } else {
+            ShapefileBoundsScanner scanner = new ShapefileBoundsScanner(shpFiles, threads);
+            double[] boxes = scanner.scan(verbose ? new DotsProgressListener(listener)
+                    : listener, 0, SCAN_PROGRESS);
+            if (boxes == null) {
+                treeFile.delete();
+                return 0;
+            }
+            if (verbose) {
+                System.out.println("done");
+            }
+
+            if (indexType == IndexType.HRX) {
+                cnt = this.buildHilbertRTree(boxes, treeFile);
+            } else {
+                if (max == -1) {
+                    max = getDefaultMaxDepth(boxes.length / 4);
                 }
-                
-                reader.close();
-                reader = new ShapefileReader(shpFiles, true, false, new GeometryFactory());
+                cnt = this.buildQuadTree(boxes, scanner.getBounds(), treeFile);
             }
-            
-            cnt = this.buildQuadTree(reader, treeFile, verbose);
-        } finally {
-            if (reader != null)
-                reader.close();
+        }
+        if (listener.isCanceled()) {
+            treeFile.delete();
+            return 0;
         }
 
         // Final index file
         storage.replaceOriginal();
+        listener.progress(100);
+        listener.complete();
 
         return cnt;
     }
 
-    private int buildQuadTree(ShapefileReader reader, File file, boolean verbose)
-            throws IOException, StoreException {
-        LOGGER.fine("Building quadtree spatial index with depth " +  max + " for file " + file.getAbsolutePath());
-        
-        byte order = 0;
+    /**
+     * Computes a reasonable index max depth, considering a fully developed 10 levels one
+     * already contains 200k index nodes, good for indexing up to 3M features without
+     * consuming too much memory
+     */
+    private int getDefaultMaxDepth(int features) {
+        int depth = 1;
+        int nodes = 1;
+        while (nodes * leafSize < features) {
+            depth++;
+            nodes *= 4;
+        }
+        return Math.max(depth, 10);
+    }
+
+    private int getRecordCount() throws IOException {
+        IndexFile shx = new IndexFile(shpFiles, false);
+        try {
+            return shx.getRecordCount();
+        } finally {
+            shx.close();
+        }
+    }
 
+    private int buildHilbertRTree(double[] boxes, File file) throws IOException {
+        int nodeSize = leafSize > 1 ? leafSize : HilbertRTreeBuilder.DEFAULT_NODE_SIZE;
+        LOGGER.fine("Building Hilbert R-tree spatial index with node size " + nodeSize
+                + " for file " + file.getAbsolutePath());
+
+        HilbertRTreeBuilder builder = new HilbertRTreeBuilder(nodeSize);
+        builder.addAll(boxes, boxes.length / 4);
+        builder.write(file);
+        return builder.getNumItems();
+    }
+
+    private byte getByteOrder() throws StoreException {
         if ((this.byteOrder == null) || this.byteOrder.equalsIgnoreCase("NM")) {
-            order = IndexHeader.NEW_MSB_ORDER;
+            return IndexHeader.NEW_MSB_ORDER;
         } else if (this.byteOrder.equalsIgnoreCase("NL")) {
-            order = IndexHeader.NEW_LSB_ORDER;
+            return IndexHeader.NEW_LSB_ORDER;
         } else {
             throw new StoreException("Asked byte order '" + this.byteOrder
                     + "' must be 'NL' or 'NM'!");
         }
+    }
 
-        IndexFile shpIndex = new IndexFile(shpFiles, false);
-        QuadTree tree = null;
+    private int buildQuadTree(double[] boxes, Envelope bounds, File file)
+            throws IOException, StoreException {
+        LOGGER.fine("Building quadtree spatial index with depth " +  max + " for file " + file.getAbsolutePath());
+        
+        byte order = getByteOrder();
+
+        // null shapes have no bounds and cannot be found by a spatial search
+        int numRecs = boxes.length / 4;
+        int[] recnos = new int[numRecs];
         int cnt = 0;
-        int numRecs = shpIndex.getRecordCount();
-        ShapefileHeader header = reader.getHeader();
-        Envelope bounds = new Envelope(header.minX(), header.maxX(), header
-                .minY(), header.maxY());
+        for (int i = 0; i < numRecs; i++) {
+            int b = i * 4;
+            if (boxes[b] <= boxes[b + 2] && boxes[b + 1] <= boxes[b + 3]) {
+                recnos[cnt++] = i;
+            }
+        }
+        if (cnt < numRecs) {
+            recnos = Arrays.copyOf(recnos, cnt);
+        }
 
-        tree = new QuadTree(numRecs, max, bounds, shpIndex);
+        IndexFile shpIndex = new IndexFile(shpFiles, false);
+        QuadTree tree = new QuadTree(numRecs, max, bounds, shpIndex);
         try {
-            Record rec = null;
+            tree.insert(tree.getRoot(), recnos, boxes, max);
+            recnos = null;
+
+            storeQuadTree(tree, new ScannedBoxes(boxes), file, order);
+        } finally {
+            tree.close();
+        }
+        return numRecs;
+    }
 
-            while (reader.hasNext()) {
-                rec = reader.nextRecord();
-                tree.insert(cnt++, new Envelope(rec.minX, rec.maxX, rec.minY,
-                        rec.maxY));
+    /**
+     * Builds the quadtree reading the records one at a time, without holding their bounds in
+     * memory
+     */
+    private int buildQuadTree(File file, boolean verbose, ProgressListener listener)
+            throws IOException, StoreException {
+        LOGGER.fine("Building quadtree spatial index with depth " +  max
+                + " streaming the records of file " + file.getAbsolutePath());
 
-                if (verbose && ((cnt % 1000) == 0)) {
-                    System.out.print('.');
-                }
-                if (cnt % 100000 == 0)
-                    System.out.print('\n');
-            }
-            if (verbose)
-                System.out.println("done");
-            FileSystemIndexStore store = new FileSystemIndexStore(file, order);
-            
-            if(leafSize > 0) {
-                if (LOGGER.isLoggable(Level.FINE)) {
-                    LOGGER.fine("Optimizing the tree (this might take some time)");
+        byte order = getByteOrder();
+        ShapefileReader reader = new ShapefileReader(shpFiles, true, false,
+                new GeometryFactory());
+        try {
+            IndexFile shpIndex = new IndexFile(shpFiles, false);
+            int numRecs = shpIndex.getRecordCount();
+            ShapefileHeader header = reader.getHeader();
+            Envelope bounds = new Envelope(header.minX(), header.maxX(), header.minY(),
+                    header.maxY());
+            ProgressListener progress = verbose ? new DotsProgressListener(listener) : listener;
+
+            QuadTree tree = new QuadTree(numRecs, max, bounds, shpIndex);
+            try {
+                int cnt = 0;
+                while (reader.hasNext()) {
+                    Record rec = reader.nextRecord();
+                    // null shapes have no bounds and cannot be found by a spatial search
+                    if (rec.type != ShapeType.NULL) {
+                        tree.insert(cnt, new Envelope(rec.minX, rec.maxX, rec.minY, rec.maxY));
+                    }
+                    cnt++;
+                    if (cnt % 10000 == 0) {
+                        if (listener.isCanceled()) {
+                            return 0;
+                        }
+                        progress.progress(SCAN_PROGRESS * cnt / numRecs);
+                    }
                 }
-                optimizeTree(tree, tree.getRoot(), 0, reader, shpIndex);
-                if (LOGGER.isLoggable(Level.FINE)) {
-                    LOGGER.fine("Tree optimized");
+                if (verbose) {
+                    System.out.println("done");
                 }
+
+                storeQuadTree(tree, new ReaderBoxes(reader, shpIndex), file, order);
+            } finally {
+                tree.close();
             }
-            
-            if(LOGGER.isLoggable(Level.FINE)) {
-                printStats(tree);
-            }
-            store.store(tree);
+            return numRecs;
         } finally {
-            tree.close();
+            reader.close();
         }
-        return cnt;
+    }
+
+    private void storeQuadTree(QuadTree tree, RecordBoxes boxes, File file, byte order)
+            throws IOException, StoreException {
+        FileSystemIndexStore store = new FileSystemIndexStore(file, order);
+
+        if(leafSize > 0) {
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine("Optimizing the tree (this might take some time)");
+            }
+            optimizeTree(tree, tree.getRoot(), 0, boxes);
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine("Tree optimized");
+            }
+        }
+
+        if(LOGGER.isLoggable(Level.FINE)) {
+            printStats(tree);
+        }
+        store.store(tree);
     }
     
-    private Node optimizeTree(QuadTree tree, Node node, int level, ShapefileReader reader, IndexFile index) throws StoreException, IOException {
+    private Node optimizeTree(QuadTree tree, Node node, int level, RecordBoxes boxes) throws StoreException {
         // recurse, with a check to avoid too deep recursion due to odd data that has a
         if(node.getNumShapeIds() > leafSize && node.getNumSubNodes() == 0 && level < max * 2) {
             // ok, we need to split this baby further
@@ -280,14 +406,7 @@ public class ShapeFileIndexer implements FileWriter {
                 nodes *= 4;
             }
             
-            for (int i = 0; i < numShapesId; i++) {
-                final int shapeId = shapeIds[i];
-                int offset = index.getOffsetInBytes(shapeId);
-                reader.goTo(offset);
-                Record rec = reader.nextRecord();
-                Envelope env = new Envelope(rec.minX, rec.maxX, rec.minY, rec.maxY);
-                tree.insert(node, shapeId, env, extraLevels);
-            }
+            boxes.insert(tree, node, Arrays.copyOf(shapeIds, numShapesId), extraLevels);
         }
         
         // pack the arrays to use less memory (the optimization often makes the tree grow)
@@ -295,7 +414,7 @@ public class ShapeFileIndexer implements FileWriter {
         
         // recurse 
         for (int i = 0; i < node.getNumSubNodes(); i++) {
-            optimizeTree(tree, node.getSubNode(i), level + 1, reader, index);
+            optimizeTree(tree, node.getSubNode(i), level + 1, boxes);
         }
         
         // prune empty subnodes
@@ -324,13 +443,8 @@ public class ShapeFileIndexer implements FileWriter {
             Envelope bounds = new Envelope();
             if(node.getNumShapeIds() > 0) {
                 int[] shapeIds  = node.getShapesId();
-                for (int i = 0; i < shapeIds.length; i++) {
-                    final int shapeId = shapeIds[i];
-                    int offset = index.getOffsetInBytes(shapeId);
-                    reader.goTo(offset);
-                    Record rec = reader.nextRecord();
-                    Envelope env = new Envelope(rec.minX, rec.maxX, rec.minY, rec.maxY);
-                    bounds.expandToInclude(env);
+                for (int i = 0; i < node.getNumShapeIds(); i++) {
+                    boxes.expand(bounds, shapeIds[i]);
                 }
             }
             if(node.getNumSubNodes() > 0) {
@@ -421,10 +535,147 @@ public class ShapeFileIndexer implements FileWriter {
         this.byteOrder = byteOrder;
     }
 
+    /**
+     * Sets the type of spatial index to be built, either {@link IndexType#QIX} (the default) or
+     * {@link IndexType#HRX}
+     * 
+     * @param indexType
+     */
+    public void setIndexType(IndexType indexType) {
+        if (indexType == null || indexType.shpFileType == null) {
+            throw new IllegalArgumentException("Cannot build a spatial index of type "
+                    + indexType);
+        }
+        this.indexType = indexType;
+    }
+
+    public IndexType getIndexType() {
+        return indexType;
+    }
+
+    /**
+     * The number of threads reading the shapefile, defaults to the number of processors
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * The maximum number of records whose bounds are scanned in memory to build a quadtree,
+     * larger shapefiles are indexed reading one record at a time. Defaults to
+     * {@link #DEFAULT_MAX_SCAN_RECORDS}, which takes about 300MB of heap.
+     */
+    public int getMaxScanRecords() {
+        return maxScanRecords;
+    }
+
+    public void setMaxScanRecords(int maxScanRecords) {
+        this.maxScanRecords = maxScanRecords;
+    }
+
     public String id() {
         return getClass().getName();
     }
+
+    /**
+     * Gives the quadtree optimization access to the bounds of the records
+     */
+    interface RecordBoxes {
+        /**
+         * Inserts the records in the node, going down at most the specified levels
+         */
+        void insert(QuadTree tree, Node node, int[] recnos, int levels) throws StoreException;
+
+        /**
+         * Expands the envelope to include the bounds of the record
+         */
+        void expand(Envelope bounds, int recno) throws StoreException;
+    }
+
+    /**
+     * The record bounds scanned by {@link ShapefileBoundsScanner}
+     */
+    static class ScannedBoxes implements RecordBoxes {
+        final double[] boxes;
+
+        ScannedBoxes(double[] boxes) {
+            this.boxes = boxes;
+        }
+
+        public void insert(QuadTree tree, Node node, int[] recnos, int levels)
+                throws StoreException {
+            tree.insert(node, recnos, boxes, levels);
+        }
+
+        public void expand(Envelope bounds, int recno) {
+            final int b = recno * 4;
+            bounds.expandToInclude(boxes[b], boxes[b + 1]);
+            bounds.expandToInclude(boxes[b + 2], boxes[b + 3]);
+        }
+    }
+
+    /**
+     * The record bounds read back from the shapefile
+     */
+    static class ReaderBoxes implements RecordBoxes {
+        final ShapefileReader reader;
+
+        final IndexFile index;
+
+        ReaderBoxes(ShapefileReader reader, IndexFile index) {
+            this.reader = reader;
+            this.index = index;
+        }
+
+        Record read(int recno) throws StoreException {
+            try {
+                reader.goTo(index.getOffsetInBytes(recno));
+                return reader.nextRecord();
+            } catch (IOException e) {
+                throw new StoreException(e);
+            }
+        }
+
+        public void insert(QuadTree tree, Node node, int[] recnos, int levels)
+                throws StoreException {
+            for (int recno : recnos) {
+                Record rec = read(recno);
+                tree.insert(node, recno, new Envelope(rec.minX, rec.maxX, rec.minY, rec.maxY),
+                        levels);
+            }
+        }
+
+        public void expand(Envelope bounds, int recno) throws StoreException {
+            Record rec = read(recno);
+            bounds.expandToInclude(rec.minX, rec.minY);
+            bounds.expandToInclude(rec.maxX, rec.maxY);
+        }
+    }
     
+    /**
+     * Prints a dot every percent of progress, delegating to another listener
+     */
+    static class DotsProgressListener extends DelegateProgressListener {
+        int dots;
+
+        DotsProgressListener(ProgressListener delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void progress(float percent) {
+            super.progress(percent);
+            while (dots < (int) percent) {
+                System.out.print('.');
+                dots++;
+            }
+        }
+    }
+
     public int getLeafSize() {
 		return leafSize;
 	}
@@ -0,0 +1,282 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile.indexed;
+
+import static org.geotools.data.shapefile.ShpFileType.SHP;
+import static org.geotools.data.shapefile.ShpFileType.SHX;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.geotools.data.shapefile.FileReader;
+import org.geotools.data.shapefile.ShpFiles;
+import org.geotools.resources.NIOUtilities;
+import org.opengis.util.ProgressListener;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * Reads the bounding boxes of all the records of a local shapefile, splitting the records in
+ * ranges that are scanned in parallel.
+ * <p>
+ * Each range reads its slice of the {@code .shx} file and the record headers of the
+ * {@code .shp} file through memory mapped windows, without parsing the geometries: only the
+ * first bytes of each record, holding its bounding box (or the point coordinates), are touched.
+ * The boxes are returned as a flat array, four doubles per record in the
+ * {@code minX, minY, maxX, maxY} order, the same used by {@link
+ * org.geotools.index.hilbert.HilbertRTreeBuilder}. Null shapes get an empty box, with the
+ * minimum values greater than the maximum ones.
+ * <p>
+ * The boxes of the whole file are held in memory, 32 bytes per record: {@link ShapeFileIndexer}
+ * streams the records instead for quadtrees of large files.
+ *
+ * @since 9.0
+ *
+ * @source $URL$
+ */
+class ShapefileBoundsScanner implements FileReader {
+
+    /**
+     * The number of records scanned by each task
+     */
+    static final int RANGE_SIZE = 64 * 1024;
+
+    /**
+     * The size of the memory mapped windows over the .shp file
+     */
+    static final int WINDOW_SIZE = 16 * 1024 * 1024;
+
+    static final int HEADER_SIZE = 100;
+
+    private final ShpFiles shpFiles;
+
+    private final int threads;
+
+    int rangeSize = RANGE_SIZE;
+
+    private Envelope bounds;
+
+    /**
+     * Builds a new scanner
+     *
+     * @param shpFiles The shapefile, it must be local
+     * @param threads The number of threads reading the file
+     */
+    public ShapefileBoundsScanner(ShpFiles shpFiles, int threads) {
+        if (!shpFiles.isLocal()) {
+            throw new IllegalArgumentException("Only local shapefiles can be scanned");
+        }
+        this.shpFiles = shpFiles;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * The bounds declared in the .shp header, available after {@link #scan}
+     */
+    public Envelope getBounds() {
+        return bounds;
+    }
+
+    /**
+     * Reads the record boxes
+     *
+     * @param listener The listener notified of the progress, also checked for cancellation
+     * @param startProgress The progress reported when the scan starts
+     * @param endProgress The progress reported when the scan is done
+     * @return The record boxes, or null if the listener has been canceled
+     * @throws IOException
+     */
+    public double[] scan(ProgressListener listener, float startProgress, float endProgress)
+            throws IOException {
+        File shxFile = shpFiles.acquireReadFile(SHX, this);
+        try {
+            File shpFile = shpFiles.acquireReadFile(SHP, this);
+            try {
+                RandomAccessFile shx = new RandomAccessFile(shxFile, "r");
+                try {
+                    RandomAccessFile shp = new RandomAccessFile(shpFile, "r");
+                    try {
+                        return scan(shx.getChannel(), shp.getChannel(), listener,
+                                startProgress, endProgress);
+                    } finally {
+                        shp.close();
+                    }
+                } finally {
+                    shx.close();
+                }
+            } finally {
+                shpFiles.unlockRead(shpFile, this);
+            }
+        } finally {
+            shpFiles.unlockRead(shxFile, this);
+        }
+    }
+
+    double[] scan(final FileChannel shx, final FileChannel shp, ProgressListener listener,
+            float startProgress, float endProgress) throws IOException {
+        bounds = readBounds(shp);
+
+        // the header length is in 16 bit words, but don't trust it beyond the file size
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(shx, header, 0);
+        long shxLength = Math.min((header.getInt(24) & 0xFFFFFFFFL) * 2, shx.size());
+        final int numRecords = (int) Math.max(0, (shxLength - HEADER_SIZE) / 8);
+        final double[] boxes = new double[numRecords * 4];
+        if (numRecords == 0) {
+            return boxes;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CompletionService<Integer> completion = new ExecutorCompletionService<Integer>(
+                    executor);
+            int numRanges = 0;
+            for (int from = 0; from < numRecords; from += rangeSize) {
+                final int start = from;
+                final int end = (int) Math.min((long) from + rangeSize, numRecords);
+                completion.submit(new Callable<Integer>() {
+                    public Integer call() throws Exception {
+                        scanRange(shx, shp, start, end, boxes);
+                        return end - start;
+                    }
+                });
+                numRanges++;
+            }
+
+            int scanned = 0;
+            for (int i = 0; i < numRanges; i++) {
+                try {
+                    scanned += completion.take().get();
+                } catch (InterruptedException e) {
+                    throw (IOException) new IOException("Interrupted while scanning "
+                            + shpFiles.get(SHP)).initCause(e);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    }
+                    throw (IOException) new IOException("Failed to scan " + shpFiles.get(SHP))
+                            .initCause(cause);
+                }
+                if (listener.isCanceled()) {
+                    return null;
+                }
+                listener.progress(startProgress + (endProgress - startProgress) * scanned
+                        / numRecords);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return boxes;
+    }
+
+    /**
+     * Reads the boxes of the records between from (included) and to (excluded)
+     */
+    static void scanRange(FileChannel shx, FileChannel shp, int from, int to, double[] boxes)
+            throws IOException {
+        MappedByteBuffer index = shx.map(MapMode.READ_ONLY, HEADER_SIZE + 8L * from,
+                8L * (to - from));
+        index.order(ByteOrder.BIG_ENDIAN);
+        long shpSize = shp.size();
+        MappedByteBuffer window = null;
+        long windowStart = 0;
+        try {
+            for (int i = from; i < to; i++) {
+                long offset = (index.getInt() & 0xFFFFFFFFL) * 2;
+                long length = (index.getInt() & 0xFFFFFFFFL) * 2;
+
+                // record header, shape type and box (or point coordinates)
+                int needed = (int) Math.min(8 + length, 44);
+                if (window == null || offset < windowStart
+                        || offset + needed > windowStart + window.capacity()) {
+                    if (window != null) {
+                        NIOUtilities.clean(window, true);
+                    }
+                    windowStart = offset;
+                    window = shp.map(MapMode.READ_ONLY, offset,
+                            Math.min(WINDOW_SIZE, shpSize - offset));
+                    window.order(ByteOrder.LITTLE_ENDIAN);
+                }
+
+                int p = (int) (offset - windowStart) + 8;
+                int pos = i * 4;
+                int type = length >= 4 ? window.getInt(p) : 0;
+                if (type == 0) {
+                    // null shape
+                    boxes[pos] = Double.POSITIVE_INFINITY;
+                    boxes[pos + 1] = Double.POSITIVE_INFINITY;
+                    boxes[pos + 2] = Double.NEGATIVE_INFINITY;
+                    boxes[pos + 3] = Double.NEGATIVE_INFINITY;
+                } else if (type % 10 == 1) {
+                    // point, point z, point m
+                    double x = window.getDouble(p + 4);
+                    double y = window.getDouble(p + 12);
+                    boxes[pos] = x;
+                    boxes[pos + 1] = y;
+                    boxes[pos + 2] = x;
+                    boxes[pos + 3] = y;
+                } else {
+                    boxes[pos] = window.getDouble(p + 4);
+                    boxes[pos + 1] = window.getDouble(p + 12);
+                    boxes[pos + 2] = window.getDouble(p + 20);
+                    boxes[pos + 3] = window.getDouble(p + 28);
+                }
+            }
+        } finally {
+            if (window != null) {
+                NIOUtilities.clean(window, true);
+            }
+            NIOUtilities.clean(index, true);
+        }
+    }
+
+    static Envelope readBounds(FileChannel shp) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(shp, header, 0);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        return new Envelope(header.getDouble(36), header.getDouble(52), header.getDouble(44),
+                header.getDouble(60));
+    }
+
+    static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file, the shapefile is truncated");
+            }
+        }
+        buffer.flip();
+    }
+
+    public String id() {
+        return getClass().getName();
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.index.hilbert;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.geotools.index.TreeException;
+import org.geotools.resources.NIOUtilities;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * A static, packed Hilbert R-tree stored in a single flat file, used as the <code>.hrx</code>
+ * shapefile spatial index.
+ * <p>
+ * Differently from the <code>.qix</code> quadtree the tree is not read node by node, the whole
+ * file is either memory mapped or read in one shot, and then searched with absolute buffer
+ * accesses, so a single instance can be shared among threads. The searches return the matching
+ * item identifiers sorted in ascending order, so that the shapefile records can be read
+ * sequentially.
+ * </p>
+ * The file layout, in little endian byte order, is:
+ * <ul>
+ * <li>the "HRTX" signature, the format version, the node size, the number of items, the total
+ * number of items and nodes, the number of levels</li>
+ * <li>the bounds of the whole tree as minx, miny, maxx, maxy</li>
+ * <li>the end position of each level, the items are the level zero and the root is the last
+ * level</li>
+ * <li>the bounding boxes of all the items and nodes, four doubles each</li>
+ * <li>one integer per item (the item identifier) and per node (the position of its first
+ * child)</li>
+ * </ul>
+ *
+ * @see HilbertRTreeBuilder
+ *
+ * @source $URL$
+ */
+public class HilbertRTree {
+
+    static final byte[] SIGNATURE = new byte[] { 'H', 'R', 'T', 'X' };
+
+    static final int VERSION = 1;
+
+    static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    static final int[] EMPTY = new int[0];
+
+    ByteBuffer buffer;
+
+    /**
+     * The memory mapped file contents, if the tree has been opened with memory mapping, to be
+     * unmapped on close
+     */
+    MappedByteBuffer mapped;
+
+    /**
+     * Keeps {@link #close()} from unmapping the buffer while searches are running
+     */
+    final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    int nodeSize;
+
+    int numItems;
+
+    int numNodes;
+
+    int[] levelBounds;
+
+    Envelope bounds;
+
+    int boxesOffset;
+
+    int indicesOffset;
+
+    /**
+     * Opens a tree stored in the specified file
+     *
+     * @param file
+     * @param useMemoryMapping If true the file will be memory mapped, otherwise it will be read
+     *        in memory
+     * @throws TreeException If the file is not a valid tree
+     * @throws IOException
+     */
+    public static HilbertRTree open(File file, boolean useMemoryMapping) throws IOException,
+            TreeException {
+        FileInputStream fis = new FileInputStream(file);
+        try {
+            FileChannel channel = fis.getChannel();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new TreeException("Index file " + file + " is too big");
+            }
+            ByteBuffer buffer;
+            if (useMemoryMapping) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) == -1) {
+                        break;
+                    }
+                }
+                buffer.flip();
+            }
+            HilbertRTree tree = new HilbertRTree(buffer);
+            if (useMemoryMapping) {
+                tree.mapped = (MappedByteBuffer) buffer;
+            }
+            return tree;
+        } finally {
+            fis.close();
+        }
+    }
+
+    /**
+     * Wraps a buffer containing the tree
+     *
+     * @param buffer
+     * @throws TreeException If the buffer does not contain a valid tree
+     */
+    public HilbertRTree(ByteBuffer buffer) throws TreeException {
+        this.buffer = buffer.duplicate();
+        this.buffer.order(BYTE_ORDER);
+        ByteBuffer b = this.buffer;
+        if (b.limit() < getHeaderSize(0)) {
+            throw new TreeException("Invalid Hilbert R-tree, the header is truncated");
+        }
+        for (int i = 0; i < SIGNATURE.length; i++) {
+            if (b.get(i) != SIGNATURE[i]) {
+                throw new TreeException("Invalid Hilbert R-tree signature");
+            }
+        }
+        int version = b.getInt(4);
+        if (version != VERSION) {
+            throw new TreeException("Unsupported Hilbert R-tree version " + version);
+        }
+        nodeSize = b.getInt(8);
+        numItems = b.getInt(12);
+        numNodes = b.getInt(16);
+        int numLevels = b.getInt(20);
+        if (numItems > 0) {
+            bounds = new Envelope(b.getDouble(24), b.getDouble(40), b.getDouble(32),
+                    b.getDouble(48));
+        } else {
+            bounds = new Envelope();
+        }
+        boxesOffset = getHeaderSize(numLevels);
+        indicesOffset = boxesOffset + numNodes * 32;
+        if (nodeSize < 2 || numLevels < 0 || numNodes < numItems
+                || b.limit() < indicesOffset + numNodes * 4) {
+            throw new TreeException("Invalid Hilbert R-tree, the file is corrupted or truncated");
+        }
+        levelBounds = new int[numLevels];
+        for (int i = 0; i < numLevels; i++) {
+            levelBounds[i] = b.getInt(56 + i * 4);
+        }
+    }
+
+    /**
+     * The size of the file header, padded so that the boxes are aligned to eight bytes
+     */
+    static int getHeaderSize(int numLevels) {
+        int size = 56 + numLevels * 4;
+        return (size + 7) & ~7;
+    }
+
+    /**
+     * The bounds of all the items in the tree
+     */
+    public Envelope getBounds() {
+        return new Envelope(bounds);
+    }
+
+    /**
+     * The number of items in the tree
+     */
+    public int getNumItems() {
+        return numItems;
+    }
+
+    public int getNodeSize() {
+        return nodeSize;
+    }
+
+    /**
+     * Returns the identifiers of all the items whose bounding box intersects the specified one,
+     * sorted in ascending order
+     *
+     * @param bbox
+     */
+    public int[] search(Envelope bbox) {
+        IntList result = new IntList();
+        lock.readLock().lock();
+        try {
+            search(bbox, result);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result.toSortedArray(false);
+    }
+
+    /**
+     * Returns the identifiers of all the items whose bounding box intersects at least one of the
+     * specified ones, sorted in ascending order and without duplicates
+     *
+     * @param bboxes
+     */
+    public int[] search(Collection<Envelope> bboxes) {
+        IntList result = new IntList();
+        lock.readLock().lock();
+        try {
+            for (Envelope bbox : bboxes) {
+                search(bbox, result);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result.toSortedArray(true);
+    }
+
+    void search(Envelope bbox, IntList result) {
+        if (numItems == 0 || bbox.isNull()) {
+            return;
+        }
+        final double qMinX = bbox.getMinX();
+        final double qMinY = bbox.getMinY();
+        final double qMaxX = bbox.getMaxX();
+        final double qMaxY = bbox.getMaxY();
+        final ByteBuffer b = buffer;
+        if (b == null) {
+            throw new IllegalStateException("The Hilbert R-tree has been closed");
+        }
+
+        // explicit stack of (node position, level) pairs
+        int[] stack = new int[64];
+        int sp = 0;
+        int nodeIndex = numNodes - 1;
+        int level = levelBounds.length - 1;
+        while (true) {
+            int end = Math.min(nodeIndex + nodeSize, levelBounds[level]);
+            boolean leaf = nodeIndex < numItems;
+            for (int pos = nodeIndex; pos < end; pos++) {
+                int box = boxesOffset + pos * 32;
+                if (b.getDouble(box + 16) < qMinX || b.getDouble(box + 24) < qMinY
+                        || b.getDouble(box) > qMaxX || b.getDouble(box + 8) > qMaxY) {
+                    continue;
+                }
+                int index = b.getInt(indicesOffset + pos * 4);
+                if (leaf) {
+                    result.add(index);
+                } else {
+                    if (sp + 2 > stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[sp++] = index;
+                    stack[sp++] = level - 1;
+                }
+            }
+
+            if (sp == 0) {
+                break;
+            }
+            level = stack[--sp];
+            nodeIndex = stack[--sp];
+        }
+    }
+
+    /**
+     * Releases the tree contents, waiting for the running searches to complete. A memory
+     * mapped file is unmapped right away, so that it can be rebuilt or deleted also on
+     * Windows. Searching a closed tree throws an {@link IllegalStateException}
+     */
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            buffer = null;
+            if (mapped != null) {
+                NIOUtilities.clean(mapped, true);
+                mapped = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * A minimal growable int array
+     */
+    static class IntList {
+        int[] values = new int[64];
+
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toSortedArray(boolean removeDuplicates) {
+            if (size == 0) {
+                return EMPTY;
+            }
+            Arrays.sort(values, 0, size);
+            int count = size;
+            if (removeDuplicates) {
+                count = 1;
+                for (int i = 1; i < size; i++) {
+                    if (values[i] != values[count - 1]) {
+                        values[count++] = values[i];
+                    }
+                }
+            }
+            return Arrays.copyOf(values, count);
+        }
+    }
+
+}
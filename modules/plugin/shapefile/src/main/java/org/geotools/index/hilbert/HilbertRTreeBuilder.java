@@ -0,0 +1,347 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.index.hilbert;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Builds a static, packed Hilbert R-tree and writes it down in the {@link HilbertRTree} file
+ * format.
+ * <p>
+ * The items are sorted along the Hilbert curve using the center of their bounding boxes, then
+ * the tree is packed bottom up, grouping {@link #getNodeSize()} consecutive items (or nodes) into
+ * each parent node. The result is a tree with fully filled nodes and good spatial locality, that
+ * can be stored as a few flat arrays.
+ * </p>
+ * Items are identified by their insertion order, which for shapefiles is the record number.
+ *
+ * @source $URL$
+ */
+public class HilbertRTreeBuilder {
+
+    /**
+     * The default number of children per node
+     */
+    public static final int DEFAULT_NODE_SIZE = 16;
+
+    static final int HILBERT_MAX = (1 << 16) - 1;
+
+    int nodeSize;
+
+    double[] boxes;
+
+    int numItems;
+
+    double minX = Double.POSITIVE_INFINITY;
+
+    double minY = Double.POSITIVE_INFINITY;
+
+    double maxX = Double.NEGATIVE_INFINITY;
+
+    double maxY = Double.NEGATIVE_INFINITY;
+
+    public HilbertRTreeBuilder() {
+        this(DEFAULT_NODE_SIZE);
+    }
+
+    /**
+     * Builds a new tree builder
+     *
+     * @param nodeSize The number of children per node, must be between 2 and 65535
+     */
+    public HilbertRTreeBuilder(int nodeSize) {
+        if (nodeSize < 2 || nodeSize > 0xFFFF) {
+            throw new IllegalArgumentException("Node size must be between 2 and 65535, got "
+                    + nodeSize);
+        }
+        this.nodeSize = nodeSize;
+        this.boxes = new double[4 * 1024];
+    }
+
+    /**
+     * Adds a new item to the tree, its identifier will be the number of items added before it
+     *
+     * @return The identifier of the item
+     */
+    public int add(double minX, double minY, double maxX, double maxY) {
+        int pos = numItems * 4;
+        if (pos == boxes.length) {
+            boxes = Arrays.copyOf(boxes, Math.max(boxes.length * 2, 4 * 1024));
+        }
+        boxes[pos] = minX;
+        boxes[pos + 1] = minY;
+        boxes[pos + 2] = maxX;
+        boxes[pos + 3] = maxY;
+        expandBounds(minX, minY, maxX, maxY);
+
+        return numItems++;
+    }
+
+    /**
+     * Adds a set of items at once, their identifiers follow the order of the boxes. When no
+     * item has been added yet, the array is used as is instead of being copied, and must not
+     * be modified afterwards.
+     *
+     * @param boxes The item boxes, four values per item in the minX, minY, maxX, maxY order
+     * @param count The number of items in the array
+     */
+    public void addAll(double[] boxes, int count) {
+        if (numItems == 0) {
+            this.boxes = boxes;
+            this.numItems = count;
+            for (int pos = 0; pos < count * 4; pos += 4) {
+                expandBounds(boxes[pos], boxes[pos + 1], boxes[pos + 2], boxes[pos + 3]);
+            }
+        } else {
+            for (int pos = 0; pos < count * 4; pos += 4) {
+                add(boxes[pos], boxes[pos + 1], boxes[pos + 2], boxes[pos + 3]);
+            }
+        }
+    }
+
+    void expandBounds(double minX, double minY, double maxX, double maxY) {
+        // null shapes have no bounds, don't let them ruin the tree ones
+        if (minX <= maxX && minY <= maxY) {
+            this.minX = Math.min(this.minX, minX);
+            this.minY = Math.min(this.minY, minY);
+            this.maxX = Math.max(this.maxX, maxX);
+            this.maxY = Math.max(this.maxY, maxY);
+        }
+    }
+
+    /**
+     * The number of items added so far
+     */
+    public int getNumItems() {
+        return numItems;
+    }
+
+    public int getNodeSize() {
+        return nodeSize;
+    }
+
+    /**
+     * Packs the tree and writes it into the specified file
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void write(File file) throws IOException {
+        ByteBuffer buffer = pack();
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            FileChannel channel = raf.getChannel();
+            channel.truncate(0);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Packs the tree and returns it in the {@link HilbertRTree} file format, ready to be
+     * embedded in another file and read back with {@link HilbertRTree#HilbertRTree(ByteBuffer)}
+     */
+    public ByteBuffer pack() {
+        // compute the level boundaries, the items are the level zero
+        int[] levelBounds;
+        int numNodes;
+        if (numItems == 0) {
+            levelBounds = new int[0];
+            numNodes = 0;
+        } else {
+            int[] levels = new int[32];
+            int numLevels = 0;
+            int n = numItems;
+            numNodes = n;
+            levels[numLevels++] = numNodes;
+            do {
+                n = (n + nodeSize - 1) / nodeSize;
+                numNodes += n;
+                levels[numLevels++] = numNodes;
+            } while (n != 1);
+            levelBounds = Arrays.copyOf(levels, numLevels);
+        }
+
+        double[] nodeBoxes = new double[numNodes * 4];
+        int[] indices = new int[numNodes];
+        sortItems(nodeBoxes, indices);
+        packNodes(nodeBoxes, indices, levelBounds);
+
+        // write out the whole thing
+        int headerSize = HilbertRTree.getHeaderSize(levelBounds.length);
+        ByteBuffer buffer = ByteBuffer.allocate(headerSize + numNodes * 36);
+        buffer.order(HilbertRTree.BYTE_ORDER);
+        buffer.put(HilbertRTree.SIGNATURE);
+        buffer.putInt(HilbertRTree.VERSION);
+        buffer.putInt(nodeSize);
+        buffer.putInt(numItems);
+        buffer.putInt(numNodes);
+        buffer.putInt(levelBounds.length);
+        buffer.putDouble(minX);
+        buffer.putDouble(minY);
+        buffer.putDouble(maxX);
+        buffer.putDouble(maxY);
+        for (int i = 0; i < levelBounds.length; i++) {
+            buffer.putInt(levelBounds[i]);
+        }
+        buffer.position(headerSize);
+        for (int i = 0; i < nodeBoxes.length; i++) {
+            buffer.putDouble(nodeBoxes[i]);
+        }
+        for (int i = 0; i < indices.length; i++) {
+            buffer.putInt(indices[i]);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Copies the item boxes and identifiers at the beginning of the node arrays, sorted by the
+     * Hilbert value of their centers
+     */
+    void sortItems(double[] nodeBoxes, int[] indices) {
+        double width = maxX - minX;
+        double height = maxY - minY;
+        // pack Hilbert value and item id in the same long, so that a primitive sort does the job
+        long[] keys = new long[numItems];
+        for (int i = 0; i < numItems; i++) {
+            int pos = i * 4;
+            long h = 0;
+            double bMinX = boxes[pos];
+            double bMinY = boxes[pos + 1];
+            double bMaxX = boxes[pos + 2];
+            double bMaxY = boxes[pos + 3];
+            if (bMinX <= bMaxX && bMinY <= bMaxY) {
+                int x = width > 0 ? (int) (HILBERT_MAX * ((bMinX + bMaxX) / 2 - minX) / width) : 0;
+                int y = height > 0 ? (int) (HILBERT_MAX * ((bMinY + bMaxY) / 2 - minY) / height)
+                        : 0;
+                h = hilbert(x, y) & 0xFFFFFFFFL;
+            }
+            keys[i] = (h << 31) | i;
+        }
+        Arrays.sort(keys);
+
+        for (int i = 0; i < numItems; i++) {
+            int id = (int) (keys[i] & Integer.MAX_VALUE);
+            System.arraycopy(boxes, id * 4, nodeBoxes, i * 4, 4);
+            indices[i] = id;
+        }
+    }
+
+    /**
+     * Builds the upper levels of the tree, each node stores the union of its children bounds and
+     * the position of its first child
+     */
+    void packNodes(double[] nodeBoxes, int[] indices, int[] levelBounds) {
+        int pos = 0;
+        int target = levelBounds.length > 0 ? levelBounds[0] : 0;
+        for (int level = 0; level < levelBounds.length - 1; level++) {
+            int end = levelBounds[level];
+            while (pos < end) {
+                int first = pos;
+                double nMinX = Double.POSITIVE_INFINITY;
+                double nMinY = Double.POSITIVE_INFINITY;
+                double nMaxX = Double.NEGATIVE_INFINITY;
+                double nMaxY = Double.NEGATIVE_INFINITY;
+                for (int j = 0; j < nodeSize && pos < end; j++, pos++) {
+                    int b = pos * 4;
+                    nMinX = Math.min(nMinX, nodeBoxes[b]);
+                    nMinY = Math.min(nMinY, nodeBoxes[b + 1]);
+                    nMaxX = Math.max(nMaxX, nodeBoxes[b + 2]);
+                    nMaxY = Math.max(nMaxY, nodeBoxes[b + 3]);
+                }
+                int t = target * 4;
+                nodeBoxes[t] = nMinX;
+                nodeBoxes[t + 1] = nMinY;
+                nodeBoxes[t + 2] = nMaxX;
+                nodeBoxes[t + 3] = nMaxY;
+                indices[target] = first;
+                target++;
+            }
+        }
+    }
+
+    /**
+     * Computes the position of a point along the Hilbert curve of order 16, without loops or
+     * tables (see "Fast Hilbert curve generation, sorting and range queries" by Rawrunprotected)
+     *
+     * @param x between 0 and 65535
+     * @param y between 0 and 65535
+     * @return the Hilbert value, as an unsigned 32 bit integer
+     */
+    static int hilbert(int x, int y) {
+        int a = x ^ y;
+        int b = 0xFFFF ^ a;
+        int c = 0xFFFF ^ (x | y);
+        int d = x & (y ^ 0xFFFF);
+
+        int A = a | (b >> 1);
+        int B = (a >> 1) ^ a;
+        int C = ((c >> 1) ^ (b & (d >> 1))) ^ c;
+        int D = ((a & (c >> 1)) ^ (d >> 1)) ^ d;
+
+        a = A;
+        b = B;
+        c = C;
+        d = D;
+        A = ((a & (a >> 2)) ^ (b & (b >> 2)));
+        B = ((a & (b >> 2)) ^ (b & ((a ^ b) >> 2)));
+        C ^= ((a & (c >> 2)) ^ (b & (d >> 2)));
+        D ^= ((b & (c >> 2)) ^ ((a ^ b) & (d >> 2)));
+
+        a = A;
+        b = B;
+        c = C;
+        d = D;
+        A = ((a & (a >> 4)) ^ (b & (b >> 4)));
+        B = ((a & (b >> 4)) ^ (b & ((a ^ b) >> 4)));
+        C ^= ((a & (c >> 4)) ^ (b & (d >> 4)));
+        D ^= ((b & (c >> 4)) ^ ((a ^ b) & (d >> 4)));
+
+        a = A;
+        b = B;
+        c = C;
+        d = D;
+        C ^= ((a & (c >> 8)) ^ (b & (d >> 8)));
+        D ^= ((b & (c >> 8)) ^ ((a ^ b) & (d >> 8)));
+
+        a = C ^ (C >> 1);
+        b = D ^ (D >> 1);
+
+        int i0 = x ^ y;
+        int i1 = b | (0xFFFF ^ (i0 | a));
+
+        return (interleave(i1) << 1) | interleave(i0);
+    }
+
+    static int interleave(int x) {
+        x = (x | (x << 8)) & 0x00FF00FF;
+        x = (x | (x << 4)) & 0x0F0F0F0F;
+        x = (x | (x << 2)) & 0x33333333;
+        x = (x | (x << 1)) & 0x55555555;
+        return x;
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.index.hilbert;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+import org.geotools.data.shapefile.shp.IndexFile;
+import org.geotools.index.CloseableIterator;
+import org.geotools.index.Data;
+import org.geotools.index.DataDefinition;
+
+/**
+ * Turns the sorted record numbers returned by a {@link HilbertRTree} search into the same
+ * record number/shx offset pairs returned by the quadtree searches. The offsets are looked up
+ * lazily, in ascending record order, so the <code>.shx</code> and <code>.shp</code> files are
+ * both accessed sequentially.
+ *
+ * @source $URL$
+ */
+public class HilbertSearchIterator implements CloseableIterator<Data> {
+
+    static final DataDefinition DATA_DEFINITION = new DataDefinition("US-ASCII");
+    static {
+        DATA_DEFINITION.addField(Integer.class);
+        DATA_DEFINITION.addField(Long.class);
+    }
+
+    int[] records;
+
+    int position;
+
+    IndexFile indexFile;
+
+    /**
+     * Builds a new iterator
+     *
+     * @param records The zero based record numbers, in ascending order
+     * @param indexFile The shx file used to look up the record offsets, will be closed along
+     *        with the iterator
+     */
+    public HilbertSearchIterator(int[] records, IndexFile indexFile) {
+        this.records = records;
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * The number of records matched by the search
+     */
+    public int size() {
+        return records.length;
+    }
+
+    public boolean hasNext() {
+        if (indexFile == null) {
+            throw new IllegalStateException("Iterator has been closed!");
+        }
+        return position < records.length;
+    }
+
+    public Data next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more elements available");
+        }
+        int recno = records[position++];
+        try {
+            Data data = new Data(DATA_DEFINITION);
+            data.addValue(recno + 1);
+            data.addValue(new Long(indexFile.getOffsetInBytes(recno)));
+            return data;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    public void close() throws IOException {
+        if (indexFile != null) {
+            indexFile.close();
+            indexFile = null;
+        }
+    }
+
+}
@@ -17,6 +17,7 @@
 package org.geotools.index.quadtree;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
@@ -163,19 +164,11 @@ public class QuadTree {
              * Otherwise, consider creating four subnodes if could fit into
              * them, and adding to the appropriate subnode.
              */
-            Envelope half1, half2, quad1, quad2, quad3, quad4;
-
-            Envelope[] tmp = this.splitBounds(node.getBounds());
-            half1 = tmp[0];
-            half2 = tmp[1];
-
-            tmp = this.splitBounds(half1);
-            quad1 = tmp[0];
-            quad2 = tmp[1];
-
-            tmp = this.splitBounds(half2);
-            quad3 = tmp[0];
-            quad4 = tmp[1];
+            Envelope[] quads = this.quadrants(node.getBounds());
+            Envelope quad1 = quads[0];
+            Envelope quad2 = quads[1];
+            Envelope quad3 = quads[2];
+            Envelope quad4 = quads[3];
 
             Node subnode = null;            
             if (quad1.contains(bounds)) {
@@ -199,6 +192,97 @@ public class QuadTree {
         node.addShapeId(recno);
     }
 
+    /**
+     * Inserts a set of shape record ids in a node without sub nodes, in one pass. Instead of
+     * descending the tree once per record, as {@link #insert(Node, int, Envelope, int)} does,
+     * the records are partitioned among the quadrants of each node, level by level. The
+     * resulting tree is the same, except for the records contained in two overlapping
+     * quadrants, which always go to the first one.
+     * 
+     * @param node
+     *                The node receiving the records, it must not have sub nodes
+     * @param recnos
+     *                The record numbers, the array gets reordered
+     * @param boxes
+     *                The record bounding boxes, four values for each record number in the
+     *                minX, minY, maxX, maxY order
+     * @param maxDepth
+     * @throws StoreException
+     */
+    public void insert(Node node, int[] recnos, double[] boxes, int maxDepth)
+            throws StoreException {
+        if (node.getNumSubNodes() > 0) {
+            throw new IllegalArgumentException("The node already has sub nodes");
+        }
+        insert(node, recnos, 0, recnos.length, boxes, maxDepth, new int[recnos.length],
+                new byte[recnos.length]);
+    }
+
+    private void insert(Node node, int[] recnos, int from, int to, double[] boxes,
+            int maxDepth, int[] scratch, byte[] targets) throws StoreException {
+        if (from == to) {
+            return;
+        }
+        if (maxDepth <= 1) {
+            addShapeIds(node, recnos, from, to);
+            return;
+        }
+
+        // find the first quadrant containing each record, 4 meaning none
+        Envelope[] quads = this.quadrants(node.getBounds());
+        int[] counts = new int[5];
+        for (int i = from; i < to; i++) {
+            int b = recnos[i] * 4;
+            byte target = 4;
+            for (byte q = 0; q < 4; q++) {
+                Envelope quad = quads[q];
+                if (quad.getMinX() <= boxes[b] && boxes[b + 2] <= quad.getMaxX()
+                        && quad.getMinY() <= boxes[b + 1] && boxes[b + 3] <= quad.getMaxY()) {
+                    target = q;
+                    break;
+                }
+            }
+            targets[i] = target;
+            counts[target]++;
+        }
+
+        // stable partition, the records staying in this node first, then the quadrants
+        int[] starts = new int[5];
+        starts[4] = from;
+        int start = from + counts[4];
+        for (int q = 0; q < 4; q++) {
+            starts[q] = start;
+            start += counts[q];
+        }
+        int[] next = starts.clone();
+        for (int i = from; i < to; i++) {
+            scratch[next[targets[i]]++] = recnos[i];
+        }
+        System.arraycopy(scratch, from, recnos, from, to - from);
+
+        addShapeIds(node, recnos, from, from + counts[4]);
+        for (int q = 0; q < 4; q++) {
+            if (counts[q] > 0) {
+                Node subnode = new Node(quads[q]);
+                node.addSubNode(subnode);
+                insert(subnode, recnos, starts[q], starts[q] + counts[q], boxes, maxDepth - 1,
+                        scratch, targets);
+            }
+        }
+    }
+
+    private void addShapeIds(Node node, int[] recnos, int from, int to) {
+        if (node.getNumShapeIds() == 0) {
+            if (from < to) {
+                node.setShapesId(Arrays.copyOfRange(recnos, from, to));
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                node.addShapeId(recnos[i]);
+            }
+        }
+    }
+
     /**
      * 
      * @param bounds
@@ -272,6 +356,16 @@ public class QuadTree {
         return (node.getNumSubNodes() == 0 && node.getNumShapeIds() == 0);
     }
 
+    /**
+     * Splits the specified Envelope in four overlapping quadrants
+     */
+    private Envelope[] quadrants(Envelope in) {
+        Envelope[] halves = this.splitBounds(in);
+        Envelope[] first = this.splitBounds(halves[0]);
+        Envelope[] second = this.splitBounds(halves[1]);
+        return new Envelope[] { first[0], first[1], second[0], second[1] };
+    }
+
     /**
      * Splits the specified Envelope
      * 
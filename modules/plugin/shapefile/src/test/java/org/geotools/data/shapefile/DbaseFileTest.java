@@ -20,6 +20,10 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
 import java.util.TimeZone;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -103,6 +107,126 @@ public class DbaseFileTest extends TestCaseSupport {
         dbf2.close();
     }
 
+    public void testReadFields() throws Exception {
+        DbaseFileReader all = new DbaseFileReader(shpFiles, false,
+                ShapefileDataStore.DEFAULT_STRING_CHARSET);
+        dbf.setReadFields(new int[] { 4, -1, 0, 1 });
+        try {
+            Object[] attrs = new Object[dbf.getHeader().getNumFields()];
+            while (all.hasNext()) {
+                Object[] expected = all.readEntry();
+                dbf.readEntry(attrs);
+                assertEquals(expected[0], attrs[0]);
+                assertEquals(expected[1], attrs[1]);
+                assertEquals(expected[4], attrs[4]);
+                assertNull(attrs[2]);
+                assertNull(attrs[3]);
+            }
+        } finally {
+            all.close();
+        }
+
+        // excluded fields cannot be read
+        DbaseFileReader projected = new DbaseFileReader(shpFiles, false,
+                ShapefileDataStore.DEFAULT_STRING_CHARSET);
+        try {
+            projected.setReadFields(new int[] { 4 });
+            DbaseFileReader.Row row = projected.readRow();
+            assertEquals(143986.61, row.getDouble(4), 0.001);
+            try {
+                row.read(0);
+                fail("Field 0 has been excluded, should have failed");
+            } catch (IllegalArgumentException e) {
+                // fine
+            }
+        } finally {
+            projected.close();
+        }
+    }
+
+    public void testNumberParsing() throws Exception {
+        DbaseFileHeader header = new DbaseFileHeader();
+        header.addColumn("text", 'C', 30, 0);
+        header.addColumn("double", 'N', 30, 8);
+        header.addColumn("int", 'N', 9, 0);
+        header.addColumn("long", 'N', 18, 0);
+        header.addColumn("date", 'D', 8, 0);
+        header.addColumn("name", 'C', 10, 0);
+
+        Random random = new Random(0);
+        List<Object[]> records = new ArrayList<Object[]>();
+        DbaseFileWriter.FieldFormatter formatter = new DbaseFileWriter.FieldFormatter(
+                Charset.defaultCharset(), TimeZone.getDefault());
+        double[] specials = new double[] { 0, -0.5, 1e-8, 123456789.12345678, -987654321.1,
+                1e12 + 0.1, 0.1, 100, 99999999999999.9 };
+        for (int i = 0; i < 500; i++) {
+            double d;
+            if (i < specials.length) {
+                d = specials[i];
+            } else {
+                d = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(14));
+            }
+            Calendar cal = Calendar.getInstance();
+            cal.clear();
+            cal.set(1900 + random.nextInt(200), random.nextInt(12), 1 + random.nextInt(28));
+            records.add(new Object[] { formatter.getFieldString(30, 8, d), d,
+                    random.nextInt(200000000) - 100000000, random.nextLong() % 100000000000000L,
+                    cal.getTime(), "row" + i });
+        }
+        // and a row full of nulls
+        records.add(new Object[6]);
+
+        header.setNumRecords(records.size());
+        File f = new File(System.getProperty("java.io.tmpdir"), "numbersDBF.dbf");
+        f.deleteOnExit();
+        FileOutputStream fout = new FileOutputStream(f);
+        DbaseFileWriter writer = new DbaseFileWriter(header, fout.getChannel(),
+                Charset.defaultCharset());
+        for (Object[] record : records) {
+            writer.write(record);
+        }
+        writer.close();
+
+        DbaseFileReader r = new DbaseFileReader(new ShpFiles(f), false,
+                ShapefileDataStore.DEFAULT_STRING_CHARSET);
+        try {
+            for (Object[] record : records) {
+                DbaseFileReader.Row row = r.readRow();
+                if (record[0] == null) {
+                    assertTrue(row.isNull(1));
+                    assertTrue(Double.isNaN(row.getDouble(1)));
+                    assertTrue(row.isNull(2));
+                    assertEquals(0, row.getInt(2));
+                    assertNull(row.read(1));
+                    assertNull(row.read(2));
+                    assertNull(row.read(4));
+                    continue;
+                }
+                // same result as the JDK parsing of the written text
+                Double expected = Double.valueOf(((String) record[0]).trim());
+                assertEquals(expected, row.read(1));
+                assertEquals(expected.doubleValue(), row.getDouble(1));
+                assertFalse(row.isNull(1));
+
+                assertEquals(record[2], row.read(2));
+                assertEquals(((Integer) record[2]).intValue(), row.getInt(2));
+                assertEquals(((Integer) record[2]).doubleValue(), row.getDouble(2));
+                assertEquals(record[3], row.read(3));
+                assertEquals(((Long) record[3]).longValue(), row.getLong(3));
+                assertEquals(record[4], row.read(4));
+                try {
+                    row.getInt(5);
+                    fail("Not a numeric field, should have failed");
+                } catch (IllegalArgumentException e) {
+                    // fine
+                }
+            }
+        } finally {
+            r.close();
+            f.delete();
+        }
+    }
+
     public void testHeader() throws Exception {
         DbaseFileHeader header = new DbaseFileHeader();
 
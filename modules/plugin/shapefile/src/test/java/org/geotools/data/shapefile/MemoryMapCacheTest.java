@@ -0,0 +1,202 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import junit.framework.TestCase;
+
+import org.geotools.data.DataUtilities;
+
+/**
+ * 
+ *
+ * @source $URL$
+ */
+public class MemoryMapCacheTest extends TestCase {
+
+    File[] files = new File[3];
+
+    RandomAccessFile[] rafs = new RandomAccessFile[3];
+
+    MemoryMapBudget budget = new MemoryMapBudget();
+
+    MemoryMapCache cache = new MemoryMapCache(budget, null);
+
+    @Override
+    protected void setUp() throws Exception {
+        for (int i = 0; i < files.length; i++) {
+            files[i] = File.createTempFile("mmc", ".dat");
+            FileOutputStream fos = new FileOutputStream(files[i]);
+            try {
+                byte[] data = new byte[1000];
+                data[0] = (byte) i;
+                fos.write(data);
+            } finally {
+                fos.close();
+            }
+            rafs[i] = new RandomAccessFile(files[i], "r");
+        }
+        cache.statisticsEnabled = true;
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        cache.clean();
+        for (int i = 0; i < files.length; i++) {
+            rafs[i].close();
+            files[i].delete();
+        }
+    }
+
+    MappedByteBuffer map(int i) throws Exception {
+        return map(cache, i);
+    }
+
+    MappedByteBuffer map(MemoryMapCache cache, int i) throws Exception {
+        FileChannel channel = rafs[i].getChannel();
+        URL url = DataUtilities.fileToURL(files[i]);
+        return cache.map(channel, url, MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    public void testHitsAndMisses() throws Exception {
+        MappedByteBuffer b1 = map(0);
+        MappedByteBuffer b2 = map(0);
+        // each caller gets its own view of the same mapping
+        assertNotSame(b1, b2);
+        b1.position(10);
+        assertEquals(0, b2.position());
+        assertEquals(0, b2.get(0));
+        assertEquals(1, map(1).get(0));
+
+        MemoryMapCacheStatistics stats = cache.getStatistics();
+        assertEquals(1, stats.getHits());
+        assertEquals(2, stats.getMisses());
+        assertEquals(0, stats.getEvictions());
+        assertEquals(2, stats.getMappings());
+        assertEquals(2000, stats.getSize());
+    }
+
+    public void testLRUEviction() throws Exception {
+        budget.maxSize = 2000;
+        map(0);
+        map(1);
+        // touch the first, the second becomes the least recently used
+        map(0);
+        map(2);
+
+        MemoryMapCacheStatistics stats = cache.getStatistics();
+        assertEquals(1, stats.getEvictions());
+        assertEquals(2, stats.getMappings());
+        assertEquals(2000, stats.getSize());
+
+        // the evicted buffer is not unmapped until it's safe to do so
+        assertTrue(cache.hasEvicted());
+        cache.cleanEvicted();
+        assertFalse(cache.hasEvicted());
+
+        // 0 and 2 are still there, 1 has to be mapped again
+        map(0);
+        map(2);
+        assertEquals(stats.getHits() + 2, cache.getStatistics().getHits());
+        assertEquals(stats.getMisses(), cache.getStatistics().getMisses());
+        assertEquals(1, map(1).get(0));
+        assertEquals(stats.getMisses() + 1, cache.getStatistics().getMisses());
+    }
+
+    public void testShrinkBudget() throws Exception {
+        map(0);
+        map(1);
+        assertEquals(2000, budget.size.get());
+
+        // lowering the limit evicts the least recently used mapping right away
+        budget.setMaxSize(1000);
+        assertEquals(1000, budget.size.get());
+        assertEquals(1, cache.getStatistics().getEvictions());
+        assertEquals(0, map(0).get(0));
+        assertEquals(3, cache.getStatistics().getMisses());
+    }
+
+    public void testTooLargeNotCached() throws Exception {
+        budget.maxSize = 500;
+        map(0);
+        map(0);
+        MemoryMapCacheStatistics stats = cache.getStatistics();
+        assertEquals(2, stats.getMisses());
+        assertEquals(0, stats.getMappings());
+        assertEquals(0, stats.getSize());
+
+        // the uncached buffers are unmapped along with the evicted ones
+        assertTrue(cache.hasEvicted());
+        cache.cleanEvicted();
+        assertFalse(cache.hasEvicted());
+    }
+
+    public void testSharedBudget() throws Exception {
+        budget.maxSize = 2000;
+        ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        MemoryMapCache other = new MemoryMapCache(budget, lock);
+        other.statisticsEnabled = true;
+        try {
+            map(other, 0);
+            map(1);
+            assertEquals(2000, budget.size.get());
+
+            // the budget is exceeded, the least recently used mapping goes, even if it 
+            // belongs to another cache
+            map(2);
+            assertEquals(2000, budget.size.get());
+            assertEquals(1, other.getStatistics().getEvictions());
+            assertEquals(0, other.getStatistics().getMappings());
+            assertEquals(2, cache.getStatistics().getMappings());
+            // nobody was holding the other cache lock, it has been unmapped right away
+            assertFalse(other.hasEvicted());
+
+            // while the other files are being read, the evicted buffers are kept 
+            map(other, 0);
+            lock.readLock().lock();
+            try {
+                map(1);
+                map(2);
+                assertTrue(other.hasEvicted());
+            } finally {
+                lock.readLock().unlock();
+            }
+            other.cleanEvictedIfUnused();
+            assertFalse(other.hasEvicted());
+        } finally {
+            other.clean();
+        }
+        assertFalse(budget.caches.contains(other));
+    }
+
+    public void testCleanFileCache() throws Exception {
+        map(0);
+        map(1);
+        cache.cleanFileCache(DataUtilities.fileToURL(files[0]));
+        MemoryMapCacheStatistics stats = cache.getStatistics();
+        assertEquals(1, stats.getMappings());
+        assertEquals(1000, stats.getSize());
+    }
+}
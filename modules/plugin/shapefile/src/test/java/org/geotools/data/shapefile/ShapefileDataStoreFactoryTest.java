@@ -23,6 +23,8 @@ import java.net.URL;
 import org.geotools.TestData;
 import org.geotools.data.DataStore;
 import org.geotools.data.QueryCapabilities;
+import org.geotools.data.shapefile.indexed.IndexType;
+import org.geotools.data.shapefile.indexed.IndexedShapefileDataStore;
 import org.geotools.data.simple.SimpleFeatureSource;
 import org.geotools.factory.CommonFactoryFinder;
 import org.geotools.util.KVP;
@@ -45,6 +47,7 @@ public class ShapefileDataStoreFactoryTest extends TestCaseSupport {
 
     private ShapefileDataStore store = null;
     private ShapefileDataStoreFactory factory = new ShapefileDataStoreFactory();
+    private long memoryMapsCacheSize = ShapefileDataStoreFactory.getMemoryMapsCacheSize();
     
     public ShapefileDataStoreFactoryTest(String testName) throws IOException {
         super(testName);
@@ -54,6 +57,8 @@ public class ShapefileDataStoreFactoryTest extends TestCaseSupport {
         if(store != null) {
                 store.dispose();
         }
+        // the memory map budget is shared by all the stores
+        ShapefileDataStoreFactory.setMemoryMapsCacheSize(memoryMapsCacheSize);
         super.tearDown();
     }
     
@@ -102,6 +107,75 @@ public class ShapefileDataStoreFactoryTest extends TestCaseSupport {
         assertFalse( "Cannot sort the_geom", caps.supportsSorting( sortBy ));
     }
     
+    @Test
+    public void testMemoryMapsCacheParameters() throws Exception {
+        File f = copyShapefiles(STATE_POP);
+        KVP params = new KVP(URLP.key, f.toURI().toURL(), MEMORY_MAPPED.key, true,
+                CACHE_MEMORY_MAPS.key, true, MEMORY_MAPS_CACHE_STATISTICS.key, true);
+        store = (ShapefileDataStore) factory.createDataStore(params);
+        // the shared budget is bounded by default
+        assertTrue(store.shpFiles.getMemoryMapCacheSize() > 0);
+        ShapefileDataStoreFactory.setMemoryMapsCacheSize(64 * 1024 * 1024);
+        assertEquals(64 * 1024 * 1024, store.shpFiles.getMemoryMapCacheSize());
+
+        // the second read uses the cached maps
+        SimpleFeatureSource fs = store.getFeatureSource();
+        assertNotNull(firstFeature(fs.getFeatures()));
+        MemoryMapCacheStatistics stats = store.getMemoryMapCacheStatistics();
+        assertTrue(stats.getMisses() > 0);
+        long hits = stats.getHits();
+        assertNotNull(firstFeature(fs.getFeatures()));
+        assertTrue(store.getMemoryMapCacheStatistics().getHits() > hits);
+        assertEquals(0, store.getMemoryMapCacheStatistics().getEvictions());
+
+        // the limit is shared, another store does not reset it
+        ShapefileDataStore other = (ShapefileDataStore) factory.createDataStore(new KVP(
+                URLP.key, f.toURI().toURL()));
+        try {
+            assertEquals(64 * 1024 * 1024, other.shpFiles.getMemoryMapCacheSize());
+        } finally {
+            other.dispose();
+        }
+    }
+
+    @Test
+    public void testMemoryMapsCacheParametersDirectory() throws Exception {
+        File f = copyShapefiles(STATE_POP);
+        KVP params = new KVP(URLP.key, f.getParentFile().toURI().toURL(), MEMORY_MAPPED.key,
+                true, MEMORY_MAPS_CACHE_STATISTICS.key, true);
+        ShapefileDataStoreFactory.setMemoryMapsCacheSize(32 * 1024 * 1024);
+        ShapefileDirectoryFactory directoryFactory = new ShapefileDirectoryFactory();
+        DataStore directory = directoryFactory.createDataStore(params);
+        try {
+            // the stores of the single shapefiles get the same configuration
+            store = (ShapefileDataStore) new ShpFileStoreFactory(directoryFactory, params)
+                    .getDataStore(f);
+            assertTrue(store.shpFiles.isMemoryMapCacheStatisticsEnabled());
+            assertEquals(32 * 1024 * 1024, store.shpFiles.getMemoryMapCacheSize());
+        } finally {
+            directory.dispose();
+        }
+    }
+
+    @Test
+    public void testSpatialIndexTypeParameter() throws Exception {
+        File f = copyShapefiles(STATE_POP);
+        KVP params = new KVP(URLP.key, f.toURI().toURL(), SPATIAL_INDEX_TYPE.key, "hrx");
+        store = (ShapefileDataStore) factory.createDataStore(params);
+        assertTrue(store instanceof IndexedShapefileDataStore);
+        assertEquals(IndexType.HRX, ((IndexedShapefileDataStore) store).getIndexType());
+        store.dispose();
+        store = null;
+
+        try {
+            factory.createDataStore(new KVP(URLP.key, f.toURI().toURL(), SPATIAL_INDEX_TYPE.key,
+                    "grx"));
+            fail("Should have failed, grx is not a supported index type");
+        } catch (IOException e) {
+            // fine
+        }
+    }
+
     @Test
     public void testEnableIndexParameter() throws Exception {
        KVP params;
@@ -0,0 +1,208 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile.indexed;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.geotools.data.DataUtilities;
+import org.geotools.data.shapefile.ShapefileDataStore;
+import org.geotools.data.shapefile.ShpFileType;
+import org.geotools.data.shapefile.ShpFiles;
+import org.geotools.data.shapefile.TestCaseSupport;
+import org.geotools.data.shapefile.shp.ShapefileReader;
+import org.geotools.data.shapefile.shp.ShapefileReader.Record;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.data.simple.SimpleFeatureStore;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.util.NullProgressListener;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.FilterFactory2;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+/**
+ * Tests the parallel record scan and the bulk loaded spatial indexes of {@link ShapeFileIndexer}
+ *
+ * @source $URL$
+ */
+public class ShapeFileIndexerTest extends TestCaseSupport {
+
+    static final int COUNT = 2000;
+
+    public ShapeFileIndexerTest() throws IOException {
+        super("ShapeFileIndexerTest");
+    }
+
+    /**
+     * Writes a shapefile with random boxes, and a null geometry every 100 features
+     */
+    File createShapefile(String type) throws Exception {
+        File file = getTempFile();
+        ShapefileDataStore store = new ShapefileDataStore(file.toURI().toURL());
+        SimpleFeatureType featureType = DataUtilities.createType("test", "geom:" + type
+                + ",id:int");
+        store.createSchema(featureType);
+
+        Random random = new Random(0);
+        GeometryFactory gf = new GeometryFactory();
+        SimpleFeatureBuilder fb = new SimpleFeatureBuilder(store.getSchema());
+        List<SimpleFeature> features = new ArrayList<SimpleFeature>();
+        for (int i = 0; i < COUNT; i++) {
+            Geometry geom = null;
+            if (i % 100 != 50) {
+                double x = random.nextDouble() * 1000;
+                double y = random.nextDouble() * 1000;
+                if (type.equals("Point")) {
+                    geom = gf.createPoint(new com.vividsolutions.jts.geom.Coordinate(x, y));
+                } else {
+                    double size = random.nextDouble() * 50;
+                    geom = gf.toGeometry(new Envelope(x, x + size, y, y + size));
+                }
+            }
+            fb.add(geom);
+            fb.add(i);
+            features.add(fb.buildFeature(null));
+        }
+        SimpleFeatureStore fs = (SimpleFeatureStore) store.getFeatureSource();
+        fs.addFeatures(DataUtilities.collection(features));
+        store.dispose();
+        return file;
+    }
+
+    public void testScan() throws Exception {
+        for (String type : new String[] { "Point", "Polygon" }) {
+            File file = createShapefile(type);
+            ShpFiles shpFiles = new ShpFiles(file);
+            ShapefileBoundsScanner scanner = new ShapefileBoundsScanner(shpFiles, 4);
+            scanner.rangeSize = 37;
+            double[] boxes = scanner.scan(new NullProgressListener(), 0, 100);
+            assertEquals(COUNT * 4, boxes.length);
+
+            ShapefileReader reader = new ShapefileReader(shpFiles, false, false,
+                    new GeometryFactory());
+            try {
+                assertEquals(reader.getHeader().minX(), scanner.getBounds().getMinX());
+                assertEquals(reader.getHeader().maxY(), scanner.getBounds().getMaxY());
+                for (int i = 0; i < COUNT; i++) {
+                    Record record = reader.nextRecord();
+                    int b = i * 4;
+                    if (record.shape() == null) {
+                        assertTrue(boxes[b] > boxes[b + 2]);
+                    } else {
+                        assertEquals(record.minX, boxes[b]);
+                        assertEquals(record.minY, boxes[b + 1]);
+                        assertEquals(record.maxX, boxes[b + 2]);
+                        assertEquals(record.maxY, boxes[b + 3]);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    public void testQuadTree() throws Exception {
+        checkIndex(IndexType.QIX);
+    }
+
+    public void testHilbertRTree() throws Exception {
+        checkIndex(IndexType.HRX);
+    }
+
+    /**
+     * Above the scan threshold the quadtree is built reading the records one at a time
+     */
+    public void testQuadTreeStreaming() throws Exception {
+        checkIndex(IndexType.QIX, COUNT - 1);
+    }
+
+    void checkIndex(IndexType indexType) throws Exception {
+        checkIndex(indexType, ShapeFileIndexer.DEFAULT_MAX_SCAN_RECORDS);
+    }
+
+    void checkIndex(IndexType indexType, int maxScanRecords) throws Exception {
+        File file = createShapefile("Polygon");
+        ShapeFileIndexer indexer = new ShapeFileIndexer();
+        indexer.setShapeFileName(new ShpFiles(file));
+        indexer.setIndexType(indexType);
+        indexer.setThreads(3);
+        indexer.setMaxScanRecords(maxScanRecords);
+        assertEquals(COUNT, indexer.index(false, new NullProgressListener()));
+
+        IndexedShapefileDataStore store = new IndexedShapefileDataStore(file.toURI().toURL(),
+                null, false, false, indexType);
+        try {
+            FilterFactory2 ff = CommonFactoryFinder.getFilterFactory2(null);
+            String geomName = store.getSchema().getGeometryDescriptor().getLocalName();
+            Random random = new Random(1);
+            for (int i = 0; i < 20; i++) {
+                double x = random.nextDouble() * 1000;
+                double y = random.nextDouble() * 1000;
+                Envelope query = new Envelope(x, x + 100, y, y + 100);
+
+                Set<String> expected = new TreeSet<String>();
+                Set<String> actual = new TreeSet<String>();
+                SimpleFeatureIterator it = store.getFeatureSource().getFeatures().features();
+                try {
+                    while (it.hasNext()) {
+                        SimpleFeature f = it.next();
+                        Geometry g = (Geometry) f.getDefaultGeometry();
+                        if (g != null && g.getEnvelopeInternal().intersects(query)) {
+                            expected.add(f.getID());
+                        }
+                    }
+                } finally {
+                    it.close();
+                }
+                it = store.getFeatureSource().getFeatures(ff.bbox(geomName, x, y, x + 100,
+                        y + 100, null)).features();
+                try {
+                    while (it.hasNext()) {
+                        actual.add(it.next().getID());
+                    }
+                } finally {
+                    it.close();
+                }
+                assertFalse(expected.isEmpty());
+                assertEquals(expected, actual);
+            }
+        } finally {
+            store.dispose();
+        }
+    }
+
+    public void testCancel() throws Exception {
+        File file = createShapefile("Point");
+        ShpFiles shpFiles = new ShpFiles(file);
+        ShapeFileIndexer indexer = new ShapeFileIndexer();
+        indexer.setShapeFileName(shpFiles);
+        NullProgressListener listener = new NullProgressListener();
+        listener.setCanceled(true);
+        assertEquals(0, indexer.index(false, listener));
+        assertFalse(shpFiles.exists(ShpFileType.QIX));
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.index.hilbert;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.geotools.data.DataUtilities;
+import org.geotools.data.FeatureWriter;
+import org.geotools.data.Transaction;
+import org.geotools.data.shapefile.ShapefileDataStore;
+import org.geotools.data.shapefile.ShpFiles;
+import org.geotools.data.shapefile.indexed.IndexType;
+import org.geotools.data.shapefile.indexed.IndexedShapefileDataStore;
+import org.geotools.data.shapefile.indexed.ShapeFileIndexer;
+import org.geotools.data.shapefile.shp.IndexFile;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.index.CloseableIterator;
+import org.geotools.index.Data;
+import org.geotools.index.quadtree.QuadTree;
+import org.geotools.index.quadtree.fs.FileSystemIndexStore;
+import org.geotools.util.NullProgressListener;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+/**
+ * Compares the <code>.qix</code> quadtree and the <code>.hrx</code> Hilbert R-tree on a
+ * strongly clustered point shapefile, measuring the raw index search times, the number of
+ * candidates returned (false positives included) and the time needed to read the features.
+ * <p>
+ * Usage: <code>HilbertRTreeBenchmark [number of points] [number of queries]</code>
+ * </p>
+ *
+ * @source $URL$
+ */
+public class HilbertRTreeBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int numPoints = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+        int numQueries = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+        File dir = File.createTempFile("hilbert", "bench");
+        dir.delete();
+        dir.mkdir();
+        File shp = new File(dir, "clustered.shp");
+
+        System.out.println("Writing " + numPoints + " clustered points in " + shp);
+        Random random = new Random(0);
+        List<Coordinate> points = writeClusteredPoints(shp, numPoints, random);
+        List<Envelope> queries = new ArrayList<Envelope>();
+        for (int i = 0; i < numQueries; i++) {
+            // query around the data, so that most queries hit the clusters
+            Coordinate c = points.get(random.nextInt(points.size()));
+            double size = 0.5 + random.nextDouble() * 5;
+            queries.add(new Envelope(c.x - size, c.x + size, c.y - size, c.y + size));
+        }
+
+        ShpFiles shpFiles = new ShpFiles(shp);
+        long start = System.currentTimeMillis();
+        ShapeFileIndexer indexer = new ShapeFileIndexer();
+        indexer.setShapeFileName(shpFiles);
+        indexer.index(false, new NullProgressListener());
+        System.out.println("qix built in " + (System.currentTimeMillis() - start) + "ms, size "
+                + new File(dir, "clustered.qix").length());
+
+        start = System.currentTimeMillis();
+        indexer = new ShapeFileIndexer();
+        indexer.setShapeFileName(shpFiles);
+        indexer.setIndexType(IndexType.HRX);
+        indexer.index(false, new NullProgressListener());
+        System.out.println("hrx built in " + (System.currentTimeMillis() - start) + "ms, size "
+                + new File(dir, "clustered.hrx").length());
+
+        long matches = 0;
+        for (Envelope query : queries) {
+            for (Coordinate c : points) {
+                if (query.contains(c)) {
+                    matches++;
+                }
+            }
+        }
+        System.out.println("Actual matches: " + matches);
+
+        for (int run = 0; run < 3; run++) {
+            System.out.println("Run " + run);
+            benchQuadTree(shpFiles, new File(dir, "clustered.qix"), queries);
+            benchHilbert(new File(dir, "clustered.hrx"), queries);
+            benchStore(shp, IndexType.QIX, queries);
+            benchStore(shp, IndexType.HRX, queries);
+        }
+
+        shpFiles.delete();
+        new File(dir, "clustered.hrx").delete();
+        dir.delete();
+    }
+
+    static void benchQuadTree(ShpFiles shpFiles, File qix, List<Envelope> queries)
+            throws Exception {
+        long start = System.currentTimeMillis();
+        long candidates = 0;
+        IndexFile shx = new IndexFile(shpFiles, false);
+        QuadTree tree = new FileSystemIndexStore(qix).load(shx, true);
+        try {
+            for (Envelope query : queries) {
+                CloseableIterator<Data> it = tree.search(query);
+                while (it.hasNext()) {
+                    it.next();
+                    candidates++;
+                }
+                tree.close(it);
+            }
+        } finally {
+            tree.close();
+        }
+        System.out.println("  qix search: " + (System.currentTimeMillis() - start) + "ms, "
+                + candidates + " candidates");
+    }
+
+    static void benchHilbert(File hrx, List<Envelope> queries) throws Exception {
+        long start = System.currentTimeMillis();
+        long candidates = 0;
+        HilbertRTree tree = HilbertRTree.open(hrx, true);
+        for (Envelope query : queries) {
+            candidates += tree.search(query).length;
+        }
+        tree.close();
+        System.out.println("  hrx search: " + (System.currentTimeMillis() - start) + "ms, "
+                + candidates + " candidates");
+    }
+
+    static void benchStore(File shp, IndexType type, List<Envelope> queries) throws Exception {
+        IndexedShapefileDataStore store = new IndexedShapefileDataStore(shp.toURI().toURL(),
+                null, true, true, type);
+        FilterFactory2 ff = CommonFactoryFinder.getFilterFactory2(null);
+        long start = System.currentTimeMillis();
+        long count = 0;
+        try {
+            for (Envelope query : queries) {
+                Filter filter = ff.bbox(ff.property("the_geom"), query.getMinX(),
+                        query.getMinY(), query.getMaxX(), query.getMaxY(), null);
+                SimpleFeatureIterator fi = store.getFeatureSource().getFeatures(filter)
+                        .features();
+                try {
+                    while (fi.hasNext()) {
+                        fi.next();
+                        count++;
+                    }
+                } finally {
+                    fi.close();
+                }
+            }
+        } finally {
+            store.dispose();
+        }
+        System.out.println("  " + type + " feature reads: " + (System.currentTimeMillis() - start)
+                + "ms, " + count + " features");
+    }
+
+    static List<Coordinate> writeClusteredPoints(File shp, int numPoints, Random random)
+            throws Exception {
+        ShapefileDataStore store = new ShapefileDataStore(shp.toURI().toURL());
+        SimpleFeatureType type = DataUtilities.createType("clustered", "the_geom:Point,id:int");
+        store.createSchema(type);
+
+        // a few very dense clusters over a large, almost empty area
+        double[][] centers = new double[16][];
+        for (int i = 0; i < centers.length; i++) {
+            centers[i] = new double[] { random.nextDouble() * 10000, random.nextDouble() * 10000 };
+        }
+
+        GeometryFactory gf = new GeometryFactory();
+        List<Coordinate> points = new ArrayList<Coordinate>(numPoints);
+        FeatureWriter<SimpleFeatureType, SimpleFeature> writer = store.getFeatureWriterAppend(
+                "clustered", Transaction.AUTO_COMMIT);
+        try {
+            for (int i = 0; i < numPoints; i++) {
+                Coordinate c;
+                if (i % 100 == 0) {
+                    c = new Coordinate(random.nextDouble() * 10000, random.nextDouble() * 10000);
+                } else {
+                    double[] center = centers[random.nextInt(centers.length)];
+                    c = new Coordinate(center[0] + random.nextGaussian() * 10, center[1]
+                            + random.nextGaussian() * 10);
+                }
+                points.add(c);
+                SimpleFeature f = writer.next();
+                f.setAttribute(0, gf.createPoint(c));
+                f.setAttribute(1, i);
+                writer.write();
+            }
+        } finally {
+            writer.close();
+            store.dispose();
+        }
+        return points;
+    }
+}
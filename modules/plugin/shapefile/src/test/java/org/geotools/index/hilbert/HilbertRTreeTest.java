@@ -0,0 +1,226 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.index.hilbert;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.geotools.data.shapefile.ShapefileDataStore;
+import org.geotools.data.shapefile.TestCaseSupport;
+import org.geotools.data.shapefile.indexed.IndexType;
+import org.geotools.data.shapefile.indexed.IndexedShapefileDataStore;
+import org.geotools.data.simple.SimpleFeatureSource;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.index.TreeException;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ *
+ *
+ * @source $URL$
+ */
+public class HilbertRTreeTest extends TestCaseSupport {
+
+    public HilbertRTreeTest() throws IOException {
+        super("HilbertRTreeTest");
+    }
+
+    public void testSearchAgainstBruteForce() throws Exception {
+        Random random = new Random(1);
+        List<Envelope> boxes = clusteredBoxes(random, 5000);
+        File file = buildTree(boxes, 8);
+
+        for (boolean memoryMapped : new boolean[] { true, false }) {
+            HilbertRTree tree = HilbertRTree.open(file, memoryMapped);
+            assertEquals(boxes.size(), tree.getNumItems());
+            assertEquals(8, tree.getNodeSize());
+            Envelope bounds = new Envelope();
+            for (Envelope box : boxes) {
+                bounds.expandToInclude(box);
+            }
+            assertEquals(bounds, tree.getBounds());
+
+            for (int i = 0; i < 200; i++) {
+                double x = random.nextDouble() * 1000;
+                double y = random.nextDouble() * 1000;
+                double size = random.nextDouble() * 100;
+                Envelope query = new Envelope(x, x + size, y, y + size);
+                int[] expected = bruteForce(boxes, query);
+                assertTrue(Arrays.equals(expected, tree.search(query)));
+            }
+            tree.close();
+        }
+    }
+
+    public void testMultipleBoxes() throws Exception {
+        List<Envelope> boxes = clusteredBoxes(new Random(2), 1000);
+        HilbertRTree tree = HilbertRTree.open(buildTree(boxes, 16), false);
+
+        List<Envelope> queries = new ArrayList<Envelope>();
+        queries.add(new Envelope(100, 300, 100, 300));
+        queries.add(new Envelope(200, 400, 200, 400));
+        queries.add(new Envelope(700, 800, 0, 1000));
+        TreeSet<Integer> expected = new TreeSet<Integer>();
+        for (Envelope query : queries) {
+            for (int id : bruteForce(boxes, query)) {
+                expected.add(id);
+            }
+        }
+
+        int[] result = tree.search(queries);
+        assertEquals(expected.size(), result.length);
+        int i = 0;
+        for (Integer id : expected) {
+            assertEquals(id.intValue(), result[i++]);
+        }
+    }
+
+    public void testSingleItem() throws Exception {
+        HilbertRTree tree = HilbertRTree.open(buildTree(
+                Arrays.asList(new Envelope(10, 20, 10, 20)), 16), true);
+        assertEquals(1, tree.getNumItems());
+        assertTrue(Arrays.equals(new int[] { 0 }, tree.search(new Envelope(15, 30, 15, 30))));
+        assertEquals(0, tree.search(new Envelope(25, 30, 25, 30)).length);
+    }
+
+    public void testEmptyTree() throws Exception {
+        HilbertRTree tree = HilbertRTree.open(buildTree(new ArrayList<Envelope>(), 16), true);
+        assertEquals(0, tree.getNumItems());
+        assertTrue(tree.getBounds().isNull());
+        assertEquals(0, tree.search(new Envelope(0, 10, 0, 10)).length);
+    }
+
+    public void testCloseUnmaps() throws Exception {
+        File file = buildTree(clusteredBoxes(new Random(3), 100), 16);
+        HilbertRTree tree = HilbertRTree.open(file, true);
+        assertNotNull(tree.mapped);
+        assertTrue(tree.search(new Envelope(0, 1000, 0, 1000)).length > 0);
+        tree.close();
+        assertNull(tree.mapped);
+        try {
+            tree.search(new Envelope(0, 1000, 0, 1000));
+            fail("Should have failed, the tree is closed");
+        } catch (IllegalStateException e) {
+            // fine
+        }
+        // not mapped anymore, can be removed also on Windows
+        assertTrue(file.delete());
+    }
+
+    public void testInvalidFile() throws Exception {
+        File file = File.createTempFile("hilbert", ".hrx");
+        file.deleteOnExit();
+        FileOutputStream fos = new FileOutputStream(file);
+        fos.write(new byte[128]);
+        fos.close();
+        try {
+            HilbertRTree.open(file, false);
+            fail("Should have failed, the signature is not valid");
+        } catch (TreeException e) {
+            // fine
+        }
+    }
+
+    public void testHilbertLocality() {
+        // the four quadrants are visited in the classic "U" order
+        int max = HilbertRTreeBuilder.HILBERT_MAX;
+        long ll = HilbertRTreeBuilder.hilbert(0, 0) & 0xFFFFFFFFL;
+        long ul = HilbertRTreeBuilder.hilbert(0, max) & 0xFFFFFFFFL;
+        long ur = HilbertRTreeBuilder.hilbert(max, max) & 0xFFFFFFFFL;
+        long lr = HilbertRTreeBuilder.hilbert(max, 0) & 0xFFFFFFFFL;
+        assertEquals(0, ll);
+        assertTrue(ll < ul);
+        assertTrue(ul < ur);
+        assertTrue(ur < lr);
+    }
+
+    public void testDataStore() throws Exception {
+        File file = copyShapefiles("shapes/streams.shp");
+        IndexedShapefileDataStore ds = new IndexedShapefileDataStore(file.toURI().toURL(),
+                null, false, true, IndexType.HRX);
+        ShapefileDataStore plain = new ShapefileDataStore(file.toURI().toURL());
+        try {
+            FilterFactory2 ff = CommonFactoryFinder.getFilterFactory2(null);
+            String geom = ds.getSchema().getGeometryDescriptor().getLocalName();
+            Filter filter = ff.bbox(geom, 588993, 4927443, 589604, 4927443, null);
+
+            SimpleFeatureSource fs = ds.getFeatureSource();
+            int count = fs.getFeatures(filter).size();
+            assertTrue(count > 0);
+            assertTrue(sibling(file, "hrx").exists());
+            assertFalse(sibling(file, "qix").exists());
+            assertEquals(plain.getFeatureSource().getFeatures(filter).size(), count);
+        } finally {
+            ds.dispose();
+            plain.dispose();
+        }
+    }
+
+    List<Envelope> clusteredBoxes(Random random, int count) {
+        List<Envelope> boxes = new ArrayList<Envelope>();
+        double[][] centers = new double[][] { { 100, 100 }, { 120, 900 }, { 750, 500 } };
+        for (int i = 0; i < count; i++) {
+            double x, y;
+            if (i % 10 == 0) {
+                // some uniform noise
+                x = random.nextDouble() * 1000;
+                y = random.nextDouble() * 1000;
+            } else {
+                double[] center = centers[i % centers.length];
+                x = center[0] + random.nextGaussian() * 20;
+                y = center[1] + random.nextGaussian() * 20;
+            }
+            double size = random.nextDouble() * 5;
+            boxes.add(new Envelope(x, x + size, y, y + size));
+        }
+        return boxes;
+    }
+
+    File buildTree(List<Envelope> boxes, int nodeSize) throws IOException {
+        HilbertRTreeBuilder builder = new HilbertRTreeBuilder(nodeSize);
+        for (Envelope box : boxes) {
+            builder.add(box.getMinX(), box.getMinY(), box.getMaxX(), box.getMaxY());
+        }
+        File file = File.createTempFile("hilbert", ".hrx");
+        file.deleteOnExit();
+        builder.write(file);
+        return file;
+    }
+
+    int[] bruteForce(List<Envelope> boxes, Envelope query) {
+        List<Integer> ids = new ArrayList<Integer>();
+        for (int i = 0; i < boxes.size(); i++) {
+            if (boxes.get(i).intersects(query)) {
+                ids.add(i);
+            }
+        }
+        int[] result = new int[ids.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ids.get(i);
+        }
+        return result;
+    }
+}
@@ -17,6 +17,8 @@
  */
 package org.geotools.process.vector;
 
+import java.io.IOException;
+
 import javax.measure.unit.NonSI;
 import javax.measure.unit.SI;
 import javax.measure.unit.Unit;
@@ -24,6 +26,7 @@ import javax.measure.unit.Unit;
 import org.geotools.coverage.CoverageFactoryFinder;
 import org.geotools.coverage.grid.GridCoverage2D;
 import org.geotools.coverage.grid.GridCoverageFactory;
+import org.geotools.data.FeatureReader;
 import org.geotools.data.Query;
 import org.geotools.data.simple.SimpleFeatureCollection;
 import org.geotools.data.simple.SimpleFeatureIterator;
@@ -39,6 +42,7 @@ import org.geotools.referencing.CRS;
 import org.opengis.coverage.grid.GridCoverage;
 import org.opengis.coverage.grid.GridGeometry;
 import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.filter.Filter;
 import org.opengis.filter.expression.Expression;
 import org.opengis.referencing.FactoryException;
@@ -328,48 +332,80 @@ public class HeatmapProcess implements VectorProcess {
 
     public static void extractPoints(SimpleFeatureCollection obsPoints, String attrName,
             MathTransform trans, HeatmapSurface heatMap) throws CQLException {
-        Expression attrExpr = null;
-        if (attrName != null) {
-            attrExpr = ECQL.toExpression(attrName);
-        }
+        Expression attrExpr = toExpression(attrName);
 
         SimpleFeatureIterator obsIt = obsPoints.features();
 
         double[] srcPt = new double[2];
         double[] dstPt = new double[2];
 
-        int i = 0;
         try {
             while (obsIt.hasNext()) {
-                SimpleFeature feature = obsIt.next();
-
-                try {
-                    // get the weight value, if any
-                    double val = 1;
-                    if (attrExpr != null) {
-                        val = getPointValue(feature, attrExpr);
-                    }
-
-                    // get the point location from the geometry
-                    Geometry geom = (Geometry) feature.getDefaultGeometry();
-                    Coordinate p = getPoint(geom);
-                    srcPt[0] = p.x;
-                    srcPt[1] = p.y;
-                    trans.transform(srcPt, 0, dstPt, 0, 1);
-                    Coordinate pobs = new Coordinate(dstPt[0], dstPt[1], val);
-
-                    heatMap.addPoint(pobs.x, pobs.y, val);
-                } catch (Exception e) {
-                    // just carry on for now (debugging)
-                    // throw new ProcessException("Expression " + attrExpr +
-                    // " failed to evaluate to a numeric value", e);
-                }
+                addPoint(obsIt.next(), attrExpr, trans, heatMap, srcPt, dstPt);
             }
         } finally {
             obsIt.close();
         }
     }
 
+    /**
+     * Adds the points read from a {@link FeatureReader} to the surface, as they are read. This
+     * allows to bin the points of a data store without going through a feature collection.
+     * The reader is closed when done.
+     * 
+     * @param obsPoints the reader returning the observation points
+     * @param attrName the attribute holding the point weight, or null to use 1
+     * @param trans the transform from the points to the surface CRS
+     * @param heatMap the surface to add the points to
+     */
+    public static void extractPoints(FeatureReader<SimpleFeatureType, SimpleFeature> obsPoints,
+            String attrName, MathTransform trans, HeatmapSurface heatMap) throws CQLException,
+            IOException {
+        Expression attrExpr = toExpression(attrName);
+
+        double[] srcPt = new double[2];
+        double[] dstPt = new double[2];
+
+        try {
+            while (obsPoints.hasNext()) {
+                addPoint(obsPoints.next(), attrExpr, trans, heatMap, srcPt, dstPt);
+            }
+        } finally {
+            obsPoints.close();
+        }
+    }
+
+    private static Expression toExpression(String attrName) throws CQLException {
+        if (attrName != null) {
+            return ECQL.toExpression(attrName);
+        }
+        return null;
+    }
+
+    private static void addPoint(SimpleFeature feature, Expression attrExpr,
+            MathTransform trans, HeatmapSurface heatMap, double[] srcPt, double[] dstPt) {
+        try {
+            // get the weight value, if any
+            double val = 1;
+            if (attrExpr != null) {
+                val = getPointValue(feature, attrExpr);
+            }
+
+            // get the point location from the geometry
+            Geometry geom = (Geometry) feature.getDefaultGeometry();
+            Coordinate p = getPoint(geom);
+            srcPt[0] = p.x;
+            srcPt[1] = p.y;
+            trans.transform(srcPt, 0, dstPt, 0, 1);
+
+            heatMap.addPoint(dstPt[0], dstPt[1], val);
+        } catch (Exception e) {
+            // just carry on for now (debugging)
+            // throw new ProcessException("Expression " + attrExpr +
+            // " failed to evaluate to a numeric value", e);
+        }
+    }
+
     /**
      * Gets a point to represent the Geometry. If the Geometry is a point, this is returned.
      * Otherwise, the centroid is used.
@@ -17,6 +17,13 @@
  */
 package org.geotools.process.vector;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import com.vividsolutions.jts.geom.Envelope;
 
 /**
@@ -29,6 +36,9 @@ import com.vividsolutions.jts.geom.Envelope;
  * "edge effects" from distorting the surface within the requested envelope.
  * <p>
  * The values in the output surface are normalized to lie in the range [0, 1].
+ * <p>
+ * The grid is held in a single flat array. On large grids the box blur passes are split in bands
+ * of rows computed in parallel, see {@link #setThreads(int)}.
  * 
  * @author Martin Davis, OpenGeo
  * 
@@ -39,6 +49,16 @@ public class HeatmapSurface {
      */
     private static final int GAUSSIAN_APPROX_ITER = 4;
 
+    /**
+     * Minimum number of grid cells for the blur to be computed in parallel
+     */
+    private static final int PARALLEL_THRESHOLD = 256 * 256;
+
+    /**
+     * Number of adjacent rows blurred together, so that the input is read sequentially
+     */
+    private static final int BLOCK_SIZE = 32;
+
     private Envelope srcEnv;
 
     private int xSize;
@@ -47,10 +67,19 @@ public class HeatmapSurface {
 
     private GridTransform gridTrans;
 
-    private float[][] grid;
+    /**
+     * The expanded grid, stored X major: cell (i, j) is at i * ySizeExp + j
+     */
+    private float[] grid;
+
+    private int xSizeExp;
+
+    private int ySizeExp;
 
     private int kernelRadiusGrid;
 
+    private int threads = Runtime.getRuntime().availableProcessors();
+
     /**
      * Creates a new heatmap surface.
      * 
@@ -80,10 +109,21 @@ public class HeatmapSurface {
          */
         gridTrans.setClamp(false);
 
-        int xSizeExp = xSize + 2 * kernelRadiusGrid;
-        int ySizeExp = ySize + 2 * kernelRadiusGrid;
+        xSizeExp = xSize + 2 * kernelRadiusGrid;
+        ySizeExp = ySize + 2 * kernelRadiusGrid;
 
-        grid = new float[xSizeExp][ySizeExp];
+        grid = new float[xSizeExp * ySizeExp];
+    }
+
+    /**
+     * Sets the number of threads used to compute the surface. Defaults to the number of available
+     * processors, 1 computes the surface in the calling thread. Small grids are always computed in
+     * the calling thread.
+     * 
+     * @param threads the number of threads
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(threads, 1);
     }
 
     /**
@@ -102,10 +142,10 @@ public class HeatmapSurface {
         int gj = gridTrans.j(y) + kernelRadiusGrid;
 
         // check if point falls outside grid - skip it if so
-        if (gi < 0 || gi > grid.length || gj < 0 || gj > grid[0].length)
+        if (gi < 0 || gi >= xSizeExp || gj < 0 || gj >= ySizeExp)
             return;
         
-        grid[gi][gj] += value;
+        grid[gi * ySizeExp + gj] += value;
         // System.out.println("data[" + gi + ", " + gj + "] <- " + value);
     }
 
@@ -124,20 +164,30 @@ public class HeatmapSurface {
         return gridOut;
     }
 
-    private float[][] extractGrid(float[][] grid, int xBase, int yBase, int xSize, int ySize) {
+    private float[][] extractGrid(float[] grid, int xBase, int yBase, int xSize, int ySize) {
         float[][] gridExtract = new float[xSize][ySize];
         for (int i = 0; i < xSize; i++) {
-            for (int j = 0; j < ySize; j++) {
-                gridExtract[i][j] = grid[xBase + i][yBase + j];
-            }
+            System.arraycopy(grid, (xBase + i) * ySizeExp + yBase, gridExtract[i], 0, ySize);
         }
         return gridExtract;
     }
 
-    private float[][] computeHeatmap(float[][] grid, int kernelRadius) {
-        int xSize = grid.length;
-        int ySize = grid[0].length;
+    private float[] computeHeatmap(float[] grid, int kernelRadius) {
+        ExecutorService executor = null;
+        if (threads > 1 && grid.length >= PARALLEL_THRESHOLD) {
+            executor = Executors.newFixedThreadPool(threads);
+        }
+        try {
+            computeHeatmap(grid, kernelRadius, executor);
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+        return grid;
+    }
 
+    private void computeHeatmap(float[] grid, int kernelRadius, ExecutorService executor) {
         int baseBoxKernelRadius = kernelRadius / GAUSSIAN_APPROX_ITER;
         int radiusIncBreak = kernelRadius - baseBoxKernelRadius * GAUSSIAN_APPROX_ITER;
 
@@ -147,7 +197,7 @@ public class HeatmapSurface {
          * direction, as well as preserving input grid values.
          */
         // holds flipped copy of first box blur pass
-        float[][] grid2 = new float[ySize][xSize];
+        float[] grid2 = new float[grid.length];
         for (int count = 0; count < GAUSSIAN_APPROX_ITER; count++) {
             int boxKernelRadius = baseBoxKernelRadius;
             /**
@@ -157,13 +207,12 @@ public class HeatmapSurface {
                 boxKernelRadius++;
             // System.out.println(boxKernelRadius);
 
-            boxBlur(boxKernelRadius, grid, grid2);
-            boxBlur(boxKernelRadius, grid2, grid);
+            boxBlur(boxKernelRadius, grid, grid2, xSizeExp, ySizeExp, executor);
+            boxBlur(boxKernelRadius, grid2, grid, ySizeExp, xSizeExp, executor);
         }
 
         // testNormalizeFactor(baseBoxKernelRadius, radiusIncBreak);
         normalize(grid);
-        return grid;
     }
 
     /**
@@ -207,66 +256,112 @@ public class HeatmapSurface {
      * 
      * @param grid
      */
-    private void normalize(float[][] grid) {
+    private void normalize(float[] grid) {
         float max = Float.NEGATIVE_INFINITY;
         for (int i = 0; i < grid.length; i++) {
-            for (int j = 0; j < grid[0].length; j++) {
-                if (grid[i][j] > max)
-                    max = grid[i][j];
-            }
+            if (grid[i] > max)
+                max = grid[i];
         }
 
         float normFactor = 1.0f / max;
 
         for (int i = 0; i < grid.length; i++) {
-            for (int j = 0; j < grid[0].length; j++) {
-                grid[i][j] *= normFactor;
-            }
+            grid[i] *= normFactor;
         }
     }
 
-    private float kernelVal(int kernelRadius) {
+    private static float kernelVal(int kernelRadius) {
         // This kernel function has been confirmed to integrate to 1 over the full radius
         float val = (float) (1.0f / (2 * kernelRadius + 1));
         return val;
     }
 
-    private void boxBlur(int kernelRadius, float[][] input, float[][] output) {
-        int width = input.length;
-        int height = input[0].length;
+    /**
+     * Blurs the input grid along its first dimension, writing the result transposed in the
+     * output grid, so that the next pass blurs along the other dimension. The rows are split in
+     * bands computed in parallel if an executor is provided.
+     */
+    private void boxBlur(final int kernelRadius, final float[] input, final float[] output,
+            final int width, final int height, ExecutorService executor) {
+        if (executor == null) {
+            boxBlur(kernelRadius, input, output, width, height, 0, height);
+            return;
+        }
 
+        // a few bands per thread, so that a thread finishing early can pick up some more work
+        int bandHeight = Math.max(BLOCK_SIZE, height / (threads * 4));
+        List<Future<?>> bands = new ArrayList<Future<?>>();
+        for (int start = 0; start < height; start += bandHeight) {
+            final int jStart = start;
+            final int jEnd = Math.min(start + bandHeight, height);
+            bands.add(executor.submit(new Runnable() {
+                public void run() {
+                    boxBlur(kernelRadius, input, output, width, height, jStart, jEnd);
+                }
+            }));
+        }
+        try {
+            for (Future<?> band : bands) {
+                band.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while computing the heatmap surface", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void boxBlur(int kernelRadius, float[] input, float[] output, int width,
+            int height, int jStart, int jEnd) {
         // init moving average total
         float kernelVal = kernelVal(kernelRadius);
         // System.out.println("boxblur: radius = " + kernelRadius + " kernel val = " + kernelVal);
 
-        for (int j = 0; j < height; j++) {
-
-            double tot = 0.0;
-
-            for (int i = -kernelRadius; i <= kernelRadius; i++) {
-                if (i < 0 || i >= width)
-                    continue;
-                tot += kernelVal * input[i][j];
+        // running totals for a block of rows, so that the input is scanned sequentially
+        double[] tot = new double[BLOCK_SIZE];
+        for (int jBase = jStart; jBase < jEnd; jBase += BLOCK_SIZE) {
+            int count = Math.min(BLOCK_SIZE, jEnd - jBase);
+            for (int k = 0; k < count; k++) {
+                tot[k] = 0.0;
             }
 
-            // System.out.println(tot);
+            for (int i = 0; i <= kernelRadius && i < width; i++) {
+                int base = i * height + jBase;
+                for (int k = 0; k < count; k++) {
+                    tot[k] += kernelVal * input[base + k];
+                }
+            }
 
-            output[j][0] = (float) tot;
+            for (int k = 0; k < count; k++) {
+                output[(jBase + k) * width] = (float) tot[k];
+            }
 
             for (int i = 1; i < width; i++) {
 
                 // update box running total
                 int iprev = i - 1 - kernelRadius;
-                if (iprev >= 0)
-                    tot -= kernelVal * input[iprev][j];
+                if (iprev >= 0) {
+                    int base = iprev * height + jBase;
+                    for (int k = 0; k < count; k++) {
+                        tot[k] -= kernelVal * input[base + k];
+                    }
+                }
 
                 int inext = i + kernelRadius;
-                if (inext < width)
-                    tot += kernelVal * input[inext][j];
-
-                output[j][i] = (float) tot;
-                // if (i==49 && j==147) System.out.println("val[ " + i + ", " + j + "] = " + tot);
-
+                if (inext < width) {
+                    int base = inext * height + jBase;
+                    for (int k = 0; k < count; k++) {
+                        tot[k] += kernelVal * input[base + k];
+                    }
+                }
+
+                for (int k = 0; k < count; k++) {
+                    output[(jBase + k) * width + i] = (float) tot[k];
+                }
             }
         }
     }
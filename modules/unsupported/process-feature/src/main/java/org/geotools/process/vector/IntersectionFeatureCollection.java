@@ -18,14 +18,24 @@
 package org.geotools.process.vector;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.logging.Logger;
 
 import org.geotools.data.simple.SimpleFeatureCollection;
 import org.geotools.data.simple.SimpleFeatureIterator;
-import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.factory.GeoTools;
+import org.geotools.factory.Hints;
 import org.geotools.feature.AttributeTypeBuilder;
 import org.geotools.feature.collection.DecoratingSimpleFeatureCollection;
 import org.geotools.feature.simple.SimpleFeatureBuilder;
@@ -39,8 +49,6 @@ import org.geotools.referencing.CRS;
 import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.feature.type.AttributeDescriptor;
-import org.opengis.filter.Filter;
-import org.opengis.filter.FilterFactory2;
 import org.opengis.referencing.FactoryException;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.operation.MathTransform;
@@ -57,6 +65,9 @@ import com.vividsolutions.jts.geom.MultiPoint;
 import com.vividsolutions.jts.geom.MultiPolygon;
 import com.vividsolutions.jts.geom.Point;
 import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+import com.vividsolutions.jts.index.strtree.STRtree;
 
 /**
  * A process providing the intersection between two feature collections
@@ -74,6 +85,12 @@ public class IntersectionFeatureCollection implements VectorProcess {
         INTERSECTION, FIRST, SECOND
     };
 
+    /**
+     * The executor computing the intersections, when null the {@link Hints#EXECUTOR_SERVICE}
+     * system default is used, if any, otherwise they are computed in the calling thread
+     */
+    private ExecutorService executor;
+
     static final String ECKERT_IV_WKT = "PROJCS[\"World_Eckert_IV\",GEOGCS[\"GCS_WGS_1984\",DATUM[\"D_WGS_1984\",SPHEROID[\"WGS_1984\",6378137.0,298.257223563]],PRIMEM[\"Greenwich\",0.0],UNIT[\"Degree\",0.0174532925199433]],PROJECTION[\"Eckert_IV\"],PARAMETER[\"Central_Meridian\",0.0],UNIT[\"Meter\",1.0]]";
 
     @DescribeResult(description = "Output feature collection")
@@ -116,7 +133,36 @@ public class IntersectionFeatureCollection implements VectorProcess {
         }
 
         return new IntersectedFeatureCollection(firstFeatures, firstAttributes, secondFeatures,
-                sndAttributes, intersectionMode, percentagesEnabled, areasEnabled);
+                sndAttributes, intersectionMode, percentagesEnabled, areasEnabled, getExecutor());
+    }
+
+    /**
+     * Returns the executor set with {@link #setExecutor(ExecutorService)}, or else the
+     * {@link Hints#EXECUTOR_SERVICE} system default, or null if none has been set
+     */
+    ExecutorService getExecutor() {
+        if (executor != null) {
+            return executor;
+        }
+        Object hint = GeoTools.getDefaultHints().get(Hints.EXECUTOR_SERVICE);
+        if (hint instanceof ExecutorService) {
+            return (ExecutorService) hint;
+        }
+        return null;
+    }
+
+    /**
+     * Sets the executor used to compute the intersections in parallel while the output
+     * collection is iterated. By default, or when set to null, the executor set as the
+     * {@link Hints#EXECUTOR_SERVICE} system default is used, which is how processes built
+     * by the process factories, such as the WPS ones, get one. Without either, the
+     * intersections are computed in the calling thread. The executor is not shut down by
+     * this process.
+     * 
+     * @param executor the executor
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
     }
 
     /**
@@ -283,6 +329,8 @@ public class IntersectionFeatureCollection implements VectorProcess {
         boolean percentagesEnabled;
 
         boolean areasEnabled;
+
+        ExecutorService executor;
         // added
         SimpleFeatureBuilder fb;
         AttributeDescriptor geomType = null;
@@ -290,9 +338,10 @@ public class IntersectionFeatureCollection implements VectorProcess {
         public IntersectedFeatureCollection(SimpleFeatureCollection delegate,
                 List<String> firstAttributes, SimpleFeatureCollection features,
                 List<String> sndAttributes, IntersectionMode intersectionMode,
-                boolean percentagesEnabled, boolean areasEnabled) {
+                boolean percentagesEnabled, boolean areasEnabled, ExecutorService executor) {
             super(delegate);
             this.features = features;
+            this.executor = executor;
             this.firstAttributes = firstAttributes;
             this.sndAttributes = sndAttributes;
             this.intersectionMode = intersectionMode;
@@ -375,183 +424,283 @@ public class IntersectionFeatureCollection implements VectorProcess {
 
         @Override
         public SimpleFeatureIterator features() {
-            return new IntersectedFeatureIterator(delegate.features(), delegate, features,
-                    delegate.getSchema(), features.getSchema(), firstAttributes, sndAttributes,
-                    intersectionMode, percentagesEnabled, areasEnabled,fb);
+            return new IndexedIntersectedFeatureIterator(delegate, features, firstAttributes,
+                    sndAttributes, intersectionMode, percentagesEnabled, areasEnabled, geomType,
+                    fb, executor);
         }
     }
 
     /**
-     * Builds the intersections while streaming
+     * Builds the intersections while streaming, loading the second collection in a
+     * {@link STRtree} up front instead of querying it once per feature of the first collection.
+     * The first collection is read in batches, which are intersected on the executor, if any,
+     * while the results of the previous ones are returned, in the same order a sequential scan
+     * would return them.
      */
-    static class IntersectedFeatureIterator implements SimpleFeatureIterator {
-        SimpleFeatureIterator delegate;
+    static class IndexedIntersectedFeatureIterator implements SimpleFeatureIterator {
+
+        /** Number of features of the first collection intersected by a single task */
+        static final int BATCH_SIZE = 64;
 
         SimpleFeatureCollection firstFeatures;
 
         SimpleFeatureCollection secondFeatures;
 
-        SimpleFeatureCollection subFeatureCollection;
+        List<String> retainAttributesFst;
 
-        SimpleFeatureBuilder fb;
+        List<String> retainAttributesSnd;
 
-        SimpleFeature next;
-
-        SimpleFeature first;
+        IntersectionMode intersectionMode;
 
-        Integer iterationIndex = 0;
+        boolean percentagesEnabled;
 
-        boolean complete = true;
+        boolean areasEnabled;
 
-        boolean added = false;
+        AttributeDescriptor geomType;
 
-        SimpleFeatureCollection intersectedGeometries;
+        SimpleFeatureBuilder fb;
 
-        SimpleFeatureIterator iterator;
+        ExecutorService executor;
 
-        String dataGeomName;
+        STRtree index;
 
-        List<String> retainAttributesFst = null;
+        SimpleFeatureIterator delegate;
 
-        List<String> retainAttributesSnd = null;
+        LinkedList<FutureTask<List<Intersection>>> pending = new LinkedList<FutureTask<List<Intersection>>>();
 
-        AttributeDescriptor geomType = null;
+        Iterator<Intersection> current;
 
-        boolean percentagesEnabled;
+        SimpleFeature next;
 
-        boolean areasEnabled;
+        int id = 0;
 
-        IntersectionMode intersectionMode;
-        int id=0;
-
-        public IntersectedFeatureIterator(SimpleFeatureIterator delegate,
-                SimpleFeatureCollection firstFeatures, SimpleFeatureCollection secondFeatures,
-                SimpleFeatureType firstFeatureCollectionSchema,
-                SimpleFeatureType secondFeatureCollectionSchema,
-                List<String> retainAttributesFstPar, List<String> retainAttributesSndPar,
-                IntersectionMode intersectionMode, boolean percentagesEnabled, boolean areasEnabled, 
-                SimpleFeatureBuilder sfb) {
-            this.retainAttributesFst = retainAttributesFstPar;
-            this.retainAttributesSnd = retainAttributesSndPar;
-            this.delegate = delegate;
+        public IndexedIntersectedFeatureIterator(SimpleFeatureCollection firstFeatures,
+                SimpleFeatureCollection secondFeatures, List<String> retainAttributesFst,
+                List<String> retainAttributesSnd, IntersectionMode intersectionMode,
+                boolean percentagesEnabled, boolean areasEnabled, AttributeDescriptor geomType,
+                SimpleFeatureBuilder fb, ExecutorService executor) {
             this.firstFeatures = firstFeatures;
             this.secondFeatures = secondFeatures;
+            this.retainAttributesFst = retainAttributesFst;
+            this.retainAttributesSnd = retainAttributesSnd;
+            this.intersectionMode = intersectionMode;
             this.percentagesEnabled = percentagesEnabled;
             this.areasEnabled = areasEnabled;
-            this.intersectionMode = intersectionMode;
+            this.geomType = geomType;
+            this.fb = fb;
+            this.executor = executor;
+        }
 
-            logger.fine("Creating schema");
-            // create the geometry attribute descriptor for the result
-  //          SimpleFeatureTypeBuilder tb = new SimpleFeatureTypeBuilder();
-            if (intersectionMode == IntersectionMode.FIRST) {
-                geomType = firstFeatureCollectionSchema.getGeometryDescriptor();
+        /**
+         * Loads the second collection in the index and opens the first one
+         */
+        void init() {
+            index = new STRtree();
+            SimpleFeatureIterator it = secondFeatures.features();
+            try {
+                int ordinal = 0;
+                while (it.hasNext()) {
+                    SimpleFeature feature = it.next();
+                    Geometry geometry = (Geometry) feature.getDefaultGeometry();
+                    if (geometry != null && !geometry.isEmpty()) {
+                        index.insert(geometry.getEnvelopeInternal(), new IndexedFeature(
+                                ordinal++, feature, geometry));
+                    }
+                }
+            } finally {
+                it.close();
             }
-            if (intersectionMode == IntersectionMode.SECOND) {
-                geomType = secondFeatureCollectionSchema.getGeometryDescriptor();
+            // build now, queries are run concurrently
+            index.build();
+            delegate = firstFeatures.features();
+        }
+
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
             }
-            if (intersectionMode == IntersectionMode.INTERSECTION) {
-                geomType = getIntersectionType(firstFeatures, secondFeatures);
+            if (index == null) {
+                init();
+            }
+            while (true) {
+                if (current != null && current.hasNext()) {
+                    next = buildFeature(current.next());
+                    return true;
+                }
+                submitBatches();
+                if (pending.isEmpty()) {
+                    close();
+                    return false;
+                }
+                try {
+                    FutureTask<List<Intersection>> future = pending.removeFirst();
+                    // computes the batch here if the executor did not start it yet
+                    future.run();
+                    current = future.get().iterator();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    close();
+                    throw new IllegalStateException("Interrupted while computing intersections", e);
+                } catch (ExecutionException e) {
+                    close();
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw new IllegalStateException(e.getCause());
+                }
             }
-
-            this.fb = sfb;
-            subFeatureCollection = this.secondFeatures;
-
-            this.dataGeomName = this.firstFeatures.getSchema().getGeometryDescriptor()
-                    .getLocalName();
-            logger.fine("Schema created");
         }
 
+        /**
+         * Reads the next batches of the first collection and schedules their intersection,
+         * keeping a couple of batches per thread in flight
+         */
+        void submitBatches() {
+            int maxPending = executor == null ? 1 : getThreads() * 2;
+            while (delegate != null && pending.size() < maxPending && delegate.hasNext()) {
+                final List<SimpleFeature> batch = new ArrayList<SimpleFeature>(BATCH_SIZE);
+                while (batch.size() < BATCH_SIZE && delegate.hasNext()) {
+                    batch.add(delegate.next());
+                }
+                Callable<List<Intersection>> task = new Callable<List<Intersection>>() {
+                    public List<Intersection> call() throws Exception {
+                        return intersect(batch);
+                    }
+                };
+                FutureTask<List<Intersection>> future = new FutureTask<List<Intersection>>(task);
+                pending.add(future);
+                if (executor != null) {
+                    executor.execute(future);
+                }
+            }
+        }
 
-        public void close() {
-            delegate.close();
+        /**
+         * Returns the number of threads of the executor, the core ones for a
+         * {@link ThreadPoolExecutor}, the available processors otherwise
+         */
+        int getThreads() {
+            if (executor instanceof ThreadPoolExecutor) {
+                return Math.max(1, ((ThreadPoolExecutor) executor).getCorePoolSize());
+            }
+            return Runtime.getRuntime().availableProcessors();
         }
 
-        public boolean hasNext() {
-         //   logger.info("qui");
-            logger.finer("HAS NEXT");
-            while ((next == null && delegate.hasNext()) || (next == null && added)) {
-                       //     logger.info("qui nel while");
-                if (complete) {
-                    first = delegate.next();
-                    intersectedGeometries = null;
+        /**
+         * Computes the intersections of a batch of features of the first collection, geometries
+         * and dynamic attributes included. Features are built later, in order.
+         */
+        List<Intersection> intersect(List<SimpleFeature> batch) {
+            List<Intersection> result = new ArrayList<Intersection>();
+            for (SimpleFeature first : batch) {
+                Geometry firstGeom = (Geometry) first.getDefaultGeometry();
+                if (firstGeom == null || firstGeom.isEmpty()) {
+                    continue;
+                }
+                List<IndexedFeature> candidates = index.query(firstGeom.getEnvelopeInternal());
+                if (candidates.isEmpty()) {
+                    continue;
+                }
+                // same order as the second collection
+                Collections.sort(candidates, IndexedFeature.ORDER);
+
+                // same rule as the original iterator: the features of the second collection
+                // intersecting the first geometry, or when there are none, the ones
+                // intersecting its envelope
+                PreparedGeometry prepared = PreparedGeometryFactory.prepare(firstGeom);
+                List<IndexedFeature> matches = new ArrayList<IndexedFeature>(candidates.size());
+                for (IndexedFeature candidate : candidates) {
+                    if (prepared.intersects(candidate.geometry)) {
+                        matches.add(candidate);
+                    }
                 }
-                         //               logger.info("qui dopo check if (complete)");
-                //logger.finer("control HAS NEXT");
-                for (Object attribute : first.getAttributes()) {
-                    if (attribute instanceof Geometry
-                            && attribute.equals(first.getDefaultGeometry())) {
-                        Geometry currentGeom = (Geometry) attribute;
-
-                        if (intersectedGeometries == null && !added) {
-                            intersectedGeometries = filteredCollection(currentGeom,
-                                    subFeatureCollection);
-                            iterator = intersectedGeometries.features();
+                if (matches.isEmpty()) {
+                    Geometry envelope = firstGeom.getEnvelope();
+                    for (IndexedFeature candidate : candidates) {
+                        if (envelope.intersects(candidate.geometry)) {
+                            matches.add(candidate);
                         }
-                        try {
-                            while (iterator.hasNext()) {
-                                added = false;
-                                SimpleFeature second = iterator.next();
-                                if (currentGeom.getEnvelope().intersects(
-                                        ((Geometry) second.getDefaultGeometry()))) {
-                                    // compute geometry
-                                    if (intersectionMode == IntersectionMode.INTERSECTION) {
-                                        attribute = currentGeom.intersection((Geometry) second
-                                                .getDefaultGeometry());
-
-                                        GeometryFilterImpl filter = new GeometryFilterImpl(geomType
-                                                .getType().getBinding());
-                                        ((Geometry) attribute).apply(filter);
-                                        attribute = filter.getGeometry();
-                                    } else if (intersectionMode == IntersectionMode.FIRST) {
-                                        attribute = currentGeom;
-                                    } else if (intersectionMode == IntersectionMode.SECOND) {
-                                        attribute = (Geometry) second.getDefaultGeometry();
-                                    }
-                                    if (((Geometry) attribute).getNumGeometries() > 0) {
-                                        fb.add(attribute);
-                                        fb.set("INTERSECTION_ID", id++);
-                                        // add the non geometric attributes
-                                        addAttributeValues(first, retainAttributesFst, fb);
-                                        addAttributeValues(second, retainAttributesSnd, fb);
-                                        // add the dynamic attributes
-                                        if (percentagesEnabled) {
-                                            addPercentages(currentGeom, second);
-                                        }
-                                        if (areasEnabled) {
-                                            addAreas(currentGeom, second);
-                                        }
-
-                                        // build the feature
-                                        next = fb.buildFeature(iterationIndex.toString());
-
-                                        // update iterator status
-                                        if (iterator.hasNext()) {
-                                            complete = false;
-                                            added = true;
-                                            iterationIndex++;
-                                            return next != null;
-                                        }
-                                        iterationIndex++;
-                                    }
-
-                                }
-                                complete = false;
-                            }
-                            complete = true;
-                        } finally {
-                            if (!added) {
-                                iterator.close();
-                            }
+                    }
+                }
+                for (IndexedFeature candidate : matches) {
+                    Geometry geometry = null;
+                    if (intersectionMode == IntersectionMode.INTERSECTION) {
+                        Geometry intersection = firstGeom.intersection(candidate.geometry);
+                        GeometryFilterImpl filter = new GeometryFilterImpl(geomType.getType()
+                                .getBinding());
+                        intersection.apply(filter);
+                        geometry = filter.getGeometry();
+                        if (geometry == null) {
+                            // no collection type to filter against
+                            geometry = intersection;
                         }
+                    } else if (intersectionMode == IntersectionMode.FIRST) {
+                        geometry = firstGeom;
+                    } else if (intersectionMode == IntersectionMode.SECOND) {
+                        geometry = candidate.geometry;
+                    }
+                    if (geometry.isEmpty() || geometry.getNumGeometries() == 0) {
+                        continue;
+                    }
+
+                    Intersection intersection = new Intersection(first, candidate.feature,
+                            geometry);
+                    if (percentagesEnabled) {
+                        intersection.percentages = computePercentages(firstGeom,
+                                candidate.geometry);
+                    }
+                    if (areasEnabled) {
+                        intersection.areas = computeAreas(firstGeom, candidate.geometry);
                     }
+                    result.add(intersection);
                 }
             }
-            return next != null;
+            return result;
         }
 
+        double[] computePercentages(Geometry firstGeom, Geometry secondGeom) {
+            CoordinateReferenceSystem firstCRS = firstFeatures.getSchema()
+                    .getCoordinateReferenceSystem();
+            CoordinateReferenceSystem secondCRS = secondFeatures.getSchema()
+                    .getCoordinateReferenceSystem();
+            return new double[] {
+                    getIntersectionArea(firstGeom, firstCRS, secondGeom, secondCRS, true),
+                    getIntersectionArea(firstGeom, firstCRS, secondGeom, secondCRS, false) };
+        }
 
-        
-        private void addAttributeValues(SimpleFeature feature, List<String> retained,
+        double[] computeAreas(Geometry firstGeom, Geometry secondGeom) {
+            CoordinateReferenceSystem firstCRS = firstFeatures.getSchema()
+                    .getCoordinateReferenceSystem();
+            CoordinateReferenceSystem secondCRS = secondFeatures.getSchema()
+                    .getCoordinateReferenceSystem();
+            try {
+                return new double[] { reprojectAndDensify(firstGeom, firstCRS, null).getArea(),
+                        reprojectAndDensify(secondGeom, secondCRS, null).getArea() };
+            } catch (Exception e) {
+                logger.fine("Failed to compute the areas: " + e);
+                return new double[] { -1, -1 };
+            }
+        }
+
+        SimpleFeature buildFeature(Intersection intersection) {
+            fb.add(intersection.geometry);
+            fb.set("INTERSECTION_ID", id);
+            // add the non geometric attributes
+            addAttributeValues(intersection.first, retainAttributesFst, fb);
+            addAttributeValues(intersection.second, retainAttributesSnd, fb);
+            // add the dynamic attributes
+            if (intersection.percentages != null) {
+                fb.set("percentageA", intersection.percentages[0]);
+                fb.set("percentageB", intersection.percentages[1]);
+            }
+            if (intersection.areas != null) {
+                fb.set("areaA", intersection.areas[0]);
+                fb.set("areaB", intersection.areas[1]);
+            }
+            return fb.buildFeature(String.valueOf(id++));
+        }
+
+        static void addAttributeValues(SimpleFeature feature, List<String> retained,
                 SimpleFeatureBuilder fb) {
             Iterator<AttributeDescriptor> firstIterator = feature.getType().getAttributeDescriptors()
                     .iterator();
@@ -565,63 +714,69 @@ public class IntersectionFeatureCollection implements VectorProcess {
             }
         }
 
-        private void addAreas(Geometry currentGeom, SimpleFeature second) {
-            CoordinateReferenceSystem firstCRS = firstFeatures.getSchema().getCoordinateReferenceSystem();
-            CoordinateReferenceSystem secondCRS = secondFeatures.getSchema().getCoordinateReferenceSystem();
+        public SimpleFeature next() throws NoSuchElementException {
+            if (!hasNext()) {
+                throw new NoSuchElementException("hasNext() returned false!");
+            }
+            SimpleFeature result = next;
+            next = null;
+            return result;
+        }
 
-            try {
-                double areaA = IntersectionFeatureCollection.reprojectAndDensify(currentGeom,
-                        firstCRS, null).getArea();
-                double areaB = IntersectionFeatureCollection.reprojectAndDensify(
-                        (Geometry) second.getDefaultGeometry(), secondCRS, null).getArea();
-                fb.set("areaA", areaA);
-                fb.set("areaB", areaB);
-            } catch (Exception e) {
-                System.out.println("" + e);
-                fb.set("areaA", -1);
-                fb.set("areaB", -1);
+        public void close() {
+            for (Future<List<Intersection>> future : pending) {
+                future.cancel(false);
+            }
+            pending.clear();
+            current = null;
+            if (delegate != null) {
+                delegate.close();
+                delegate = null;
             }
         }
+    }
 
-        private void addPercentages(Geometry currentGeom, SimpleFeature second) {
-            CoordinateReferenceSystem firstCRS = firstFeatures.getSchema().getCoordinateReferenceSystem();
+    /**
+     * A feature of the second collection in the overlay index
+     */
+    static class IndexedFeature {
+        static final Comparator<IndexedFeature> ORDER = new Comparator<IndexedFeature>() {
+            public int compare(IndexedFeature f1, IndexedFeature f2) {
+                return f1.ordinal < f2.ordinal ? -1 : (f1.ordinal == f2.ordinal ? 0 : 1);
+            }
+        };
 
-            CoordinateReferenceSystem secondCRS = secondFeatures.getSchema().getCoordinateReferenceSystem();
+        final int ordinal;
 
+        final SimpleFeature feature;
 
-            double percentageA = IntersectionFeatureCollection.getIntersectionArea(currentGeom,
-                    firstCRS, (Geometry) second.getDefaultGeometry(), secondCRS, true);
+        final Geometry geometry;
 
-            double percentageB = IntersectionFeatureCollection.getIntersectionArea(currentGeom,
-                    firstCRS, (Geometry) second.getDefaultGeometry(), secondCRS, false);
+        IndexedFeature(int ordinal, SimpleFeature feature, Geometry geometry) {
+            this.ordinal = ordinal;
+            this.feature = feature;
+            this.geometry = geometry;
+        }
+    }
 
-            fb.set("percentageA", percentageA);
+    /**
+     * An intersection waiting to be turned into a feature
+     */
+    static class Intersection {
+        final SimpleFeature first;
 
-            fb.set("percentageB", percentageB);
+        final SimpleFeature second;
 
-        }
+        final Geometry geometry;
 
-        public SimpleFeature next() throws NoSuchElementException {
-            if (!hasNext()) {
-                throw new NoSuchElementException("hasNext() returned false!");
-            }
+        double[] percentages;
 
-            SimpleFeature result = next;
-            next = null;
-            return result;
-        }
+        double[] areas;
 
-        private SimpleFeatureCollection filteredCollection(Geometry currentGeom,
-                SimpleFeatureCollection subFeatureCollection) {
-            FilterFactory2 ff = CommonFactoryFinder.getFilterFactory2(null);
-            Filter intersectFilter = ff.intersects(ff.property(dataGeomName),
-                    ff.literal(currentGeom));
-            SimpleFeatureCollection subFeatureCollectionIntersection = this.subFeatureCollection
-                    .subCollection(intersectFilter);
-            if (subFeatureCollectionIntersection.size() == 0) {
-                subFeatureCollectionIntersection = subFeatureCollection;
-            }
-            return subFeatureCollectionIntersection;
+        Intersection(SimpleFeature first, SimpleFeature second, Geometry geometry) {
+            this.first = first;
+            this.second = second;
+            this.geometry = geometry;
         }
     }
 
@@ -0,0 +1,69 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.process.vector;
+
+import java.util.Random;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * Computes heatmap surfaces of increasing size in a single thread and with all the available
+ * processors, and reports the average computation time.
+ * <p>
+ * Usage: <code>HeatmapSurfaceBenchmark [points] [radius] [runs]</code>
+ *
+ * @source $URL$
+ */
+public class HeatmapSurfaceBenchmark {
+
+    static final int[] SIZES = { 256, 512, 1024, 2048, 4096 };
+
+    public static void main(String[] args) {
+        final int points = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        final int radius = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        final int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        final int processors = Runtime.getRuntime().availableProcessors();
+
+        for (int size : SIZES) {
+            // warm up
+            run(size, points, radius, 1);
+            run(size, points, radius, processors);
+
+            long serial = 0;
+            long parallel = 0;
+            for (int i = 0; i < runs; i++) {
+                serial += run(size, points, radius, 1);
+                parallel += run(size, points, radius, processors);
+            }
+            System.out.println(size + "x" + size + ": 1 thread " + serial / runs / 1000000
+                    + "ms, " + processors + " threads " + parallel / runs / 1000000 + "ms");
+        }
+    }
+
+    static long run(int size, int points, int radius, int threads) {
+        final HeatmapSurface surface = new HeatmapSurface(radius, new Envelope(0, 100, 0, 100),
+                size, size);
+        surface.setThreads(threads);
+        final Random random = new Random(0);
+        final long start = System.nanoTime();
+        for (int i = 0; i < points; i++) {
+            surface.addPoint(random.nextDouble() * 100, random.nextDouble() * 100, 1);
+        }
+        surface.computeSurface();
+        return System.nanoTime() - start;
+    }
+}
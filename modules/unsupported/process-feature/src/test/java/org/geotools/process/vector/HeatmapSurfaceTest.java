@@ -0,0 +1,113 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.process.vector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.geotools.data.DataUtilities;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.referencing.operation.transform.IdentityTransform;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+/**
+ * Testing {@link HeatmapSurface} class.
+ *
+ * @source $URL$
+ */
+public class HeatmapSurfaceTest {
+
+    static HeatmapSurface createSurface(int size, int points, int threads) {
+        Envelope env = new Envelope(0, 100, 0, 100);
+        HeatmapSurface surface = new HeatmapSurface(30, env, size, size);
+        surface.setThreads(threads);
+        Random random = new Random(0);
+        for (int i = 0; i < points; i++) {
+            surface.addPoint(random.nextDouble() * 120 - 10, random.nextDouble() * 120 - 10,
+                    random.nextInt(10));
+        }
+        return surface;
+    }
+
+    @Test
+    public void testParallelMatchesSerial() {
+        // large enough to be computed in parallel
+        float[][] serial = createSurface(500, 10000, 1).computeSurface();
+        float[][] parallel = createSurface(500, 10000, 4).computeSurface();
+        assertEquals(500, parallel.length);
+        for (int i = 0; i < serial.length; i++) {
+            assertArrayEquals(serial[i], parallel[i], 0f);
+        }
+    }
+
+    @Test
+    public void testSymmetric() {
+        HeatmapSurface surface = new HeatmapSurface(10, new Envelope(0, 100, 0, 100), 101, 101);
+        surface.addPoint(50, 50, 1);
+        // points on the edges of the expanded grid or outside of it are skipped
+        surface.addPoint(1000, 1000, 1);
+        surface.addPoint(-1000, 50, 1);
+        float[][] grid = surface.computeSurface();
+
+        assertEquals(1f, grid[50][50], 1e-6);
+        for (int d = 1; d < 20; d++) {
+            assertEquals(grid[50 - d][50], grid[50 + d][50], 1e-6);
+            assertEquals(grid[50][50 - d], grid[50][50 + d], 1e-6);
+            assertEquals(grid[50 - d][50], grid[50][50 - d], 1e-6);
+        }
+        assertEquals(0f, grid[0][0], 0f);
+    }
+
+    @Test
+    public void testExtractFromReader() throws Exception {
+        SimpleFeatureType type = DataUtilities.createType("points", "geom:Point,weight:Double");
+        SimpleFeatureBuilder fb = new SimpleFeatureBuilder(type);
+        GeometryFactory gf = new GeometryFactory();
+        SimpleFeature[] features = new SimpleFeature[3];
+        features[0] = fb.buildFeature(null, new Object[] { gf.createPoint(new Coordinate(20, 20)),
+                2.0 });
+        features[1] = fb.buildFeature(null, new Object[] { gf.createPoint(new Coordinate(80, 80)),
+                1.0 });
+        features[2] = fb.buildFeature(null, new Object[] { gf.createPoint(new Coordinate(80, 20)),
+                1.0 });
+
+        Envelope env = new Envelope(0, 100, 0, 100);
+        HeatmapSurface fromReader = new HeatmapSurface(5, env, 100, 100);
+        HeatmapProcess.extractPoints(DataUtilities.reader(features), "weight",
+                IdentityTransform.create(2), fromReader);
+        HeatmapSurface fromCollection = new HeatmapSurface(5, env, 100, 100);
+        HeatmapProcess.extractPoints(DataUtilities.collection(features), "weight",
+                IdentityTransform.create(2), fromCollection);
+
+        float[][] expected = fromCollection.computeSurface();
+        float[][] actual = fromReader.computeSurface();
+        for (int i = 0; i < expected.length; i++) {
+            assertArrayEquals(expected[i], actual[i], 0f);
+        }
+        // the heavier point is the peak
+        assertEquals(1f, actual[20][20], 1e-6);
+        assertEquals(0.5f, actual[80][80], 1e-6);
+    }
+}
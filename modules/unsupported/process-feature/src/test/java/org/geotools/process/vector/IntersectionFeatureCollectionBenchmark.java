@@ -0,0 +1,96 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.process.vector;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.geotools.data.simple.SimpleFeatureCollection;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.process.vector.IntersectionFeatureCollection.IndexedIntersectedFeatureIterator;
+import org.geotools.process.vector.IntersectionFeatureCollection.IntersectedFeatureCollection;
+import org.geotools.process.vector.IntersectionFeatureCollection.IntersectionMode;
+
+/**
+ * Overlays two layers of random squares with the per feature query of
+ * {@link SequentialIntersectedFeatureIterator} and with the indexed overlay, single threaded and with all
+ * the available processors, and reports the time taken by each.
+ * <p>
+ * Usage: <code>IntersectionFeatureCollectionBenchmark [firstCount] [secondCount] [squareSize]</code>,
+ * the squares are placed over a 100x100 degrees area.
+ *
+ * @source $URL$
+ */
+public class IntersectionFeatureCollectionBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        final int firstCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        final int secondCount = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        final double size = args.length > 2 ? Double.parseDouble(args[2]) : 2;
+        final int processors = Runtime.getRuntime().availableProcessors();
+
+        final SimpleFeatureCollection first = IntersectionFeatureCollectionTest.createSquares(
+                "first", firstCount, size, 0);
+        final SimpleFeatureCollection second = IntersectionFeatureCollectionTest.createSquares(
+                "second", secondCount, size, 1);
+        final IntersectedFeatureCollection collection = new IntersectedFeatureCollection(first,
+                null, second, null, IntersectionMode.INTERSECTION, false, false, null);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(processors);
+        try {
+            for (int round = 0; round < 3; round++) {
+                long start = System.nanoTime();
+                int count = consume(new SequentialIntersectedFeatureIterator(first.features(),
+                        first, second, first.getSchema(), second.getSchema(), null, null,
+                        IntersectionMode.INTERSECTION, false, false, collection.fb));
+                report("Per feature query", start, count);
+
+                start = System.nanoTime();
+                count = consume(new IndexedIntersectedFeatureIterator(first, second, null, null,
+                        IntersectionMode.INTERSECTION, false, false, collection.geomType,
+                        collection.fb, null));
+                report("Indexed, calling thread", start, count);
+
+                start = System.nanoTime();
+                count = consume(new IndexedIntersectedFeatureIterator(first, second, null, null,
+                        IntersectionMode.INTERSECTION, false, false, collection.geomType,
+                        collection.fb, executor));
+                report("Indexed, " + processors + " threads", start, count);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    static int consume(SimpleFeatureIterator iterator) {
+        int count = 0;
+        try {
+            while (iterator.hasNext()) {
+                iterator.next();
+                count++;
+            }
+        } finally {
+            iterator.close();
+        }
+        return count;
+    }
+
+    static void report(String name, long start, int count) {
+        System.out.println(name + ": " + (System.nanoTime() - start) / 1000000 + "ms, " + count
+                + " intersections");
+    }
+}
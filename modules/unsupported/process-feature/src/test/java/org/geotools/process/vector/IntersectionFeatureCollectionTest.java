@@ -19,6 +19,7 @@ package org.geotools.process.vector;
 
 import java.util.List;
 import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.GeometryCollection;
 import com.vividsolutions.jts.geom.GeometryFactory;
@@ -29,6 +30,9 @@ import com.vividsolutions.jts.geom.PrecisionModel;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Logger;
 
 import org.geotools.TestData;
@@ -37,18 +41,25 @@ import org.geotools.data.property.PropertyDataStore;
 import org.geotools.data.simple.SimpleFeatureCollection;
 import org.geotools.data.simple.SimpleFeatureIterator;
 import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.factory.Hints;
 import org.geotools.feature.DefaultFeatureCollection;
 import org.geotools.feature.simple.SimpleFeatureBuilder;
 import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
 import org.geotools.process.vector.IntersectionFeatureCollection;
+import org.geotools.process.vector.IntersectionFeatureCollection.IndexedIntersectedFeatureIterator;
+import org.geotools.process.vector.IntersectionFeatureCollection.IntersectedFeatureCollection;
 import org.geotools.process.vector.IntersectionFeatureCollection.IntersectionMode;
+import org.geotools.referencing.crs.DefaultGeographicCRS;
 import org.junit.Before;
 import org.junit.Test;
 import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.filter.FilterFactory;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import org.opengis.feature.type.AttributeDescriptor;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 
@@ -258,4 +269,196 @@ public class IntersectionFeatureCollectionTest {
         }
 
 }
+
+    @Test
+    public void testIndexedMatchesSequential() throws Exception {
+        checkIndexedMatchesSequential(createSquares("first", 200, 8, 0),
+                createSquares("second", 300, 5, 1));
+    }
+
+    /**
+     * Same as {@link #testIndexedMatchesSequential()} with triangles and L shapes, whose
+     * envelopes intersect more features than their geometries do
+     */
+    @Test
+    public void testIndexedMatchesSequentialShapes() throws Exception {
+        checkIndexedMatchesSequential(createShapes("first", 200, 8, 0),
+                createShapes("second", 300, 5, 1));
+    }
+
+    /**
+     * A first feature intersecting no second geometry is matched with the ones intersecting
+     * its envelope, as the original iterator did
+     */
+    @Test
+    public void testEnvelopeMatch() throws Exception {
+        GeometryFactory gf = new GeometryFactory();
+        Polygon triangle = gf.createPolygon(gf.createLinearRing(new Coordinate[] {
+                new Coordinate(0, 0), new Coordinate(10, 0), new Coordinate(0, 10),
+                new Coordinate(0, 0) }), null);
+        // in the envelope of the triangle, outside of the triangle
+        Polygon corner = (Polygon) gf.toGeometry(new Envelope(7, 9, 7, 9));
+        // inside the triangle
+        Polygon inside = (Polygon) gf.toGeometry(new Envelope(1, 2, 1, 2));
+
+        SimpleFeatureCollection first = createCollection("first", triangle);
+        IntersectionFeatureCollection process = new IntersectionFeatureCollection();
+        List<SimpleFeature> features = collect(process.execute(first,
+                createCollection("second", corner), null, null, IntersectionMode.FIRST, false,
+                false).features());
+        assertEquals(1, features.size());
+        assertEquals("second0", features.get(0).getAttribute("second_name"));
+
+        // when the geometry itself intersects something, the envelope matches are dropped
+        features = collect(process.execute(first, createCollection("second", corner, inside),
+                null, null, IntersectionMode.FIRST, false, false).features());
+        assertEquals(1, features.size());
+        assertEquals("second1", features.get(0).getAttribute("second_name"));
+    }
+
+    @Test
+    public void testExecutorHint() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            IntersectionFeatureCollection process = new IntersectionFeatureCollection();
+            assertNull(process.getExecutor());
+            Hints.putSystemDefault(Hints.EXECUTOR_SERVICE, executor);
+            assertSame(executor, process.getExecutor());
+        } finally {
+            Hints.removeSystemDefault(Hints.EXECUTOR_SERVICE);
+            executor.shutdown();
+        }
+    }
+
+    private void checkIndexedMatchesSequential(SimpleFeatureCollection first,
+            SimpleFeatureCollection second) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (IntersectionMode mode : IntersectionMode.values()) {
+                // plain, with percentages, with areas, with both
+                for (int flags = 0; flags < 4; flags++) {
+                    boolean percentages = (flags & 1) != 0;
+                    boolean areas = (flags & 2) != 0;
+                    IntersectedFeatureCollection collection = new IntersectedFeatureCollection(
+                            first, null, second, null, mode, percentages, areas, null);
+                    List<SimpleFeature> expected = collect(new SequentialIntersectedFeatureIterator(
+                            first.features(), first, second, first.getSchema(),
+                            second.getSchema(), null, null, mode, percentages, areas,
+                            collection.fb));
+                    assertTrue(expected.size() > 100);
+
+                    // in the calling thread, and with batches computed in parallel
+                    assertSameFeatures(expected, collect(new IndexedIntersectedFeatureIterator(
+                            first, second, null, null, mode, percentages, areas,
+                            collection.geomType, collection.fb, null)));
+                    assertSameFeatures(expected, collect(new IndexedIntersectedFeatureIterator(
+                            first, second, null, null, mode, percentages, areas,
+                            collection.geomType, collection.fb, executor)));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void assertSameFeatures(List<SimpleFeature> expected, List<SimpleFeature> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            SimpleFeature e = expected.get(i);
+            SimpleFeature a = actual.get(i);
+            assertEquals(e.getID(), a.getID());
+            assertEquals(e.getAttribute("first_name"), a.getAttribute("first_name"));
+            assertEquals(e.getAttribute("second_name"), a.getAttribute("second_name"));
+            assertEquals(e.getAttribute("INTERSECTION_ID"), a.getAttribute("INTERSECTION_ID"));
+            for (String name : new String[] { "percentageA", "percentageB", "areaA", "areaB" }) {
+                assertEquals(name, e.getAttribute(name), a.getAttribute(name));
+            }
+            assertTrue(((Geometry) e.getDefaultGeometry()).equalsExact((Geometry) a
+                    .getDefaultGeometry()));
+        }
+    }
+
+    private List<SimpleFeature> collect(SimpleFeatureIterator iterator) {
+        List<SimpleFeature> features = new ArrayList<SimpleFeature>();
+        try {
+            while (iterator.hasNext()) {
+                features.add(iterator.next());
+            }
+        } finally {
+            iterator.close();
+        }
+        return features;
+    }
+
+    /**
+     * Creates a collection of randomly placed triangles and L shapes over a 100x100 degrees
+     * area around the origin, in WGS84
+     */
+    static SimpleFeatureCollection createShapes(String typeName, int count, double size,
+            long seed) throws Exception {
+        GeometryFactory gf = new GeometryFactory();
+        Random random = new Random(seed);
+        Geometry[] shapes = new Geometry[count];
+        for (int i = 0; i < count; i++) {
+            double x = random.nextDouble() * 100 - 50;
+            double y = random.nextDouble() * 100 - 50;
+            double t = size / 3;
+            Coordinate[] ring;
+            if (i % 2 == 0) {
+                ring = new Coordinate[] { new Coordinate(x, y), new Coordinate(x + size, y),
+                        new Coordinate(x, y + size), new Coordinate(x, y) };
+            } else {
+                ring = new Coordinate[] { new Coordinate(x, y), new Coordinate(x + size, y),
+                        new Coordinate(x + size, y + t), new Coordinate(x + t, y + t),
+                        new Coordinate(x + t, y + size), new Coordinate(x, y + size),
+                        new Coordinate(x, y) };
+            }
+            shapes[i] = gf.createPolygon(gf.createLinearRing(ring), null);
+        }
+        return createCollection(typeName, shapes);
+    }
+
+    /**
+     * Creates a collection of the given polygons, named after the type name and their index
+     */
+    static SimpleFeatureCollection createCollection(String typeName, Geometry... polygons) {
+        SimpleFeatureTypeBuilder tb = new SimpleFeatureTypeBuilder();
+        tb.setName(typeName);
+        tb.add("the_geom", Polygon.class, DefaultGeographicCRS.WGS84);
+        tb.add("name", String.class);
+        SimpleFeatureType type = tb.buildFeatureType();
+        SimpleFeatureBuilder fb = new SimpleFeatureBuilder(type);
+        DefaultFeatureCollection features = new DefaultFeatureCollection(null, type);
+        for (int i = 0; i < polygons.length; i++) {
+            fb.add(polygons[i]);
+            fb.add(typeName + i);
+            features.add(fb.buildFeature(typeName + "." + i));
+        }
+        return features;
+    }
+
+    /**
+     * Creates a collection of randomly placed squares over a 100x100 degrees area around the
+     * origin, in WGS84 so that the percentages and areas can be computed
+     */
+    static SimpleFeatureCollection createSquares(String typeName, int count, double size,
+            long seed) throws Exception {
+        SimpleFeatureTypeBuilder tb = new SimpleFeatureTypeBuilder();
+        tb.setName(typeName);
+        tb.add("the_geom", Polygon.class, DefaultGeographicCRS.WGS84);
+        tb.add("name", String.class);
+        SimpleFeatureType type = tb.buildFeatureType();
+        SimpleFeatureBuilder fb = new SimpleFeatureBuilder(type);
+        GeometryFactory gf = new GeometryFactory();
+        DefaultFeatureCollection features = new DefaultFeatureCollection(null, type);
+        Random random = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            double x = random.nextDouble() * 100 - 50;
+            double y = random.nextDouble() * 100 - 50;
+            fb.add(gf.toGeometry(new Envelope(x, x + size, y, y + size)));
+            fb.add(typeName + i);
+            features.add(fb.buildFeature(typeName + "." + i));
+        }
+        return features;
+    }
 }
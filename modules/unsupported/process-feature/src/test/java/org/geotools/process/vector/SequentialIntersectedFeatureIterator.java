@@ -0,0 +1,279 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2013, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.process.vector;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.logging.Logger;
+
+import org.geotools.data.simple.SimpleFeatureCollection;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.process.vector.IntersectionFeatureCollection.GeometryFilterImpl;
+import org.geotools.process.vector.IntersectionFeatureCollection.IndexedIntersectedFeatureIterator;
+import org.geotools.process.vector.IntersectionFeatureCollection.IntersectionMode;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.AttributeDescriptor;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * The original {@link IntersectionFeatureCollection} iterator, querying the second collection
+ * once per feature of the first one. Kept as the reference the indexed overlay is checked and
+ * benchmarked against.
+ *
+ *
+ *
+ * @source $URL$
+ */
+class SequentialIntersectedFeatureIterator implements SimpleFeatureIterator {
+    private static final Logger logger = Logger
+            .getLogger("org.geotools.process.vector.SequentialIntersectedFeatureIterator");
+
+    SimpleFeatureIterator delegate;
+
+    SimpleFeatureCollection firstFeatures;
+
+    SimpleFeatureCollection secondFeatures;
+
+    SimpleFeatureCollection subFeatureCollection;
+
+    SimpleFeatureBuilder fb;
+
+    SimpleFeature next;
+
+    SimpleFeature first;
+
+    Integer iterationIndex = 0;
+
+    boolean complete = true;
+
+    boolean added = false;
+
+    SimpleFeatureCollection intersectedGeometries;
+
+    SimpleFeatureIterator iterator;
+
+    String dataGeomName;
+
+    List<String> retainAttributesFst = null;
+
+    List<String> retainAttributesSnd = null;
+
+    AttributeDescriptor geomType = null;
+
+    boolean percentagesEnabled;
+
+    boolean areasEnabled;
+
+    IntersectionMode intersectionMode;
+    int id=0;
+
+    public SequentialIntersectedFeatureIterator(SimpleFeatureIterator delegate,
+            SimpleFeatureCollection firstFeatures, SimpleFeatureCollection secondFeatures,
+            SimpleFeatureType firstFeatureCollectionSchema,
+            SimpleFeatureType secondFeatureCollectionSchema,
+            List<String> retainAttributesFstPar, List<String> retainAttributesSndPar,
+            IntersectionMode intersectionMode, boolean percentagesEnabled, boolean areasEnabled, 
+            SimpleFeatureBuilder sfb) {
+        this.retainAttributesFst = retainAttributesFstPar;
+        this.retainAttributesSnd = retainAttributesSndPar;
+        this.delegate = delegate;
+        this.firstFeatures = firstFeatures;
+        this.secondFeatures = secondFeatures;
+        this.percentagesEnabled = percentagesEnabled;
+        this.areasEnabled = areasEnabled;
+        this.intersectionMode = intersectionMode;
+
+        logger.fine("Creating schema");
+        // create the geometry attribute descriptor for the result
+  //          SimpleFeatureTypeBuilder tb = new SimpleFeatureTypeBuilder();
+        if (intersectionMode == IntersectionMode.FIRST) {
+            geomType = firstFeatureCollectionSchema.getGeometryDescriptor();
+        }
+        if (intersectionMode == IntersectionMode.SECOND) {
+            geomType = secondFeatureCollectionSchema.getGeometryDescriptor();
+        }
+        if (intersectionMode == IntersectionMode.INTERSECTION) {
+            geomType = IntersectionFeatureCollection.getIntersectionType(firstFeatures,
+                    secondFeatures);
+        }
+
+        this.fb = sfb;
+        subFeatureCollection = this.secondFeatures;
+
+        this.dataGeomName = this.firstFeatures.getSchema().getGeometryDescriptor()
+                .getLocalName();
+        logger.fine("Schema created");
+    }
+
+
+    public void close() {
+        delegate.close();
+    }
+
+    public boolean hasNext() {
+     //   logger.info("qui");
+        logger.finer("HAS NEXT");
+        while ((next == null && delegate.hasNext()) || (next == null && added)) {
+                   //     logger.info("qui nel while");
+            if (complete) {
+                first = delegate.next();
+                intersectedGeometries = null;
+            }
+                     //               logger.info("qui dopo check if (complete)");
+            //logger.finer("control HAS NEXT");
+            for (Object attribute : first.getAttributes()) {
+                if (attribute instanceof Geometry
+                        && attribute.equals(first.getDefaultGeometry())) {
+                    Geometry currentGeom = (Geometry) attribute;
+
+                    if (intersectedGeometries == null && !added) {
+                        intersectedGeometries = filteredCollection(currentGeom,
+                                subFeatureCollection);
+                        iterator = intersectedGeometries.features();
+                    }
+                    try {
+                        while (iterator.hasNext()) {
+                            added = false;
+                            SimpleFeature second = iterator.next();
+                            if (currentGeom.getEnvelope().intersects(
+                                    ((Geometry) second.getDefaultGeometry()))) {
+                                // compute geometry
+                                if (intersectionMode == IntersectionMode.INTERSECTION) {
+                                    attribute = currentGeom.intersection((Geometry) second
+                                            .getDefaultGeometry());
+
+                                    GeometryFilterImpl filter = new GeometryFilterImpl(geomType
+                                            .getType().getBinding());
+                                    ((Geometry) attribute).apply(filter);
+                                    attribute = filter.getGeometry();
+                                } else if (intersectionMode == IntersectionMode.FIRST) {
+                                    attribute = currentGeom;
+                                } else if (intersectionMode == IntersectionMode.SECOND) {
+                                    attribute = (Geometry) second.getDefaultGeometry();
+                                }
+                                if (((Geometry) attribute).getNumGeometries() > 0) {
+                                    fb.add(attribute);
+                                    fb.set("INTERSECTION_ID", id++);
+                                    // add the non geometric attributes
+                                    IndexedIntersectedFeatureIterator.addAttributeValues(first,
+                                            retainAttributesFst, fb);
+                                    IndexedIntersectedFeatureIterator.addAttributeValues(second,
+                                            retainAttributesSnd, fb);
+                                    // add the dynamic attributes
+                                    if (percentagesEnabled) {
+                                        addPercentages(currentGeom, second);
+                                    }
+                                    if (areasEnabled) {
+                                        addAreas(currentGeom, second);
+                                    }
+
+                                    // build the feature
+                                    next = fb.buildFeature(iterationIndex.toString());
+
+                                    // update iterator status
+                                    if (iterator.hasNext()) {
+                                        complete = false;
+                                        added = true;
+                                        iterationIndex++;
+                                        return next != null;
+                                    }
+                                    iterationIndex++;
+                                }
+
+                            }
+                            complete = false;
+                        }
+                        complete = true;
+                    } finally {
+                        if (!added) {
+                            iterator.close();
+                        }
+                    }
+                }
+            }
+        }
+        return next != null;
+    }
+
+
+    
+    private void addAreas(Geometry currentGeom, SimpleFeature second) {
+        CoordinateReferenceSystem firstCRS = firstFeatures.getSchema().getCoordinateReferenceSystem();
+        CoordinateReferenceSystem secondCRS = secondFeatures.getSchema().getCoordinateReferenceSystem();
+
+        try {
+            double areaA = IntersectionFeatureCollection.reprojectAndDensify(currentGeom,
+                    firstCRS, null).getArea();
+            double areaB = IntersectionFeatureCollection.reprojectAndDensify(
+                    (Geometry) second.getDefaultGeometry(), secondCRS, null).getArea();
+            fb.set("areaA", areaA);
+            fb.set("areaB", areaB);
+        } catch (Exception e) {
+            System.out.println("" + e);
+            fb.set("areaA", -1);
+            fb.set("areaB", -1);
+        }
+    }
+
+    private void addPercentages(Geometry currentGeom, SimpleFeature second) {
+        CoordinateReferenceSystem firstCRS = firstFeatures.getSchema().getCoordinateReferenceSystem();
+
+        CoordinateReferenceSystem secondCRS = secondFeatures.getSchema().getCoordinateReferenceSystem();
+
+
+        double percentageA = IntersectionFeatureCollection.getIntersectionArea(currentGeom,
+                firstCRS, (Geometry) second.getDefaultGeometry(), secondCRS, true);
+
+        double percentageB = IntersectionFeatureCollection.getIntersectionArea(currentGeom,
+                firstCRS, (Geometry) second.getDefaultGeometry(), secondCRS, false);
+
+        fb.set("percentageA", percentageA);
+
+        fb.set("percentageB", percentageB);
+
+    }
+
+    public SimpleFeature next() throws NoSuchElementException {
+        if (!hasNext()) {
+            throw new NoSuchElementException("hasNext() returned false!");
+        }
+
+        SimpleFeature result = next;
+        next = null;
+        return result;
+    }
+
+    private SimpleFeatureCollection filteredCollection(Geometry currentGeom,
+            SimpleFeatureCollection subFeatureCollection) {
+        FilterFactory2 ff = CommonFactoryFinder.getFilterFactory2(null);
+        Filter intersectFilter = ff.intersects(ff.property(dataGeomName),
+                ff.literal(currentGeom));
+        SimpleFeatureCollection subFeatureCollectionIntersection = this.subFeatureCollection
+                .subCollection(intersectFilter);
+        if (subFeatureCollectionIntersection.size() == 0) {
+            subFeatureCollectionIntersection = subFeatureCollection;
+        }
+        return subFeatureCollectionIntersection;
+    }
+}